@@ -0,0 +1,75 @@
+package com.uzong.sliding.window.benchmark;
+
+import com.uzong.sliding.window.base.BaseSlidingWindowService;
+import com.uzong.sliding.window.dto.SlidingWindowMode;
+import com.uzong.sliding.window.dto.WindowLinThresholdPair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BaseSlidingWindowService端到端耗时，需要本地redis-server，见SlBenchmarkRedis
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(16)
+public class BaseSlidingWindowServiceBenchmark {
+
+    @Param({"LOG", "BOUNDED_LOG", "COUNTER", "LEASE", "GCRA"})
+    private SlidingWindowMode mode;
+
+    /**
+     * 键的数量，1表示所有线程竞争同一个热点键
+     */
+    @Param({"1", "1000"})
+    private int keys;
+
+    private ConfigurableApplicationContext context;
+
+    private BaseSlidingWindowService service;
+
+    private WindowLinThresholdPair pair;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SlBenchmarkRedis.start();
+        service = context.getBean(BaseSlidingWindowService.class);
+        pair = WindowLinThresholdPair.of(60, 100_000);
+        pair.setMode(mode);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        StringRedisTemplate template = context.getBean(StringRedisTemplate.class);
+        template.delete(template.keys(SlBenchmarkRedis.KEY_PREFIX + "*"));
+        context.close();
+    }
+
+    @Benchmark
+    public boolean slidingWindowCalculate() {
+        return service.slidingWindowCalculate("user:" + ThreadLocalRandom.current().nextInt(keys), pair);
+    }
+}
@@ -0,0 +1,54 @@
+package com.uzong.sliding.window.benchmark;
+
+/**
+ * 原synchronized实现的副本，仅用于与无锁实现对比
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+public class LegacySlSnowflakeIdGenerator {
+    private final static long START_TIMESTAMP = 1577836800000L;
+
+    private final static long SEQUENCE_BIT = 12;
+    private final static long MACHINE_BIT = 5;
+    private final static long DATACENTER_BIT = 5;
+
+    private final static long MAX_SEQUENCE = ~(-1L << SEQUENCE_BIT);
+
+    private final static long MACHINE_LEFT = SEQUENCE_BIT;
+    private final static long DATACENTER_LEFT = SEQUENCE_BIT + MACHINE_BIT;
+    private final static long TIMESTAMP_LEFT = DATACENTER_LEFT + DATACENTER_BIT;
+
+    private final long datacenterId;
+    private final long machineId;
+    private long sequence = 0L;
+    private long lastTimestamp = -1L;
+
+    public LegacySlSnowflakeIdGenerator(long datacenterId, long machineId) {
+        this.datacenterId = datacenterId;
+        this.machineId = machineId;
+    }
+
+    public synchronized long nextId() {
+        long currentTimestamp = System.currentTimeMillis();
+        if (currentTimestamp < lastTimestamp) {
+            throw new RuntimeException("Clock moved backwards. Refusing to generate id for " +
+                    (lastTimestamp - currentTimestamp) + " milliseconds");
+        }
+        if (currentTimestamp == lastTimestamp) {
+            sequence = (sequence + 1) & MAX_SEQUENCE;
+            if (sequence == 0L) {
+                while (currentTimestamp <= lastTimestamp) {
+                    currentTimestamp = System.currentTimeMillis();
+                }
+            }
+        } else {
+            sequence = 0L;
+        }
+        lastTimestamp = currentTimestamp;
+        return ((currentTimestamp - START_TIMESTAMP) << TIMESTAMP_LEFT)
+                | (datacenterId << DATACENTER_LEFT)
+                | (machineId << MACHINE_LEFT)
+                | sequence;
+    }
+}
@@ -0,0 +1,38 @@
+package com.uzong.sliding.window.benchmark;
+
+import com.uzong.sliding.window.config.SlidingWindowAutoConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * 基准测试使用的Spring上下文，连接本地redis-server。
+ * 地址通过系统属性指定：-Dsl.bench.redis.host=127.0.0.1 -Dsl.bench.redis.port=6379
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+public final class SlBenchmarkRedis {
+
+    public static final String KEY_PREFIX = "sl_bench:";
+
+    private SlBenchmarkRedis() {
+    }
+
+    public static ConfigurableApplicationContext start(String... properties) {
+        String[] defaults = {
+                "spring.redis.host=" + System.getProperty("sl.bench.redis.host", "127.0.0.1"),
+                "spring.redis.port=" + System.getProperty("sl.bench.redis.port", "6379"),
+                "sliding.window.key-prefix=" + KEY_PREFIX
+        };
+        String[] all = new String[defaults.length + properties.length];
+        System.arraycopy(defaults, 0, all, 0, defaults.length);
+        System.arraycopy(properties, 0, all, defaults.length, properties.length);
+        return new SpringApplicationBuilder(RedisAutoConfiguration.class, SlidingWindowAutoConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties(all)
+                .run();
+    }
+}
@@ -0,0 +1,42 @@
+package com.uzong.sliding.window.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * 按不同线程数依次运行基准测试，每个线程数的结果写入一个JSON文件，便于跨提交对比。
+ * 同时开启GC profiler(-prof gc)，结果中包含每次调用的分配量gc.alloc.rate.norm。
+ * 参数：[包含的基准测试正则，默认全部] [线程数列表，默认1,4,16,64] [结果目录，默认target/jmh]
+ * 例如：java -cp target/benchmarks.jar com.uzong.sliding.window.benchmark.SlBenchmarkRunner SlSnowflake 1,8,64
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+public class SlBenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*";
+        String threads = args.length > 1 ? args[1] : "1,4,16,64";
+        File resultDir = new File(args.length > 2 ? args[2] : "target/jmh");
+        if (!resultDir.isDirectory() && !resultDir.mkdirs()) {
+            throw new IllegalArgumentException("can not create result dir:" + resultDir);
+        }
+
+        for (String thread : threads.split(",")) {
+            int threadCount = Integer.parseInt(thread.trim());
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threadCount)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(resultDir, "threads-" + threadCount + ".json").getPath());
+            new Runner(options.build()).run();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.uzong.sliding.window.benchmark;
+
+import com.uzong.sliding.window.core.PlentifulRedisService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各脚本在不同ZSET大小下的单次调用耗时，需要本地redis-server，见SlBenchmarkRedis。
+ * 每轮迭代前把键重置为zsetSize个窗口内的事件；不拒绝的脚本在迭代中会继续写入，大小随迭代略有增长
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SlLuaScriptBenchmark {
+
+    private static final long WINDOW_LENGTH_IN_MS = 3_600_000L;
+
+    private static final String KEY = SlBenchmarkRedis.KEY_PREFIX + "script";
+
+    @Param({"0", "1000", "100000"})
+    private int zsetSize;
+
+    private ConfigurableApplicationContext context;
+
+    private PlentifulRedisService plentifulRedisService;
+
+    private StringRedisTemplate template;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SlBenchmarkRedis.start();
+        plentifulRedisService = context.getBean(PlentifulRedisService.class);
+        template = context.getBean(StringRedisTemplate.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void populate() {
+        template.delete(KEY);
+        long now = System.currentTimeMillis();
+        Set<ZSetOperations.TypedTuple<String>> batch = new HashSet<>();
+        for (int i = 0; i < zsetSize; i++) {
+            // 事件均匀分布在窗口的后半段，迭代期间不会过期
+            double score = now - (double) WINDOW_LENGTH_IN_MS / 2 * i / zsetSize;
+            batch.add(new DefaultTypedTuple<>("seed:" + i, score));
+            if (batch.size() == 1000) {
+                template.opsForZSet().add(KEY, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            template.opsForZSet().add(KEY, batch);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        template.delete(KEY);
+        context.close();
+    }
+
+    @Benchmark
+    public Boolean calculate() {
+        return plentifulRedisService.slidingWindowCalculate(KEY, System.currentTimeMillis(),
+                WINDOW_LENGTH_IN_MS, Long.MAX_VALUE, WINDOW_LENGTH_IN_MS / 1000);
+    }
+
+    @Benchmark
+    public Long calculateCount() {
+        return plentifulRedisService.slidingWindowCalculateCount(KEY, System.currentTimeMillis(),
+                WINDOW_LENGTH_IN_MS, WINDOW_LENGTH_IN_MS / 1000);
+    }
+
+    @Benchmark
+    public Long calculateUntil() {
+        return plentifulRedisService.slidingWindowCalculateUntil(KEY, System.currentTimeMillis(),
+                WINDOW_LENGTH_IN_MS, Long.MAX_VALUE, WINDOW_LENGTH_IN_MS / 1000);
+    }
+
+    /**
+     * 阈值等于ZSET大小，所有调用都被拒绝且不写入，大小保持不变
+     */
+    @Benchmark
+    public Long boundedCalculateRejected() {
+        return plentifulRedisService.boundedWindowCalculate(KEY, System.currentTimeMillis(),
+                WINDOW_LENGTH_IN_MS, (long) zsetSize);
+    }
+}
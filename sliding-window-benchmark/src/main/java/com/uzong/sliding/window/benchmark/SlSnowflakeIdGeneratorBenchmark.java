@@ -0,0 +1,47 @@
+package com.uzong.sliding.window.benchmark;
+
+import com.uzong.sliding.window.core.SlSnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ID生成器吞吐对比：synchronized实现 vs CAS打包状态实现。
+ * 默认8线程，可通过 -t 调整，例如：java -jar target/benchmarks.jar SlSnowflakeIdGeneratorBenchmark -t 32；
+ * 依次运行多个线程数见SlBenchmarkRunner
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class SlSnowflakeIdGeneratorBenchmark {
+
+    private final LegacySlSnowflakeIdGenerator legacy = new LegacySlSnowflakeIdGenerator(1, 1);
+
+    private final SlSnowflakeIdGenerator lockFree = new SlSnowflakeIdGenerator(1, 1);
+
+    @Benchmark
+    public long legacySynchronized() {
+        return legacy.nextId();
+    }
+
+    @Benchmark
+    public long lockFree() {
+        return lockFree.nextId();
+    }
+}
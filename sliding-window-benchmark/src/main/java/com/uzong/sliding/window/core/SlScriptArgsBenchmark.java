@@ -0,0 +1,85 @@
+package com.uzong.sliding.window.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 脚本参数构造与序列化耗时，对应PlentifulRedisService每次调用在发送前的本地开销。
+ * 与SlScriptArgs同包，以便访问包内可见的参数构造方法。
+ * 加上-prof gc可以对比每次调用的分配量(gc.alloc.rate.norm)
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SlScriptArgsBenchmark {
+
+    private static final long WINDOW_LENGTH_IN_MS = 60_000L;
+
+    private final SlSnowflakeIdGenerator idGenerator = new SlSnowflakeIdGenerator(1, 1);
+
+    private final RedisSerializer<String> serializer = new StringRedisSerializer();
+
+    private final String keyPrefix = "sl_:";
+
+    private final byte[] keyPrefixBytes = keyPrefix.getBytes(StandardCharsets.UTF_8);
+
+    private final String key = "benchmark:user:10086";
+
+    @Benchmark
+    public String[] logArgs() {
+        return SlScriptArgs.logArgs(System.currentTimeMillis(), WINDOW_LENGTH_IN_MS, 100, 60, idGenerator.nextId());
+    }
+
+    @Benchmark
+    public String[] counterArgs() {
+        return SlScriptArgs.counterArgs(System.currentTimeMillis(), WINDOW_LENGTH_IN_MS, 100, 10);
+    }
+
+    /**
+     * 与PlentifulRedisService的pipeline路径相同：构造参数后逐个序列化为字节数组
+     */
+    @Benchmark
+    public byte[][] logArgsSerialized() {
+        String[] args = SlScriptArgs.logArgs(System.currentTimeMillis(), WINDOW_LENGTH_IN_MS, 100, 60, idGenerator.nextId());
+        byte[][] keyAndArgs = new byte[args.length + 1][];
+        keyAndArgs[0] = serializer.serialize(keyPrefix + key);
+        for (int i = 0; i < args.length; i++) {
+            keyAndArgs[i + 1] = serializer.serialize(args[i]);
+        }
+        return keyAndArgs;
+    }
+
+    /**
+     * 与PlentifulRedisService的单键调用路径相同：前缀字节+键名与数字直接按ASCII写入对应长度的数组
+     */
+    @Benchmark
+    public byte[][] logArgsEncoded() {
+        long currentTime = System.currentTimeMillis();
+        return SlScriptArgsEncoder.logArgs(keyPrefixBytes, key, currentTime, WINDOW_LENGTH_IN_MS, 100, 60,
+                idGenerator.nextId(currentTime));
+    }
+
+    @Benchmark
+    public byte[][] counterArgsEncoded() {
+        return SlScriptArgsEncoder.counterArgs(keyPrefixBytes, key, System.currentTimeMillis(),
+                WINDOW_LENGTH_IN_MS, 100, 10);
+    }
+}
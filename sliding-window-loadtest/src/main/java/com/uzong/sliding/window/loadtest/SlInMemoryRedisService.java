@@ -0,0 +1,64 @@
+package com.uzong.sliding.window.loadtest;
+
+import com.uzong.sliding.window.core.PlentifulRedisService;
+import com.uzong.sliding.window.core.SlLocalWindowStore;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * PlentifulRedisService的进程内替身，log与counter模式的计算、计数在本地窗口上完成，不访问Redis。
+ * 用于在没有Redis时压测服务本身的开销(键拼接、指标、熔断判断等)，结果不代表Redis的吞吐；
+ * 其他模式与操作仍会访问Redis
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+public class SlInMemoryRedisService extends PlentifulRedisService {
+
+    private final SlLocalWindowStore store;
+
+    public SlInMemoryRedisService(int bucketCount, int maxKeys) {
+        this.store = new SlLocalWindowStore(bucketCount, 4, maxKeys);
+    }
+
+    @Override
+    public Boolean slidingWindowCalculate(
+            byte[] keyPrefix, String key, long currentTime, long windowLengthInMs,
+            long threshold, long expireSeconds) {
+        return addAndCount(keyPrefix, key, currentTime, windowLengthInMs) >= threshold;
+    }
+
+    @Override
+    public Long slidingWindowCalculateCount(
+            byte[] keyPrefix, String key, long currentTime, long windowLengthInMs,
+            long expireSeconds) {
+        return addAndCount(keyPrefix, key, currentTime, windowLengthInMs);
+    }
+
+    @Override
+    public Long slidingWindowCalculateUntil(
+            String key, Long currentTime, Long windowLengthInMs,
+            Long threshold, Long expireSeconds) {
+        long count = store.getWindow(key, windowLengthInMs, currentTime).addAndCount(currentTime, 1);
+        return count >= threshold ? currentTime : 0;
+    }
+
+    @Override
+    public Boolean counterWindowCalculate(
+            byte[] keyPrefix, String key, long currentTime, long windowLengthInMs,
+            long threshold, int bucketCount) {
+        return addAndCount(keyPrefix, key, currentTime, windowLengthInMs) >= threshold;
+    }
+
+    @Override
+    public Long counterWindowCalculateCount(
+            byte[] keyPrefix, String key, long currentTime, long windowLengthInMs,
+            int bucketCount) {
+        return addAndCount(keyPrefix, key, currentTime, windowLengthInMs);
+    }
+
+    private long addAndCount(byte[] keyPrefix, String key, long currentTime, long windowLengthInMs) {
+        String redisKey = new String(keyPrefix, StandardCharsets.UTF_8) + key;
+        return store.getWindow(redisKey, windowLengthInMs, currentTime).addAndCount(currentTime, 1);
+    }
+}
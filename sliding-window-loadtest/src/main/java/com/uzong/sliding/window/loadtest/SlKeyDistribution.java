@@ -0,0 +1,26 @@
+package com.uzong.sliding.window.loadtest;
+
+import java.util.Random;
+
+/**
+ * 键下标的分布，返回[0, keys)
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+@FunctionalInterface
+public interface SlKeyDistribution {
+
+    int next(Random random);
+
+    static SlKeyDistribution of(SlLoadTestOptions options) {
+        if (options.getKeys() <= 0) {
+            throw new IllegalArgumentException("keys must be positive");
+        }
+        if (options.getDistribution() == SlLoadTestOptions.Distribution.UNIFORM) {
+            int keys = options.getKeys();
+            return random -> random.nextInt(keys);
+        }
+        return new SlZipfDistribution(options.getKeys(), options.getZipfExponent());
+    }
+}
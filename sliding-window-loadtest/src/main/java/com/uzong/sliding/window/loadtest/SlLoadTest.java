@@ -0,0 +1,280 @@
+package com.uzong.sliding.window.loadtest;
+
+import com.uzong.sliding.window.SceneSlidingWindowService;
+import com.uzong.sliding.window.base.BaseSlidingWindowService;
+import com.uzong.sliding.window.config.SlidingWindowAutoConfiguration;
+import com.uzong.sliding.window.config.SlidingWindowProperties;
+import com.uzong.sliding.window.core.PlentifulRedisService;
+import com.uzong.sliding.window.dto.SlidingWindowMode;
+import com.uzong.sliding.window.dto.WindowLinThresholdPair;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.bind.BindHandler;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.handler.NoUnboundElementsBindHandler;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 滑动窗口压测：多个线程按Zipf或均匀分布选择键，调用BaseSlidingWindowService或DynamicSlidingWindowService，
+ * 输出吞吐、延迟分布(HdrHistogram)与每个键占用的Redis内存。
+ * 参数见SlLoadTestOptions，以--名称=值传入；以--sliding.、--spring.开头的参数作为Spring配置传给starter，例如
+ * java -jar sliding-window-loadtest-exec.jar --threads=64 --keys=100000 --mode=counter --sliding.window.coalescing.enabled=true
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+@Slf4j
+public class SlLoadTest {
+
+    public static final String KEY_PREFIX = "sl_load:";
+
+    private static final String SCENE = "loadtest";
+
+    private final SlLoadTestOptions options;
+
+    private final Recorder recorder = new Recorder(3);
+
+    private final LongAdder allowed = new LongAdder();
+
+    private final LongAdder denied = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private volatile boolean running = true;
+
+    private volatile boolean measuring;
+
+    public SlLoadTest(SlLoadTestOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> optionArgs = new HashMap<>();
+        List<String> contextArgs = new ArrayList<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("arguments must be --name=value, but was " + arg);
+            }
+            String name = arg.substring(2, separator);
+            if (name.startsWith("sliding.") || name.startsWith("spring.") || name.startsWith("logging.")) {
+                contextArgs.add(arg.substring(2));
+            } else {
+                optionArgs.put("load." + name, arg.substring(separator + 1));
+            }
+        }
+        SlLoadTestOptions options = new Binder(new MapConfigurationPropertySource(optionArgs))
+                .bind("load", Bindable.ofInstance(new SlLoadTestOptions()),
+                        new NoUnboundElementsBindHandler(BindHandler.DEFAULT))
+                .orElseGet(SlLoadTestOptions::new);
+        new SlLoadTest(options).run(contextArgs);
+    }
+
+    public void run(List<String> contextArgs) throws InterruptedException {
+        if (options.getRedis() == SlLoadTestOptions.Redis.MEMORY
+                && options.getMode() != SlidingWindowMode.LOG && !options.getMode().isCounterStorage()) {
+            throw new IllegalArgumentException("memory redis only supports log and counter mode, but was " + options.getMode());
+        }
+        SlKeyDistribution distribution = SlKeyDistribution.of(options);
+        SlRedisServer server = options.getRedis() == SlLoadTestOptions.Redis.SPAWN
+                ? new SlRedisServer(options.getRedisServer(), options.getPort()) : null;
+        try (ConfigurableApplicationContext context = start(server, contextArgs)) {
+            SlRedisMemoryProbe probe = options.getRedis() == SlLoadTestOptions.Redis.MEMORY
+                    ? null : new SlRedisMemoryProbe(context.getBean(StringRedisTemplate.class), KEY_PREFIX);
+            long usedMemoryBefore = 0;
+            if (probe != null) {
+                probe.clear();
+                usedMemoryBefore = probe.usedMemory();
+            }
+
+            Histogram histogram = measure(context, distribution);
+            report(histogram);
+
+            if (probe != null) {
+                report(probe.usage(usedMemoryBefore, options.getMemorySamples()));
+                if (!options.isKeepKeys()) {
+                    probe.clear();
+                }
+            }
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext start(SlRedisServer server, List<String> contextArgs) {
+        List<String> properties = new ArrayList<>();
+        properties.add("spring.redis.host=" + (server != null ? "127.0.0.1" : options.getHost()));
+        properties.add("spring.redis.port=" + (server != null ? server.getPort()
+                : options.getPort() > 0 ? options.getPort() : 6379));
+        properties.add("sliding.window.key-prefix=" + KEY_PREFIX);
+        properties.add("sliding.window.mode=" + options.getMode().name());
+        properties.add("sliding.window.local.max-keys=" + Math.max(options.getKeys(), 100000));
+        properties.add("sliding.window.scenes." + SCENE + ".window-len-in-seconds=" + options.getWindowLenInSeconds());
+        properties.add("sliding.window.scenes." + SCENE + ".threshold=" + options.getThreshold());
+        properties.add("sliding.window.scenes." + SCENE + ".mode=" + options.getMode().name());
+        // 命令行中的Spring配置放在最后，覆盖上面的默认值
+        properties.addAll(contextArgs);
+
+        List<Class<?>> sources = new ArrayList<>();
+        if (options.getRedis() == SlLoadTestOptions.Redis.MEMORY) {
+            sources.add(InMemoryRedisConfiguration.class);
+        }
+        sources.add(RedisAutoConfiguration.class);
+        sources.add(SlidingWindowAutoConfiguration.class);
+        return new SpringApplicationBuilder(sources.toArray(new Class<?>[0]))
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties(properties.toArray(new String[0]))
+                .run();
+    }
+
+    /**
+     * 预热后开始记录，每秒输出一次区间结果
+     */
+    private Histogram measure(ConfigurableApplicationContext context, SlKeyDistribution distribution)
+            throws InterruptedException {
+        Call call = call(context);
+        Thread[] threads = new Thread[options.getThreads()];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> work(call, distribution), "sl-load-" + i);
+            threads[i].start();
+        }
+        System.out.println("===== sliding window load test: " + options);
+        try {
+            TimeUnit.SECONDS.sleep(options.getWarmupSeconds());
+            recorder.reset();
+            allowed.reset();
+            denied.reset();
+            errors.reset();
+            measuring = true;
+
+            Histogram total = new Histogram(3);
+            Histogram interval = null;
+            long start = System.nanoTime();
+            for (int second = 1; second <= options.getDurationSeconds(); second++) {
+                TimeUnit.NANOSECONDS.sleep(start + TimeUnit.SECONDS.toNanos(second) - System.nanoTime());
+                interval = recorder.getIntervalHistogram(interval);
+                total.add(interval);
+                System.out.printf("[%4ds] ops/s=%-10d p50=%-8.1f p99=%-8.1f p99.9=%-8.1f max=%.1f (us)%n", second,
+                        interval.getTotalCount(), micros(interval.getValueAtPercentile(50)),
+                        micros(interval.getValueAtPercentile(99)), micros(interval.getValueAtPercentile(99.9)),
+                        micros(interval.getMaxValue()));
+            }
+            return total;
+        } finally {
+            running = false;
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+    }
+
+    private void work(Call call, SlKeyDistribution distribution) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running) {
+            String key = "user:" + distribution.next(random);
+            long start = System.nanoTime();
+            try {
+                boolean overLimit = call.overLimit(key);
+                if (measuring) {
+                    recorder.recordValue(System.nanoTime() - start);
+                    (overLimit ? denied : allowed).increment();
+                }
+            } catch (RuntimeException e) {
+                if (measuring) {
+                    errors.increment();
+                }
+                if (errors.sum() == 1) {
+                    log.warn("===>>> load test call failed, key:{}", key, e);
+                }
+            }
+        }
+    }
+
+    private Call call(ConfigurableApplicationContext context) {
+        long threshold = options.getThreshold();
+        boolean count = options.getOperation() == SlLoadTestOptions.Operation.COUNT;
+        if (options.getTarget() == SlLoadTestOptions.Target.SCENE) {
+            SceneSlidingWindowService service = context.getBean(SceneSlidingWindowService.class);
+            return count
+                    ? key -> service.slidingWindowCalculateCount(key, SCENE) >= threshold
+                    : key -> service.slidingWindowCalculate(key, SCENE);
+        }
+        BaseSlidingWindowService service = context.getBean(BaseSlidingWindowService.class);
+        WindowLinThresholdPair pair = WindowLinThresholdPair.of(options.getWindowLenInSeconds(), threshold);
+        pair.setMode(options.getMode());
+        return count
+                ? key -> service.slidingWindowCalculateCount(key, pair) >= threshold
+                : key -> service.slidingWindowCalculate(key, pair);
+    }
+
+    private void report(Histogram histogram) {
+        long calls = allowed.sum() + denied.sum();
+        System.out.println("===== result");
+        System.out.printf("throughput: %.0f ops/s, calls=%d, allowed=%d, denied=%d (%.2f%%), errors=%d%n",
+                (double) histogram.getTotalCount() / options.getDurationSeconds(), calls, allowed.sum(), denied.sum(),
+                calls == 0 ? 0 : denied.sum() * 100.0 / calls, errors.sum());
+        System.out.printf("latency(us): mean=%.1f p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f p99.99=%.1f max=%.1f%n",
+                histogram.getMean() / 1000, micros(histogram.getValueAtPercentile(50)),
+                micros(histogram.getValueAtPercentile(90)), micros(histogram.getValueAtPercentile(99)),
+                micros(histogram.getValueAtPercentile(99.9)), micros(histogram.getValueAtPercentile(99.99)),
+                micros(histogram.getMaxValue()));
+        if (options.getHistogramFile() != null) {
+            try (PrintStream out = new PrintStream(options.getHistogramFile())) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            } catch (FileNotFoundException e) {
+                log.warn("===>>> can not write histogram, file:{}", options.getHistogramFile(), e);
+            }
+        }
+    }
+
+    private static void report(SlRedisMemoryProbe.Usage usage) {
+        System.out.printf("redis: keys=%d, used_memory delta=%d bytes (%.1f per key), "
+                        + "sampled %d keys: memory usage=%.1f bytes/key, elements=%.1f/key%n",
+                usage.getKeys(), usage.getUsedMemoryDelta(), usage.usedMemoryPerKey(),
+                usage.getSamples(), usage.bytesPerKey(), usage.elementsPerKey());
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+
+    @FunctionalInterface
+    private interface Call {
+
+        boolean overLimit(String key);
+    }
+
+    /**
+     * 使用进程内替身代替Redis，需要在自动配置之前注册
+     */
+    @Configuration
+    static class InMemoryRedisConfiguration {
+
+        @Bean
+        public PlentifulRedisService plentifulRedisService(SlidingWindowProperties properties) {
+            return new SlInMemoryRedisService(properties.getBucketCount(), properties.getLocal().getMaxKeys());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.uzong.sliding.window.loadtest;
+
+import com.uzong.sliding.window.dto.SlidingWindowMode;
+import lombok.Data;
+
+/**
+ * 压测参数，命令行以--名称=值传入，名称使用短横线格式，如--zipf-exponent=1.2
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+@Data
+public class SlLoadTestOptions {
+
+    /**
+     * 压测对象：base直接调用BaseSlidingWindowService，scene通过DynamicSlidingWindowService按场景调用
+     */
+    private Target target = Target.BASE;
+
+    /**
+     * 调用的操作：calculate判断是否达到阈值，count返回窗口内事件数
+     */
+    private Operation operation = Operation.CALCULATE;
+
+    /**
+     * 存储模式
+     */
+    private SlidingWindowMode mode = SlidingWindowMode.LOG;
+
+    /**
+     * 键的分布：zipf少数键占大部分调用，uniform每个键概率相同
+     */
+    private Distribution distribution = Distribution.ZIPF;
+
+    /**
+     * 键的数量
+     */
+    private int keys = 10000;
+
+    /**
+     * Zipf分布的指数，越大调用越集中在少数键上
+     */
+    private double zipfExponent = 1.0;
+
+    /**
+     * 调用线程数
+     */
+    private int threads = 16;
+
+    /**
+     * 预热时间(s)，预热期间的调用不计入结果
+     */
+    private int warmupSeconds = 5;
+
+    /**
+     * 压测时间(s)
+     */
+    private int durationSeconds = 30;
+
+    /**
+     * 窗口长度(s)，与阈值一起决定log模式下每个键ZSET的大小
+     */
+    private long windowLenInSeconds = 60;
+
+    /**
+     * 阈值
+     */
+    private long threshold = 100;
+
+    /**
+     * Redis：spawn启动本地redis-server，external连接已有实例，memory使用进程内的替身(只支持log、counter模式)
+     */
+    private Redis redis = Redis.SPAWN;
+
+    /**
+     * redis-server可执行文件，redis为spawn时使用
+     */
+    private String redisServer = "redis-server";
+
+    /**
+     * Redis地址，redis为external时使用
+     */
+    private String host = "127.0.0.1";
+
+    /**
+     * Redis端口，0表示external时使用6379、spawn时随机选择空闲端口
+     */
+    private int port = 0;
+
+    /**
+     * 统计内存时抽样的键数量
+     */
+    private int memorySamples = 1000;
+
+    /**
+     * 结束后是否保留压测写入的键
+     */
+    private boolean keepKeys = false;
+
+    /**
+     * 延迟直方图输出文件(.hgrm)，为空时不输出
+     */
+    private String histogramFile;
+
+    public enum Target {
+        BASE, SCENE
+    }
+
+    public enum Operation {
+        CALCULATE, COUNT
+    }
+
+    public enum Distribution {
+        ZIPF, UNIFORM
+    }
+
+    public enum Redis {
+        SPAWN, EXTERNAL, MEMORY
+    }
+}
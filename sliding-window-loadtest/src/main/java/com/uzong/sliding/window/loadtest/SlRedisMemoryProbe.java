@@ -0,0 +1,146 @@
+package com.uzong.sliding.window.loadtest;
+
+import lombok.Data;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 统计压测写入的键占用的Redis内存：INFO memory的used_memory差值，以及抽样键的MEMORY USAGE与元素数量。
+ * 只通过SCAN遍历指定前缀的键，可以在共用的Redis上使用
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+public class SlRedisMemoryProbe {
+
+    private static final byte[] MEMORY = "MEMORY".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] USAGE = "USAGE".getBytes(StandardCharsets.US_ASCII);
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final String keyPrefix;
+
+    public SlRedisMemoryProbe(StringRedisTemplate redisTemplate, String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+    }
+
+    public long usedMemory() {
+        Properties info = redisTemplate.execute((RedisCallback<Properties>) connection ->
+                connection.serverCommands().info("memory"));
+        return Long.parseLong(info.getProperty("used_memory", "0"));
+    }
+
+    /**
+     * 遍历前缀下的所有键，抽样统计
+     *
+     * @param samples 最多抽样的键数量
+     */
+    public Usage usage(long usedMemoryBefore, int samples) {
+        return redisTemplate.execute((RedisCallback<Usage>) connection -> {
+            Usage usage = new Usage();
+            List<byte[]> sampled = new ArrayList<>(samples);
+            try (Cursor<byte[]> cursor = scan(connection)) {
+                while (cursor.hasNext()) {
+                    byte[] key = cursor.next();
+                    usage.keys++;
+                    if (sampled.size() < samples) {
+                        sampled.add(key);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            for (byte[] key : sampled) {
+                Object bytes = connection.execute(new String(MEMORY, StandardCharsets.US_ASCII), USAGE, key);
+                usage.sampledBytes += bytes instanceof Number ? ((Number) bytes).longValue() : 0;
+                usage.sampledElements += elements(connection, key);
+            }
+            usage.samples = sampled.size();
+            usage.usedMemoryDelta = Long.parseLong(connection.serverCommands().info("memory")
+                    .getProperty("used_memory", "0")) - usedMemoryBefore;
+            return usage;
+        });
+    }
+
+    /**
+     * 删除前缀下的所有键
+     */
+    public long clear() {
+        return redisTemplate.execute((RedisCallback<Long>) connection -> {
+            long deleted = 0;
+            List<byte[]> batch = new ArrayList<>(1000);
+            try (Cursor<byte[]> cursor = scan(connection)) {
+                while (cursor.hasNext()) {
+                    batch.add(cursor.next());
+                    if (batch.size() == 1000) {
+                        deleted += connection.keyCommands().del(batch.toArray(new byte[0][]));
+                        batch.clear();
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (!batch.isEmpty()) {
+                deleted += connection.keyCommands().del(batch.toArray(new byte[0][]));
+            }
+            return deleted;
+        });
+    }
+
+    private Cursor<byte[]> scan(RedisConnection connection) {
+        return connection.keyCommands().scan(ScanOptions.scanOptions().match(keyPrefix + "*").count(1000).build());
+    }
+
+    private static long elements(RedisConnection connection, byte[] key) {
+        DataType type = connection.keyCommands().type(key);
+        if (type == DataType.ZSET) {
+            return connection.zSetCommands().zCard(key);
+        }
+        if (type == DataType.HASH) {
+            return connection.hashCommands().hLen(key);
+        }
+        return type == DataType.NONE ? 0 : 1;
+    }
+
+    /**
+     * 内存统计结果
+     */
+    @Data
+    public static class Usage {
+
+        private long keys;
+
+        private long usedMemoryDelta;
+
+        private int samples;
+
+        private long sampledBytes;
+
+        private long sampledElements;
+
+        public double bytesPerKey() {
+            return samples == 0 ? 0 : (double) sampledBytes / samples;
+        }
+
+        public double elementsPerKey() {
+            return samples == 0 ? 0 : (double) sampledElements / samples;
+        }
+
+        public double usedMemoryPerKey() {
+            return keys == 0 ? 0 : (double) usedMemoryDelta / keys;
+        }
+    }
+}
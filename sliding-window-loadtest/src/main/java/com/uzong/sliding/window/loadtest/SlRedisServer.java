@@ -0,0 +1,99 @@
+package com.uzong.sliding.window.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测期间启动的本地redis-server，不持久化，关闭时结束进程
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+@Slf4j
+public class SlRedisServer implements Closeable {
+
+    private static final long STARTUP_TIMEOUT_IN_MS = 10000;
+
+    private final Process process;
+
+    private final int port;
+
+    /**
+     * @param executable redis-server可执行文件
+     * @param port       端口，0表示随机选择空闲端口
+     */
+    public SlRedisServer(String executable, int port) {
+        this.port = port > 0 ? port : freePort();
+        try {
+            this.process = new ProcessBuilder(executable, "--port", Integer.toString(this.port),
+                    "--bind", "127.0.0.1", "--save", "", "--appendonly", "no")
+                    .redirectErrorStream(true)
+                    .redirectOutput(new File(System.getProperty("java.io.tmpdir"), "sl-loadtest-redis-" + this.port + ".log"))
+                    .start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("can not start " + executable
+                    + ", install redis-server or use --redis=external/--redis=memory", e);
+        }
+        awaitStarted();
+        log.info("===>>> redis-server started, port:{}", this.port);
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    @Override
+    public void close() {
+        process.destroy();
+        try {
+            if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+        }
+    }
+
+    private void awaitStarted() {
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_IN_MS;
+        while (System.currentTimeMillis() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("redis-server exited with " + process.exitValue());
+            }
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("127.0.0.1", port), 100);
+                return;
+            } catch (IOException e) {
+                sleep();
+            }
+        }
+        close();
+        throw new IllegalStateException("redis-server did not start in " + STARTUP_TIMEOUT_IN_MS + "ms, port:" + port);
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.uzong.sliding.window.loadtest;
+
+import java.util.Random;
+
+/**
+ * Zipf分布：第k个键(从1开始)的概率与1/k^exponent成正比。
+ * 使用拒绝-反演采样(Hörmann &amp; Derflinger)，每次采样平均不到两次尝试，内存与键数量无关
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+public class SlZipfDistribution implements SlKeyDistribution {
+
+    private final int keys;
+
+    private final double exponent;
+
+    private final double hIntegralX1;
+
+    private final double hIntegralKeys;
+
+    private final double s;
+
+    public SlZipfDistribution(int keys, double exponent) {
+        if (keys <= 0) {
+            throw new IllegalArgumentException("keys must be positive");
+        }
+        if (exponent <= 0) {
+            throw new IllegalArgumentException("exponent must be positive, but was " + exponent);
+        }
+        this.keys = keys;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1;
+        this.hIntegralKeys = hIntegral(keys + 0.5);
+        this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    @Override
+    public int next(Random random) {
+        for (; ; ) {
+            double u = hIntegralKeys + random.nextDouble() * (hIntegralX1 - hIntegralKeys);
+            double x = hIntegralInverse(u);
+            int k = (int) (x + 0.5);
+            if (k < 1) {
+                k = 1;
+            } else if (k > keys) {
+                k = keys;
+            }
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                return k - 1;
+            }
+        }
+    }
+
+    /**
+     * h(x) = 1/x^exponent的积分
+     */
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return helper2((1 - exponent) * logX) * logX;
+    }
+
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = x * (1 - exponent);
+        if (t < -1) {
+            t = -1;
+        }
+        return Math.exp(helper1(t) * x);
+    }
+
+    /**
+     * log(1 + x) / x，x接近0时按泰勒展开计算
+     */
+    private static double helper1(double x) {
+        return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+    }
+
+    /**
+     * (exp(x) - 1) / x，x接近0时按泰勒展开计算
+     */
+    private static double helper2(double x) {
+        return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+    }
+}
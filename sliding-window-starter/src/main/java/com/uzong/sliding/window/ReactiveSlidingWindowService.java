@@ -0,0 +1,75 @@
+package com.uzong.sliding.window;
+
+import com.uzong.sliding.window.dto.WindowLinThresholdPair;
+import reactor.core.publisher.Mono;
+
+/**
+ * 滑动窗口服务的响应式版本，适用于WebFlux、Netty等事件循环线程模型
+ * @author sky
+ * @since 2026/10/18
+ */
+public interface ReactiveSlidingWindowService {
+
+    /**
+     * 使用滑动窗口算法计算指定键在给定时间窗口内的事件发生次数，并与阈值进行比较
+     *
+     * @param key 事件的唯一标识符
+     * @param windowLenInSeconds 时间窗口的长度，以秒为单位
+     * @param threshold 事件发生的阈值次数
+     * @return 如果事件发生次数超过阈值，则发出true；否则发出false
+     */
+    Mono<Boolean> slidingWindowCalculate(String key, long windowLenInSeconds, long threshold);
+
+    /**
+     * 使用滑动窗口算法计算指定键在给定时间窗口内的事件发生次数，并与阈值进行比较
+     * 同时执行清理操作，以释放不必要的资源
+     *
+     * @param key 事件的唯一标识符
+     * @param windowLenInSeconds 时间窗口的长度，以秒为单位
+     * @param threshold 事件发生的阈值次数
+     * @return 如果事件发生次数超过阈值，则发出true；否则发出false
+     */
+    Mono<Boolean> slidingWindowCalculateAndCleanUp(String key, long windowLenInSeconds, long threshold);
+
+    /**
+     * 使用滑动窗口算法计算指定键在给定时间窗口内的事件发生次数
+     *
+     * @param key 事件的唯一标识符
+     * @param windowLenInSeconds 时间窗口的长度，以秒为单位
+     * @return 发出事件发生次数
+     */
+    Mono<Long> slidingWindowCalculateCount(String key, long windowLenInSeconds);
+
+    /**
+     * 按窗口配置计算，配置中的存储模式由实现决定是否支持，不支持时按默认方式计算
+     *
+     * @param key 事件的唯一标识符
+     * @param pair 窗口配置
+     * @return 如果事件发生次数超过阈值，则发出true；否则发出false
+     */
+    default Mono<Boolean> slidingWindowCalculate(String key, WindowLinThresholdPair pair) {
+        return slidingWindowCalculate(key, pair.getWindowLenInSeconds(), pair.getThreshold());
+    }
+
+    /**
+     * 按窗口配置计算并清理，配置中的存储模式由实现决定是否支持，不支持时按默认方式计算
+     *
+     * @param key 事件的唯一标识符
+     * @param pair 窗口配置
+     * @return 如果事件发生次数超过阈值，则发出true；否则发出false
+     */
+    default Mono<Boolean> slidingWindowCalculateAndCleanUp(String key, WindowLinThresholdPair pair) {
+        return slidingWindowCalculateAndCleanUp(key, pair.getWindowLenInSeconds(), pair.getThreshold());
+    }
+
+    /**
+     * 按窗口配置计数，配置中的存储模式由实现决定是否支持，不支持时按默认方式计算
+     *
+     * @param key 事件的唯一标识符
+     * @param pair 窗口配置，阈值不参与计算
+     * @return 发出事件发生次数
+     */
+    default Mono<Long> slidingWindowCalculateCount(String key, WindowLinThresholdPair pair) {
+        return slidingWindowCalculateCount(key, pair.getWindowLenInSeconds());
+    }
+}
@@ -1,7 +1,11 @@
 package com.uzong.sliding.window;
 
+import com.uzong.sliding.window.dto.SlidingWindowScene;
 import com.uzong.sliding.window.dto.WindowLinThresholdPair;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * @author sky
  * @since 2025/7/20
@@ -9,4 +13,20 @@ import com.uzong.sliding.window.dto.WindowLinThresholdPair;
 public interface SceneConfigService {
 
     WindowLinThresholdPair getSceneConfig(String scene);
+
+    /**
+     * 获取场景的多窗口配置，默认只有单个窗口
+     */
+    default List<WindowLinThresholdPair> getSceneConfigs(String scene) {
+        WindowLinThresholdPair pair = getSceneConfig(scene);
+        return pair == null ? null : Collections.singletonList(pair);
+    }
+
+    /**
+     * 获取场景配置，默认每次根据getSceneConfigs构造，键不加场景前缀
+     */
+    default SlidingWindowScene getScene(String scene) {
+        List<WindowLinThresholdPair> pairs = getSceneConfigs(scene);
+        return pairs == null || pairs.isEmpty() ? null : new SlidingWindowScene(scene, "", pairs);
+    }
 }
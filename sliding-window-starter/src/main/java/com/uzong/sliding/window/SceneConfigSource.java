@@ -0,0 +1,21 @@
+package com.uzong.sliding.window;
+
+import com.uzong.sliding.window.dto.WindowLinThresholdPair;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 场景配置来源，例如数据库或配置中心。
+ * 只在场景注册表刷新时调用，不在请求路径上调用；同名场景覆盖sliding.window.scenes中的配置
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+public interface SceneConfigSource {
+
+    /**
+     * @return 场景名到窗口配置的映射，多个窗口时第一个为主窗口
+     */
+    Map<String, List<WindowLinThresholdPair>> loadScenes();
+}
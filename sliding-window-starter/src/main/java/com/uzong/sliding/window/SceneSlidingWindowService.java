@@ -1,5 +1,7 @@
 package com.uzong.sliding.window;
 
+import com.uzong.sliding.window.dto.SlidingWindowDecision;
+
 /**
  * @author sky,内置一些场景
  * @since 2025/7/20
@@ -23,6 +25,27 @@ public interface SceneSlidingWindowService {
      */
     boolean slidingWindowCalculateAndCleanUp(String key, String scene);
 
+    /**
+     * 按场景配置计算，超过阈值时同时给出需要等待的时间，默认实现不给出等待时间
+     *
+     * @param key 事件的唯一标识符
+     * @return 判断结果
+     */
+    default SlidingWindowDecision slidingWindowDecide(String key, String scene) {
+        return SlidingWindowDecision.of(slidingWindowCalculate(key, scene));
+    }
+
+    /**
+     * 按场景配置一次获取多个许可，获取失败时不记录；默认不支持
+     *
+     * @param key 事件的唯一标识符
+     * @param permits 许可数，大于0且小于阈值，GCRA模式下不超过突发容量
+     * @return 获取成功返回true，否则返回false
+     */
+    default boolean slidingWindowAcquire(String key, long permits, String scene) {
+        throw new UnsupportedOperationException("acquire is not supported by " + getClass().getSimpleName());
+    }
+
     /**
      * 使用滑动窗口算法计算指定键在给定时间窗口内的事件发生次数
      *
@@ -30,4 +53,15 @@ public interface SceneSlidingWindowService {
      * @return 返回事件发生次数
      */
     long slidingWindowCalculateCount(String key, String scene);
+
+    /**
+     * 记录一次事件，并同时检查场景配置的所有窗口。
+     * 默认实现只检查单个窗口，与SceneConfigService.getSceneConfigs的默认实现一致
+     *
+     * @param key 事件的唯一标识符
+     * @return 第一个达到阈值的窗口在场景配置中的下标，都未达到时返回-1
+     */
+    default int slidingWindowCalculateMulti(String key, String scene) {
+        return slidingWindowCalculate(key, scene) ? 0 : -1;
+    }
 }
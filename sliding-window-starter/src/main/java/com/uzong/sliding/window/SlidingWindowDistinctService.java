@@ -0,0 +1,33 @@
+package com.uzong.sliding.window;
+
+/**
+ * 窗口内近似去重计数，基于Redis HyperLogLog，由BaseSlidingWindowService实现；
+ * 本地与映射文件引擎不提供该接口
+ * @author sky
+ * @since 2026/10/18
+ */
+public interface SlidingWindowDistinctService {
+
+    /**
+     * 记录一个成员，并返回窗口内的近似去重数，如"最近10分钟内同一IP登录过的不同用户数"
+     *
+     * @param key 统计对象的唯一标识符
+     * @param member 需要去重的成员
+     * @param windowLenInSeconds 时间窗口的长度，以秒为单位
+     * @return 窗口内的近似去重数(包含本次成员)
+     */
+    long slidingWindowDistinctCount(String key, String member, long windowLenInSeconds);
+
+    /**
+     * 记录一个成员，并判断窗口内的近似去重数是否达到阈值
+     *
+     * @param key 统计对象的唯一标识符
+     * @param member 需要去重的成员
+     * @param windowLenInSeconds 时间窗口的长度，以秒为单位
+     * @param threshold 去重数阈值
+     * @return 如果去重数达到阈值，则返回true；否则返回false
+     */
+    default boolean slidingWindowDistinctCalculate(String key, String member, long windowLenInSeconds, long threshold) {
+        return slidingWindowDistinctCount(key, member, windowLenInSeconds) >= threshold;
+    }
+}
@@ -1,5 +1,12 @@
 package com.uzong.sliding.window;
 
+import com.uzong.sliding.window.dto.SlidingWindowDecision;
+import com.uzong.sliding.window.dto.SlidingWindowRequest;
+import com.uzong.sliding.window.dto.WindowLinThresholdPair;
+
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 接口定义了滑动窗口算法的服务，用于在特定时间窗口内统计和限制事件的发生次数
  * @author sky
@@ -35,4 +42,112 @@ public interface SlidingWindowService {
      * @return 返回事件发生次数
      */
     long slidingWindowCalculateCount(String key, long windowLenInSeconds);
+
+    /**
+     * 按窗口配置计算，配置中的存储模式由实现决定是否支持，不支持时按默认方式计算
+     *
+     * @param key 事件的唯一标识符
+     * @param pair 窗口配置
+     * @return 如果事件发生次数超过阈值，则返回true；否则返回false
+     */
+    default boolean slidingWindowCalculate(String key, WindowLinThresholdPair pair) {
+        return slidingWindowCalculate(key, pair.getWindowLenInSeconds(), pair.getThreshold());
+    }
+
+    /**
+     * 按窗口配置计算并清理，配置中的存储模式由实现决定是否支持，不支持时按默认方式计算
+     *
+     * @param key 事件的唯一标识符
+     * @param pair 窗口配置
+     * @return 如果事件发生次数超过阈值，则返回true；否则返回false
+     */
+    default boolean slidingWindowCalculateAndCleanUp(String key, WindowLinThresholdPair pair) {
+        return slidingWindowCalculateAndCleanUp(key, pair.getWindowLenInSeconds(), pair.getThreshold());
+    }
+
+    /**
+     * 按窗口配置计算，超过阈值时同时给出需要等待的时间，默认实现不给出等待时间
+     *
+     * @param key 事件的唯一标识符
+     * @param pair 窗口配置
+     * @return 判断结果
+     */
+    default SlidingWindowDecision slidingWindowDecide(String key, WindowLinThresholdPair pair) {
+        return SlidingWindowDecision.of(slidingWindowCalculate(key, pair));
+    }
+
+    /**
+     * 按窗口配置计数，配置中的存储模式由实现决定是否支持，不支持时按默认方式计算
+     *
+     * @param key 事件的唯一标识符
+     * @param pair 窗口配置，阈值不参与计算
+     * @return 返回事件发生次数
+     */
+    default long slidingWindowCalculateCount(String key, WindowLinThresholdPair pair) {
+        return slidingWindowCalculateCount(key, pair.getWindowLenInSeconds());
+    }
+
+    /**
+     * 一次获取多个许可，如批量导出、批量发送等按数量计费的操作。
+     * 记录后窗口内许可数达到阈值时获取失败，permits为1时与slidingWindowCalculate的判断相同；获取失败时不记录。
+     * 与同一个键上的slidingWindowCalculate是否共用额度取决于存储模式：
+     * COUNTER、LEASE与GCRA共用同一份额度；LOG与BOUNDED_LOG的许可记录在独立的键上，
+     * 两者各自计算额度，许可也不计入slidingWindowCalculateCount
+     *
+     * @param key 事件的唯一标识符
+     * @param permits 许可数，大于0且小于阈值，GCRA模式下不超过突发容量
+     * @param windowLenInSeconds 时间窗口的长度，以秒为单位
+     * @param threshold 许可数阈值
+     * @return 获取成功返回true，否则返回false
+     */
+    default boolean slidingWindowAcquire(String key, long permits, long windowLenInSeconds, long threshold) {
+        return slidingWindowAcquire(key, permits, WindowLinThresholdPair.of(windowLenInSeconds, threshold));
+    }
+
+    /**
+     * 按窗口配置一次获取多个许可，与同一个键上的计算是否共用额度见上一个方法；默认不支持
+     *
+     * @param key 事件的唯一标识符
+     * @param permits 许可数，大于0且小于阈值，GCRA模式下不超过突发容量
+     * @param pair 窗口配置
+     * @return 获取成功返回true，否则返回false
+     */
+    default boolean slidingWindowAcquire(String key, long permits, WindowLinThresholdPair pair) {
+        throw new UnsupportedOperationException("acquire is not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * 批量计算多个键，结果顺序与请求顺序一致
+     *
+     * @param requests 请求列表
+     * @return 每个请求是否超过阈值
+     */
+    default List<Boolean> slidingWindowCalculateBatch(List<SlidingWindowRequest> requests) {
+        List<Boolean> results = new ArrayList<>(requests.size());
+        for (SlidingWindowRequest request : requests) {
+            WindowLinThresholdPair pair = WindowLinThresholdPair.of(request.getWindowLenInSeconds(), request.getThreshold());
+            pair.setMode(request.getMode());
+            results.add(slidingWindowCalculate(request.getKey(), pair));
+        }
+        return results;
+    }
+
+    /**
+     * 记录一次事件，并同时检查多个窗口，如"每秒10次且每分钟100次且每小时1000次"
+     * 默认实现按配置在列表中的下标拆分为多个键("key#下标")分别计算，窗口长度相同、阈值或模式不同的配置各自计数
+     *
+     * @param key 事件的唯一标识符
+     * @param pairs 窗口配置列表
+     * @return 第一个达到阈值的窗口在列表中的下标，都未达到时返回-1
+     */
+    default int slidingWindowCalculateMulti(String key, List<WindowLinThresholdPair> pairs) {
+        int tripped = -1;
+        for (int i = 0; i < pairs.size(); i++) {
+            WindowLinThresholdPair pair = pairs.get(i);
+            if (slidingWindowCalculate(key + "#" + i, pair) && tripped < 0) {
+                tripped = i;
+            }
+        }
+        return tripped;
+    }
 }
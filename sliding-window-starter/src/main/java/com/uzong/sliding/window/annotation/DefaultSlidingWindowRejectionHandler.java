@@ -0,0 +1,17 @@
+package com.uzong.sliding.window.annotation;
+
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * 默认拒绝处理，抛出SlidingWindowLimitException
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+public class DefaultSlidingWindowRejectionHandler implements SlidingWindowRejectionHandler {
+
+    @Override
+    public Object onRejected(MethodInvocation invocation, String key) {
+        throw new SlidingWindowLimitException(key);
+    }
+}
@@ -0,0 +1,56 @@
+package com.uzong.sliding.window.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 方法级限流，调用前按键做一次滑动窗口判断，超过阈值时交给拒绝处理器，不再调用方法。
+ * 按场景或窗口+阈值二选一配置；键表达式在启动创建代理时解析编译，请求路径上只做求值
+ *
+ * <pre>
+ * &#64;SlidingWindowLimit(key = "'login:' + #userId", window = 60, threshold = 5)
+ * public Result login(String userId, String password)
+ * </pre>
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SlidingWindowLimit {
+
+    /**
+     * 键的SpEL表达式，可以引用参数(#参数名、#p0)和Bean(&#64;beanName)，引用不存在的变量时启动失败；
+     * 为空时使用"类名.方法名"，即该方法的所有调用共用一个窗口
+     */
+    String key() default "";
+
+    /**
+     * 场景名，配置后使用场景的窗口与阈值，不能同时配置window/threshold
+     */
+    String scene() default "";
+
+    /**
+     * 窗口大小(秒)
+     */
+    long window() default 0;
+
+    /**
+     * 阈值
+     */
+    long threshold() default 0;
+
+    /**
+     * 每次调用占用的许可数，大于1时按slidingWindowAcquire获取，获取失败不记录
+     */
+    long permits() default 1;
+
+    /**
+     * 超过阈值时的处理器，优先使用容器中该类型的Bean，没有时按无参构造创建
+     */
+    Class<? extends SlidingWindowRejectionHandler> rejectionHandler() default DefaultSlidingWindowRejectionHandler.class;
+}
@@ -0,0 +1,23 @@
+package com.uzong.sliding.window.annotation;
+
+import lombok.Getter;
+
+/**
+ * &#64;SlidingWindowLimit超过阈值
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+@Getter
+public class SlidingWindowLimitException extends RuntimeException {
+
+    /**
+     * 超过阈值的键
+     */
+    private final String key;
+
+    public SlidingWindowLimitException(String key) {
+        super("sliding window limit exceeded,key:" + key);
+        this.key = key;
+    }
+}
@@ -0,0 +1,19 @@
+package com.uzong.sliding.window.annotation;
+
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * &#64;SlidingWindowLimit超过阈值时的处理，返回值作为方法的返回值，也可以抛出异常
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+public interface SlidingWindowRejectionHandler {
+
+    /**
+     * @param invocation 被拒绝的调用，不能再调用proceed
+     * @param key 求值后的键
+     * @return 方法的返回值
+     */
+    Object onRejected(MethodInvocation invocation, String key) throws Throwable;
+}
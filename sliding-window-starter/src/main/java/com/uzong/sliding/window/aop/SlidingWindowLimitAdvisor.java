@@ -0,0 +1,47 @@
+package com.uzong.sliding.window.aop;
+
+import com.uzong.sliding.window.annotation.SlidingWindowLimit;
+import org.aopalliance.aop.Advice;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.AbstractPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.core.annotation.AnnotationUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * 匹配带&#64;SlidingWindowLimit的方法，匹配时顺带解析方法配置，注解配置错误在启动时抛出
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+public class SlidingWindowLimitAdvisor extends AbstractPointcutAdvisor {
+
+    private final SlidingWindowLimitInterceptor interceptor;
+
+    private final Pointcut pointcut = new StaticMethodMatcherPointcut() {
+
+        {
+            setClassFilter(clazz -> AnnotationUtils.isCandidateClass(clazz, SlidingWindowLimit.class));
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            return interceptor.getMetadata(method, targetClass) != null;
+        }
+    };
+
+    public SlidingWindowLimitAdvisor(SlidingWindowLimitInterceptor interceptor) {
+        this.interceptor = interceptor;
+    }
+
+    @Override
+    public Pointcut getPointcut() {
+        return pointcut;
+    }
+
+    @Override
+    public Advice getAdvice() {
+        return interceptor;
+    }
+}
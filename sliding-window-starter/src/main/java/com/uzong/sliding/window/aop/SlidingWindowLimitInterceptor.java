@@ -0,0 +1,125 @@
+package com.uzong.sliding.window.aop;
+
+import com.uzong.sliding.window.SceneSlidingWindowService;
+import com.uzong.sliding.window.SlidingWindowService;
+import com.uzong.sliding.window.annotation.SlidingWindowLimit;
+import com.uzong.sliding.window.annotation.SlidingWindowRejectionHandler;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.context.expression.BeanFactoryResolver;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * &#64;SlidingWindowLimit的拦截器。
+ * 方法配置在创建代理匹配切点时解析并缓存，限流服务与拒绝处理器在第一次调用时从容器获取，
+ * 避免在BeanPostProcessor阶段提前创建Redis相关的Bean
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+public class SlidingWindowLimitInterceptor implements MethodInterceptor, BeanFactoryAware {
+
+    private final Map<MethodClassKey, SlidingWindowLimitMetadata> metadataCache = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, SlidingWindowRejectionHandler> handlers = new ConcurrentHashMap<>();
+
+    private BeanFactory beanFactory;
+
+    /**
+     * 所有方法共用的求值上下文，属性访问器与方法解析器的缓存在调用之间复用
+     */
+    private final StandardEvaluationContext evaluationContext = new StandardEvaluationContext();
+
+    private volatile SlidingWindowService slidingWindowService;
+
+    private volatile SceneSlidingWindowService sceneSlidingWindowService;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+        this.evaluationContext.setBeanResolver(new BeanFactoryResolver(beanFactory));
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object target = invocation.getThis();
+        Method method = invocation.getMethod();
+        SlidingWindowLimitMetadata metadata = getMetadata(method,
+                target != null ? AopUtils.getTargetClass(target) : method.getDeclaringClass());
+        if (metadata == null) {
+            return invocation.proceed();
+        }
+        String key = metadata.key(invocation.getArguments(), evaluationContext);
+        if (overLimit(metadata, key)) {
+            return handlerOf(metadata.getRejectionHandler()).onRejected(invocation, key);
+        }
+        return invocation.proceed();
+    }
+
+    /**
+     * 方法的限流配置，没有注解时返回null。只缓存带注解的方法，未带注解的方法不会进入拦截器
+     */
+    SlidingWindowLimitMetadata getMetadata(Method method, Class<?> targetClass) {
+        MethodClassKey cacheKey = new MethodClassKey(method, targetClass);
+        SlidingWindowLimitMetadata metadata = metadataCache.get(cacheKey);
+        if (metadata != null) {
+            return metadata;
+        }
+        Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+        SlidingWindowLimit limit = AnnotatedElementUtils.findMergedAnnotation(specificMethod, SlidingWindowLimit.class);
+        if (limit == null) {
+            return null;
+        }
+        return metadataCache.computeIfAbsent(cacheKey,
+                k -> new SlidingWindowLimitMetadata(limit, specificMethod, targetClass));
+    }
+
+    private boolean overLimit(SlidingWindowLimitMetadata metadata, String key) {
+        if (metadata.getScene() != null) {
+            SceneSlidingWindowService service = sceneSlidingWindowService();
+            return metadata.getPermits() > 1
+                    ? !service.slidingWindowAcquire(key, metadata.getPermits(), metadata.getScene())
+                    : service.slidingWindowCalculate(key, metadata.getScene());
+        }
+        SlidingWindowService service = slidingWindowService();
+        return metadata.getPermits() > 1
+                ? !service.slidingWindowAcquire(key, metadata.getPermits(), metadata.getPair())
+                : service.slidingWindowCalculate(key, metadata.getPair());
+    }
+
+    private SlidingWindowService slidingWindowService() {
+        SlidingWindowService service = slidingWindowService;
+        if (service == null) {
+            service = beanFactory.getBean(SlidingWindowService.class);
+            slidingWindowService = service;
+        }
+        return service;
+    }
+
+    private SceneSlidingWindowService sceneSlidingWindowService() {
+        SceneSlidingWindowService service = sceneSlidingWindowService;
+        if (service == null) {
+            service = beanFactory.getBean(SceneSlidingWindowService.class);
+            sceneSlidingWindowService = service;
+        }
+        return service;
+    }
+
+    private SlidingWindowRejectionHandler handlerOf(Class<? extends SlidingWindowRejectionHandler> type) {
+        return handlers.computeIfAbsent(type, t -> createHandler(type));
+    }
+
+    private <T extends SlidingWindowRejectionHandler> T createHandler(Class<T> type) {
+        return beanFactory.getBeanProvider(type).getIfAvailable(() -> BeanUtils.instantiateClass(type));
+    }
+}
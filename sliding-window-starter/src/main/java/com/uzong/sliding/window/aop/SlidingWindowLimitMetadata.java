@@ -0,0 +1,259 @@
+package com.uzong.sliding.window.aop;
+
+import com.uzong.sliding.window.annotation.SlidingWindowLimit;
+import com.uzong.sliding.window.annotation.SlidingWindowRejectionHandler;
+import com.uzong.sliding.window.dto.WindowLinThresholdPair;
+import lombok.Getter;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.BeanResolver;
+import org.springframework.expression.ConstructorResolver;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.MethodResolver;
+import org.springframework.expression.OperatorOverloader;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.TypeComparator;
+import org.springframework.expression.TypeConverter;
+import org.springframework.expression.TypeLocator;
+import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.ast.Assign;
+import org.springframework.expression.spel.ast.VariableReference;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一个被拦截方法在启动时解析好的限流配置：校验注解、解析键表达式，并找出表达式引用到的参数，引用了不存在的变量时启动失败。
+ * 请求路径上只包装参数数组并求值
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+@Getter
+final class SlidingWindowLimitMetadata {
+
+    /**
+     * MIXED模式下表达式先解释执行，参数类型稳定后编译为字节码，编译失败时退回解释执行
+     */
+    private static final SpelExpressionParser PARSER = new SpelExpressionParser(new SpelParserConfiguration(
+            SpelCompilerMode.MIXED, SlidingWindowLimitMetadata.class.getClassLoader()));
+
+    private static final ParameterNameDiscoverer PARAMETER_NAME_DISCOVERER = new DefaultParameterNameDiscoverer();
+
+    private final String methodName;
+
+    /**
+     * 键表达式，注解未配置键时为空
+     */
+    private final Expression keyExpression;
+
+    /**
+     * 注解未配置键时使用的固定键
+     */
+    private final String constantKey;
+
+    /**
+     * 表达式引用到的变量名及对应的参数下标
+     */
+    private final String[] variableNames;
+
+    private final int[] variableIndexes;
+
+    private final String scene;
+
+    private final WindowLinThresholdPair pair;
+
+    private final long permits;
+
+    private final Class<? extends SlidingWindowRejectionHandler> rejectionHandler;
+
+    SlidingWindowLimitMetadata(SlidingWindowLimit limit, Method method, Class<?> targetClass) {
+        this.methodName = ClassUtils.getUserClass(targetClass).getName() + "." + method.getName();
+        boolean sceneMode = StringUtils.hasText(limit.scene());
+        if (sceneMode && (limit.window() > 0 || limit.threshold() > 0)) {
+            throw new IllegalArgumentException("scene and window/threshold can not be both set,method:" + methodName);
+        }
+        if (!sceneMode && (limit.window() <= 0 || limit.threshold() <= 0)) {
+            throw new IllegalArgumentException("scene or positive window/threshold required,method:" + methodName);
+        }
+        if (limit.permits() <= 0) {
+            throw new IllegalArgumentException("permits must be positive,method:" + methodName);
+        }
+        this.scene = sceneMode ? limit.scene() : null;
+        this.pair = sceneMode ? null : WindowLinThresholdPair.of(limit.window(), limit.threshold());
+        this.permits = limit.permits();
+        this.rejectionHandler = limit.rejectionHandler();
+
+        List<String> names = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        if (StringUtils.hasText(limit.key())) {
+            this.keyExpression = PARSER.parseExpression(limit.key());
+            this.constantKey = null;
+            List<String> referenced = new ArrayList<>();
+            List<String> assigned = new ArrayList<>();
+            collectVariables(((SpelExpression) keyExpression).getAST(), referenced, assigned);
+            String[] parameterNames = PARAMETER_NAME_DISCOVERER.getParameterNames(method);
+            for (int i = 0; i < method.getParameterCount(); i++) {
+                addIfReferenced(referenced, parameterNames != null ? parameterNames[i] : null, i, names, indexes);
+                addIfReferenced(referenced, "p" + i, i, names, indexes);
+                addIfReferenced(referenced, "a" + i, i, names, indexes);
+            }
+            checkVariables(referenced, assigned, names, parameterNames);
+        } else {
+            this.keyExpression = null;
+            this.constantKey = methodName;
+        }
+        this.variableNames = names.toArray(new String[0]);
+        this.variableIndexes = indexes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 对本次调用的参数求值键
+     *
+     * @param sharedContext 共享的求值上下文，提供Bean解析与类型转换，不保存变量
+     */
+    String key(Object[] arguments, EvaluationContext sharedContext) {
+        if (keyExpression == null) {
+            return constantKey;
+        }
+        String key = keyExpression.getValue(new ArgumentsContext(sharedContext, arguments), String.class);
+        if (key == null) {
+            throw new IllegalArgumentException("sliding window key is null,method:" + methodName);
+        }
+        return key;
+    }
+
+    private static void collectVariables(SpelNode node, List<String> referenced, List<String> assigned) {
+        if (node instanceof VariableReference) {
+            // toStringAST为"#变量名"
+            referenced.add(node.toStringAST().substring(1));
+        }
+        if (node instanceof Assign && node.getChild(0) instanceof VariableReference) {
+            assigned.add(node.getChild(0).toStringAST().substring(1));
+        }
+        for (int i = 0; i < node.getChildCount(); i++) {
+            collectVariables(node.getChild(i), referenced, assigned);
+        }
+    }
+
+    /**
+     * 引用的变量必须是参数名、p0/a0形式的参数下标、#this/#root或表达式内赋值的变量，否则求值时为null，
+     * 所有请求会共用同一个键，启动时直接失败
+     */
+    private void checkVariables(List<String> referenced, List<String> assigned, List<String> names,
+                                String[] parameterNames) {
+        for (String name : referenced) {
+            if (!names.contains(name) && !assigned.contains(name) && !"this".equals(name) && !"root".equals(name)) {
+                throw new IllegalArgumentException("key expression references unknown variable #" + name
+                        + ", parameter names:" + (parameterNames != null ? Arrays.toString(parameterNames) : "unavailable, use #p0 or #a0")
+                        + ",method:" + methodName);
+            }
+        }
+    }
+
+    private static void addIfReferenced(List<String> referenced, String name, int index,
+                                        List<String> names, List<Integer> indexes) {
+        if (name != null && referenced.contains(name) && !names.contains(name)) {
+            names.add(name);
+            indexes.add(index);
+        }
+    }
+
+    /**
+     * 单次求值的上下文，变量直接按启动时确定的下标从参数数组读取，不创建变量表
+     */
+    private final class ArgumentsContext implements EvaluationContext {
+
+        private final EvaluationContext shared;
+
+        private final Object[] arguments;
+
+        /**
+         * 表达式中赋值的变量，只在本次求值内可见
+         */
+        private Map<String, Object> assigned;
+
+        ArgumentsContext(EvaluationContext shared, Object[] arguments) {
+            this.shared = shared;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public Object lookupVariable(String name) {
+            if (assigned != null && assigned.containsKey(name)) {
+                return assigned.get(name);
+            }
+            for (int i = 0; i < variableNames.length; i++) {
+                if (variableNames[i].equals(name)) {
+                    return arguments[variableIndexes[i]];
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void setVariable(String name, Object value) {
+            if (assigned == null) {
+                assigned = new HashMap<>(4);
+            }
+            assigned.put(name, value);
+        }
+
+        @Override
+        public TypedValue getRootObject() {
+            return TypedValue.NULL;
+        }
+
+        @Override
+        public List<PropertyAccessor> getPropertyAccessors() {
+            return shared.getPropertyAccessors();
+        }
+
+        @Override
+        public List<ConstructorResolver> getConstructorResolvers() {
+            return shared.getConstructorResolvers();
+        }
+
+        @Override
+        public List<MethodResolver> getMethodResolvers() {
+            return shared.getMethodResolvers();
+        }
+
+        @Override
+        public BeanResolver getBeanResolver() {
+            return shared.getBeanResolver();
+        }
+
+        @Override
+        public TypeLocator getTypeLocator() {
+            return shared.getTypeLocator();
+        }
+
+        @Override
+        public TypeConverter getTypeConverter() {
+            return shared.getTypeConverter();
+        }
+
+        @Override
+        public TypeComparator getTypeComparator() {
+            return shared.getTypeComparator();
+        }
+
+        @Override
+        public OperatorOverloader getOperatorOverloader() {
+            return shared.getOperatorOverloader();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.uzong.sliding.window.base;
+
+import com.uzong.sliding.window.AsyncSlidingWindowService;
+import com.uzong.sliding.window.ReactiveSlidingWindowService;
+import com.uzong.sliding.window.dto.WindowLinThresholdPair;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 基于响应式实现的异步滑动窗口，结果在Redis响应线程上完成
+ * @author sky
+ * @since 2026/10/18
+ */
+public class BaseAsyncSlidingWindowService implements AsyncSlidingWindowService {
+
+    @Autowired
+    private ReactiveSlidingWindowService reactiveSlidingWindowService;
+
+    @Override
+    public CompletableFuture<Boolean> slidingWindowCalculate(String key, long windowLenInSeconds, long threshold) {
+        return reactiveSlidingWindowService.slidingWindowCalculate(key, windowLenInSeconds, threshold).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> slidingWindowCalculateAndCleanUp(String key, long windowLenInSeconds, long threshold) {
+        return reactiveSlidingWindowService.slidingWindowCalculateAndCleanUp(key, windowLenInSeconds, threshold).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Long> slidingWindowCalculateCount(String key, long windowLenInSeconds) {
+        return reactiveSlidingWindowService.slidingWindowCalculateCount(key, windowLenInSeconds).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> slidingWindowCalculate(String key, WindowLinThresholdPair pair) {
+        return reactiveSlidingWindowService.slidingWindowCalculate(key, pair).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> slidingWindowCalculateAndCleanUp(String key, WindowLinThresholdPair pair) {
+        return reactiveSlidingWindowService.slidingWindowCalculateAndCleanUp(key, pair).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Long> slidingWindowCalculateCount(String key, WindowLinThresholdPair pair) {
+        return reactiveSlidingWindowService.slidingWindowCalculateCount(key, pair).toFuture();
+    }
+}
@@ -0,0 +1,217 @@
+package com.uzong.sliding.window.base;
+
+import com.uzong.sliding.window.ReactiveSlidingWindowService;
+import com.uzong.sliding.window.core.ReactivePlentifulRedisService;
+import com.uzong.sliding.window.core.SlDenyCache;
+import com.uzong.sliding.window.dto.SlidingWindowMode;
+import com.uzong.sliding.window.dto.WindowLinThresholdPair;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Mono;
+
+/**
+ * 基于ReactiveRedisTemplate的响应式滑动窗口，存储结构与BaseSlidingWindowService一致，可以混用。
+ * 当前时间与事件ID在订阅时确定；LEASE模式不在本地预留许可，按COUNTER处理
+ * @author sky
+ * @since 2026/10/18
+ */
+@Slf4j
+@Data
+public class BaseReactiveSlidingWindowService implements ReactiveSlidingWindowService {
+
+    @Autowired
+    private ReactivePlentifulRedisService reactivePlentifulRedisService;
+
+    /**
+     * 本地拒绝缓存，未开启时为空，与BaseSlidingWindowService共用
+     */
+    @Autowired(required = false)
+    private SlDenyCache slDenyCache;
+
+    private String keyPrefix = "sliding:window:";
+
+    /**
+     * 默认存储模式
+     */
+    private SlidingWindowMode mode = SlidingWindowMode.LOG;
+
+    /**
+     * COUNTER模式下的子窗口数量
+     */
+    private int bucketCount = 10;
+
+    @Override
+    public Mono<Boolean> slidingWindowCalculate(String key, long windowLenInSeconds, long threshold) {
+        return slidingWindowCalculate(key, windowLenInSeconds, threshold, threshold, mode);
+    }
+
+    @Override
+    public Mono<Boolean> slidingWindowCalculateAndCleanUp(String key, long windowLenInSeconds, long threshold) {
+        return slidingWindowCalculateAndCleanUp(key, windowLenInSeconds, threshold, threshold, mode);
+    }
+
+    @Override
+    public Mono<Long> slidingWindowCalculateCount(String key, long windowLenInSeconds) {
+        return slidingWindowCalculateCount(key, windowLenInSeconds, mode);
+    }
+
+    @Override
+    public Mono<Boolean> slidingWindowCalculate(String key, WindowLinThresholdPair pair) {
+        return slidingWindowCalculate(key, pair.getWindowLenInSeconds(), pair.getThreshold(), burstOf(pair), modeOf(pair));
+    }
+
+    @Override
+    public Mono<Boolean> slidingWindowCalculateAndCleanUp(String key, WindowLinThresholdPair pair) {
+        return slidingWindowCalculateAndCleanUp(key, pair.getWindowLenInSeconds(), pair.getThreshold(), burstOf(pair), modeOf(pair));
+    }
+
+    @Override
+    public Mono<Long> slidingWindowCalculateCount(String key, WindowLinThresholdPair pair) {
+        return slidingWindowCalculateCount(key, pair.getWindowLenInSeconds(), modeOf(pair));
+    }
+
+    private Mono<Boolean> slidingWindowCalculate(
+            String key, long windowLenInSeconds, long threshold, long burst, SlidingWindowMode mode
+    ) {
+        log.debug("===>>> reactive slidingWindowCalculate, key:{}, windowLenInSeconds:{}, threshold:{}, mode:{}", key, windowLenInSeconds, threshold, mode);
+        if (mode == SlidingWindowMode.AGGREGATED) {
+            return Mono.error(new IllegalArgumentException("aggregated mode does not support reactive calls"));
+        }
+        if (mode == SlidingWindowMode.GCRA && (threshold <= 0 || burst <= 0)) {
+            return Mono.error(new IllegalArgumentException("gcra mode requires positive threshold and burst, but was "
+                    + threshold + " and " + burst));
+        }
+        return Mono.defer(() -> {
+            long currentTime = System.currentTimeMillis();
+            if (mode.isCounterStorage()) {
+                return reactivePlentifulRedisService.counterWindowCalculate(redisKey(key, mode),
+                        currentTime,
+                        windowLenInSeconds * 1000,
+                        threshold, bucketCount);
+            }
+            if (mode == SlidingWindowMode.GCRA || mode == SlidingWindowMode.BOUNDED_LOG || slDenyCache != null) {
+                return slidingWindowCalculateUntil(redisKey(key, mode), windowLenInSeconds, threshold, burst, mode, currentTime)
+                        .map(until -> until > 0);
+            }
+            return reactivePlentifulRedisService.slidingWindowCalculate(redisKey(key, mode),
+                    currentTime,
+                    windowLenInSeconds * 1000,
+                    threshold, windowLenInSeconds);
+        });
+    }
+
+    /**
+     * 与BaseSlidingWindowService相同：开启拒绝缓存时，拒绝期内直接拒绝，不访问Redis，也不记录事件
+     */
+    private Mono<Long> slidingWindowCalculateUntil(
+            String redisKey, long windowLenInSeconds, long threshold, long burst, SlidingWindowMode mode, long currentTime
+    ) {
+        if (slDenyCache != null && slDenyCache.isDenied(redisKey, windowLenInSeconds * 1000, threshold, currentTime)) {
+            return Mono.just(currentTime);
+        }
+        Mono<Long> until;
+        if (mode == SlidingWindowMode.GCRA) {
+            until = reactivePlentifulRedisService.gcraCalculate(redisKey,
+                    currentTime,
+                    windowLenInSeconds * 1000,
+                    threshold, burst, false)
+                    .map(retryAfter -> retryAfter > 0 ? currentTime + retryAfter : 0);
+        } else if (mode == SlidingWindowMode.BOUNDED_LOG) {
+            until = reactivePlentifulRedisService.boundedWindowCalculate(redisKey,
+                    currentTime,
+                    windowLenInSeconds * 1000,
+                    threshold);
+        } else {
+            until = reactivePlentifulRedisService.slidingWindowCalculateUntil(redisKey,
+                    currentTime,
+                    windowLenInSeconds * 1000,
+                    threshold, windowLenInSeconds);
+        }
+        return slDenyCache == null ? until : until.doOnNext(value -> {
+            if (value > 0) {
+                slDenyCache.deny(redisKey, windowLenInSeconds * 1000, threshold, value, currentTime);
+            }
+        });
+    }
+
+    private Mono<Boolean> slidingWindowCalculateAndCleanUp(
+            String key, long windowLenInSeconds, long threshold, long burst, SlidingWindowMode mode
+    ) {
+        log.debug("===>>> reactive slidingWindowCalculateAndCleanUp, key:{}, windowLenInSeconds:{}, threshold:{}, mode:{}", key, windowLenInSeconds, threshold, mode);
+        if (mode == SlidingWindowMode.AGGREGATED) {
+            return Mono.error(new IllegalArgumentException("aggregated mode does not support reactive calls"));
+        }
+        if (mode == SlidingWindowMode.GCRA && (threshold <= 0 || burst <= 0)) {
+            return Mono.error(new IllegalArgumentException("gcra mode requires positive threshold and burst, but was "
+                    + threshold + " and " + burst));
+        }
+        return Mono.defer(() -> {
+            long currentTime = System.currentTimeMillis();
+            if (mode.isCounterStorage()) {
+                return reactivePlentifulRedisService.counterWindowCalculateAndCleanUp(redisKey(key, mode),
+                        currentTime,
+                        windowLenInSeconds * 1000,
+                        threshold, bucketCount);
+            }
+            if (mode == SlidingWindowMode.GCRA) {
+                return reactivePlentifulRedisService.gcraCalculate(redisKey(key, mode),
+                        currentTime,
+                        windowLenInSeconds * 1000,
+                        threshold, burst, true)
+                        .map(retryAfter -> retryAfter > 0);
+            }
+            if (mode == SlidingWindowMode.BOUNDED_LOG) {
+                return reactivePlentifulRedisService.boundedWindowCalculateAndCleanUp(redisKey(key, mode),
+                        currentTime,
+                        windowLenInSeconds * 1000,
+                        threshold);
+            }
+            return reactivePlentifulRedisService.slidingWindowCalculateAndCleanUp(redisKey(key, mode),
+                    currentTime,
+                    windowLenInSeconds * 1000,
+                    threshold, windowLenInSeconds);
+        });
+    }
+
+    private Mono<Long> slidingWindowCalculateCount(String key, long windowLenInSeconds, SlidingWindowMode mode) {
+        log.debug("===>>> reactive slidingWindowCalculateCount, key:{}, windowLenInSeconds:{}, mode:{}", key, windowLenInSeconds, mode);
+        if (mode == SlidingWindowMode.AGGREGATED) {
+            return Mono.error(new IllegalArgumentException("aggregated mode does not support reactive calls"));
+        }
+        if (mode == SlidingWindowMode.GCRA) {
+            return Mono.error(new IllegalArgumentException("gcra mode does not keep events and can not count"));
+        }
+        return Mono.defer(() -> {
+            long currentTime = System.currentTimeMillis();
+            if (mode.isCounterStorage()) {
+                return reactivePlentifulRedisService.counterWindowCalculateCount(redisKey(key, mode),
+                        currentTime,
+                        windowLenInSeconds * 1000, bucketCount);
+            }
+            if (mode == SlidingWindowMode.BOUNDED_LOG) {
+                return reactivePlentifulRedisService.boundedWindowCalculateCount(redisKey(key, mode),
+                        currentTime,
+                        windowLenInSeconds * 1000);
+            }
+            return reactivePlentifulRedisService.slidingWindowCalculateCount(redisKey(key, mode),
+                    currentTime,
+                    windowLenInSeconds * 1000, windowLenInSeconds);
+        });
+    }
+
+    /**
+     * Redis键名：键前缀+存储结构段+key，与BaseSlidingWindowService一致
+     */
+    private String redisKey(String key, SlidingWindowMode mode) {
+        return keyPrefix + mode.keyNamespace() + key;
+    }
+
+    private SlidingWindowMode modeOf(WindowLinThresholdPair pair) {
+        return pair.getMode() == null ? mode : pair.getMode();
+    }
+
+    private long burstOf(WindowLinThresholdPair pair) {
+        return pair.getBurst() == null ? pair.getThreshold() : pair.getBurst();
+    }
+}
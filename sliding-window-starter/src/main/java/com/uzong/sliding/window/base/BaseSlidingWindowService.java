@@ -1,10 +1,37 @@
 package com.uzong.sliding.window.base;
 
+import com.uzong.sliding.window.SlidingWindowDistinctService;
 import com.uzong.sliding.window.SlidingWindowService;
 import com.uzong.sliding.window.core.PlentifulRedisService;
+import com.uzong.sliding.window.core.SlCircuitBreaker;
+import com.uzong.sliding.window.core.SlDenyCache;
+import com.uzong.sliding.window.core.SlHotKeyTracker;
+import com.uzong.sliding.window.core.SlLocalWindow;
+import com.uzong.sliding.window.core.SlLocalWindowStore;
+import com.uzong.sliding.window.core.SlMetricsRecorder;
+import com.uzong.sliding.window.core.SlMetricsRecorder.Operation;
+import com.uzong.sliding.window.core.SlQuotaLeaseManager;
+import com.uzong.sliding.window.core.SlWriteBehindCounter;
+import com.uzong.sliding.window.dto.ShardThresholdMode;
+import com.uzong.sliding.window.dto.SlidingWindowDecision;
+import com.uzong.sliding.window.dto.SlidingWindowFallback;
+import com.uzong.sliding.window.dto.SlidingWindowMode;
+import com.uzong.sliding.window.dto.SlidingWindowRequest;
+import com.uzong.sliding.window.dto.WindowLinThresholdPair;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
 /**
  *
@@ -13,42 +40,733 @@ import org.springframework.beans.factory.annotation.Autowired;
  */
 @Slf4j
 @Data
-public class BaseSlidingWindowService implements SlidingWindowService {
+public class BaseSlidingWindowService implements SlidingWindowService, SlidingWindowDistinctService {
+
+    /**
+     * 滑动日志按许可数获取时使用的键名段：带权重的事件与逐个记录的事件分开存储，
+     * 按成员数计数的脚本不会把一个带权重的成员当作1次事件
+     */
+    private static final String WEIGHTED_LOG_NAMESPACE = "w:";
 
     @Autowired
     private PlentifulRedisService plentifulRedisService;
 
+    @Autowired
+    private SlQuotaLeaseManager slQuotaLeaseManager;
+
+    @Autowired
+    private SlWriteBehindCounter slWriteBehindCounter;
+
+    /**
+     * 本地拒绝缓存，未开启时为空
+     */
+    @Autowired(required = false)
+    private SlDenyCache slDenyCache;
+
+    /**
+     * 指标记录，未配置时不记录
+     */
+    @Autowired(required = false)
+    private SlMetricsRecorder slMetricsRecorder = SlMetricsRecorder.NOOP;
+
+    /**
+     * Redis熔断器，未开启时为空
+     */
+    @Autowired(required = false)
+    private SlCircuitBreaker slCircuitBreaker;
+
+    /**
+     * 热点键统计，未开启时为空。场景调用带着场景前缀经过这里，同样会被统计
+     */
+    @Autowired(required = false)
+    private SlHotKeyTracker slHotKeyTracker;
+
+    /**
+     * 熔断降级时使用的本地窗口，开启熔断器时由自动配置设置
+     */
+    private SlLocalWindowStore fallbackWindowStore;
+
     private String keyPrefix = "sliding:window:";
 
+    /**
+     * 预先编码的键前缀(含存储结构段)，按存储模式下标，请求路径上不再拼接字符串
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private byte[][] keyPrefixBytes = encodeKeyPrefixes(keyPrefix);
+
+    /**
+     * 默认存储模式
+     */
+    private SlidingWindowMode mode = SlidingWindowMode.LOG;
+
+    /**
+     * COUNTER模式下的子窗口数量
+     */
+    private int bucketCount = 10;
+
+    /**
+     * 默认热点键分片数，1表示不分片
+     */
+    private int shards = 1;
+
+    /**
+     * 默认分片阈值判断方式
+     */
+    private ShardThresholdMode shardThresholdMode = ShardThresholdMode.AGGREGATE;
+
+    /**
+     * 默认降级策略
+     */
+    private SlidingWindowFallback fallback = SlidingWindowFallback.LOCAL;
+
+    public void setKeyPrefix(String keyPrefix) {
+        this.keyPrefix = keyPrefix;
+        this.keyPrefixBytes = encodeKeyPrefixes(keyPrefix);
+    }
+
     @Override
     public boolean slidingWindowCalculate(
             String key, long windowLenInSeconds, long threshold
     ) {
-        log.debug("===>>> slidingWindowCalculate, key:{}, windowLenInSeconds:{}, threshold:{}", key, windowLenInSeconds, threshold);
-        return plentifulRedisService.slidingWindowCalculate(keyPrefix + key,
-                System.currentTimeMillis(),
-                windowLenInSeconds * 1000,
-                threshold, windowLenInSeconds);
+        return timedWindowCalculate(key, windowLenInSeconds, threshold, threshold, mode, shards, shardThresholdMode, fallback, false) > 0;
     }
 
     @Override
     public boolean slidingWindowCalculateAndCleanUp(
             String key, long windowLenInSeconds, long threshold
     ) {
-        log.debug("===>>> slidingWindowCalculateAndCleanUp, key:{}, windowLenInSeconds:{}, threshold:{}", key, windowLenInSeconds, threshold);
-        return plentifulRedisService.slidingWindowCalculateAndCleanUp(keyPrefix + key,
-                System.currentTimeMillis(),
-                windowLenInSeconds * 1000,
-                threshold, windowLenInSeconds);
+        return timedWindowCalculate(key, windowLenInSeconds, threshold, threshold, mode, shards, shardThresholdMode, fallback, true) > 0;
     }
 
     @Override
     public long slidingWindowCalculateCount(
             String key, long windowLenInSeconds
     ) {
-        log.debug("===>>> slidingWindowCalculateCount, key:{}, windowLenInSeconds:{}", key, windowLenInSeconds);
-        return plentifulRedisService.slidingWindowCalculateCount(keyPrefix + key,
+        return timedWindowCalculateCount(key, windowLenInSeconds, mode, shards);
+    }
+
+    @Override
+    public boolean slidingWindowCalculate(String key, WindowLinThresholdPair pair) {
+        return timedWindowCalculate(key, pair.getWindowLenInSeconds(), pair.getThreshold(), burstOf(pair),
+                modeOf(pair), shardsOf(pair), shardThresholdModeOf(pair), fallbackOf(pair), false) > 0;
+    }
+
+    @Override
+    public boolean slidingWindowCalculateAndCleanUp(String key, WindowLinThresholdPair pair) {
+        return timedWindowCalculate(key, pair.getWindowLenInSeconds(), pair.getThreshold(), burstOf(pair),
+                modeOf(pair), shardsOf(pair), shardThresholdModeOf(pair), fallbackOf(pair), true) > 0;
+    }
+
+    /**
+     * GCRA、BOUNDED_LOG以及开启拒绝缓存的LOG模式可以给出需要等待的时间
+     */
+    @Override
+    public SlidingWindowDecision slidingWindowDecide(String key, WindowLinThresholdPair pair) {
+        long until = timedWindowCalculate(key, pair.getWindowLenInSeconds(), pair.getThreshold(), burstOf(pair),
+                modeOf(pair), shardsOf(pair), shardThresholdModeOf(pair), fallbackOf(pair), false);
+        return until > 0 ? SlidingWindowDecision.denied(until - System.currentTimeMillis()) : SlidingWindowDecision.ALLOWED;
+    }
+
+    @Override
+    public long slidingWindowCalculateCount(String key, WindowLinThresholdPair pair) {
+        return timedWindowCalculateCount(key, pair.getWindowLenInSeconds(), modeOf(pair), shardsOf(pair));
+    }
+
+    @Override
+    public boolean slidingWindowAcquire(String key, long permits, long windowLenInSeconds, long threshold) {
+        return timedWindowAcquire(key, permits, windowLenInSeconds, threshold, threshold, mode, shards, fallback);
+    }
+
+    @Override
+    public boolean slidingWindowAcquire(String key, long permits, WindowLinThresholdPair pair) {
+        return timedWindowAcquire(key, permits, pair.getWindowLenInSeconds(), pair.getThreshold(), burstOf(pair),
+                modeOf(pair), shardsOf(pair), fallbackOf(pair));
+    }
+
+    /**
+     * 每个子窗口一个HyperLogLog，键名为{前缀+key}:子窗口序号，哈希标签保证同一个键的所有子窗口落在同一个哈希槽，
+     * 一次脚本调用完成记录与合并。每个子窗口最多约12KB，内存与去重数无关；熔断降级时返回0
+     */
+    @Override
+    public long slidingWindowDistinctCount(String key, String member, long windowLenInSeconds) {
+        checkWindow(windowLenInSeconds);
+        long start = System.nanoTime();
+        long count = 0;
+        boolean error = true;
+        try {
+            count = slCircuitBreaker == null
+                    ? distinctWindowCount(key, member, windowLenInSeconds)
+                    : guarded(() -> distinctWindowCount(key, member, windowLenInSeconds), () -> 0L);
+            error = false;
+            return count;
+        } finally {
+            slMetricsRecorder.recordCount(null, count, error, System.nanoTime() - start);
+            recordHotKey(key, false);
+        }
+    }
+
+    /**
+     * 熔断降级时FAIL_CLOSED判定为达到阈值，其余策略判定为未达到
+     */
+    @Override
+    public boolean slidingWindowDistinctCalculate(String key, String member, long windowLenInSeconds, long threshold) {
+        checkWindow(windowLenInSeconds);
+        long start = System.nanoTime();
+        Boolean overLimit = null;
+        try {
+            overLimit = slCircuitBreaker == null
+                    ? distinctWindowCount(key, member, windowLenInSeconds) >= threshold
+                    : guarded(() -> distinctWindowCount(key, member, windowLenInSeconds) >= threshold,
+                    () -> fallback == SlidingWindowFallback.FAIL_CLOSED);
+            return overLimit;
+        } finally {
+            slMetricsRecorder.recordDecision(Operation.DISTINCT, null, overLimit, System.nanoTime() - start);
+            recordHotKey(key, overLimit);
+        }
+    }
+
+    @Override
+    public List<Boolean> slidingWindowCalculateBatch(List<SlidingWindowRequest> requests) {
+        log.debug("===>>> slidingWindowCalculateBatch, size:{}", requests.size());
+        if (requests.isEmpty()) {
+            return Collections.emptyList();
+        }
+        long start = System.nanoTime();
+        Boolean overLimit = null;
+        try {
+            List<Boolean> overLimits = slCircuitBreaker == null
+                    ? plentifulRedisService.slidingWindowCalculateBatch(keyPrefix, requests, System.currentTimeMillis(), mode, bucketCount)
+                    : guarded(() -> plentifulRedisService.slidingWindowCalculateBatch(keyPrefix, requests, System.currentTimeMillis(), mode, bucketCount),
+                    () -> fallbackCalculateBatch(requests));
+            overLimit = overLimits.contains(Boolean.TRUE);
+            if (slHotKeyTracker != null) {
+                for (int i = 0; i < requests.size(); i++) {
+                    slHotKeyTracker.record(requests.get(i).getKey(), overLimits.get(i));
+                }
+            }
+            return overLimits;
+        } finally {
+            slMetricsRecorder.recordDecision(Operation.BATCH, mode, overLimit, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 多窗口始终使用滑动日志，所有窗口共用同一个ZSET，一次脚本调用完成
+     */
+    @Override
+    public int slidingWindowCalculateMulti(String key, List<WindowLinThresholdPair> pairs) {
+        log.debug("===>>> slidingWindowCalculateMulti, key:{}, pairs:{}", key, pairs);
+        if (pairs.isEmpty()) {
+            throw new IllegalArgumentException("pairs must not be empty");
+        }
+        long start = System.nanoTime();
+        Boolean overLimit = null;
+        try {
+            int index = slCircuitBreaker == null
+                    ? plentifulRedisService.slidingWindowCalculateMulti(redisKey(key, SlidingWindowMode.LOG), System.currentTimeMillis(), pairs).intValue() - 1
+                    : guarded(() -> plentifulRedisService.slidingWindowCalculateMulti(redisKey(key, SlidingWindowMode.LOG), System.currentTimeMillis(), pairs).intValue() - 1,
+                    () -> fallbackCalculateMulti(key, pairs));
+            overLimit = index >= 0;
+            return index;
+        } finally {
+            slMetricsRecorder.recordDecision(Operation.MULTI, SlidingWindowMode.LOG, overLimit, System.nanoTime() - start);
+            recordHotKey(key, overLimit);
+        }
+    }
+
+    /**
+     * @return 未超过阈值返回0，否则返回拒绝截止时间(ms)，存储模式无法给出时为当前时间
+     */
+    private long timedWindowCalculate(
+            String key, long windowLenInSeconds, long threshold, long burst, SlidingWindowMode mode,
+            int shards, ShardThresholdMode shardThresholdMode, SlidingWindowFallback fallback, boolean cleanUp
+    ) {
+        long start = System.nanoTime();
+        Boolean overLimit = null;
+        try {
+            long until = slCircuitBreaker == null
+                    ? shardedWindowCalculate(key, windowLenInSeconds, threshold, burst, mode, shards, shardThresholdMode, cleanUp)
+                    : guarded(() -> shardedWindowCalculate(key, windowLenInSeconds, threshold, burst, mode, shards, shardThresholdMode, cleanUp),
+                    () -> untilOf(fallbackCalculate(key, windowLenInSeconds, threshold, fallback, cleanUp), System.currentTimeMillis()));
+            overLimit = until > 0;
+            return until;
+        } finally {
+            slMetricsRecorder.recordDecision(cleanUp ? Operation.CALCULATE_AND_CLEANUP : Operation.CALCULATE,
+                    mode, overLimit, System.nanoTime() - start);
+            recordHotKey(key, overLimit);
+        }
+    }
+
+    private boolean timedWindowAcquire(
+            String key, long permits, long windowLenInSeconds, long threshold, long burst,
+            SlidingWindowMode mode, int shards, SlidingWindowFallback fallback
+    ) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive, but was " + permits);
+        }
+        // GCRA按突发容量放行，突发容量可以大于阈值；其他模式许可数不小于阈值时一定获取失败
+        if (mode == SlidingWindowMode.GCRA) {
+            if (permits > burst) {
+                throw new IllegalArgumentException("permits must not exceed burst " + burst + ", but was " + permits);
+            }
+        } else if (permits >= threshold) {
+            throw new IllegalArgumentException("permits must be less than threshold " + threshold + ", but was " + permits);
+        }
+        if (shards > 1) {
+            throw new IllegalArgumentException("acquire does not support shards, but was " + shards);
+        }
+        long start = System.nanoTime();
+        Boolean overLimit = null;
+        try {
+            boolean acquired = slCircuitBreaker == null
+                    ? windowAcquire(key, permits, windowLenInSeconds, threshold, burst, mode)
+                    : guarded(() -> windowAcquire(key, permits, windowLenInSeconds, threshold, burst, mode),
+                    () -> fallbackAcquire(key, permits, windowLenInSeconds, threshold, fallback));
+            overLimit = !acquired;
+            return acquired;
+        } finally {
+            slMetricsRecorder.recordDecision(Operation.ACQUIRE, mode, overLimit, System.nanoTime() - start);
+            recordHotKey(key, overLimit);
+        }
+    }
+
+    /**
+     * 一次脚本调用完成检查与记录，耗时与许可数无关：滑动日志在独立的键上记录一个带权重的成员并维护许可总数，
+     * COUNTER存储按许可数递增，GCRA按许可数后移理论到达时间
+     */
+    private boolean windowAcquire(
+            String key, long permits, long windowLenInSeconds, long threshold, long burst, SlidingWindowMode mode
+    ) {
+        if (log.isDebugEnabled()) {
+            log.debug("===>>> slidingWindowAcquire, key:{}, permits:{}, windowLenInSeconds:{}, threshold:{}, mode:{}", key, permits, windowLenInSeconds, threshold, mode);
+        }
+        if (mode == SlidingWindowMode.AGGREGATED) {
+            throw new IllegalArgumentException("aggregated mode does not support acquire");
+        }
+        long currentTime = System.currentTimeMillis();
+        if (mode.isCounterStorage()) {
+            return plentifulRedisService.counterWindowAcquire(redisKey(key, mode),
+                    currentTime,
+                    windowLenInSeconds * 1000,
+                    threshold, bucketCount, permits);
+        }
+        if (mode == SlidingWindowMode.GCRA) {
+            checkGcra(threshold, burst);
+            return plentifulRedisService.gcraAcquire(redisKey(key, mode),
+                    currentTime,
+                    windowLenInSeconds * 1000,
+                    threshold, burst, permits) == 0;
+        }
+        return plentifulRedisService.slidingWindowAcquire(keyPrefix + WEIGHTED_LOG_NAMESPACE + key,
+                currentTime,
+                windowLenInSeconds * 1000,
+                threshold, permits);
+    }
+
+    private long timedWindowCalculateCount(
+            String key, long windowLenInSeconds, SlidingWindowMode mode, int shards
+    ) {
+        long start = System.nanoTime();
+        long count = 0;
+        boolean error = true;
+        try {
+            count = slCircuitBreaker == null
+                    ? shardedWindowCalculateCount(key, windowLenInSeconds, mode, shards)
+                    : guarded(() -> shardedWindowCalculateCount(key, windowLenInSeconds, mode, shards),
+                    () -> fallbackWindow(key, windowLenInSeconds).addAndCount(System.currentTimeMillis(), 1));
+            error = false;
+            return count;
+        } finally {
+            slMetricsRecorder.recordCount(mode, count, error, System.nanoTime() - start);
+            recordHotKey(key, false);
+        }
+    }
+
+    /**
+     * 调用异常时只记为调用，不记为拒绝
+     */
+    private void recordHotKey(String key, Boolean overLimit) {
+        if (slHotKeyTracker != null) {
+            slHotKeyTracker.record(key, Boolean.TRUE.equals(overLimit));
+        }
+    }
+
+    /**
+     * 熔断器打开时直接降级；Redis调用异常时记为失败并降级，超过耗时预算的调用记为失败
+     */
+    private <T> T guarded(Supplier<T> call, Supplier<T> fallbackCall) {
+        long start = System.currentTimeMillis();
+        if (!slCircuitBreaker.tryAcquire(start)) {
+            return fallbackCall.get();
+        }
+        boolean recorded = false;
+        try {
+            T result = slCircuitBreaker.call(call);
+            long end = System.currentTimeMillis();
+            slCircuitBreaker.onSuccess(end - start, end);
+            recorded = true;
+            return result;
+        } catch (DataAccessException e) {
+            slCircuitBreaker.onFailure(System.currentTimeMillis());
+            recorded = true;
+            log.warn("===>>> sliding window redis call failed, fallback, error:{}", e.getMessage());
+            return fallbackCall.get();
+        } finally {
+            // 参数错误等非Redis异常直接抛出，不计入统计，但要归还半开状态的探测名额
+            if (!recorded) {
+                slCircuitBreaker.release();
+            }
+        }
+    }
+
+    private boolean fallbackCalculate(
+            String key, long windowLenInSeconds, long threshold, SlidingWindowFallback fallback, boolean cleanUp
+    ) {
+        if (fallback == SlidingWindowFallback.FAIL_OPEN) {
+            return false;
+        }
+        if (fallback == SlidingWindowFallback.FAIL_CLOSED) {
+            return true;
+        }
+        SlLocalWindow window = fallbackWindow(key, windowLenInSeconds);
+        if (window.addAndCount(System.currentTimeMillis(), 1) >= threshold) {
+            if (cleanUp) {
+                window.reset();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private boolean fallbackAcquire(
+            String key, long permits, long windowLenInSeconds, long threshold, SlidingWindowFallback fallback
+    ) {
+        if (fallback == SlidingWindowFallback.FAIL_OPEN) {
+            return true;
+        }
+        if (fallback == SlidingWindowFallback.FAIL_CLOSED) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        SlLocalWindow window = fallbackWindow(key, windowLenInSeconds);
+        if (window.count(now) + permits >= threshold) {
+            return false;
+        }
+        window.add(now, permits);
+        return true;
+    }
+
+    private List<Boolean> fallbackCalculateBatch(List<SlidingWindowRequest> requests) {
+        List<Boolean> overLimits = new ArrayList<>(requests.size());
+        for (SlidingWindowRequest request : requests) {
+            overLimits.add(fallbackCalculate(request.getKey(), request.getWindowLenInSeconds(),
+                    request.getThreshold(), fallback, false));
+        }
+        return overLimits;
+    }
+
+    private int fallbackCalculateMulti(String key, List<WindowLinThresholdPair> pairs) {
+        int index = -1;
+        for (int i = 0; i < pairs.size(); i++) {
+            WindowLinThresholdPair pair = pairs.get(i);
+            if (fallbackCalculate(key + "#" + pair.getWindowLenInSeconds(), pair.getWindowLenInSeconds(),
+                    pair.getThreshold(), fallbackOf(pair), false) && index < 0) {
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    private SlLocalWindow fallbackWindow(String key, long windowLenInSeconds) {
+        return fallbackWindowStore.getWindow(keyPrefix + key, windowLenInSeconds * 1000, System.currentTimeMillis());
+    }
+
+    /**
+     * 热点键分片：事件写入随机选择的一个分片(键名后追加:序号)，不同分片落在不同的哈希槽。
+     * SPLIT只访问写入的分片，按拆分后的阈值判断；AGGREGATE在一次pipeline中读取所有分片求和后判断，
+     * BOUNDED_LOG先读取其余分片，再按剩余阈值有界写入
+     */
+    private long shardedWindowCalculate(
+            String key, long windowLenInSeconds, long threshold, long burst, SlidingWindowMode mode,
+            int shards, ShardThresholdMode shardThresholdMode, boolean cleanUp
+    ) {
+        if (shards <= 1) {
+            return cleanUp
+                    ? slidingWindowCalculateAndCleanUp(key, windowLenInSeconds, threshold, burst, mode)
+                    : slidingWindowCalculate(key, windowLenInSeconds, threshold, burst, mode);
+        }
+        checkShardable(mode);
+        int writeShard = ThreadLocalRandom.current().nextInt(shards);
+        if (shardThresholdMode == ShardThresholdMode.SPLIT) {
+            long shardThreshold = (threshold + shards - 1) / shards;
+            return cleanUp
+                    ? slidingWindowCalculateAndCleanUp(shardKey(key, writeShard), windowLenInSeconds, shardThreshold, shardThreshold, mode)
+                    : slidingWindowCalculate(shardKey(key, writeShard), windowLenInSeconds, shardThreshold, shardThreshold, mode);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("===>>> shardedWindowCalculate, key:{}, windowLenInSeconds:{}, threshold:{}, shards:{}", key, windowLenInSeconds, threshold, shards);
+        }
+        long currentTime = System.currentTimeMillis();
+        List<String> keys = shardKeys(key, shards);
+        boolean overLimit;
+        if (mode == SlidingWindowMode.BOUNDED_LOG) {
+            // 所有分片之和未达到阈值时才记录事件
+            overLimit = plentifulRedisService.boundedShardedWindowCalculate(keys, writeShard,
+                    currentTime,
+                    windowLenInSeconds * 1000,
+                    threshold) > 0;
+        } else {
+            overLimit = plentifulRedisService.shardedWindowCalculateCount(keys, writeShard,
+                    currentTime,
+                    windowLenInSeconds * 1000,
+                    windowLenInSeconds, mode) >= threshold;
+        }
+        if (overLimit && cleanUp) {
+            plentifulRedisService.shardedWindowCleanUp(keys, currentTime);
+        }
+        return untilOf(overLimit, currentTime);
+    }
+
+    private long shardedWindowCalculateCount(
+            String key, long windowLenInSeconds, SlidingWindowMode mode, int shards
+    ) {
+        if (shards <= 1) {
+            return slidingWindowCalculateCount(key, windowLenInSeconds, mode);
+        }
+        checkShardable(mode);
+        return plentifulRedisService.shardedWindowCalculateCount(shardKeys(key, shards),
+                ThreadLocalRandom.current().nextInt(shards),
+                System.currentTimeMillis(),
+                windowLenInSeconds * 1000,
+                windowLenInSeconds, mode);
+    }
+
+    private void checkShardable(SlidingWindowMode mode) {
+        if (mode.isCounterStorage() || mode == SlidingWindowMode.GCRA || mode == SlidingWindowMode.AGGREGATED) {
+            throw new IllegalArgumentException("shards only support log and bounded_log mode, but was " + mode);
+        }
+    }
+
+    private String shardKey(String key, int shard) {
+        return key + ":" + shard;
+    }
+
+    private List<String> shardKeys(String key, int shards) {
+        List<String> keys = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            keys.add(keyPrefix + shardKey(key, i));
+        }
+        return keys;
+    }
+
+    private long slidingWindowCalculate(
+            String key, long windowLenInSeconds, long threshold, long burst, SlidingWindowMode mode
+    ) {
+        if (log.isDebugEnabled()) {
+            log.debug("===>>> slidingWindowCalculate, key:{}, windowLenInSeconds:{}, threshold:{}, mode:{}", key, windowLenInSeconds, threshold, mode);
+        }
+        long currentTime = System.currentTimeMillis();
+        if (mode == SlidingWindowMode.AGGREGATED) {
+            return untilOf(slWriteBehindCounter.addAndCount(keyPrefix + key,
+                    currentTime,
+                    windowLenInSeconds * 1000, bucketCount) >= threshold, currentTime);
+        }
+        if (mode == SlidingWindowMode.LEASE) {
+            return untilOf(!slQuotaLeaseManager.acquire(redisKey(key, mode),
+                    currentTime,
+                    windowLenInSeconds * 1000,
+                    threshold, bucketCount), currentTime);
+        }
+        if (mode.isCounterStorage()) {
+            return untilOf(plentifulRedisService.counterWindowCalculate(keyPrefixBytes(mode), key,
+                    currentTime,
+                    windowLenInSeconds * 1000,
+                    threshold, bucketCount), currentTime);
+        }
+        if (mode == SlidingWindowMode.GCRA && slDenyCache == null) {
+            checkGcra(threshold, burst);
+            long retryAfter = plentifulRedisService.gcraCalculate(keyPrefixBytes(mode), key,
+                    currentTime,
+                    windowLenInSeconds * 1000,
+                    threshold, burst, false);
+            return retryAfter > 0 ? currentTime + retryAfter : 0;
+        }
+        if (mode == SlidingWindowMode.GCRA || mode == SlidingWindowMode.BOUNDED_LOG || slDenyCache != null) {
+            return slidingWindowCalculateUntil(redisKey(key, mode), windowLenInSeconds, threshold, burst, mode, currentTime);
+        }
+        return untilOf(plentifulRedisService.slidingWindowCalculate(keyPrefixBytes(mode), key,
+                currentTime,
+                windowLenInSeconds * 1000,
+                threshold, windowLenInSeconds), currentTime);
+    }
+
+    /**
+     * 脚本返回拒绝截止时间(GCRA返回需要等待的时间)；开启拒绝缓存时，拒绝期内直接拒绝，不访问Redis，也不记录事件
+     */
+    private long slidingWindowCalculateUntil(
+            String redisKey, long windowLenInSeconds, long threshold, long burst, SlidingWindowMode mode, long currentTime
+    ) {
+        if (slDenyCache != null && slDenyCache.isDenied(redisKey, windowLenInSeconds * 1000, threshold, currentTime)) {
+            return currentTime;
+        }
+        long until;
+        if (mode == SlidingWindowMode.GCRA) {
+            checkGcra(threshold, burst);
+            long retryAfter = plentifulRedisService.gcraCalculate(redisKey,
+                    currentTime,
+                    windowLenInSeconds * 1000,
+                    threshold, burst, false);
+            until = retryAfter > 0 ? currentTime + retryAfter : 0;
+        } else if (mode == SlidingWindowMode.BOUNDED_LOG) {
+            until = plentifulRedisService.boundedWindowCalculate(redisKey,
+                    currentTime,
+                    windowLenInSeconds * 1000,
+                    threshold);
+        } else {
+            until = plentifulRedisService.slidingWindowCalculateUntil(redisKey,
+                    currentTime,
+                    windowLenInSeconds * 1000,
+                    threshold, windowLenInSeconds);
+        }
+        if (until > 0 && slDenyCache != null) {
+            slDenyCache.deny(redisKey, windowLenInSeconds * 1000, threshold, until, currentTime);
+        }
+        return until;
+    }
+
+    private long slidingWindowCalculateAndCleanUp(
+            String key, long windowLenInSeconds, long threshold, long burst, SlidingWindowMode mode
+    ) {
+        if (log.isDebugEnabled()) {
+            log.debug("===>>> slidingWindowCalculateAndCleanUp, key:{}, windowLenInSeconds:{}, threshold:{}, mode:{}", key, windowLenInSeconds, threshold, mode);
+        }
+        if (mode == SlidingWindowMode.AGGREGATED) {
+            throw new IllegalArgumentException("aggregated mode does not support clean up");
+        }
+        long currentTime = System.currentTimeMillis();
+        if (mode.isCounterStorage()) {
+            return untilOf(plentifulRedisService.counterWindowCalculateAndCleanUp(keyPrefixBytes(mode), key,
+                    currentTime,
+                    windowLenInSeconds * 1000,
+                    threshold, bucketCount), currentTime);
+        }
+        if (mode == SlidingWindowMode.BOUNDED_LOG) {
+            return untilOf(plentifulRedisService.boundedWindowCalculateAndCleanUp(keyPrefixBytes(mode), key,
+                    currentTime,
+                    windowLenInSeconds * 1000,
+                    threshold), currentTime);
+        }
+        if (mode == SlidingWindowMode.GCRA) {
+            // 超过阈值时清除了该键，下一次请求不需要等待
+            checkGcra(threshold, burst);
+            return untilOf(plentifulRedisService.gcraCalculate(keyPrefixBytes(mode), key,
+                    currentTime,
+                    windowLenInSeconds * 1000,
+                    threshold, burst, true) > 0, currentTime);
+        }
+        return untilOf(plentifulRedisService.slidingWindowCalculateAndCleanUp(keyPrefixBytes(mode), key,
+                currentTime,
+                windowLenInSeconds * 1000,
+                threshold, windowLenInSeconds), currentTime);
+    }
+
+    private long slidingWindowCalculateCount(
+            String key, long windowLenInSeconds, SlidingWindowMode mode
+    ) {
+        if (log.isDebugEnabled()) {
+            log.debug("===>>> slidingWindowCalculateCount, key:{}, windowLenInSeconds:{}, mode:{}", key, windowLenInSeconds, mode);
+        }
+        if (mode == SlidingWindowMode.AGGREGATED) {
+            return slWriteBehindCounter.addAndCount(keyPrefix + key,
+                    System.currentTimeMillis(),
+                    windowLenInSeconds * 1000, bucketCount);
+        }
+        if (mode.isCounterStorage()) {
+            return plentifulRedisService.counterWindowCalculateCount(keyPrefixBytes(mode), key,
+                    System.currentTimeMillis(),
+                    windowLenInSeconds * 1000, bucketCount);
+        }
+        if (mode == SlidingWindowMode.GCRA) {
+            throw new IllegalArgumentException("gcra mode does not keep events and can not count");
+        }
+        if (mode == SlidingWindowMode.BOUNDED_LOG) {
+            return plentifulRedisService.boundedWindowCalculateCount(keyPrefixBytes(mode), key,
+                    System.currentTimeMillis(),
+                    windowLenInSeconds * 1000);
+        }
+        return plentifulRedisService.slidingWindowCalculateCount(keyPrefixBytes(mode), key,
                 System.currentTimeMillis(),
                 windowLenInSeconds * 1000, windowLenInSeconds);
     }
+
+    private long distinctWindowCount(String key, String member, long windowLenInSeconds) {
+        long windowLengthInMs = windowLenInSeconds * 1000;
+        long bucketLengthInMs = Math.max(1, windowLengthInMs / bucketCount);
+        long current = System.currentTimeMillis() / bucketLengthInMs;
+        String tag = "{" + keyPrefix + key + "}:";
+        List<String> keys = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            keys.add(tag + (current - i));
+        }
+        // 当前子窗口在整个窗口滑过之后过期
+        return plentifulRedisService.distinctWindowCount(keys, member, windowLengthInMs + bucketLengthInMs);
+    }
+
+    private void checkWindow(long windowLenInSeconds) {
+        if (windowLenInSeconds <= 0) {
+            throw new IllegalArgumentException("windowLenInSeconds must be positive, but was " + windowLenInSeconds);
+        }
+    }
+
+    private void checkGcra(long threshold, long burst) {
+        if (threshold <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("gcra mode requires positive threshold and burst, but was "
+                    + threshold + " and " + burst);
+        }
+    }
+
+    /**
+     * Redis键名：键前缀+存储结构段+key
+     */
+    private String redisKey(String key, SlidingWindowMode mode) {
+        return keyPrefix + mode.keyNamespace() + key;
+    }
+
+    private byte[] keyPrefixBytes(SlidingWindowMode mode) {
+        return keyPrefixBytes[mode.ordinal()];
+    }
+
+    private static byte[][] encodeKeyPrefixes(String keyPrefix) {
+        SlidingWindowMode[] modes = SlidingWindowMode.values();
+        byte[][] encoded = new byte[modes.length][];
+        for (SlidingWindowMode mode : modes) {
+            encoded[mode.ordinal()] = (keyPrefix + mode.keyNamespace()).getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+
+    private static long untilOf(boolean overLimit, long currentTime) {
+        return overLimit ? currentTime : 0;
+    }
+
+    private SlidingWindowMode modeOf(WindowLinThresholdPair pair) {
+        return pair.getMode() == null ? mode : pair.getMode();
+    }
+
+    private SlidingWindowFallback fallbackOf(WindowLinThresholdPair pair) {
+        return pair.getFallback() == null ? fallback : pair.getFallback();
+    }
+
+    private int shardsOf(WindowLinThresholdPair pair) {
+        return pair.getShards() == null ? shards : pair.getShards();
+    }
+
+    private long burstOf(WindowLinThresholdPair pair) {
+        return pair.getBurst() == null ? pair.getThreshold() : pair.getBurst();
+    }
+
+    private ShardThresholdMode shardThresholdModeOf(WindowLinThresholdPair pair) {
+        return pair.getShardThresholdMode() == null ? shardThresholdMode : pair.getShardThresholdMode();
+    }
 }
@@ -0,0 +1,135 @@
+package com.uzong.sliding.window.base;
+
+import com.uzong.sliding.window.SceneConfigService;
+import com.uzong.sliding.window.SceneConfigSource;
+import com.uzong.sliding.window.config.SlidingWindowProperties;
+import com.uzong.sliding.window.dto.SlidingWindowScene;
+import com.uzong.sliding.window.dto.WindowLinThresholdPair;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 场景注册表：配置来自sliding.window.scenes与SceneConfigSource。
+ * 刷新时构造新的不可变映射并整体替换，请求路径上只有一次volatile读和一次HashMap查找，不加锁
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+@Slf4j
+public class CachedSceneConfigService implements SceneConfigService, InitializingBean, DisposableBean {
+
+    private final SlidingWindowProperties properties;
+
+    private final List<SceneConfigSource> sources;
+
+    private volatile Map<String, SlidingWindowScene> scenes = Collections.emptyMap();
+
+    private ScheduledExecutorService refresher;
+
+    public CachedSceneConfigService(SlidingWindowProperties properties, List<SceneConfigSource> sources) {
+        this.properties = properties;
+        this.sources = sources;
+    }
+
+    @Override
+    public WindowLinThresholdPair getSceneConfig(String scene) {
+        SlidingWindowScene config = scenes.get(scene);
+        return config == null ? null : config.getPair();
+    }
+
+    @Override
+    public List<WindowLinThresholdPair> getSceneConfigs(String scene) {
+        SlidingWindowScene config = scenes.get(scene);
+        return config == null ? null : config.getPairs();
+    }
+
+    @Override
+    public SlidingWindowScene getScene(String scene) {
+        return scenes.get(scene);
+    }
+
+    /**
+     * 重新加载所有场景。某个来源加载失败时保留当前配置；来源返回空或场景没有窗口时跳过
+     */
+    public synchronized void refresh() {
+        Map<String, List<WindowLinThresholdPair>> loaded = new HashMap<>();
+        for (Map.Entry<String, SlidingWindowProperties.Scene> entry : properties.getScenes().entrySet()) {
+            loaded.put(entry.getKey(), entry.getValue().toPairs());
+        }
+        for (SceneConfigSource source : sources) {
+            Map<String, List<WindowLinThresholdPair>> sourceScenes = source.loadScenes();
+            if (sourceScenes == null) {
+                log.warn("===>>> scene config source returned null, source:{}", source.getClass().getName());
+                continue;
+            }
+            loaded.putAll(sourceScenes);
+        }
+
+        boolean keyPrefixEnabled = properties.isSceneKeyPrefixEnabled();
+        Map<String, SlidingWindowScene> refreshed = new HashMap<>(loaded.size() * 4 / 3 + 1);
+        for (Map.Entry<String, List<WindowLinThresholdPair>> entry : loaded.entrySet()) {
+            String name = entry.getKey();
+            List<WindowLinThresholdPair> pairs = nonNull(entry.getValue());
+            if (name == null || pairs.isEmpty()) {
+                log.warn("===>>> skip scene without name or windows, scene:{}", name);
+                continue;
+            }
+            refreshed.put(name, new SlidingWindowScene(name, keyPrefixEnabled ? name + ":" : "", pairs));
+        }
+        scenes = Collections.unmodifiableMap(refreshed);
+        log.info("===>>> sliding window scenes refreshed, count:{}", refreshed.size());
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        refresh();
+        long interval = properties.getSceneRefreshIntervalInMs();
+        if (interval > 0) {
+            refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "sliding-window-scene-refresher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            refresher.scheduleWithFixedDelay(() -> {
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    log.warn("===>>> sliding window scenes refresh failed, keep current scenes", e);
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * 跳过空的窗口配置，复制由SlidingWindowScene完成，来源后续修改原对象不影响已发布的快照
+     */
+    private List<WindowLinThresholdPair> nonNull(List<WindowLinThresholdPair> pairs) {
+        if (pairs == null) {
+            return Collections.emptyList();
+        }
+        List<WindowLinThresholdPair> filtered = new ArrayList<>(pairs.size());
+        for (WindowLinThresholdPair pair : pairs) {
+            if (pair != null) {
+                filtered.add(pair);
+            }
+        }
+        return filtered;
+    }
+}
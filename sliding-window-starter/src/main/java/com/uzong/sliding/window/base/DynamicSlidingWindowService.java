@@ -3,7 +3,10 @@ package com.uzong.sliding.window.base;
 import com.uzong.sliding.window.SceneConfigService;
 import com.uzong.sliding.window.SceneSlidingWindowService;
 import com.uzong.sliding.window.SlidingWindowService;
-import com.uzong.sliding.window.dto.WindowLinThresholdPair;
+import com.uzong.sliding.window.core.SlMetricsRecorder;
+import com.uzong.sliding.window.core.SlMetricsRecorder.Operation;
+import com.uzong.sliding.window.dto.SlidingWindowDecision;
+import com.uzong.sliding.window.dto.SlidingWindowScene;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
@@ -19,32 +22,60 @@ public class DynamicSlidingWindowService implements SceneSlidingWindowService {
     @Autowired
     private SlidingWindowService slidingWindowService;
 
+    @Autowired(required = false)
+    private SlMetricsRecorder slMetricsRecorder = SlMetricsRecorder.NOOP;
+
     @Override
     public boolean slidingWindowCalculate(String key, String scene) {
-        WindowLinThresholdPair pair = sceneConfigService.getSceneConfig(scene);
-        if (pair == null) {
-            throw new IllegalArgumentException("scene not found,scene:" + scene);
-        }
-        return slidingWindowService.slidingWindowCalculate(key,
-                pair.getWindowLenInSeconds(), pair.getThreshold());
+        SlidingWindowScene config = sceneOf(scene);
+        boolean overLimit = slidingWindowService.slidingWindowCalculate(config.getKeyPrefix() + key, config.getPair());
+        slMetricsRecorder.recordSceneDecision(scene, Operation.CALCULATE, overLimit);
+        return overLimit;
     }
 
     @Override
     public boolean slidingWindowCalculateAndCleanUp(String key, String scene) {
-        WindowLinThresholdPair pair = sceneConfigService.getSceneConfig(scene);
-        if (pair == null) {
-            throw new IllegalArgumentException("scene not found,scene:" + scene);
-        }
-        return slidingWindowService.slidingWindowCalculateAndCleanUp(key,
-                pair.getWindowLenInSeconds(), pair.getThreshold());
+        SlidingWindowScene config = sceneOf(scene);
+        boolean overLimit = slidingWindowService.slidingWindowCalculateAndCleanUp(config.getKeyPrefix() + key, config.getPair());
+        slMetricsRecorder.recordSceneDecision(scene, Operation.CALCULATE_AND_CLEANUP, overLimit);
+        return overLimit;
+    }
+
+    @Override
+    public SlidingWindowDecision slidingWindowDecide(String key, String scene) {
+        SlidingWindowScene config = sceneOf(scene);
+        SlidingWindowDecision decision = slidingWindowService.slidingWindowDecide(config.getKeyPrefix() + key, config.getPair());
+        slMetricsRecorder.recordSceneDecision(scene, Operation.CALCULATE, decision.isOverLimit());
+        return decision;
+    }
+
+    @Override
+    public boolean slidingWindowAcquire(String key, long permits, String scene) {
+        SlidingWindowScene config = sceneOf(scene);
+        boolean acquired = slidingWindowService.slidingWindowAcquire(config.getKeyPrefix() + key, permits, config.getPair());
+        slMetricsRecorder.recordSceneDecision(scene, Operation.ACQUIRE, !acquired);
+        return acquired;
     }
 
     @Override
     public long slidingWindowCalculateCount(String key, String scene) {
-        WindowLinThresholdPair pair = sceneConfigService.getSceneConfig(scene);
-        if (pair == null) {
+        SlidingWindowScene config = sceneOf(scene);
+        return slidingWindowService.slidingWindowCalculateCount(config.getKeyPrefix() + key, config.getPair());
+    }
+
+    @Override
+    public int slidingWindowCalculateMulti(String key, String scene) {
+        SlidingWindowScene config = sceneOf(scene);
+        int index = slidingWindowService.slidingWindowCalculateMulti(config.getKeyPrefix() + key, config.getPairs());
+        slMetricsRecorder.recordSceneDecision(scene, Operation.MULTI, index >= 0);
+        return index;
+    }
+
+    private SlidingWindowScene sceneOf(String scene) {
+        SlidingWindowScene config = sceneConfigService.getScene(scene);
+        if (config == null) {
             throw new IllegalArgumentException("scene not found,scene:" + scene);
         }
-        return slidingWindowService.slidingWindowCalculateCount(key, pair.getWindowLenInSeconds());
+        return config;
     }
 }
@@ -0,0 +1,65 @@
+package com.uzong.sliding.window.base;
+
+import com.uzong.sliding.window.SlidingWindowService;
+import com.uzong.sliding.window.core.SlLocalWindow;
+import com.uzong.sliding.window.core.SlLocalWindowStore;
+import com.uzong.sliding.window.dto.WindowLinThresholdPair;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * 基于本地内存的滑动窗口，只在单个节点内生效，不访问Redis。
+ * 适用于单机接口保护等只需要节点级别限制的场景。
+ * @author sky
+ * @since 2026/10/18
+ */
+@Data
+public class LocalSlidingWindowService implements SlidingWindowService {
+
+    @Autowired
+    private SlLocalWindowStore localWindowStore;
+
+    @Override
+    public boolean slidingWindowCalculate(String key, long windowLenInSeconds, long threshold) {
+        long now = System.currentTimeMillis();
+        SlLocalWindow window = localWindowStore.getWindow(key, windowLenInSeconds * 1000, now);
+        return window.addAndCount(now, 1) >= threshold;
+    }
+
+    @Override
+    public boolean slidingWindowCalculateAndCleanUp(String key, long windowLenInSeconds, long threshold) {
+        long now = System.currentTimeMillis();
+        SlLocalWindow window = localWindowStore.getWindow(key, windowLenInSeconds * 1000, now);
+        if (window.addAndCount(now, 1) >= threshold) {
+            window.reset();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public long slidingWindowCalculateCount(String key, long windowLenInSeconds) {
+        long now = System.currentTimeMillis();
+        return localWindowStore.getWindow(key, windowLenInSeconds * 1000, now).addAndCount(now, 1);
+    }
+
+    /**
+     * 先检查再记录，并发获取时可能略微超过阈值
+     */
+    @Override
+    public boolean slidingWindowAcquire(String key, long permits, WindowLinThresholdPair pair) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive, but was " + permits);
+        }
+        if (permits >= pair.getThreshold()) {
+            throw new IllegalArgumentException("permits must be less than threshold " + pair.getThreshold() + ", but was " + permits);
+        }
+        long now = System.currentTimeMillis();
+        SlLocalWindow window = localWindowStore.getWindow(key, pair.getWindowLenInSeconds() * 1000, now);
+        if (window.count(now) + permits >= pair.getThreshold()) {
+            return false;
+        }
+        window.add(now, permits);
+        return true;
+    }
+}
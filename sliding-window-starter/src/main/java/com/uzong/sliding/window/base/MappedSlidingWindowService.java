@@ -0,0 +1,60 @@
+package com.uzong.sliding.window.base;
+
+import com.uzong.sliding.window.SlidingWindowService;
+import com.uzong.sliding.window.core.SlMappedWindowStore;
+import com.uzong.sliding.window.dto.WindowLinThresholdPair;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * 基于堆外映射文件的本地滑动窗口，只在单个节点内生效，不访问Redis。
+ * 与LocalSlidingWindowService相比不在堆上为每个键创建对象，适合按IP、设备等海量键做节点级别限制，重启后计数仍然有效。
+ * @author sky
+ * @since 2026/10/18
+ */
+@Data
+public class MappedSlidingWindowService implements SlidingWindowService {
+
+    @Autowired
+    private SlMappedWindowStore mappedWindowStore;
+
+    @Override
+    public boolean slidingWindowCalculate(String key, long windowLenInSeconds, long threshold) {
+        return mappedWindowStore.addAndCount(key, windowLenInSeconds * 1000, System.currentTimeMillis(), 1) >= threshold;
+    }
+
+    @Override
+    public boolean slidingWindowCalculateAndCleanUp(String key, long windowLenInSeconds, long threshold) {
+        long now = System.currentTimeMillis();
+        if (mappedWindowStore.addAndCount(key, windowLenInSeconds * 1000, now, 1) >= threshold) {
+            mappedWindowStore.reset(key, windowLenInSeconds * 1000, now);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public long slidingWindowCalculateCount(String key, long windowLenInSeconds) {
+        return mappedWindowStore.addAndCount(key, windowLenInSeconds * 1000, System.currentTimeMillis(), 1);
+    }
+
+    /**
+     * 先检查再记录，并发获取时可能略微超过阈值
+     */
+    @Override
+    public boolean slidingWindowAcquire(String key, long permits, WindowLinThresholdPair pair) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive, but was " + permits);
+        }
+        if (permits >= pair.getThreshold()) {
+            throw new IllegalArgumentException("permits must be less than threshold " + pair.getThreshold() + ", but was " + permits);
+        }
+        long now = System.currentTimeMillis();
+        long windowLengthInMs = pair.getWindowLenInSeconds() * 1000;
+        if (mappedWindowStore.count(key, windowLengthInMs, now) + permits >= pair.getThreshold()) {
+            return false;
+        }
+        mappedWindowStore.add(key, windowLengthInMs, now, permits);
+        return true;
+    }
+}
@@ -1,19 +1,64 @@
 package com.uzong.sliding.window.config;
 
+import com.uzong.sliding.window.AsyncSlidingWindowService;
+import com.uzong.sliding.window.ReactiveSlidingWindowService;
 import com.uzong.sliding.window.SceneConfigService;
+import com.uzong.sliding.window.SceneConfigSource;
+import com.uzong.sliding.window.SceneSlidingWindowService;
+import com.uzong.sliding.window.aop.SlidingWindowLimitAdvisor;
+import com.uzong.sliding.window.aop.SlidingWindowLimitInterceptor;
+import com.uzong.sliding.window.base.BaseAsyncSlidingWindowService;
+import com.uzong.sliding.window.base.BaseReactiveSlidingWindowService;
 import com.uzong.sliding.window.base.BaseSlidingWindowService;
-import com.uzong.sliding.window.base.DefaultSceneConfigService;
+import com.uzong.sliding.window.base.CachedSceneConfigService;
+import com.uzong.sliding.window.base.DynamicSlidingWindowService;
+import com.uzong.sliding.window.base.LocalSlidingWindowService;
+import com.uzong.sliding.window.base.MappedSlidingWindowService;
 import com.uzong.sliding.window.core.PlentifulRedisService;
+import com.uzong.sliding.window.core.ReactivePlentifulRedisService;
+import com.uzong.sliding.window.core.SlCircuitBreaker;
+import com.uzong.sliding.window.core.SlCommandCoalescer;
+import com.uzong.sliding.window.core.SlDenyCache;
+import com.uzong.sliding.window.core.SlHotKeyTracker;
+import com.uzong.sliding.window.core.SlLocalWindowStore;
+import com.uzong.sliding.window.core.SlMappedWindowStore;
+import com.uzong.sliding.window.core.SlMetricsRecorder;
+import com.uzong.sliding.window.core.SlMicrometerMetricsRecorder;
+import com.uzong.sliding.window.core.SlQuotaLeaseManager;
 import com.uzong.sliding.window.core.SlRedisConfig;
+import com.uzong.sliding.window.core.SlRedisWarmUp;
 import com.uzong.sliding.window.core.SlSnowflakeIdGenerator;
+import com.uzong.sliding.window.core.SlWriteBehindCounter;
+import com.uzong.sliding.window.endpoint.SlidingWindowEndpoint;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.stream.Collectors;
 
 /**
  * @author sky
@@ -21,6 +66,8 @@ import org.springframework.data.redis.core.RedisTemplate;
 @Configuration
 @EnableConfigurationProperties(SlidingWindowProperties.class)
 @Import(SlRedisConfig.class)
+@AutoConfigureAfter(value = RedisAutoConfiguration.class,
+        name = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
 @ConditionalOnProperty(prefix = "sliding.window", name = "enabled", havingValue = "true", matchIfMissing = true)
 public class SlidingWindowAutoConfiguration {
 
@@ -33,21 +80,265 @@ public class SlidingWindowAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean
     @ConditionalOnClass(RedisTemplate.class)
-    public PlentifulRedisService plentifulRedisService() {
-        return new PlentifulRedisService();
+    public PlentifulRedisService plentifulRedisService(SlidingWindowProperties properties, Environment environment) {
+        PlentifulRedisService service = new PlentifulRedisService();
+        service.setFunctionsEnabled(properties.getFunctions().isEnabled());
+        SlidingWindowProperties.Coalescing coalescing = properties.getCoalescing();
+        if (coalescing.isEnabled()) {
+            long redisTimeoutInMs = Binder.get(environment).bind("spring.redis.timeout", Duration.class)
+                    .map(Duration::toMillis).orElse(0L);
+            service.setCommandCoalescer(new SlCommandCoalescer(coalescing.getMaxBatchSize(),
+                    coalescing.getMaxDelayInMicros(), coalescing.getThreads(),
+                    redisTimeoutInMs > 0 ? redisTimeoutInMs : SlCommandCoalescer.DEFAULT_REDIS_TIMEOUT_IN_MS));
+        }
+        return service;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnClass(RedisTemplate.class)
+    @ConditionalOnProperty(prefix = "sliding.window", name = "engine", havingValue = "redis", matchIfMissing = true)
+    public SlRedisWarmUp slRedisWarmUp(SlidingWindowProperties properties) {
+        SlidingWindowProperties.WarmUp warmUp = properties.getWarmUp();
+        SlRedisWarmUp redisWarmUp = new SlRedisWarmUp();
+        redisWarmUp.setEnabled(warmUp.isEnabled());
+        redisWarmUp.setConnections(warmUp.getConnections());
+        redisWarmUp.setFailOnError(warmUp.isFailOnError());
+        return redisWarmUp;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnClass(RedisTemplate.class)
+    public SlQuotaLeaseManager slQuotaLeaseManager(SlidingWindowProperties properties) {
+        SlidingWindowProperties.Lease lease = properties.getLease();
+        SlQuotaLeaseManager manager = new SlQuotaLeaseManager();
+        manager.setMaxErrorRatio(lease.getMaxErrorRatio());
+        manager.setLeaseTimeInMs(lease.getLeaseTimeInMs());
+        manager.setMaxKeys(lease.getMaxKeys());
+        manager.setSweepIntervalInMs(lease.getSweepIntervalInMs());
+        return manager;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnClass(RedisTemplate.class)
+    public SlWriteBehindCounter slWriteBehindCounter(SlidingWindowProperties properties) {
+        SlidingWindowProperties.WriteBehind writeBehind = properties.getWriteBehind();
+        SlWriteBehindCounter counter = new SlWriteBehindCounter();
+        counter.setFlushIntervalInMs(writeBehind.getFlushIntervalInMs());
+        counter.setMaxKeys(writeBehind.getMaxKeys());
+        return counter;
     }
 
     @Bean
     @ConditionalOnMissingBean
-    public BaseSlidingWindowService baseSlidingWindowService(SlidingWindowProperties properties) {
+    @ConditionalOnProperty(prefix = "sliding.window.deny-cache", name = "enabled", havingValue = "true")
+    public SlDenyCache slDenyCache(SlidingWindowProperties properties) {
+        return new SlDenyCache(properties.getDenyCache().getMaxKeys());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "sliding.window.hot-keys", name = "enabled", havingValue = "true")
+    public SlHotKeyTracker slHotKeyTracker(SlidingWindowProperties properties) {
+        SlidingWindowProperties.HotKeys hotKeys = properties.getHotKeys();
+        return new SlHotKeyTracker(hotKeys.getCapacity(), hotKeys.getWidth(), hotKeys.getDepth(), hotKeys.getPeriodInMs());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "sliding.window.circuit-breaker", name = "enabled", havingValue = "true")
+    public SlCircuitBreaker slCircuitBreaker(SlidingWindowProperties properties) {
+        SlidingWindowProperties.CircuitBreaker circuitBreaker = properties.getCircuitBreaker();
+        SlCircuitBreaker breaker = new SlCircuitBreaker();
+        breaker.setSlowCallThresholdInMs(circuitBreaker.getSlowCallThresholdInMs());
+        breaker.setFailureRateThreshold(circuitBreaker.getFailureRateThreshold());
+        breaker.setMinimumCalls(circuitBreaker.getMinimumCalls());
+        breaker.setWindowInMs(circuitBreaker.getWindowInMs());
+        breaker.setOpenDurationInMs(circuitBreaker.getOpenDurationInMs());
+        breaker.setHalfOpenProbes(circuitBreaker.getHalfOpenProbes());
+        breaker.setCallTimeoutInMs(circuitBreaker.getCallTimeoutInMs());
+        breaker.setCallThreads(circuitBreaker.getCallThreads());
+        return breaker;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "sliding.window", name = "engine", havingValue = "redis", matchIfMissing = true)
+    public BaseSlidingWindowService baseSlidingWindowService(
+            SlidingWindowProperties properties, ObjectProvider<SlCircuitBreaker> slCircuitBreaker) {
         BaseSlidingWindowService service = new BaseSlidingWindowService();
         service.setKeyPrefix(properties.getKeyPrefix());
+        service.setMode(properties.getMode());
+        service.setBucketCount(properties.getBucketCount());
+        service.setShards(properties.getShards());
+        service.setShardThresholdMode(properties.getShardThresholdMode());
+        SlidingWindowProperties.CircuitBreaker circuitBreaker = properties.getCircuitBreaker();
+        service.setFallback(circuitBreaker.getFallback());
+        // 本地降级窗口只在存在熔断器时使用，未开启熔断时不分配maxKeys个槽位
+        if (slCircuitBreaker.getIfAvailable() != null) {
+            service.setFallbackWindowStore(new SlLocalWindowStore(properties.getLocal().getBucketCount(),
+                    properties.getLocal().getStripes(), circuitBreaker.getMaxKeys()));
+        }
         return service;
     }
-    
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "sliding.window", name = "engine", havingValue = "local")
+    public SlLocalWindowStore slLocalWindowStore(SlidingWindowProperties properties) {
+        SlidingWindowProperties.Local local = properties.getLocal();
+        return new SlLocalWindowStore(local.getBucketCount(), local.getStripes(), local.getMaxKeys());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "sliding.window", name = "engine", havingValue = "local")
+    public LocalSlidingWindowService localSlidingWindowService() {
+        return new LocalSlidingWindowService();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "sliding.window", name = "engine", havingValue = "mapped")
+    public SlMappedWindowStore slMappedWindowStore(SlidingWindowProperties properties, Environment environment) {
+        SlidingWindowProperties.Mapped mapped = properties.getMapped();
+        return new SlMappedWindowStore(mappedFile(mapped, environment), mapped.getBucketCount(), mapped.getMaxKeys());
+    }
+
+    /**
+     * 映射文件不能在应用之间共用：未配置路径时按应用名区分，应用名也未配置时启动失败
+     */
+    private static File mappedFile(SlidingWindowProperties.Mapped mapped, Environment environment) {
+        if (StringUtils.hasText(mapped.getFile())) {
+            return new File(mapped.getFile());
+        }
+        String applicationName = environment.getProperty("spring.application.name");
+        if (!StringUtils.hasText(applicationName)) {
+            throw new IllegalStateException("sliding.window.mapped.file or spring.application.name is required for mapped engine");
+        }
+        return new File(System.getProperty("java.io.tmpdir"), "sliding-window-" + applicationName.trim() + ".dat");
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "sliding.window", name = "engine", havingValue = "mapped")
+    public MappedSlidingWindowService mappedSlidingWindowService() {
+        return new MappedSlidingWindowService();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SceneConfigService sceneConfigService(
+            SlidingWindowProperties properties, ObjectProvider<SceneConfigSource> sources) {
+        return new CachedSceneConfigService(properties, sources.orderedStream().collect(Collectors.toList()));
+    }
+
     @Bean
     @ConditionalOnMissingBean
-    public SceneConfigService sceneConfigService() {
-        return new DefaultSceneConfigService();
+    public SceneSlidingWindowService sceneSlidingWindowService() {
+        return new DynamicSlidingWindowService();
+    }
+
+    /**
+     * 非阻塞版本，依赖Lettuce等支持响应式的连接工厂
+     */
+    @Configuration
+    @ConditionalOnClass({Mono.class, ReactiveRedisTemplate.class})
+    @ConditionalOnBean(ReactiveRedisConnectionFactory.class)
+    @ConditionalOnProperty(prefix = "sliding.window", name = "engine", havingValue = "redis", matchIfMissing = true)
+    static class ReactiveSlidingWindowConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public ReactivePlentifulRedisService reactivePlentifulRedisService(
+                ReactiveRedisConnectionFactory reactiveRedisConnectionFactory) {
+            return new ReactivePlentifulRedisService(
+                    new ReactiveRedisTemplate<>(reactiveRedisConnectionFactory, RedisSerializationContext.string()));
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(ReactiveSlidingWindowService.class)
+        public BaseReactiveSlidingWindowService baseReactiveSlidingWindowService(SlidingWindowProperties properties) {
+            BaseReactiveSlidingWindowService service = new BaseReactiveSlidingWindowService();
+            service.setKeyPrefix(properties.getKeyPrefix());
+            service.setMode(properties.getMode());
+            service.setBucketCount(properties.getBucketCount());
+            return service;
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(AsyncSlidingWindowService.class)
+        public BaseAsyncSlidingWindowService baseAsyncSlidingWindowService() {
+            return new BaseAsyncSlidingWindowService();
+        }
+    }
+
+    /**
+     * &#64;SlidingWindowLimit注解拦截。advisor声明为基础设施角色，
+     * 未引入aspectj时注册的InfrastructureAdvisorAutoProxyCreator也会应用它
+     */
+    @Configuration
+    @ConditionalOnClass(MethodInterceptor.class)
+    @ConditionalOnProperty(prefix = "sliding.window.annotation", name = "enabled", havingValue = "true")
+    @Import(LimitAnnotationProxyRegistrar.class)
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static class LimitAnnotationConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+        public static SlidingWindowLimitInterceptor slidingWindowLimitInterceptor() {
+            return new SlidingWindowLimitInterceptor();
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+        public static SlidingWindowLimitAdvisor slidingWindowLimitAdvisor(
+                SlidingWindowLimitInterceptor slidingWindowLimitInterceptor, SlidingWindowProperties properties) {
+            SlidingWindowLimitAdvisor advisor = new SlidingWindowLimitAdvisor(slidingWindowLimitInterceptor);
+            advisor.setOrder(properties.getAnnotation().getOrder());
+            return advisor;
+        }
+    }
+
+    /**
+     * 引入actuator并开启热点键统计时注册端点，是否暴露由management.endpoints配置决定
+     */
+    @Configuration
+    @ConditionalOnClass(Endpoint.class)
+    @ConditionalOnProperty(prefix = "sliding.window.hot-keys", name = "enabled", havingValue = "true")
+    static class EndpointConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public SlidingWindowEndpoint slidingWindowEndpoint(SlHotKeyTracker slHotKeyTracker) {
+            return new SlidingWindowEndpoint(slHotKeyTracker);
+        }
+    }
+
+    /**
+     * 存在MeterRegistry时记录Micrometer指标
+     */
+    @Configuration
+    @ConditionalOnClass(MeterRegistry.class)
+    @ConditionalOnBean(MeterRegistry.class)
+    static class MetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public SlMetricsRecorder slMetricsRecorder(MeterRegistry meterRegistry) {
+            return new SlMicrometerMetricsRecorder(meterRegistry);
+        }
+
+        /**
+         * 开启本地拒绝缓存时注册其命中、未命中与淘汰次数
+         */
+        @Bean
+        public MeterBinder slDenyCacheMeterBinder(ObjectProvider<SlDenyCache> slDenyCache) {
+            return registry -> slDenyCache.ifAvailable(denyCache -> SlMicrometerMetricsRecorder.bindDenyCache(denyCache, registry));
+        }
     }
-}
\ No newline at end of file
+}
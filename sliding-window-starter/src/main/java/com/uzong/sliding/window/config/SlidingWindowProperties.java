@@ -1,7 +1,18 @@
 package com.uzong.sliding.window.config;
 
+import com.uzong.sliding.window.dto.ShardThresholdMode;
+import com.uzong.sliding.window.dto.SlidingWindowFallback;
+import com.uzong.sliding.window.dto.SlidingWindowMode;
+import com.uzong.sliding.window.dto.WindowLinThresholdPair;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.Ordered;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 滑动窗口配置属性
@@ -30,4 +41,444 @@ public class SlidingWindowProperties {
      * 雪花算法机器ID
      */
     private long machineId = 1;
-}
\ No newline at end of file
+
+    /**
+     * 滑动窗口引擎：redis(分布式，默认)、local(本地内存，仅单节点生效)、mapped(堆外映射文件，仅单节点生效，重启后保留计数)
+     */
+    private String engine = "redis";
+
+    /**
+     * Redis引擎的默认存储模式：log(滑动日志，默认)、bounded_log(只记录放行事件的有界滑动日志)、
+     * counter(滑动窗口计数器)、lease(counter基础上的客户端配额租约)、gcra(通用信元速率算法，支持突发容量)、
+     * aggregated(本地聚合后定时写入的近似计数)
+     */
+    private SlidingWindowMode mode = SlidingWindowMode.LOG;
+
+    /**
+     * counter模式下每个窗口的子窗口数量，越大精度越高，Redis内存也越大
+     */
+    private int bucketCount = 10;
+
+    /**
+     * 热点键分片数，大于1时每个逻辑键拆分为多个物理键(键名后追加:序号)，分散到不同的Redis节点，仅支持log和bounded_log模式
+     */
+    private int shards = 1;
+
+    /**
+     * 分片后的阈值判断方式：aggregate(汇总判断，默认)、split(按分片拆分阈值)
+     */
+    private ShardThresholdMode shardThresholdMode = ShardThresholdMode.AGGREGATE;
+
+    /**
+     * 场景配置，键为场景名
+     */
+    private Map<String, Scene> scenes = new LinkedHashMap<>();
+
+    /**
+     * 场景注册表定时刷新间隔(ms)，0表示不定时刷新，只在启动时加载
+     */
+    private long sceneRefreshIntervalInMs = 0;
+
+    /**
+     * 场景下的键是否加上"场景名:"前缀。关闭后不同场景的同名键共用计数，与未引入场景注册表的版本使用相同的键名
+     */
+    private boolean sceneKeyPrefixEnabled = true;
+
+    /**
+     * 本地引擎配置
+     */
+    private Local local = new Local();
+
+    /**
+     * 映射文件引擎配置
+     */
+    private Mapped mapped = new Mapped();
+
+    /**
+     * Redis熔断与降级配置
+     */
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    /**
+     * lease模式的配额租约配置
+     */
+    private Lease lease = new Lease();
+
+    /**
+     * aggregated模式的写后聚合配置
+     */
+    private WriteBehind writeBehind = new WriteBehind();
+
+    /**
+     * 本地拒绝缓存配置
+     */
+    private DenyCache denyCache = new DenyCache();
+
+    /**
+     * 热点键统计配置
+     */
+    private HotKeys hotKeys = new HotKeys();
+
+    /**
+     * &#64;SlidingWindowLimit注解配置
+     */
+    private Annotation annotation = new Annotation();
+
+    /**
+     * Redis Functions配置
+     */
+    private Functions functions = new Functions();
+
+    /**
+     * 启动预热配置
+     */
+    private WarmUp warmUp = new WarmUp();
+
+    /**
+     * 跨线程合并调用配置
+     */
+    private Coalescing coalescing = new Coalescing();
+
+    /**
+     * 场景配置属性：单窗口时直接配置窗口大小与阈值，多窗口时配置windows
+     */
+    @Data
+    public static class Scene {
+
+        /**
+         * 窗口大小
+         */
+        private long windowLenInSeconds;
+
+        /**
+         * 阈值
+         */
+        private long threshold;
+
+        /**
+         * 存储模式，为空时使用全局配置
+         */
+        private SlidingWindowMode mode;
+
+        /**
+         * 热点键分片数，为空时使用全局配置
+         */
+        private Integer shards;
+
+        /**
+         * 分片后的阈值判断方式，为空时使用全局配置
+         */
+        private ShardThresholdMode shardThresholdMode;
+
+        /**
+         * Redis熔断或调用失败时的降级策略，为空时使用全局配置
+         */
+        private SlidingWindowFallback fallback;
+
+        /**
+         * GCRA模式的突发容量，为空时等于阈值
+         */
+        private Long burst;
+
+        /**
+         * 多窗口配置，非空时忽略上面的单窗口配置，第一个为主窗口
+         */
+        private List<WindowLinThresholdPair> windows = new ArrayList<>();
+
+        public List<WindowLinThresholdPair> toPairs() {
+            if (!windows.isEmpty()) {
+                return windows;
+            }
+            WindowLinThresholdPair pair = WindowLinThresholdPair.of(windowLenInSeconds, threshold);
+            pair.setMode(mode);
+            pair.setShards(shards);
+            pair.setShardThresholdMode(shardThresholdMode);
+            pair.setFallback(fallback);
+            pair.setBurst(burst);
+            return Collections.singletonList(pair);
+        }
+    }
+
+    /**
+     * Redis熔断与降级配置属性
+     */
+    @Data
+    public static class CircuitBreaker {
+
+        /**
+         * 是否开启，未开启时Redis异常直接抛出
+         */
+        private boolean enabled = false;
+
+        /**
+         * 单次调用的耗时预算(ms)，超过时计为失败；未设置call-timeout-in-ms时只能在调用返回后才判定，
+         * 单次调用的最长耗时仍由spring.redis.timeout决定，需要及时降级时请设置call-timeout-in-ms
+         */
+        private long slowCallThresholdInMs = 200;
+
+        /**
+         * 打开熔断器的失败率
+         */
+        private double failureRateThreshold = 0.5;
+
+        /**
+         * 统计周期内至少多少次调用才计算失败率
+         */
+        private int minimumCalls = 20;
+
+        /**
+         * 统计周期(ms)
+         */
+        private long windowInMs = 10000;
+
+        /**
+         * 打开状态持续时间(ms)，结束后放行探测调用
+         */
+        private long openDurationInMs = 5000;
+
+        /**
+         * 半开状态放行的探测调用数，全部成功后关闭
+         */
+        private int halfOpenProbes = 5;
+
+        /**
+         * 调用方最多等待的时间(ms)，超时后计为失败并降级；默认0表示在调用线程中执行，
+         * 不会提前中断慢调用，调用返回后才按slow-call-threshold-in-ms计为失败，最长耗时由spring.redis.timeout决定
+         */
+        private long callTimeoutInMs = 0;
+
+        /**
+         * 设置call-timeout-in-ms时执行调用的线程数，线程与队列都已满时计为失败并降级
+         */
+        private int callThreads = 16;
+
+        /**
+         * 默认降级策略：fail_open(放行)、fail_closed(拒绝)、local(本地近似窗口，默认)
+         */
+        private SlidingWindowFallback fallback = SlidingWindowFallback.LOCAL;
+
+        /**
+         * 本地降级窗口最多保留的键数量
+         */
+        private int maxKeys = 100000;
+    }
+
+    /**
+     * 本地引擎配置属性
+     */
+    @Data
+    public static class Local {
+
+        /**
+         * 每个窗口的时间桶数量，越大精度越高
+         */
+        private int bucketCount = 10;
+
+        /**
+         * 计数分段数，用于分散热点键的并发竞争，建议不超过CPU核数
+         */
+        private int stripes = 4;
+
+        /**
+         * 最多保留的键数量，超出后淘汰空闲键
+         */
+        private int maxKeys = 100000;
+    }
+
+    /**
+     * 映射文件引擎配置属性
+     */
+    @Data
+    public static class Mapped {
+
+        /**
+         * 映射文件路径，重启后从该文件恢复计数，每个应用应使用自己的文件；
+         * 未配置时使用临时目录下的sliding-window-${spring.application.name}.dat，两者都未配置时启动失败。
+         * bucket-count或max-keys变化时启动失败，需要删除文件或换一个路径
+         */
+        private String file;
+
+        /**
+         * 每个窗口的时间桶数量，每个键占用 32 + 8 × bucket-count 字节
+         */
+        private int bucketCount = 10;
+
+        /**
+         * 最多保留的键数量，超出后复用最久未访问的槽位
+         */
+        private int maxKeys = 1000000;
+    }
+
+    /**
+     * 配额租约配置属性
+     */
+    @Data
+    public static class Lease {
+
+        /**
+         * 每批预留的许可数占阈值的比例，决定少放行的误差上限(节点数 × 比例 × 阈值)
+         */
+        private double maxErrorRatio = 0.05;
+
+        /**
+         * 租约最长有效期(ms)，到期后归还未用完的许可
+         */
+        private long leaseTimeInMs = 1000;
+
+        /**
+         * 最多保留租约的键数量
+         */
+        private int maxKeys = 10000;
+
+        /**
+         * 到期租约的清理间隔(ms)，未用完的许可最多延迟这么久归还
+         */
+        private long sweepIntervalInMs = 200;
+    }
+
+    /**
+     * 写后聚合配置属性
+     */
+    @Data
+    public static class WriteBehind {
+
+        /**
+         * 本地增量写入Redis的间隔(ms)，也是读取结果的最大滞后时间
+         */
+        private long flushIntervalInMs = 1000;
+
+        /**
+         * 本地最多聚合的键数量，超过时新键的事件直接写入Redis
+         */
+        private int maxKeys = 100000;
+    }
+
+    /**
+     * 本地拒绝缓存配置属性
+     */
+    @Data
+    public static class DenyCache {
+
+        /**
+         * 是否开启。开启后log模式下超过阈值的键在拒绝期内直接拒绝，不访问Redis，也不再记录事件
+         */
+        private boolean enabled = false;
+
+        /**
+         * 最多缓存的键数量
+         */
+        private int maxKeys = 100000;
+    }
+
+    /**
+     * 热点键统计配置属性
+     */
+    @Data
+    public static class HotKeys {
+
+        /**
+         * 是否开启。开启后统计调用最多的键，引入actuator时通过slidingwindow端点查看
+         */
+        private boolean enabled = false;
+
+        /**
+         * 保留的候选键数量
+         */
+        private int capacity = 100;
+
+        /**
+         * Count-Min Sketch每行的计数器数量，每个统计周期占用 8 × width × depth 字节
+         */
+        private int width = 4096;
+
+        /**
+         * Count-Min Sketch的行数
+         */
+        private int depth = 4;
+
+        /**
+         * 统计周期(ms)，保留当前周期与上一个完整周期
+         */
+        private long periodInMs = 60000;
+    }
+
+    /**
+     * &#64;SlidingWindowLimit注解配置属性
+     */
+    @Data
+    public static class Annotation {
+
+        /**
+         * 是否开启注解拦截，默认关闭；开启后注册自动代理创建器，并按spring.aop.proxy-target-class决定是否对整个容器使用类代理
+         */
+        private boolean enabled = false;
+
+        /**
+         * 拦截器的顺序，与事务等其他拦截器同时使用时决定先后
+         */
+        private int order = Ordered.LOWEST_PRECEDENCE;
+    }
+
+    /**
+     * Redis Functions配置属性
+     */
+    @Data
+    public static class Functions {
+
+        /**
+         * 是否开启。开启后脚本注册为带版本的函数库，启动时加载并通过FCALL调用，需要Redis 7及以上，
+         * 服务端不支持时退回EVALSHA
+         */
+        private boolean enabled = false;
+    }
+
+    /**
+     * 启动预热配置属性
+     */
+    @Data
+    public static class WarmUp {
+
+        /**
+         * 是否开启。开启后在Web服务器接收请求之前加载脚本并建立连接
+         */
+        private boolean enabled = false;
+
+        /**
+         * 同时建立的连接数，一般与连接池的最小空闲连接数一致
+         */
+        private int connections = 8;
+
+        /**
+         * 预热失败时是否中止启动
+         */
+        private boolean failOnError = false;
+    }
+
+    /**
+     * 跨线程合并调用配置属性
+     */
+    @Data
+    public static class Coalescing {
+
+        /**
+         * 是否开启。开启后log、counter模式的计算与计数调用由发送线程收集，通过pipeline批量发送，
+         * 同一批中同一个键的调用合并为一次脚本执行
+         */
+        private boolean enabled = false;
+
+        /**
+         * 每批最多发送的调用数
+         */
+        private int maxBatchSize = 128;
+
+        /**
+         * 第一个调用入队后最多等待的时间(μs)，0表示只发送已经在队列中的调用
+         */
+        private long maxDelayInMicros = 100;
+
+        /**
+         * 发送线程数，每个线程同时只有一批在途
+         */
+        private int threads = 2;
+    }
+}
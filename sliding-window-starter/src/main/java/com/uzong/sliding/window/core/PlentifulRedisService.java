@@ -1,23 +1,48 @@
 package com.uzong.sliding.window.core;
 
+import com.uzong.sliding.window.dto.SlidingWindowMode;
+import com.uzong.sliding.window.dto.SlidingWindowRequest;
+import com.uzong.sliding.window.dto.WindowLinThresholdPair;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.data.redis.serializer.RedisSerializer;
 
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @author sky.
  */
 @Slf4j
-public class PlentifulRedisService {
+public class PlentifulRedisService implements InitializingBean, DisposableBean {
 
     @Autowired
     private RedisTemplate redisTemplate;
 
+    /**
+     * 指标记录，未配置时不记录
+     */
+    @Autowired(required = false)
+    private SlMetricsRecorder slMetricsRecorder = SlMetricsRecorder.NOOP;
+
     @Autowired
     @Qualifier("calculateAndCleanUpScript")
     private DefaultRedisScript<Boolean> calculateAndCleanUpScript;
@@ -30,6 +55,74 @@ public class PlentifulRedisService {
     @Qualifier("calculateCountScript")
     private DefaultRedisScript<Long> calculateCountScript;
 
+    @Autowired
+    @Qualifier("calculateUntilScript")
+    private DefaultRedisScript<Long> calculateUntilScript;
+
+    @Autowired
+    @Qualifier("boundedCalculateScript")
+    private DefaultRedisScript<Long> boundedCalculateScript;
+
+    @Autowired
+    @Qualifier("boundedCalculateAndCleanUpScript")
+    private DefaultRedisScript<Boolean> boundedCalculateAndCleanUpScript;
+
+    @Autowired
+    @Qualifier("boundedCalculateCountScript")
+    private DefaultRedisScript<Long> boundedCalculateCountScript;
+
+    @Autowired
+    @Qualifier("shardCountScript")
+    private DefaultRedisScript<Long> shardCountScript;
+
+    @Autowired
+    @Qualifier("calculateMultiScript")
+    private DefaultRedisScript<Long> calculateMultiScript;
+
+    @Autowired
+    @Qualifier("counterCalculateScript")
+    private DefaultRedisScript<Boolean> counterCalculateScript;
+
+    @Autowired
+    @Qualifier("counterCalculateAndCleanUpScript")
+    private DefaultRedisScript<Boolean> counterCalculateAndCleanUpScript;
+
+    @Autowired
+    @Qualifier("counterCalculateCountScript")
+    private DefaultRedisScript<Long> counterCalculateCountScript;
+
+    @Autowired
+    @Qualifier("gcraScript")
+    private DefaultRedisScript<Long> gcraScript;
+
+    @Autowired
+    @Qualifier("acquireScript")
+    private DefaultRedisScript<Long> acquireScript;
+
+    @Autowired
+    @Qualifier("counterAcquireScript")
+    private DefaultRedisScript<Long> counterAcquireScript;
+
+    @Autowired
+    @Qualifier("distinctCountScript")
+    private DefaultRedisScript<Long> distinctCountScript;
+
+    @Autowired
+    @Qualifier("leaseAcquireScript")
+    private DefaultRedisScript<Long> leaseAcquireScript;
+
+    @Autowired
+    @Qualifier("leaseReleaseScript")
+    private DefaultRedisScript<Long> leaseReleaseScript;
+
+    @Autowired
+    @Qualifier("calculateCoalescedScript")
+    private DefaultRedisScript<Long> calculateCoalescedScript;
+
+    @Autowired
+    @Qualifier("counterCalculateCoalescedScript")
+    private DefaultRedisScript<String> counterCalculateCoalescedScript;
+
     @Autowired
     @Qualifier("redisStringRedisSerializer")
     private RedisSerializer redisSerializer;
@@ -37,11 +130,123 @@ public class PlentifulRedisService {
     @Autowired
     private SlSnowflakeIdGenerator slSnowflakeIdGenerator;
 
+    /**
+     * 是否通过Redis Functions(FCALL)调用单次脚本，pipeline中的调用仍使用EVALSHA
+     */
+    @Setter
+    private boolean functionsEnabled;
+
+    /**
+     * 未开启Functions时为空
+     */
+    @Getter
+    private SlFunctionLibrary functionLibrary;
+
+    /**
+     * 跨线程合并滑动日志与计数器的计算、计数调用，未开启时为空
+     */
+    @Setter
+    private SlCommandCoalescer commandCoalescer;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (functionsEnabled) {
+            functionLibrary = new SlFunctionLibrary(scripts(), redisTemplate.getConnectionFactory());
+        }
+        if (commandCoalescer != null) {
+            commandCoalescer.start(this::executeCoalesced);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (commandCoalescer != null) {
+            commandCoalescer.close();
+        }
+    }
+
+    /**
+     * 所有脚本，键为脚本名(与指标中的脚本名一致)
+     */
+    public Map<String, DefaultRedisScript<?>> scripts() {
+        Map<String, DefaultRedisScript<?>> scripts = new LinkedHashMap<>();
+        scripts.put("calculate", calculateScript);
+        scripts.put("calculate_and_cleanup", calculateAndCleanUpScript);
+        scripts.put("calculate_count", calculateCountScript);
+        scripts.put("calculate_until", calculateUntilScript);
+        scripts.put("bounded_calculate", boundedCalculateScript);
+        scripts.put("bounded_calculate_and_cleanup", boundedCalculateAndCleanUpScript);
+        scripts.put("bounded_calculate_count", boundedCalculateCountScript);
+        scripts.put("shard_count", shardCountScript);
+        scripts.put("calculate_multi", calculateMultiScript);
+        scripts.put("counter_calculate", counterCalculateScript);
+        scripts.put("counter_calculate_and_cleanup", counterCalculateAndCleanUpScript);
+        scripts.put("counter_calculate_count", counterCalculateCountScript);
+        scripts.put("gcra", gcraScript);
+        scripts.put("acquire", acquireScript);
+        scripts.put("counter_acquire", counterAcquireScript);
+        scripts.put("distinct_count", distinctCountScript);
+        scripts.put("lease_acquire", leaseAcquireScript);
+        scripts.put("lease_release", leaseReleaseScript);
+        scripts.put("calculate_coalesced", calculateCoalescedScript);
+        scripts.put("counter_calculate_coalesced", counterCalculateCoalescedScript);
+        return scripts;
+    }
+
+    /**
+     * 加载脚本：开启Functions时校验并加载函数库；所有脚本同时加载到脚本缓存，pipeline与响应式调用仍使用EVALSHA
+     */
+    public void loadScripts() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            if (functionLibrary != null) {
+                functionLibrary.verify(connection);
+            }
+            for (DefaultRedisScript<?> script : scripts().values()) {
+                connection.scriptLoad(redisSerializer.serialize(script.getScriptAsString()));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 同时打开若干连接并PING，使连接池在接收请求前建立好连接
+     */
+    public void warmUpConnections(int connections) {
+        RedisConnectionFactory connectionFactory = redisTemplate.getConnectionFactory();
+        List<RedisConnection> opened = new ArrayList<>(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                RedisConnection connection = connectionFactory.getConnection();
+                opened.add(connection);
+                connection.ping();
+            }
+        } finally {
+            for (RedisConnection connection : opened) {
+                connection.close();
+            }
+        }
+    }
+
     public Boolean slidingWindowCalculate(
             String key, Long currentTime, Long windowLengthInMs,
             Long threshold, Long expireSeconds) {
 
-        return doExecute(key, currentTime, windowLengthInMs,
+        return slidingWindowCalculate(SlScriptArgsEncoder.EMPTY_PREFIX, key, currentTime, windowLengthInMs,
+                threshold, expireSeconds);
+    }
+
+    /**
+     * 键名为前缀字节+key，请求路径上不拼接字符串、不装箱
+     */
+    public Boolean slidingWindowCalculate(
+            byte[] keyPrefix, String key, long currentTime, long windowLengthInMs,
+            long threshold, long expireSeconds) {
+
+        if (commandCoalescer != null) {
+            return commandCoalescer.submit(SlCommandCoalescer.Kind.LOG, keyPrefix, key, currentTime,
+                    windowLengthInMs, expireSeconds) >= threshold;
+        }
+        return doExecute("calculate", keyPrefix, key, currentTime, windowLengthInMs,
                 threshold, expireSeconds, calculateScript);
     }
 
@@ -49,7 +254,15 @@ public class PlentifulRedisService {
             String key, Long currentTime, Long windowLengthInMs,
             Long threshold, Long expireSeconds) {
 
-        return doExecute(key, currentTime, windowLengthInMs,
+        return slidingWindowCalculateAndCleanUp(SlScriptArgsEncoder.EMPTY_PREFIX, key, currentTime, windowLengthInMs,
+                threshold, expireSeconds);
+    }
+
+    public Boolean slidingWindowCalculateAndCleanUp(
+            byte[] keyPrefix, String key, long currentTime, long windowLengthInMs,
+            long threshold, long expireSeconds) {
+
+        return doExecute("calculate_and_cleanup", keyPrefix, key, currentTime, windowLengthInMs,
                 threshold, expireSeconds, calculateAndCleanUpScript
         );
     }
@@ -57,29 +270,685 @@ public class PlentifulRedisService {
     public Long slidingWindowCalculateCount(
             String key, Long currentTime, Long windowLengthInMs,
             Long expireSeconds) {
-        return doExecute(key, currentTime, windowLengthInMs,
+        return slidingWindowCalculateCount(SlScriptArgsEncoder.EMPTY_PREFIX, key, currentTime, windowLengthInMs,
+                expireSeconds);
+    }
+
+    public Long slidingWindowCalculateCount(
+            byte[] keyPrefix, String key, long currentTime, long windowLengthInMs,
+            long expireSeconds) {
+        if (commandCoalescer != null) {
+            return (long) commandCoalescer.submit(SlCommandCoalescer.Kind.LOG, keyPrefix, key, currentTime,
+                    windowLengthInMs, expireSeconds);
+        }
+        return doExecute("calculate_count", keyPrefix, key, currentTime, windowLengthInMs,
                 0L, expireSeconds, calculateCountScript
         );
     }
 
-    private <T> T doExecute(
+    /**
+     * 与slidingWindowCalculate相同，超过阈值时返回下一次请求最早可能放行的时间
+     *
+     * @return 未超过阈值返回0，否则返回拒绝截止时间(ms)
+     */
+    public Long slidingWindowCalculateUntil(
+            String key, Long currentTime, Long windowLengthInMs,
+            Long threshold, Long expireSeconds) {
+
+        return doExecute("calculate_until", SlScriptArgsEncoder.EMPTY_PREFIX, key, currentTime, windowLengthInMs,
+                threshold, expireSeconds, calculateUntilScript);
+    }
+
+    /**
+     * 有界写入：只记录放行的事件，过期时间按毫秒设置
+     *
+     * @return 未超过阈值返回0，否则返回拒绝截止时间(ms)
+     */
+    public Long boundedWindowCalculate(
+            String key, Long currentTime, Long windowLengthInMs, Long threshold) {
+
+        return doExecute("bounded_calculate", SlScriptArgsEncoder.EMPTY_PREFIX, key, currentTime, windowLengthInMs,
+                threshold, windowLengthInMs, boundedCalculateScript);
+    }
+
+    public Boolean boundedWindowCalculateAndCleanUp(
+            String key, Long currentTime, Long windowLengthInMs, Long threshold) {
+
+        return boundedWindowCalculateAndCleanUp(SlScriptArgsEncoder.EMPTY_PREFIX, key, currentTime, windowLengthInMs,
+                threshold);
+    }
+
+    public Boolean boundedWindowCalculateAndCleanUp(
+            byte[] keyPrefix, String key, long currentTime, long windowLengthInMs, long threshold) {
+
+        return doExecute("bounded_calculate_and_cleanup", keyPrefix, key, currentTime, windowLengthInMs,
+                threshold, windowLengthInMs, boundedCalculateAndCleanUpScript);
+    }
+
+    public Long boundedWindowCalculateCount(
+            String key, Long currentTime, Long windowLengthInMs) {
+
+        return boundedWindowCalculateCount(SlScriptArgsEncoder.EMPTY_PREFIX, key, currentTime, windowLengthInMs);
+    }
+
+    public Long boundedWindowCalculateCount(
+            byte[] keyPrefix, String key, long currentTime, long windowLengthInMs) {
+
+        return doExecute("bounded_calculate_count", keyPrefix, key, currentTime, windowLengthInMs,
+                0L, windowLengthInMs, boundedCalculateCountScript);
+    }
+
+    /**
+     * 分片滑动日志：事件只写入下标为writeShard的分片，其余分片只读取窗口内事件数，一次pipeline完成
+     *
+     * @return 所有分片窗口内事件数之和
+     */
+    public Long shardedWindowCalculateCount(
+            List<String> keys, int writeShard, Long currentTime, Long windowLengthInMs,
+            Long windowLenInSeconds, SlidingWindowMode mode) {
+
+        List<DefaultRedisScript<?>> scripts = new ArrayList<>(keys.size());
+        List<byte[][]> keysAndArgs = new ArrayList<>(keys.size());
+        String[] countArgs = {Long.toString(currentTime - windowLengthInMs)};
+        for (int i = 0; i < keys.size(); i++) {
+            if (i != writeShard) {
+                scripts.add(shardCountScript);
+                keysAndArgs.add(serialize(keys.get(i), countArgs));
+            } else if (mode == SlidingWindowMode.BOUNDED_LOG) {
+                scripts.add(boundedCalculateCountScript);
+                keysAndArgs.add(serialize(keys.get(i), logArgs(currentTime, windowLengthInMs, 0L, windowLengthInMs)));
+            } else {
+                scripts.add(calculateCountScript);
+                keysAndArgs.add(serialize(keys.get(i), logArgs(currentTime, windowLengthInMs, 0L, windowLenInSeconds)));
+            }
+        }
+
+        long total = 0;
+        for (Object result : executePipelined("sharded_count", scripts, keysAndArgs)) {
+            total += (Long) result;
+        }
+        return total;
+    }
+
+    /**
+     * 分片有界写入：先在一次pipeline中读取其余分片窗口内的事件数，
+     * 再以剩余阈值在写入分片上执行有界写入，所有分片之和未达到阈值时才记录事件
+     *
+     * @return 未超过阈值返回0，否则返回写入分片的拒绝截止时间(ms)
+     */
+    public Long boundedShardedWindowCalculate(
+            List<String> keys, int writeShard, Long currentTime, Long windowLengthInMs, Long threshold) {
+
+        List<DefaultRedisScript<?>> scripts = new ArrayList<>(keys.size() - 1);
+        List<byte[][]> keysAndArgs = new ArrayList<>(keys.size() - 1);
+        String[] countArgs = {Long.toString(currentTime - windowLengthInMs)};
+        for (int i = 0; i < keys.size(); i++) {
+            if (i != writeShard) {
+                scripts.add(shardCountScript);
+                keysAndArgs.add(serialize(keys.get(i), countArgs));
+            }
+        }
+        long others = 0;
+        for (Object result : executePipelined("sharded_count", scripts, keysAndArgs)) {
+            others += (Long) result;
+        }
+        long remaining = threshold - others;
+        if (remaining <= 0) {
+            return currentTime + windowLengthInMs;
+        }
+        return boundedWindowCalculate(keys.get(writeShard), currentTime, windowLengthInMs, remaining);
+    }
+
+    /**
+     * 清理所有分片中不晚于当前时间的事件
+     */
+    public void shardedWindowCleanUp(List<String> keys, Long currentTime) {
+        long start = System.nanoTime();
+        boolean error = true;
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String key : keys) {
+                    connection.zRemRangeByScore(redisSerializer.serialize(key), 0, currentTime);
+                }
+                return null;
+            }, redisSerializer);
+            error = false;
+        } finally {
+            slMetricsRecorder.recordScript("sharded_cleanup", error, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 记录一次事件，并在同一个ZSET上检查多个窗口
+     *
+     * @return 第一个达到阈值的窗口序号(从1开始)，都未达到时返回0
+     */
+    public Long slidingWindowCalculateMulti(
+            String key, Long currentTime, List<WindowLinThresholdPair> pairs) {
+
+        long maxWindowLengthInMs = 0;
+        List<String> args = new ArrayList<>(4 + pairs.size() * 2);
+        args.add(Long.toString(currentTime));
+        args.add(Long.toString(slSnowflakeIdGenerator.nextId(currentTime)));
+        args.add(null);
+        args.add(null);
+        for (WindowLinThresholdPair pair : pairs) {
+            long windowLengthInMs = pair.getWindowLenInSeconds() * 1000;
+            maxWindowLengthInMs = Math.max(maxWindowLengthInMs, windowLengthInMs);
+            args.add(Long.toString(currentTime - windowLengthInMs));
+            args.add(Long.toString(pair.getThreshold()));
+        }
+        args.set(2, Long.toString(currentTime - maxWindowLengthInMs));
+        args.set(3, Long.toString(maxWindowLengthInMs));
+
+        return execute("calculate_multi", calculateMultiScript, key, args.toArray(new String[0]));
+    }
+
+    public Boolean counterWindowCalculate(
+            String key, Long currentTime, Long windowLengthInMs,
+            Long threshold, Integer bucketCount) {
+
+        return counterWindowCalculate(SlScriptArgsEncoder.EMPTY_PREFIX, key, currentTime, windowLengthInMs,
+                threshold, bucketCount);
+    }
+
+    public Boolean counterWindowCalculate(
+            byte[] keyPrefix, String key, long currentTime, long windowLengthInMs,
+            long threshold, int bucketCount) {
+
+        if (commandCoalescer != null) {
+            return commandCoalescer.submit(SlCommandCoalescer.Kind.COUNTER, keyPrefix, key, currentTime,
+                    windowLengthInMs, bucketCount) >= threshold;
+        }
+        return doExecuteCounter("counter_calculate", keyPrefix, key, currentTime, windowLengthInMs,
+                threshold, bucketCount, counterCalculateScript);
+    }
+
+    public Boolean counterWindowCalculateAndCleanUp(
+            String key, Long currentTime, Long windowLengthInMs,
+            Long threshold, Integer bucketCount) {
+
+        return counterWindowCalculateAndCleanUp(SlScriptArgsEncoder.EMPTY_PREFIX, key, currentTime, windowLengthInMs,
+                threshold, bucketCount);
+    }
+
+    public Boolean counterWindowCalculateAndCleanUp(
+            byte[] keyPrefix, String key, long currentTime, long windowLengthInMs,
+            long threshold, int bucketCount) {
+
+        return doExecuteCounter("counter_calculate_and_cleanup", keyPrefix, key, currentTime, windowLengthInMs,
+                threshold, bucketCount, counterCalculateAndCleanUpScript);
+    }
+
+    public Long counterWindowCalculateCount(
+            String key, Long currentTime, Long windowLengthInMs,
+            Integer bucketCount) {
+        return counterWindowCalculateCount(SlScriptArgsEncoder.EMPTY_PREFIX, key, currentTime, windowLengthInMs,
+                bucketCount);
+    }
+
+    public Long counterWindowCalculateCount(
+            byte[] keyPrefix, String key, long currentTime, long windowLengthInMs,
+            int bucketCount) {
+        if (commandCoalescer != null) {
+            // 与counter_calculate_count.lua相同，四舍五入
+            return (long) Math.floor(commandCoalescer.submit(SlCommandCoalescer.Kind.COUNTER, keyPrefix, key,
+                    currentTime, windowLengthInMs, bucketCount) + 0.5);
+        }
+        return doExecuteCounter("counter_calculate_count", keyPrefix, key, currentTime, windowLengthInMs,
+                0L, bucketCount, counterCalculateCountScript);
+    }
+
+    /**
+     * GCRA：每个键只保存理论到达时间，cleanUp为true时超过阈值会清除该键
+     *
+     * @return 放行返回0，否则返回还需等待的时间(ms)
+     */
+    public Long gcraCalculate(
+            String key, Long currentTime, Long windowLengthInMs,
+            Long threshold, Long burst, Boolean cleanUp) {
+
+        return gcraCalculate(SlScriptArgsEncoder.EMPTY_PREFIX, key, currentTime, windowLengthInMs,
+                threshold, burst, cleanUp);
+    }
+
+    public Long gcraCalculate(
+            byte[] keyPrefix, String key, long currentTime, long windowLengthInMs,
+            long threshold, long burst, boolean cleanUp) {
+
+        return execute("gcra", gcraScript, SlScriptArgsEncoder.gcraArgs(keyPrefix, key,
+                currentTime, windowLengthInMs, threshold, burst, cleanUp));
+    }
+
+    /**
+     * 在滑动日志上一次获取多个许可，事件记录为一个带权重的成员，只记录获取成功的许可
+     *
+     * @return 获取成功返回true
+     */
+    public Boolean slidingWindowAcquire(
+            String key, Long currentTime, Long windowLengthInMs, Long threshold, Long permits) {
+
+        String[] logArgs = logArgs(currentTime, windowLengthInMs, threshold, windowLengthInMs);
+        return execute("acquire", acquireScript, key,
+                logArgs[0], logArgs[1], logArgs[2], logArgs[3], logArgs[4],
+                Long.toString(permits)) > 0;
+    }
+
+    /**
+     * 在COUNTER存储上一次获取多个许可，当前子窗口按许可数递增，只记录获取成功的许可
+     *
+     * @return 获取成功返回true
+     */
+    public Boolean counterWindowAcquire(
             String key, Long currentTime, Long windowLengthInMs, Long threshold,
-            Long expireSeconds, DefaultRedisScript<T> defaultRedisScript) {
-
-        String currentTimeScore = Long.toString(currentTime);
-
-        String preTimeScore = Long.toString(currentTime - windowLengthInMs);
-
-        return (T) redisTemplate.execute(
-                defaultRedisScript,
-                redisSerializer,
-                redisSerializer,
-                Collections.singletonList(key),
-                currentTimeScore,
-                preTimeScore,
-                Long.toString(expireSeconds),
-                Long.toString(threshold),
-                Long.toString(slSnowflakeIdGenerator.nextId())
-        );
+            Integer bucketCount, Long permits) {
+
+        String[] counterArgs = counterArgs(currentTime, windowLengthInMs, threshold, bucketCount);
+        return execute("counter_acquire", counterAcquireScript, key,
+                counterArgs[0], counterArgs[1], counterArgs[2], counterArgs[3], counterArgs[4],
+                Long.toString(permits)) > 0;
+    }
+
+    /**
+     * GCRA一次获取多个许可，理论到达时间按许可数后移
+     *
+     * @return 获取成功返回0，否则返回还需等待的时间(ms)
+     */
+    public Long gcraAcquire(
+            String key, Long currentTime, Long windowLengthInMs, Long threshold,
+            Long burst, Long permits) {
+
+        String[] gcraArgs = SlScriptArgs.gcraArgs(currentTime, windowLengthInMs, threshold, burst, false);
+        return execute("gcra", gcraScript, key,
+                gcraArgs[0], gcraArgs[1], gcraArgs[2], gcraArgs[3], gcraArgs[4],
+                Long.toString(permits));
+    }
+
+    /**
+     * 在当前子窗口的HyperLogLog中记录成员，并合并窗口内所有子窗口
+     *
+     * @param keys 第一个为当前子窗口，其余为窗口内的其他子窗口，需要在同一个哈希槽
+     * @return 窗口内的近似去重数
+     */
+    public Long distinctWindowCount(List<String> keys, String member, Long expireInMs) {
+        byte[][] keysAndArgs = new byte[keys.size() + 2][];
+        for (int i = 0; i < keys.size(); i++) {
+            keysAndArgs[i] = redisSerializer.serialize(keys.get(i));
+        }
+        keysAndArgs[keys.size()] = redisSerializer.serialize(member);
+        keysAndArgs[keys.size() + 1] = redisSerializer.serialize(Long.toString(expireInMs));
+        return execute("distinct_count", distinctCountScript, keys.size(), keysAndArgs);
+    }
+
+    /**
+     * 在COUNTER存储上预留一批许可，可同时归还上一个租约未用完的许可
+     *
+     * @return 实际预留的许可数，窗口已满时为0
+     */
+    public Long leaseAcquire(
+            String key, Long currentTime, Long windowLengthInMs, Long threshold,
+            Integer bucketCount, Long permits, Long releaseBucket, Long releasePermits) {
+
+        String[] counterArgs = counterArgs(currentTime, windowLengthInMs, threshold, bucketCount);
+        return execute("lease_acquire", leaseAcquireScript, key,
+                counterArgs[0], counterArgs[1], counterArgs[2], counterArgs[3], counterArgs[4],
+                Long.toString(permits),
+                Long.toString(releaseBucket),
+                Long.toString(releasePermits));
+    }
+
+    /**
+     * 归还租约未用完的许可
+     */
+    public void leaseRelease(String key, Long bucket, Long permits) {
+        execute("lease_release", leaseReleaseScript, key,
+                Long.toString(bucket),
+                Long.toString(permits));
+    }
+
+    /**
+     * 通过一次pipeline递增多个子窗口计数键(INCRBY)，并设置过期时间戳(PEXPIREAT)
+     *
+     * @return 每个键是否递增成功，顺序与keys一致
+     */
+    public List<Boolean> incrementBuckets(List<String> keys, List<Long> deltas, List<Long> expireAts) {
+        long start = System.nanoTime();
+        boolean error = true;
+        try {
+            List<Object> results;
+            try {
+                results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    for (int i = 0; i < keys.size(); i++) {
+                        byte[] key = redisSerializer.serialize(keys.get(i));
+                        connection.incrBy(key, deltas.get(i));
+                        connection.pExpireAt(key, expireAts.get(i));
+                    }
+                    return null;
+                }, redisSerializer);
+            } catch (RedisPipelineException e) {
+                // 部分命令失败时按命令返回结果，未失败的递增不再重试
+                results = e.getPipelineResult();
+                if (results.size() != keys.size() * 2) {
+                    throw e;
+                }
+            }
+            List<Boolean> applied = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                applied.add(!(results.get(i * 2) instanceof Throwable));
+            }
+            error = applied.contains(Boolean.FALSE);
+            return applied;
+        } finally {
+            slMetricsRecorder.recordScript("increment_buckets", error, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 读取多个子窗口计数键(MGET)，不存在的键为0
+     */
+    public List<Long> bucketCounts(List<String> keys) {
+        long start = System.nanoTime();
+        boolean error = true;
+        try {
+            byte[][] rawKeys = new byte[keys.size()][];
+            for (int i = 0; i < keys.size(); i++) {
+                rawKeys[i] = redisSerializer.serialize(keys.get(i));
+            }
+            List<byte[]> values = (List<byte[]>) redisTemplate.execute((RedisCallback<Object>) connection ->
+                    connection.mGet(rawKeys));
+            List<Long> counts = new ArrayList<>(keys.size());
+            for (byte[] value : values) {
+                counts.add(value == null ? 0L : Long.parseLong((String) redisSerializer.deserialize(value)));
+            }
+            error = false;
+            return counts;
+        } finally {
+            slMetricsRecorder.recordScript("bucket_counts", error, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 批量计算多个键，所有脚本调用通过一次pipeline发送，结果顺序与请求顺序一致
+     */
+    public List<Boolean> slidingWindowCalculateBatch(
+            String keyPrefix, List<SlidingWindowRequest> requests, Long currentTime,
+            SlidingWindowMode defaultMode, Integer bucketCount) {
+
+        List<DefaultRedisScript<?>> scripts = new ArrayList<>(requests.size());
+        List<byte[][]> keysAndArgs = new ArrayList<>(requests.size());
+        for (SlidingWindowRequest request : requests) {
+            SlidingWindowMode mode = request.getMode() == null ? defaultMode : request.getMode();
+            String key = keyPrefix + mode.keyNamespace() + request.getKey();
+            long windowLengthInMs = request.getWindowLenInSeconds() * 1000;
+            if (mode == SlidingWindowMode.AGGREGATED) {
+                throw new IllegalArgumentException("aggregated mode does not support batch calculate");
+            }
+            if (mode.isCounterStorage()) {
+                scripts.add(counterCalculateScript);
+                keysAndArgs.add(serialize(key, counterArgs(currentTime, windowLengthInMs, request.getThreshold(), bucketCount)));
+            } else if (mode == SlidingWindowMode.GCRA) {
+                scripts.add(gcraScript);
+                keysAndArgs.add(serialize(key, SlScriptArgs.gcraArgs(currentTime, windowLengthInMs,
+                        request.getThreshold(), request.getThreshold(), false)));
+            } else if (mode == SlidingWindowMode.BOUNDED_LOG) {
+                scripts.add(boundedCalculateScript);
+                keysAndArgs.add(serialize(key, logArgs(currentTime, windowLengthInMs, request.getThreshold(), windowLengthInMs)));
+            } else {
+                scripts.add(calculateScript);
+                keysAndArgs.add(serialize(key, logArgs(currentTime, windowLengthInMs, request.getThreshold(), request.getWindowLenInSeconds())));
+            }
+        }
+
+        List<Object> results = executePipelined("batch", scripts, keysAndArgs);
+        List<Boolean> overLimits = new ArrayList<>(results.size());
+        for (Object result : results) {
+            // 有界写入脚本返回拒绝截止时间，GCRA脚本返回需要等待的时间，大于0表示超过阈值
+            overLimits.add(result instanceof Long ? (Long) result > 0 : Boolean.TRUE.equals(result));
+        }
+        return overLimits;
+    }
+
+    /**
+     * 执行一批合并后的调用：每个键一次脚本执行，按合并次数记录事件，所有脚本通过一次pipeline发送
+     */
+    private List<Object> executeCoalesced(List<SlCommandCoalescer.Command> commands, int[] counts) {
+        List<DefaultRedisScript<?>> scripts = new ArrayList<>(commands.size());
+        List<byte[][]> keysAndArgs = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            SlCommandCoalescer.Command command = commands.get(i);
+            byte[][] encoded;
+            if (command.getKind() == SlCommandCoalescer.Kind.COUNTER) {
+                scripts.add(counterCalculateCoalescedScript);
+                encoded = SlScriptArgsEncoder.counterArgs(command.getKeyPrefix(), command.getKey(),
+                        command.getCurrentTime(), command.getWindowLengthInMs(), 0, (int) command.getParam());
+            } else {
+                scripts.add(calculateCoalescedScript);
+                encoded = SlScriptArgsEncoder.logArgs(command.getKeyPrefix(), command.getKey(),
+                        command.getCurrentTime(), command.getWindowLengthInMs(), 0, command.getParam(),
+                        slSnowflakeIdGenerator.nextId(command.getCurrentTime()));
+            }
+            byte[][] args = new byte[encoded.length + 1][];
+            System.arraycopy(encoded, 0, args, 0, encoded.length);
+            args[encoded.length] = redisSerializer.serialize(Integer.toString(counts[i]));
+            keysAndArgs.add(args);
+        }
+
+        // 不同组之间互不影响，某一组的脚本出错时只有该组的调用失败
+        List<Object> results = executePipelinedEach("coalesced", scripts, keysAndArgs);
+        List<Object> totals = new ArrayList<>(results.size());
+        for (Object result : results) {
+            totals.add(coalescedTotal(result));
+        }
+        return totals;
+    }
+
+    /**
+     * 滑动日志脚本返回整数，计数器脚本返回带小数的字符串；失败的调用原样返回异常
+     */
+    private static Object coalescedTotal(Object result) {
+        if (result instanceof Throwable) {
+            return result;
+        }
+        return result instanceof Long ? ((Long) result).doubleValue() : Double.parseDouble(result.toString());
+    }
+
+    private <T> T doExecute(
+            String scriptName, byte[] keyPrefix, String key, long currentTime, long windowLengthInMs, long threshold,
+            long expireSeconds, DefaultRedisScript<T> defaultRedisScript) {
+
+        return execute(scriptName, defaultRedisScript, SlScriptArgsEncoder.logArgs(keyPrefix, key,
+                currentTime, windowLengthInMs, threshold, expireSeconds, slSnowflakeIdGenerator.nextId(currentTime)));
+    }
+
+    private <T> T doExecuteCounter(
+            String scriptName, byte[] keyPrefix, String key, long currentTime, long windowLengthInMs, long threshold,
+            int bucketCount, DefaultRedisScript<T> defaultRedisScript) {
+
+        return execute(scriptName, defaultRedisScript, SlScriptArgsEncoder.counterArgs(keyPrefix, key,
+                currentTime, windowLengthInMs, threshold, bucketCount));
+    }
+
+    /**
+     * 直接以字节数组执行脚本并记录耗时。开启Functions时通过FCALL调用，否则脚本未加载(NOSCRIPT)时改用EVAL执行
+     */
+    private <T> T execute(String scriptName, DefaultRedisScript<T> defaultRedisScript, byte[][] keysAndArgs) {
+        return execute(scriptName, defaultRedisScript, 1, keysAndArgs);
+    }
+
+    private <T> T execute(String scriptName, DefaultRedisScript<T> defaultRedisScript, int numKeys, byte[][] keysAndArgs) {
+        long start = System.nanoTime();
+        boolean error = true;
+        try {
+            T result = (T) redisTemplate.execute((RedisCallback<Object>) connection ->
+                    evalSha(connection, scriptName, defaultRedisScript, numKeys, keysAndArgs));
+            error = false;
+            return result;
+        } finally {
+            slMetricsRecorder.recordScript(scriptName, error, System.nanoTime() - start);
+        }
+    }
+
+    private Object evalSha(RedisConnection connection, String scriptName, DefaultRedisScript<?> script,
+                           int numKeys, byte[][] keysAndArgs) {
+        // 参数每次编码都是新的数组，超时后驱动仍持有引用也不会被改写；FCALL不经过pipeline/事务
+        boolean queued = connection.isPipelined() || connection.isQueueing();
+        ReturnType returnType = ReturnType.fromJavaType(script.getResultType());
+        SlFunctionLibrary library = functionLibrary;
+        if (library != null && !queued && library.contains(scriptName) && library.ensureVerified(connection)) {
+            return library.fcall(connection, scriptName, returnType, numKeys, keysAndArgs);
+        }
+        try {
+            return connection.evalSha(script.getSha1(), returnType, numKeys, keysAndArgs);
+        } catch (RuntimeException e) {
+            if (!isNoScriptError(e)) {
+                throw e;
+            }
+            return connection.eval(redisSerializer.serialize(script.getScriptAsString()), returnType, numKeys, keysAndArgs);
+        }
+    }
+
+    /**
+     * 执行单键脚本并记录耗时
+     */
+    private <T> T execute(String scriptName, DefaultRedisScript<T> defaultRedisScript, String key, String... args) {
+        return execute(scriptName, defaultRedisScript, serialize(key, args));
+    }
+
+    private String[] logArgs(long currentTime, long windowLengthInMs, long threshold, long expireSeconds) {
+        return SlScriptArgs.logArgs(currentTime, windowLengthInMs, threshold,
+                expireSeconds, slSnowflakeIdGenerator.nextId(currentTime));
+    }
+
+    private String[] counterArgs(long currentTime, long windowLengthInMs, long threshold, int bucketCount) {
+        return SlScriptArgs.counterArgs(currentTime, windowLengthInMs, threshold, bucketCount);
+    }
+
+    private byte[][] serialize(String key, String[] args) {
+        byte[][] keyAndArgs = new byte[args.length + 1][];
+        keyAndArgs[0] = redisSerializer.serialize(key);
+        for (int i = 0; i < args.length; i++) {
+            keyAndArgs[i + 1] = redisSerializer.serialize(args[i]);
+        }
+        return keyAndArgs;
+    }
+
+    /**
+     * 通过pipeline执行一组单键脚本。脚本未加载(NOSCRIPT)的调用会在加载脚本后单独重试，
+     * 已成功执行的调用不会重复执行
+     */
+    private List<Object> executePipelined(
+            String pipelineName, List<DefaultRedisScript<?>> scripts, List<byte[][]> keysAndArgs) {
+        long start = System.nanoTime();
+        boolean error = true;
+        try {
+            List<Object> results = executePipelined(scripts, keysAndArgs, false);
+            error = false;
+            return results;
+        } finally {
+            slMetricsRecorder.recordScript(pipelineName, error, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 与executePipelined相同，但某个调用失败时不影响其他调用：失败的调用在结果中对应位置为DataAccessException。
+     * 整个pipeline失败(如连接断开)时仍然抛出异常
+     */
+    private List<Object> executePipelinedEach(
+            String pipelineName, List<DefaultRedisScript<?>> scripts, List<byte[][]> keysAndArgs) {
+        long start = System.nanoTime();
+        boolean error = true;
+        try {
+            List<Object> results = executePipelined(scripts, keysAndArgs, true);
+            error = false;
+            for (int i = 0; i < results.size(); i++) {
+                Object result = results.get(i);
+                if (result instanceof Throwable) {
+                    error = true;
+                    results.set(i, result instanceof DataAccessException ? result
+                            : new RedisSystemException(((Throwable) result).getMessage(), (Throwable) result));
+                }
+            }
+            return results;
+        } finally {
+            slMetricsRecorder.recordScript(pipelineName, error, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @param partial 为true时非NOSCRIPT的错误留在结果中，否则任意一个调用失败时抛出异常
+     */
+    private List<Object> executePipelined(
+            List<DefaultRedisScript<?>> scripts, List<byte[][]> keysAndArgs, boolean partial) {
+        List<Integer> indexes = new ArrayList<>(scripts.size());
+        for (int i = 0; i < scripts.size(); i++) {
+            indexes.add(i);
+        }
+        List<Object> results = pipelineResults(scripts, keysAndArgs, indexes, partial);
+        List<Integer> retryIndexes = new ArrayList<>();
+        Set<DefaultRedisScript<?>> missingScripts = new LinkedHashSet<>();
+        for (int i = 0; i < results.size(); i++) {
+            Object result = results.get(i);
+            if (result instanceof Throwable && isNoScriptError((Throwable) result)) {
+                retryIndexes.add(i);
+                missingScripts.add(scripts.get(i));
+            }
+        }
+        if (retryIndexes.isEmpty()) {
+            return results;
+        }
+        log.info("===>>> reload sliding window scripts after NOSCRIPT, count:{}", missingScripts.size());
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            for (DefaultRedisScript<?> script : missingScripts) {
+                connection.scriptLoad(redisSerializer.serialize(script.getScriptAsString()));
+            }
+            return null;
+        });
+        List<Object> retried = pipelineResults(scripts, keysAndArgs, retryIndexes, partial);
+        for (int i = 0; i < retryIndexes.size(); i++) {
+            results.set(retryIndexes.get(i), retried.get(i));
+        }
+        return results;
+    }
+
+    /**
+     * 执行pipeline，部分调用失败时返回各调用的结果与异常；NOSCRIPT以外的错误在partial为false时抛出
+     */
+    private List<Object> pipelineResults(List<DefaultRedisScript<?>> scripts, List<byte[][]> keysAndArgs,
+                                         List<Integer> indexes, boolean partial) {
+        try {
+            return new ArrayList<>(doExecutePipelined(scripts, keysAndArgs, indexes));
+        } catch (RedisPipelineException e) {
+            List<Object> results = new ArrayList<>(e.getPipelineResult());
+            if (results.size() != indexes.size()) {
+                throw e;
+            }
+            for (Object result : results) {
+                if (result instanceof Throwable && !partial && !isNoScriptError((Throwable) result)) {
+                    throw e;
+                }
+            }
+            return results;
+        }
+    }
+
+    private List<Object> doExecutePipelined(
+            List<DefaultRedisScript<?>> scripts, List<byte[][]> keysAndArgs, List<Integer> indexes) {
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Integer index : indexes) {
+                DefaultRedisScript<?> script = scripts.get(index);
+                connection.evalSha(script.getSha1(), ReturnType.fromJavaType(script.getResultType()),
+                        1, keysAndArgs.get(index));
+            }
+            return null;
+        }, redisSerializer);
+    }
+
+    private boolean isNoScriptError(Throwable e) {
+        for (Throwable current = e; current != null; current = current.getCause()) {
+            if (current.getMessage() != null && current.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
     }
 }
\ No newline at end of file
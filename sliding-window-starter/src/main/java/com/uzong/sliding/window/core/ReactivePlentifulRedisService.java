@@ -0,0 +1,179 @@
+package com.uzong.sliding.window.core;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Supplier;
+
+/**
+ * PlentifulRedisService的非阻塞版本，基于ReactiveRedisTemplate执行同一组Lua脚本
+ * @author sky
+ * @since 2026/10/18
+ */
+public class ReactivePlentifulRedisService {
+
+    private final ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+
+    @Autowired
+    @Qualifier("calculateAndCleanUpScript")
+    private DefaultRedisScript<Boolean> calculateAndCleanUpScript;
+
+    @Autowired
+    @Qualifier("calculateScript")
+    private DefaultRedisScript<Boolean> calculateScript;
+
+    @Autowired
+    @Qualifier("calculateCountScript")
+    private DefaultRedisScript<Long> calculateCountScript;
+
+    @Autowired
+    @Qualifier("calculateUntilScript")
+    private DefaultRedisScript<Long> calculateUntilScript;
+
+    @Autowired
+    @Qualifier("boundedCalculateScript")
+    private DefaultRedisScript<Long> boundedCalculateScript;
+
+    @Autowired
+    @Qualifier("boundedCalculateAndCleanUpScript")
+    private DefaultRedisScript<Boolean> boundedCalculateAndCleanUpScript;
+
+    @Autowired
+    @Qualifier("boundedCalculateCountScript")
+    private DefaultRedisScript<Long> boundedCalculateCountScript;
+
+    @Autowired
+    @Qualifier("counterCalculateScript")
+    private DefaultRedisScript<Boolean> counterCalculateScript;
+
+    @Autowired
+    @Qualifier("counterCalculateAndCleanUpScript")
+    private DefaultRedisScript<Boolean> counterCalculateAndCleanUpScript;
+
+    @Autowired
+    @Qualifier("counterCalculateCountScript")
+    private DefaultRedisScript<Long> counterCalculateCountScript;
+
+    @Autowired
+    @Qualifier("gcraScript")
+    private DefaultRedisScript<Long> gcraScript;
+
+    @Autowired
+    private SlSnowflakeIdGenerator slSnowflakeIdGenerator;
+
+    public ReactivePlentifulRedisService(ReactiveRedisTemplate<String, String> reactiveRedisTemplate) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+    }
+
+    public Mono<Boolean> slidingWindowCalculate(
+            String key, Long currentTime, Long windowLengthInMs,
+            Long threshold, Long expireSeconds) {
+        return doExecute(key, () -> SlScriptArgs.logArgs(currentTime, windowLengthInMs, threshold,
+                expireSeconds, slSnowflakeIdGenerator.nextId()), calculateScript)
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    public Mono<Boolean> slidingWindowCalculateAndCleanUp(
+            String key, Long currentTime, Long windowLengthInMs,
+            Long threshold, Long expireSeconds) {
+        return doExecute(key, () -> SlScriptArgs.logArgs(currentTime, windowLengthInMs, threshold,
+                expireSeconds, slSnowflakeIdGenerator.nextId()), calculateAndCleanUpScript)
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    public Mono<Long> slidingWindowCalculateCount(
+            String key, Long currentTime, Long windowLengthInMs,
+            Long expireSeconds) {
+        return doExecute(key, () -> SlScriptArgs.logArgs(currentTime, windowLengthInMs, 0L,
+                expireSeconds, slSnowflakeIdGenerator.nextId()), calculateCountScript)
+                .defaultIfEmpty(0L);
+    }
+
+    /**
+     * 与slidingWindowCalculate相同，超过阈值时返回下一次请求最早可能放行的时间
+     *
+     * @return 未超过阈值返回0，否则返回拒绝截止时间(ms)
+     */
+    public Mono<Long> slidingWindowCalculateUntil(
+            String key, Long currentTime, Long windowLengthInMs,
+            Long threshold, Long expireSeconds) {
+        return doExecute(key, () -> SlScriptArgs.logArgs(currentTime, windowLengthInMs, threshold,
+                expireSeconds, slSnowflakeIdGenerator.nextId()), calculateUntilScript)
+                .defaultIfEmpty(0L);
+    }
+
+    /**
+     * @return 未超过阈值返回0，否则返回拒绝截止时间(ms)
+     */
+    public Mono<Long> boundedWindowCalculate(
+            String key, Long currentTime, Long windowLengthInMs, Long threshold) {
+        return doExecute(key, () -> SlScriptArgs.logArgs(currentTime, windowLengthInMs, threshold,
+                windowLengthInMs, slSnowflakeIdGenerator.nextId()), boundedCalculateScript)
+                .defaultIfEmpty(0L);
+    }
+
+    public Mono<Boolean> boundedWindowCalculateAndCleanUp(
+            String key, Long currentTime, Long windowLengthInMs, Long threshold) {
+        return doExecute(key, () -> SlScriptArgs.logArgs(currentTime, windowLengthInMs, threshold,
+                windowLengthInMs, slSnowflakeIdGenerator.nextId()), boundedCalculateAndCleanUpScript)
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    public Mono<Long> boundedWindowCalculateCount(
+            String key, Long currentTime, Long windowLengthInMs) {
+        return doExecute(key, () -> SlScriptArgs.logArgs(currentTime, windowLengthInMs, 0L,
+                windowLengthInMs, slSnowflakeIdGenerator.nextId()), boundedCalculateCountScript)
+                .defaultIfEmpty(0L);
+    }
+
+    public Mono<Boolean> counterWindowCalculate(
+            String key, Long currentTime, Long windowLengthInMs,
+            Long threshold, Integer bucketCount) {
+        return doExecute(key, () -> SlScriptArgs.counterArgs(currentTime, windowLengthInMs, threshold,
+                bucketCount), counterCalculateScript)
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    public Mono<Boolean> counterWindowCalculateAndCleanUp(
+            String key, Long currentTime, Long windowLengthInMs,
+            Long threshold, Integer bucketCount) {
+        return doExecute(key, () -> SlScriptArgs.counterArgs(currentTime, windowLengthInMs, threshold,
+                bucketCount), counterCalculateAndCleanUpScript)
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    public Mono<Long> counterWindowCalculateCount(
+            String key, Long currentTime, Long windowLengthInMs,
+            Integer bucketCount) {
+        return doExecute(key, () -> SlScriptArgs.counterArgs(currentTime, windowLengthInMs, 0L,
+                bucketCount), counterCalculateCountScript)
+                .defaultIfEmpty(0L);
+    }
+
+    /**
+     * @return 放行返回0，否则返回还需等待的时间(ms)
+     */
+    public Mono<Long> gcraCalculate(
+            String key, Long currentTime, Long windowLengthInMs,
+            Long threshold, Long burst, Boolean cleanUp) {
+        return doExecute(key, () -> SlScriptArgs.gcraArgs(currentTime, windowLengthInMs, threshold,
+                burst, cleanUp), gcraScript)
+                .defaultIfEmpty(0L);
+    }
+
+    /**
+     * 参数(含事件ID)在订阅时生成，同一个Mono重复订阅或重试时不会复用同一个事件ID
+     */
+    private <T> Mono<T> doExecute(String key, Supplier<String[]> args, DefaultRedisScript<T> defaultRedisScript) {
+        return Mono.defer(() -> reactiveRedisTemplate.execute(
+                defaultRedisScript,
+                Collections.singletonList(key),
+                Arrays.asList(args.get())
+        ).next());
+    }
+}
@@ -0,0 +1,292 @@
+package com.uzong.sliding.window.core;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Redis调用熔断器。
+ * 超过耗时预算的调用与异常一样计为失败；统计周期内失败率达到阈值后打开，打开期间调用方直接降级，不访问Redis。
+ * 打开时间结束后进入半开状态，放行少量探测调用，全部成功则关闭，任一失败则重新打开。
+ * 阻塞客户端无法中断已发出的调用；设置callTimeoutInMs后调用在独立线程池中执行，调用方最多等待该时间，
+ * 超时与线程池已满都计为失败并降级，否则单次调用的最长耗时仍由spring.redis.timeout决定
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+@Slf4j
+public class SlCircuitBreaker implements ApplicationEventPublisherAware, DisposableBean {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * 单次调用的耗时预算(ms)，超过时计为失败
+     */
+    @Setter
+    private long slowCallThresholdInMs = 200;
+
+    /**
+     * 打开熔断器的失败率
+     */
+    @Setter
+    private double failureRateThreshold = 0.5;
+
+    /**
+     * 统计周期内至少多少次调用才计算失败率
+     */
+    @Setter
+    private int minimumCalls = 20;
+
+    /**
+     * 统计周期(ms)
+     */
+    @Setter
+    private long windowInMs = 10000;
+
+    /**
+     * 打开状态持续时间(ms)
+     */
+    @Setter
+    private long openDurationInMs = 5000;
+
+    /**
+     * 半开状态放行的探测调用数
+     */
+    @Setter
+    private int halfOpenProbes = 5;
+
+    /**
+     * 调用方最多等待的时间(ms)，超时后计为失败并降级；0表示在调用线程中执行，不限制
+     */
+    @Setter
+    private long callTimeoutInMs = 0;
+
+    /**
+     * 限制等待时间时执行调用的线程数，线程与队列都已满时计为失败并降级
+     */
+    @Setter
+    private int callThreads = 16;
+
+    private volatile ThreadPoolExecutor callExecutor;
+
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+
+    private volatile long openUntil;
+
+    private volatile Stats stats = new Stats(0);
+
+    private final AtomicInteger probesIssued = new AtomicInteger();
+
+    private final AtomicInteger probesSucceeded = new AtomicInteger();
+
+    /**
+     * @return 允许访问Redis返回true，需要降级返回false
+     */
+    public boolean tryAcquire(long now) {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (now < openUntil) {
+                return false;
+            }
+            // 探测计数在切换为打开状态时已经清零
+            transition(State.OPEN, State.HALF_OPEN);
+        }
+        // 名额用完时不再递增，归还的名额可以被重新发放
+        while (true) {
+            int issued = probesIssued.get();
+            if (issued >= halfOpenProbes) {
+                return false;
+            }
+            if (probesIssued.compareAndSet(issued, issued + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 在限制的等待时间内执行调用
+     *
+     * @throws QueryTimeoutException                超过callTimeoutInMs
+     * @throws TransientDataAccessResourceException 执行调用的线程与队列都已满
+     */
+    public <T> T call(Supplier<T> call) {
+        if (callTimeoutInMs <= 0) {
+            return call.get();
+        }
+        Future<T> future;
+        try {
+            future = callExecutor().submit(call::get);
+        } catch (RejectedExecutionException e) {
+            throw new TransientDataAccessResourceException("sliding window redis call executor is full", e);
+        }
+        try {
+            return future.get(callTimeoutInMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new QueryTimeoutException("sliding window redis call timed out after " + callTimeoutInMs + "ms", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("sliding window redis call interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 调用没有结果(非Redis异常)时归还占用的探测名额，避免半开状态卡住
+     */
+    public void release() {
+        if (state.get() == State.HALF_OPEN) {
+            probesIssued.updateAndGet(issued -> Math.max(0, issued - 1));
+        }
+    }
+
+    public void onSuccess(long elapsedInMs, long now) {
+        if (elapsedInMs >= slowCallThresholdInMs) {
+            onFailure(now);
+            return;
+        }
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            if (probesSucceeded.incrementAndGet() >= halfOpenProbes) {
+                stats = new Stats(now);
+                transition(State.HALF_OPEN, State.CLOSED);
+            }
+        } else if (current == State.CLOSED) {
+            statsOf(now).calls.increment();
+        }
+    }
+
+    public void onFailure(long now) {
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            open(State.HALF_OPEN, now);
+            return;
+        }
+        if (current != State.CLOSED) {
+            return;
+        }
+        Stats currentStats = statsOf(now);
+        currentStats.calls.increment();
+        currentStats.failures.increment();
+        long calls = currentStats.calls.sum();
+        if (calls >= minimumCalls && currentStats.failures.sum() >= calls * failureRateThreshold) {
+            open(State.CLOSED, now);
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    private void open(State from, long now) {
+        openUntil = now + openDurationInMs;
+        transition(from, State.OPEN);
+    }
+
+    @Override
+    public void destroy() {
+        if (callExecutor != null) {
+            callExecutor.shutdownNow();
+        }
+    }
+
+    private void transition(State from, State to) {
+        if (!state.compareAndSet(from, to)) {
+            return;
+        }
+        if (to == State.OPEN) {
+            // 只有切换成功的线程清零；打开期间不发放探测名额，清零不会与半开状态的计数交错
+            probesIssued.set(0);
+            probesSucceeded.set(0);
+        }
+        if (to == State.OPEN) {
+            log.warn("===>>> sliding window redis circuit breaker {} -> {}, fallback for {}ms", from, to, openDurationInMs);
+        } else {
+            log.info("===>>> sliding window redis circuit breaker {} -> {}", from, to);
+        }
+        if (applicationEventPublisher != null) {
+            applicationEventPublisher.publishEvent(new SlCircuitBreakerStateEvent(this, from, to));
+        }
+    }
+
+    private ThreadPoolExecutor callExecutor() {
+        if (callExecutor != null) {
+            return callExecutor;
+        }
+        synchronized (this) {
+            if (callExecutor == null) {
+                AtomicInteger index = new AtomicInteger();
+                callExecutor = new ThreadPoolExecutor(callThreads, callThreads, 0, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(callThreads * 64), r -> {
+                    Thread thread = new Thread(r, "sliding-window-redis-call-" + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            return callExecutor;
+        }
+    }
+
+    /**
+     * 固定统计周期，周期结束后整体替换；替换时并发记录的少量结果可能丢失，不影响判断
+     */
+    private Stats statsOf(long now) {
+        Stats current = stats;
+        if (now - current.start < windowInMs) {
+            return current;
+        }
+        Stats next = new Stats(now);
+        stats = next;
+        return next;
+    }
+
+    private static final class Stats {
+
+        private final long start;
+
+        private final LongAdder calls = new LongAdder();
+
+        private final LongAdder failures = new LongAdder();
+
+        private Stats(long start) {
+            this.start = start;
+        }
+    }
+}
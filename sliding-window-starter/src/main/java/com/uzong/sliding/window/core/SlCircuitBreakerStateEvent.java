@@ -0,0 +1,24 @@
+package com.uzong.sliding.window.core;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Redis熔断器状态变化事件
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+@Getter
+public class SlCircuitBreakerStateEvent extends ApplicationEvent {
+
+    private final SlCircuitBreaker.State from;
+
+    private final SlCircuitBreaker.State to;
+
+    public SlCircuitBreakerStateEvent(SlCircuitBreaker source, SlCircuitBreaker.State from, SlCircuitBreaker.State to) {
+        super(source);
+        this.from = from;
+        this.to = to;
+    }
+}
@@ -0,0 +1,345 @@
+package com.uzong.sliding.window.core;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 跨线程合并脚本调用：请求线程把调用放入队列后等待，发送线程在maxDelayInMicros内或凑满maxBatchSize条后
+ * 把队列中的调用通过一次pipeline发送，再把结果交还给各个请求线程。
+ * 同一批中同一个键、同一窗口的调用合并为一次脚本执行，脚本按调用次数记录事件并返回记录后窗口内的事件数，
+ * 第i个调用的结果为该值减去排在它之后的调用次数，与依次单独执行的结果相同。
+ * 队列已满或发送线程已停止时直接在请求线程上单独执行。
+ * 请求线程最多等待两次Redis调用超时加maxDelayInMicros(排在一批在途调用之后)，超时或关闭时仍未发送的调用
+ * 以DataAccessException失败，熔断与降级照常生效
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+@Slf4j
+public class SlCommandCoalescer implements Closeable {
+
+    private static final long IDLE_POLL_IN_MS = 100;
+
+    /**
+     * 未配置spring.redis.timeout时Lettuce的默认超时(ms)
+     */
+    public static final long DEFAULT_REDIS_TIMEOUT_IN_MS = 60000;
+
+    private final int maxBatchSize;
+
+    private final long maxDelayInNanos;
+
+    private final int threads;
+
+    private final long waitTimeoutInNanos;
+
+    private final BlockingQueue<Command> queue;
+
+    private final List<Thread> senders = new ArrayList<>();
+
+    private volatile boolean running;
+
+    private Executor executor;
+
+    /**
+     * @param maxBatchSize     每批最多发送的调用数
+     * @param maxDelayInMicros 第一个调用入队后最多等待的时间(μs)，0表示只发送已经在队列中的调用
+     * @param threads          发送线程数，每个线程同时只有一批在途
+     */
+    public SlCommandCoalescer(int maxBatchSize, long maxDelayInMicros, int threads) {
+        this(maxBatchSize, maxDelayInMicros, threads, DEFAULT_REDIS_TIMEOUT_IN_MS);
+    }
+
+    /**
+     * @param maxBatchSize       每批最多发送的调用数
+     * @param maxDelayInMicros   第一个调用入队后最多等待的时间(μs)，0表示只发送已经在队列中的调用
+     * @param threads            发送线程数，每个线程同时只有一批在途
+     * @param redisTimeoutInMs   单次Redis调用的超时(spring.redis.timeout)，用于计算请求线程的最长等待时间
+     */
+    public SlCommandCoalescer(int maxBatchSize, long maxDelayInMicros, int threads, long redisTimeoutInMs) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        if (maxDelayInMicros < 0) {
+            throw new IllegalArgumentException("maxDelayInMicros must not be negative");
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        if (redisTimeoutInMs <= 0) {
+            throw new IllegalArgumentException("redisTimeoutInMs must be positive");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayInNanos = TimeUnit.MICROSECONDS.toNanos(maxDelayInMicros);
+        this.threads = threads;
+        this.waitTimeoutInNanos = TimeUnit.MILLISECONDS.toNanos(redisTimeoutInMs * 2) + maxDelayInNanos;
+        this.queue = new LinkedBlockingQueue<>(maxBatchSize * threads * 4);
+    }
+
+    /**
+     * 启动发送线程
+     *
+     * @param executor 执行一批合并后的调用
+     */
+    public synchronized void start(Executor executor) {
+        if (running) {
+            return;
+        }
+        this.executor = executor;
+        running = true;
+        for (int i = 0; i < threads; i++) {
+            Thread sender = new Thread(this::send, "sliding-window-coalescer-" + i);
+            sender.setDaemon(true);
+            sender.start();
+            senders.add(sender);
+        }
+    }
+
+    /**
+     * 提交一次调用并等待结果
+     *
+     * @return 记录本次调用后窗口内的事件数，计数器存储按时间加权，可能带小数
+     */
+    public double submit(Kind kind, byte[] keyPrefix, String key, long currentTime, long windowLengthInMs, long param) {
+        Command command = new Command(kind, keyPrefix, key, currentTime, windowLengthInMs, param);
+        // 入队后发送线程可能已经退出，仍在队列中时取回直接执行
+        if (!running || !queue.offer(command) || !running && queue.remove(command)) {
+            Object result = executor.execute(Collections.singletonList(command), new int[]{1}).get(0);
+            if (result instanceof RuntimeException) {
+                throw (RuntimeException) result;
+            }
+            if (result instanceof Error) {
+                throw (Error) result;
+            }
+            return (Double) result;
+        }
+        try {
+            return command.result.get(waitTimeoutInNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // 仍在队列中时取回，不再发送
+            queue.remove(command);
+            throw new QueryTimeoutException("coalesced call timed out after "
+                    + TimeUnit.NANOSECONDS.toMillis(waitTimeoutInNanos) + "ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for coalesced call", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 停止发送线程，队列中剩余的调用发送后退出；等待超时后仍未发送的调用以异常结束，不会让请求线程一直等待
+     */
+    @Override
+    public synchronized void close() {
+        running = false;
+        try {
+            for (Thread sender : senders) {
+                sender.join(TimeUnit.SECONDS.toMillis(5));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        senders.clear();
+        Command leftover;
+        while ((leftover = queue.poll()) != null) {
+            leftover.result.completeExceptionally(new DataAccessResourceFailureException("sliding window coalescer closed"));
+        }
+    }
+
+    private void send() {
+        List<Command> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Command first = queue.poll(IDLE_POLL_IN_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                long deadline = System.nanoTime() + maxDelayInNanos;
+                long remaining;
+                while (batch.size() < maxBatchSize && (remaining = deadline - System.nanoTime()) > 0) {
+                    Command next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 按键与窗口分组，每组执行一次，组内按入队顺序分配结果。某一组失败时只有该组的调用失败，
+     * 整批执行失败(如连接断开)时所有调用失败
+     */
+    private void flush(List<Command> batch) {
+        Map<MergeKey, List<Command>> groups = new LinkedHashMap<>();
+        for (Command command : batch) {
+            groups.computeIfAbsent(new MergeKey(command), k -> new ArrayList<>(1)).add(command);
+        }
+        List<Command> merged = new ArrayList<>(groups.size());
+        int[] counts = new int[groups.size()];
+        int index = 0;
+        for (List<Command> group : groups.values()) {
+            // 合并后按组内最晚的时间记录
+            Command latest = group.get(0);
+            for (Command command : group) {
+                if (command.currentTime > latest.currentTime) {
+                    latest = command;
+                }
+            }
+            merged.add(latest);
+            counts[index++] = group.size();
+        }
+        try {
+            List<Object> results = executor.execute(merged, counts);
+            index = 0;
+            for (List<Command> group : groups.values()) {
+                Object result = results.get(index++);
+                if (result instanceof Throwable) {
+                    log.warn("===>>> coalesced call failed, key:{}, size:{}", group.get(0).key, group.size(), (Throwable) result);
+                    for (Command command : group) {
+                        command.result.completeExceptionally((Throwable) result);
+                    }
+                    continue;
+                }
+                double total = (Double) result;
+                for (int i = 0; i < group.size(); i++) {
+                    group.get(i).result.complete(total - (group.size() - 1 - i));
+                }
+            }
+        } catch (Throwable e) {
+            log.warn("===>>> coalesced calls failed, size:{}", batch.size(), e);
+            for (Command command : batch) {
+                command.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 脚本类型
+     */
+    public enum Kind {
+
+        /**
+         * 滑动日志，参数为过期时间(秒)
+         */
+        LOG,
+
+        /**
+         * 滑动窗口计数器，参数为子窗口数量
+         */
+        COUNTER
+    }
+
+    /**
+     * 执行一批合并后的调用
+     */
+    @FunctionalInterface
+    public interface Executor {
+
+        /**
+         * @param commands 合并后的调用，每个键与窗口一条
+         * @param counts   每条调用合并的次数
+         * @return 每条调用记录后窗口内的事件数(Double)，单条调用失败时对应位置为该调用的异常
+         */
+        List<Object> execute(List<Command> commands, int[] counts);
+    }
+
+    /**
+     * 一次调用
+     */
+    @Getter
+    public static final class Command {
+
+        private final Kind kind;
+
+        private final byte[] keyPrefix;
+
+        private final String key;
+
+        private final long currentTime;
+
+        private final long windowLengthInMs;
+
+        private final long param;
+
+        @Getter(AccessLevel.NONE)
+        private final CompletableFuture<Double> result = new CompletableFuture<>();
+
+        private Command(Kind kind, byte[] keyPrefix, String key, long currentTime, long windowLengthInMs, long param) {
+            this.kind = kind;
+            this.keyPrefix = keyPrefix;
+            this.key = key;
+            this.currentTime = currentTime;
+            this.windowLengthInMs = windowLengthInMs;
+            this.param = param;
+        }
+    }
+
+    /**
+     * 合并依据：键类型、键名、窗口长度与参数都相同
+     */
+    private static final class MergeKey {
+
+        private final Command command;
+
+        private MergeKey(Command command) {
+            this.command = command;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MergeKey)) {
+                return false;
+            }
+            Command a = command;
+            Command b = ((MergeKey) o).command;
+            return a.kind == b.kind && a.windowLengthInMs == b.windowLengthInMs && a.param == b.param
+                    && a.key.equals(b.key) && Arrays.equals(a.keyPrefix, b.keyPrefix);
+        }
+
+        @Override
+        public int hashCode() {
+            return (command.key.hashCode() * 31 + command.kind.hashCode()) * 31 + Long.hashCode(command.windowLengthInMs);
+        }
+    }
+}
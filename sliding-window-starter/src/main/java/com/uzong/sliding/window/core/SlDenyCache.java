@@ -0,0 +1,137 @@
+package com.uzong.sliding.window.core;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地拒绝缓存：记录超过阈值的键"拒绝到何时"，在此之前直接拒绝，不再访问Redis。
+ * 按(键, 窗口长度, 阈值)区分，同一个键的不同窗口或阈值互不影响。
+ * 键数量有上限，达到上限时先清理已到期的键，仍然不足时淘汰部分键。
+ * @author sky
+ * @since 2026/10/18
+ */
+public class SlDenyCache {
+
+    /**
+     * 容量不足时每次淘汰的键数量
+     */
+    private static final int EVICTION_BATCH = 16;
+
+    private final ConcurrentHashMap<DenyKey, Long> deniedUntil = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    private final int maxKeys;
+
+    public SlDenyCache(int maxKeys) {
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("maxKeys must be positive");
+        }
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * 键在指定窗口与阈值下当前是否处于拒绝期
+     */
+    public boolean isDenied(String key, long windowLengthInMs, long threshold, long currentTime) {
+        DenyKey denyKey = new DenyKey(key, windowLengthInMs, threshold);
+        Long until = deniedUntil.get(denyKey);
+        if (until != null && currentTime < until) {
+            hitCount.increment();
+            return true;
+        }
+        if (until != null) {
+            deniedUntil.remove(denyKey, until);
+        }
+        missCount.increment();
+        return false;
+    }
+
+    /**
+     * 记录键在指定窗口与阈值下拒绝到指定时间
+     */
+    public void deny(String key, long windowLengthInMs, long threshold, long until, long currentTime) {
+        if (until <= currentTime) {
+            return;
+        }
+        DenyKey denyKey = new DenyKey(key, windowLengthInMs, threshold);
+        if (deniedUntil.size() >= maxKeys && !deniedUntil.containsKey(denyKey)) {
+            evict(currentTime);
+        }
+        deniedUntil.put(denyKey, until);
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public int size() {
+        return deniedUntil.size();
+    }
+
+    private void evict(long currentTime) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            deniedUntil.values().removeIf(until -> until <= currentTime);
+            Iterator<Map.Entry<DenyKey, Long>> iterator = deniedUntil.entrySet().iterator();
+            for (int i = 0; i < EVICTION_BATCH && deniedUntil.size() >= maxKeys && iterator.hasNext(); i++) {
+                iterator.next();
+                iterator.remove();
+                evictionCount.increment();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static final class DenyKey {
+
+        private final String key;
+
+        private final long windowLengthInMs;
+
+        private final long threshold;
+
+        private DenyKey(String key, long windowLengthInMs, long threshold) {
+            this.key = key;
+            this.windowLengthInMs = windowLengthInMs;
+            this.threshold = threshold;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DenyKey)) {
+                return false;
+            }
+            DenyKey that = (DenyKey) o;
+            return windowLengthInMs == that.windowLengthInMs && threshold == that.threshold && key.equals(that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * key.hashCode() + Long.hashCode(windowLengthInMs)) + Long.hashCode(threshold);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.uzong.sliding.window.core;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.util.ClassUtils;
+
+/**
+ * FCALL与FUNCTION命令。Spring Data Redis没有对应的API，按客户端分别实现
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+interface SlFunctionCommands {
+
+    /**
+     * 调用函数，keysAndArgs的前numKeys个为键
+     */
+    Object fcall(RedisConnection connection, byte[] function, ReturnType returnType, int numKeys, byte[][] keysAndArgs);
+
+    /**
+     * 在所有主节点上调用无参的版本函数，缺失或版本不一致的节点用FUNCTION LOAD REPLACE加载
+     *
+     * @return 加载的节点数
+     */
+    int verify(RedisConnection connection, byte[] versionFunction, byte[] version, byte[] code);
+
+    /**
+     * 连接建立或重连后回调，客户端不支持时不回调
+     *
+     * @return 取消订阅
+     */
+    default Runnable onConnectionActivated(Runnable listener) {
+        return () -> {
+        };
+    }
+
+    static SlFunctionCommands of(RedisConnectionFactory connectionFactory) {
+        if (ClassUtils.isPresent("io.lettuce.core.RedisClient", SlFunctionCommands.class.getClassLoader())
+                && SlLettuceFunctionCommands.supports(connectionFactory)) {
+            return new SlLettuceFunctionCommands(connectionFactory);
+        }
+        return new SlGenericFunctionCommands();
+    }
+
+    static boolean isFunctionNotFound(Throwable e) {
+        for (Throwable current = e; current != null; current = current.getCause()) {
+            if (current.getMessage() != null && current.getMessage().contains("Function not found")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,214 @@
+package com.uzong.sliding.window.core;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.script.DigestUtils;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 把滑动窗口脚本注册为一个Redis Functions库(Redis 7+)，通过FCALL调用。
+ * 函数随RDB/AOF持久化并复制到从节点，主从切换或SCRIPT FLUSH后不会像EVALSHA那样逐个脚本NOSCRIPT重发。
+ * 库名与函数名都带脚本内容的摘要作为版本，脚本变化后新旧版本可以同时存在，滚动发布时互不影响
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+@Slf4j
+public class SlFunctionLibrary {
+
+    private static final String LIBRARY_PREFIX = "sliding_window_";
+
+    private static final String FUNCTION_PREFIX = "sl_";
+
+    /**
+     * 版本取摘要的前12位
+     */
+    private static final int VERSION_LENGTH = 12;
+
+    private static final String VERSION_PROPERTY = "redis_version";
+
+    @Getter
+    private final String version;
+
+    @Getter
+    private final String libraryName;
+
+    @Getter
+    private final String code;
+
+    private final byte[] codeBytes;
+
+    private final byte[] versionBytes;
+
+    private final byte[] versionFunction;
+
+    /**
+     * 脚本名到函数名
+     */
+    private final Map<String, byte[]> functions = new HashMap<>();
+
+    private final SlFunctionCommands commands;
+
+    /**
+     * 启动、重连后或FCALL返回函数不存在时置为false，下一次调用前重新校验
+     */
+    private volatile boolean verified;
+
+    /**
+     * 服务端版本低于7(按INFO中的redis_version判断)或客户端不支持时为false，调用方改用EVALSHA
+     */
+    @Getter
+    private volatile boolean available = true;
+
+    /**
+     * @param scripts 脚本名到脚本，脚本名作为函数名的一部分
+     */
+    public SlFunctionLibrary(Map<String, ? extends RedisScript<?>> scripts, RedisConnectionFactory connectionFactory) {
+        StringBuilder source = new StringBuilder();
+        for (Map.Entry<String, ? extends RedisScript<?>> entry : scripts.entrySet()) {
+            source.append(entry.getKey()).append('\n').append(entry.getValue().getScriptAsString()).append('\n');
+        }
+        this.version = DigestUtils.sha1DigestAsHex(source.toString()).substring(0, VERSION_LENGTH);
+        this.libraryName = LIBRARY_PREFIX + version;
+        String functionPrefix = FUNCTION_PREFIX + version + "_";
+
+        StringBuilder library = new StringBuilder("#!lua name=").append(libraryName).append('\n');
+        library.append("redis.register_function('").append(functionPrefix).append("version', function() return '")
+                .append(version).append("' end)\n");
+        for (Map.Entry<String, ? extends RedisScript<?>> entry : scripts.entrySet()) {
+            String function = functionPrefix + entry.getKey();
+            // 脚本体不变，KEYS/ARGV作为函数参数传入
+            library.append("redis.register_function('").append(function).append("', function(KEYS, ARGV)\n")
+                    .append(entry.getValue().getScriptAsString()).append("\nend)\n");
+            functions.put(entry.getKey(), function.getBytes(StandardCharsets.US_ASCII));
+        }
+        this.code = library.toString();
+        this.codeBytes = code.getBytes(StandardCharsets.UTF_8);
+        this.versionBytes = version.getBytes(StandardCharsets.US_ASCII);
+        this.versionFunction = (functionPrefix + "version").getBytes(StandardCharsets.US_ASCII);
+        this.commands = SlFunctionCommands.of(connectionFactory);
+    }
+
+    /**
+     * 是否包含该脚本对应的函数
+     */
+    public boolean contains(String scriptName) {
+        return functions.containsKey(scriptName);
+    }
+
+    /**
+     * 未校验时先校验并加载
+     *
+     * @return 是否可以通过FCALL调用，不可用时调用方改用EVALSHA
+     */
+    public boolean ensureVerified(RedisConnection connection) {
+        if (!verified && available) {
+            verify(connection);
+        }
+        return available;
+    }
+
+    /**
+     * 在所有主节点上校验版本，缺失或不一致时加载。服务端版本低于7或客户端不支持时标记为不可用
+     */
+    public synchronized void verify(RedisConnection connection) {
+        if (verified || !available) {
+            return;
+        }
+        String serverVersion = minServerVersion(connection.serverCommands().info("server"));
+        if (!supportsFunctions(serverVersion)) {
+            available = false;
+            log.warn("===>>> redis functions require redis 7, fall back to scripts, library:{}, redis_version:{}",
+                    libraryName, serverVersion);
+            return;
+        }
+        try {
+            int loaded = commands.verify(connection, versionFunction, versionBytes, codeBytes);
+            if (loaded > 0) {
+                log.info("===>>> sliding window function library loaded, library:{}, nodes:{}", libraryName, loaded);
+            }
+            verified = true;
+        } catch (UnsupportedOperationException e) {
+            available = false;
+            log.warn("===>>> redis functions not supported by client, fall back to scripts, library:{}", libraryName, e);
+        }
+    }
+
+    /**
+     * INFO server中所有节点最低的redis_version；集群模式下属性名带节点前缀，如"127.0.0.1:7000.redis_version"。
+     * 读取不到时返回null
+     */
+    public static String minServerVersion(Properties info) {
+        if (info == null) {
+            return null;
+        }
+        String min = null;
+        for (String name : info.stringPropertyNames()) {
+            if (name.equals(VERSION_PROPERTY) || name.endsWith("." + VERSION_PROPERTY)) {
+                String version = info.getProperty(name).trim();
+                if (min == null || majorVersion(version) < majorVersion(min)) {
+                    min = version;
+                }
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Functions从Redis 7.0开始提供，版本未知时按不支持处理
+     */
+    public static boolean supportsFunctions(String serverVersion) {
+        return serverVersion != null && majorVersion(serverVersion) >= 7;
+    }
+
+    /**
+     * 重连后重新校验，新的主节点可能没有加载过当前版本
+     */
+    public void invalidate() {
+        verified = false;
+    }
+
+    /**
+     * 连接建立或重连后重新校验，目前只支持Lettuce
+     *
+     * @return 取消订阅
+     */
+    public Runnable invalidateOnConnectionActivated() {
+        return commands.onConnectionActivated(this::invalidate);
+    }
+
+    /**
+     * 调用脚本对应的函数，函数不存在时重新加载后重试一次
+     */
+    public Object fcall(RedisConnection connection, String scriptName, ReturnType returnType,
+                        int numKeys, byte[][] keysAndArgs) {
+        byte[] function = functions.get(scriptName);
+        try {
+            return commands.fcall(connection, function, returnType, numKeys, keysAndArgs);
+        } catch (RuntimeException e) {
+            if (!SlFunctionCommands.isFunctionNotFound(e)) {
+                throw e;
+            }
+            invalidate();
+            verify(connection);
+            return commands.fcall(connection, function, returnType, numKeys, keysAndArgs);
+        }
+    }
+
+    private static int majorVersion(String version) {
+        int end = version.indexOf('.');
+        try {
+            return Integer.parseInt(end < 0 ? version : version.substring(0, end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
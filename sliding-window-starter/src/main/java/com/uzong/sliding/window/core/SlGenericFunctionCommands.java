@@ -0,0 +1,57 @@
+package com.uzong.sliding.window.core;
+
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 通过RedisConnection.execute发送命令，适用于Jedis等可以执行任意命令的客户端，只支持单机与哨兵
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+final class SlGenericFunctionCommands implements SlFunctionCommands {
+
+    private static final byte[] LOAD = "LOAD".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] REPLACE = "REPLACE".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] ZERO = {'0'};
+
+    @Override
+    public Object fcall(RedisConnection connection, byte[] function, ReturnType returnType,
+                        int numKeys, byte[][] keysAndArgs) {
+        byte[][] args = new byte[keysAndArgs.length + 2][];
+        args[0] = function;
+        args[1] = Integer.toString(numKeys).getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(keysAndArgs, 0, args, 2, keysAndArgs.length);
+        Object result = connection.execute("FCALL", args);
+        if (returnType == ReturnType.BOOLEAN) {
+            // Lua的true返回1，false返回nil
+            return result instanceof Long ? (Long) result == 1L : result != null;
+        }
+        return result;
+    }
+
+    @Override
+    public int verify(RedisConnection connection, byte[] versionFunction, byte[] version, byte[] code) {
+        if (connection instanceof RedisClusterConnection) {
+            throw new UnsupportedOperationException("functions in cluster mode require lettuce");
+        }
+        try {
+            Object current = connection.execute("FCALL", versionFunction, ZERO);
+            if (current instanceof byte[] && Arrays.equals((byte[]) current, version)) {
+                return 0;
+            }
+        } catch (RuntimeException e) {
+            if (!SlFunctionCommands.isFunctionNotFound(e)) {
+                throw e;
+            }
+        }
+        connection.execute("FUNCTION", LOAD, REPLACE, code);
+        return 1;
+    }
+}
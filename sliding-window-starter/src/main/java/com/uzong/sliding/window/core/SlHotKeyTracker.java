@@ -0,0 +1,305 @@
+package com.uzong.sliding.window.core;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 热点键统计：Count-Min Sketch估计每个键的调用次数，按Space-Saving的方式只保留估计值最大的capacity个候选键，
+ * 并为候选键记录拒绝次数。内存固定，与键数量无关；每次记录更新depth个计数器并查找一次候选表，
+ * 新键挤掉候选表中最小的键时才加锁，其他线程正在替换时直接跳过，不会阻塞调用方。
+ * 统计按周期轮换，保留当前周期与上一个完整周期，已经冷却的键不会长期占据候选表
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+public class SlHotKeyTracker {
+
+    private final int capacity;
+
+    private final int depth;
+
+    private final int widthMask;
+
+    private final long periodInMs;
+
+    private volatile Period current;
+
+    private volatile Period previous;
+
+    /**
+     * @param capacity   候选键数量
+     * @param width      每行计数器数量，向上取2的幂，越大估计越准
+     * @param depth      计数器行数，估计值取各行最小值
+     * @param periodInMs 统计周期(ms)
+     */
+    public SlHotKeyTracker(int capacity, int width, int depth, long periodInMs) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (width <= 0 || width > 1 << 24) {
+            throw new IllegalArgumentException("width must be between 1 and 2^24, but was " + width);
+        }
+        if (depth <= 0 || depth > 16) {
+            throw new IllegalArgumentException("depth must be between 1 and 16, but was " + depth);
+        }
+        if (periodInMs <= 0) {
+            throw new IllegalArgumentException("periodInMs must be positive");
+        }
+        this.capacity = capacity;
+        this.depth = depth;
+        this.widthMask = (width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1) - 1;
+        this.periodInMs = periodInMs;
+        this.current = new Period(System.currentTimeMillis());
+    }
+
+    /**
+     * 记录一次调用
+     *
+     * @param denied 是否被拒绝
+     */
+    public void record(String key, boolean denied) {
+        record(key, denied, System.currentTimeMillis());
+    }
+
+    public void record(String key, boolean denied, long now) {
+        Period period = current;
+        if (now - period.start >= periodInMs) {
+            period = rotate(now);
+        }
+        period.record(key, denied);
+    }
+
+    /**
+     * 当前周期的热点键，按调用次数降序
+     *
+     * @param limit 最多返回的键数量
+     */
+    public List<HotKey> current(int limit) {
+        return current(limit, System.currentTimeMillis());
+    }
+
+    public List<HotKey> current(int limit, long now) {
+        Period period = current;
+        if (now - period.start >= periodInMs) {
+            period = rotate(now);
+        }
+        return period.hotKeys(limit, now - period.start);
+    }
+
+    /**
+     * 上一个完整周期的热点键，按调用次数降序；上一个周期没有调用时为空
+     */
+    public List<HotKey> previous(int limit) {
+        return previous(limit, System.currentTimeMillis());
+    }
+
+    public List<HotKey> previous(int limit, long now) {
+        if (now - current.start >= periodInMs) {
+            rotate(now);
+        }
+        Period period = previous;
+        return period == null ? new ArrayList<>() : period.hotKeys(limit, periodInMs);
+    }
+
+    /**
+     * 清空所有统计
+     */
+    public synchronized void reset() {
+        previous = null;
+        current = new Period(System.currentTimeMillis());
+    }
+
+    public long getPeriodInMs() {
+        return periodInMs;
+    }
+
+    private synchronized Period rotate(long now) {
+        Period period = current;
+        long elapsed = now - period.start;
+        if (elapsed >= periodInMs) {
+            // 超过两个周期没有调用时，上一个周期是空的
+            previous = elapsed < 2 * periodInMs ? period : null;
+            period = new Period(now - elapsed % periodInMs);
+            current = period;
+        }
+        return period;
+    }
+
+    /**
+     * 把String.hashCode扩散到64位，高低32位分别作为双重哈希的两个基数
+     */
+    private static long spread(String key) {
+        long h = key.hashCode() * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private final class Period {
+
+        private final long start;
+
+        private final AtomicLongArray sketch = new AtomicLongArray(depth * (widthMask + 1));
+
+        private final ConcurrentHashMap<String, Candidate> candidates = new ConcurrentHashMap<>();
+
+        private final AtomicBoolean replacing = new AtomicBoolean();
+
+        /**
+         * 候选表已满时其中最小的估计值，估计值不超过它的新键不进入候选表
+         */
+        private volatile long minCalls;
+
+        private Period(long start) {
+            this.start = start;
+        }
+
+        private void record(String key, boolean denied) {
+            long h = spread(key);
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32) | 1;
+            long estimate = Long.MAX_VALUE;
+            for (int i = 0; i < depth; i++) {
+                estimate = Math.min(estimate, sketch.incrementAndGet(i * (widthMask + 1) + ((h1 + i * h2) & widthMask)));
+            }
+            Candidate candidate = candidates.get(key);
+            if (candidate != null) {
+                if (denied) {
+                    candidate.denied.increment();
+                }
+                return;
+            }
+            if (estimate > minCalls && replacing.compareAndSet(false, true)) {
+                try {
+                    admit(key, estimate, denied);
+                } finally {
+                    replacing.set(false);
+                }
+            }
+        }
+
+        /**
+         * 候选表未满时直接加入，否则替换估计值最小的键。替换后重新计算最小值，每次替换遍历一次候选表
+         */
+        private void admit(String key, long estimate, boolean denied) {
+            if (candidates.containsKey(key)) {
+                return;
+            }
+            if (candidates.size() >= capacity) {
+                Candidate min = null;
+                long minEstimate = Long.MAX_VALUE;
+                long secondEstimate = Long.MAX_VALUE;
+                for (Candidate candidate : candidates.values()) {
+                    long calls = estimate(candidate.key);
+                    if (calls < minEstimate) {
+                        secondEstimate = minEstimate;
+                        minEstimate = calls;
+                        min = candidate;
+                    } else if (calls < secondEstimate) {
+                        secondEstimate = calls;
+                    }
+                }
+                if (min == null || estimate <= minEstimate) {
+                    minCalls = minEstimate;
+                    return;
+                }
+                candidates.remove(min.key);
+                minCalls = Math.min(secondEstimate, estimate);
+            }
+            candidates.put(key, new Candidate(key, estimate - 1, denied));
+        }
+
+        private long estimate(String key) {
+            long h = spread(key);
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32) | 1;
+            long estimate = Long.MAX_VALUE;
+            for (int i = 0; i < depth; i++) {
+                estimate = Math.min(estimate, sketch.get(i * (widthMask + 1) + ((h1 + i * h2) & widthMask)));
+            }
+            return estimate;
+        }
+
+        private List<HotKey> hotKeys(int limit, long elapsedInMs) {
+            List<HotKey> hotKeys = new ArrayList<>(candidates.size());
+            for (Map.Entry<String, Candidate> entry : candidates.entrySet()) {
+                Candidate candidate = entry.getValue();
+                long calls = estimate(candidate.key);
+                // 拒绝次数从进入候选表时开始记录，拒绝率按进入之后的调用次数计算
+                long tracked = calls - candidate.callsBefore;
+                long denied = candidate.denied.sum();
+                hotKeys.add(new HotKey(candidate.key, calls, denied,
+                        calls * 1000.0 / Math.max(1, elapsedInMs),
+                        tracked <= 0 ? 0 : Math.min(1.0, (double) denied / tracked)));
+            }
+            hotKeys.sort(Comparator.comparingLong(HotKey::getCalls).reversed());
+            return hotKeys.size() > limit ? new ArrayList<>(hotKeys.subList(0, limit)) : hotKeys;
+        }
+    }
+
+    private static final class Candidate {
+
+        private final String key;
+
+        /**
+         * 进入候选表之前的调用次数估计值
+         */
+        private final long callsBefore;
+
+        private final LongAdder denied = new LongAdder();
+
+        private Candidate(String key, long callsBefore, boolean denied) {
+            this.key = key;
+            this.callsBefore = callsBefore;
+            if (denied) {
+                this.denied.increment();
+            }
+        }
+    }
+
+    /**
+     * 热点键统计结果
+     */
+    @Getter
+    public static final class HotKey {
+
+        private final String key;
+
+        /**
+         * 周期内的调用次数估计值，只会偏大不会偏小
+         */
+        private final long calls;
+
+        /**
+         * 进入候选表之后被拒绝的次数
+         */
+        private final long denied;
+
+        /**
+         * 每秒调用次数
+         */
+        private final double callsPerSecond;
+
+        /**
+         * 进入候选表之后的拒绝率
+         */
+        private final double denyRatio;
+
+        private HotKey(String key, long calls, long denied, double callsPerSecond, double denyRatio) {
+            this.key = key;
+            this.calls = calls;
+            this.denied = denied;
+            this.callsPerSecond = callsPerSecond;
+            this.denyRatio = denyRatio;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.uzong.sliding.window.core;
+
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.async.BaseRedisAsyncCommands;
+import io.lettuce.core.cluster.api.async.RedisAdvancedClusterAsyncCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.event.connection.ConnectionActivatedEvent;
+import io.lettuce.core.output.BooleanOutput;
+import io.lettuce.core.output.CommandOutput;
+import io.lettuce.core.output.IntegerOutput;
+import io.lettuce.core.output.NestedMultiOutput;
+import io.lettuce.core.output.StatusOutput;
+import io.lettuce.core.output.ValueOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import io.lettuce.core.resource.ClientResources;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceExceptionConverter;
+import reactor.core.Disposable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lettuce 6.0的命令枚举中没有FCALL/FUNCTION，RedisConnection.execute无法发送，改为在原生连接上dispatch。
+ * 集群模式下FCALL按第一个键路由，FUNCTION LOAD逐个发送到所有主节点
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+final class SlLettuceFunctionCommands implements SlFunctionCommands {
+
+    private static final ByteArrayCodec CODEC = ByteArrayCodec.INSTANCE;
+
+    private static final LettuceExceptionConverter EXCEPTION_CONVERTER = new LettuceExceptionConverter();
+
+    private final LettuceConnectionFactory connectionFactory;
+
+    SlLettuceFunctionCommands(RedisConnectionFactory connectionFactory) {
+        this.connectionFactory = (LettuceConnectionFactory) connectionFactory;
+    }
+
+    static boolean supports(RedisConnectionFactory connectionFactory) {
+        return connectionFactory instanceof LettuceConnectionFactory;
+    }
+
+    /**
+     * 连接工厂没有ClientResources时不回调
+     */
+    @Override
+    public Runnable onConnectionActivated(Runnable listener) {
+        ClientResources clientResources = connectionFactory.getClientResources();
+        if (clientResources == null) {
+            return () -> {
+            };
+        }
+        Disposable subscription = clientResources.eventBus().get()
+                .filter(event -> event instanceof ConnectionActivatedEvent)
+                .subscribe(event -> listener.run());
+        return subscription::dispose;
+    }
+
+    @Override
+    public Object fcall(RedisConnection connection, byte[] function, ReturnType returnType,
+                        int numKeys, byte[][] keysAndArgs) {
+        CommandArgs<byte[], byte[]> args = new CommandArgs<>(CODEC).add(function).add(numKeys);
+        for (int i = 0; i < keysAndArgs.length; i++) {
+            if (i < numKeys) {
+                args.addKey(keysAndArgs[i]);
+            } else {
+                args.addValue(keysAndArgs[i]);
+            }
+        }
+        try {
+            return await(commands(connection).dispatch(Command.FCALL, output(returnType), args));
+        } catch (RuntimeException e) {
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public int verify(RedisConnection connection, byte[] versionFunction, byte[] version, byte[] code) {
+        try {
+            return load(connection, versionFunction, version, code);
+        } catch (RuntimeException e) {
+            throw translate(e);
+        }
+    }
+
+    private int load(RedisConnection connection, byte[] versionFunction, byte[] version, byte[] code) {
+        int loaded = 0;
+        for (BaseRedisAsyncCommands<byte[], byte[]> node : masters(connection)) {
+            try {
+                byte[] current = await(node.dispatch(Command.FCALL, new ValueOutput<>(CODEC),
+                        new CommandArgs<>(CODEC).add(versionFunction).add(0)));
+                if (Arrays.equals(current, version)) {
+                    continue;
+                }
+            } catch (RuntimeException e) {
+                if (!SlFunctionCommands.isFunctionNotFound(e)) {
+                    throw e;
+                }
+            }
+            await(node.dispatch(Command.FUNCTION, new StatusOutput<>(CODEC),
+                    new CommandArgs<>(CODEC).add("LOAD").add("REPLACE").add(code)));
+            loaded++;
+        }
+        return loaded;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BaseRedisAsyncCommands<byte[], byte[]> commands(RedisConnection connection) {
+        return (BaseRedisAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<BaseRedisAsyncCommands<byte[], byte[]>> masters(RedisConnection connection) {
+        Object nativeConnection = connection.getNativeConnection();
+        if (!(nativeConnection instanceof RedisAdvancedClusterAsyncCommands)
+                || !(connection instanceof RedisClusterConnection)) {
+            return Collections.singletonList(commands(connection));
+        }
+        RedisAdvancedClusterAsyncCommands<byte[], byte[]> cluster =
+                (RedisAdvancedClusterAsyncCommands<byte[], byte[]>) nativeConnection;
+        List<BaseRedisAsyncCommands<byte[], byte[]>> masters = new ArrayList<>();
+        for (RedisClusterNode node : ((RedisClusterConnection) connection).clusterGetNodes()) {
+            if (node.isMaster()) {
+                masters.add(cluster.getConnection(node.getId()));
+            }
+        }
+        return masters;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CommandOutput<byte[], byte[], Object> output(ReturnType returnType) {
+        switch (returnType) {
+            case BOOLEAN:
+                return (CommandOutput) new BooleanOutput<>(CODEC);
+            case INTEGER:
+                return (CommandOutput) new IntegerOutput<>(CODEC);
+            case STATUS:
+                return (CommandOutput) new StatusOutput<>(CODEC);
+            case MULTI:
+                return (CommandOutput) new NestedMultiOutput<>(CODEC);
+            default:
+                return (CommandOutput) new ValueOutput<>(CODEC);
+        }
+    }
+
+    private <T> T await(RedisFuture<T> future) {
+        return LettuceFutures.awaitOrCancel(future, connectionFactory.getTimeout(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 原生连接上的命令不经过Spring的异常转换，dispatch、等待结果与集群路由的异常都在这里转换为DataAccessException，
+     * 熔断器与调用方按与EVALSHA相同的异常类型处理
+     */
+    private static RuntimeException translate(RuntimeException e) {
+        if (e instanceof DataAccessException) {
+            return e;
+        }
+        DataAccessException translated = EXCEPTION_CONVERTER.convert(e);
+        return translated != null ? translated : new RedisSystemException(e.getMessage(), e);
+    }
+
+    private enum Command implements ProtocolKeyword {
+
+        FCALL, FUNCTION;
+
+        private final byte[] bytes = name().getBytes(StandardCharsets.US_ASCII);
+
+        @Override
+        public byte[] getBytes() {
+            return bytes;
+        }
+    }
+}
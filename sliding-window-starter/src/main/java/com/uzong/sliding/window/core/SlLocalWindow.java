@@ -0,0 +1,127 @@
+package com.uzong.sliding.window.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 本地滑动窗口：按时间桶组织的环形数组，无锁计数。
+ * 每个槽位用一个long打包存储：高32位为桶序号，低32位为计数，通过CAS一次性完成"换桶+计数"，计数达到上限后保持不变，不会进位到桶序号。
+ * 为降低热点键的CAS竞争，槽位按线程分段(stripe)，统计时汇总所有分段。
+ * @author sky
+ * @since 2026/10/18
+ */
+public class SlLocalWindow {
+
+    private static final long COUNT_MASK = 0xFFFFFFFFL;
+
+    private final long windowLengthInMs;
+
+    private final long bucketLengthInMs;
+
+    private final int bucketCount;
+
+    private final int stripeMask;
+
+    private final AtomicLongArray slots;
+
+    private volatile long lastAccessTime;
+
+    /**
+     * @param windowLengthInMs 窗口长度(毫秒)
+     * @param bucketCount      时间桶数量
+     * @param stripes          计数分段数，必须为2的幂
+     */
+    public SlLocalWindow(long windowLengthInMs, int bucketCount, int stripes) {
+        if (windowLengthInMs <= 0) {
+            throw new IllegalArgumentException("windowLengthInMs must be positive");
+        }
+        if (bucketCount <= 0) {
+            throw new IllegalArgumentException("bucketCount must be positive");
+        }
+        if (stripes <= 0 || (stripes & (stripes - 1)) != 0) {
+            throw new IllegalArgumentException("stripes must be a power of 2");
+        }
+        this.windowLengthInMs = windowLengthInMs;
+        this.bucketLengthInMs = Math.max(1, windowLengthInMs / bucketCount);
+        this.bucketCount = bucketCount;
+        this.stripeMask = stripes - 1;
+        this.slots = new AtomicLongArray(bucketCount * stripes);
+    }
+
+    /**
+     * 记录事件并返回窗口内的事件总数
+     */
+    public long addAndCount(long now, long permits) {
+        add(now, permits);
+        return count(now);
+    }
+
+    /**
+     * 记录事件
+     */
+    public void add(long now, long permits) {
+        touch(now);
+        long epoch = now / bucketLengthInMs;
+        int tag = (int) epoch;
+        int index = stripe() * bucketCount + (int) (epoch % bucketCount);
+        for (; ; ) {
+            long current = slots.get(index);
+            long next = (int) (current >>> 32) == tag
+                    ? (current & ~COUNT_MASK) | Math.min(COUNT_MASK, (current & COUNT_MASK) + permits)
+                    : ((long) tag << 32) | Math.min(COUNT_MASK, permits);
+            if (slots.compareAndSet(index, current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 统计窗口内的事件总数
+     */
+    public long count(long now) {
+        int tag = (int) (now / bucketLengthInMs);
+        long sum = 0;
+        for (int i = 0, len = slots.length(); i < len; i++) {
+            long value = slots.get(i);
+            int age = tag - (int) (value >>> 32);
+            if (age >= 0 && age < bucketCount) {
+                sum += value & COUNT_MASK;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 清空窗口内的所有计数
+     */
+    public void reset() {
+        for (int i = 0, len = slots.length(); i < len; i++) {
+            slots.set(i, 0L);
+        }
+    }
+
+    /**
+     * 窗口内是否已无有效事件
+     */
+    public boolean isExpired(long now) {
+        return now - lastAccessTime > windowLengthInMs;
+    }
+
+    public long getWindowLengthInMs() {
+        return windowLengthInMs;
+    }
+
+    public long getLastAccessTime() {
+        return lastAccessTime;
+    }
+
+    private void touch(long now) {
+        // 同一毫秒内不重复写，避免热点键上的缓存行抖动
+        if (lastAccessTime != now) {
+            lastAccessTime = now;
+        }
+    }
+
+    private int stripe() {
+        return (int) Thread.currentThread().getId() & stripeMask;
+    }
+}
@@ -0,0 +1,202 @@
+package com.uzong.sliding.window.core;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 本地滑动窗口存储，按(键, 窗口长度)区分窗口，键数量有上限。
+ * 每个窗口占用一个槽位，槽位用完时先清理已过期的窗口，仍然不足时随机采样淘汰最久未访问的窗口。
+ * @author sky
+ * @since 2026/10/18
+ */
+public class SlLocalWindowStore {
+
+    /**
+     * 采样淘汰时的样本数
+     */
+    private static final int EVICTION_SAMPLES = 8;
+
+    private final ConcurrentHashMap<WindowKey, Entry> windows = new ConcurrentHashMap<>();
+
+    /**
+     * 槽位到窗口的映射，用于随机采样
+     */
+    private final AtomicReferenceArray<Entry> slots;
+
+    private final ConcurrentLinkedQueue<Integer> freeSlots = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 从未使用过的槽位的起点
+     */
+    private final AtomicInteger nextSlot = new AtomicInteger();
+
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    private final int bucketCount;
+
+    private final int stripes;
+
+    private final int maxKeys;
+
+    private volatile long lastSweepTime;
+
+    /**
+     * @param bucketCount 每个窗口的时间桶数量
+     * @param stripes     计数分段数，非2的幂时向上取整
+     * @param maxKeys     最大键数量
+     */
+    public SlLocalWindowStore(int bucketCount, int stripes, int maxKeys) {
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("maxKeys must be positive");
+        }
+        this.bucketCount = bucketCount;
+        this.stripes = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.maxKeys = maxKeys;
+        this.slots = new AtomicReferenceArray<>(maxKeys);
+    }
+
+    /**
+     * 获取键与窗口长度对应的窗口，不存在时创建；同一个键的不同窗口长度互不影响
+     */
+    public SlLocalWindow getWindow(String key, long windowLengthInMs, long now) {
+        WindowKey windowKey = new WindowKey(key, windowLengthInMs);
+        Entry entry = windows.get(windowKey);
+        if (entry != null) {
+            return entry.window;
+        }
+        int slot = acquireSlot(now);
+        Entry created = new Entry(windowKey, new SlLocalWindow(windowLengthInMs, bucketCount, stripes), slot);
+        // 先占住槽位再放入map，保证map中的窗口都能被采样到
+        slots.set(slot, created);
+        Entry existing = windows.putIfAbsent(windowKey, created);
+        if (existing != null) {
+            slots.compareAndSet(slot, created, null);
+            freeSlots.offer(slot);
+            return existing.window;
+        }
+        return created.window;
+    }
+
+    /**
+     * 移除键与窗口长度对应的窗口
+     */
+    public void remove(String key, long windowLengthInMs) {
+        Entry entry = windows.get(new WindowKey(key, windowLengthInMs));
+        if (entry != null) {
+            remove(entry);
+        }
+    }
+
+    public int size() {
+        return windows.size();
+    }
+
+    private int acquireSlot(long now) {
+        for (; ; ) {
+            Integer free = freeSlots.poll();
+            if (free != null) {
+                return free;
+            }
+            int next = nextSlot.get();
+            if (next < maxKeys) {
+                if (nextSlot.compareAndSet(next, next + 1)) {
+                    return next;
+                }
+                continue;
+            }
+            evict(now);
+        }
+    }
+
+    private void evict(long now) {
+        // 全量清理过期窗口的开销与键数量成正比，每秒最多执行一次
+        if (now - lastSweepTime >= 1000 && sweeping.compareAndSet(false, true)) {
+            try {
+                lastSweepTime = now;
+                for (Iterator<Entry> iterator = windows.values().iterator(); iterator.hasNext(); ) {
+                    Entry entry = iterator.next();
+                    if (entry.window.isExpired(now)) {
+                        remove(entry);
+                    }
+                }
+            } finally {
+                sweeping.set(false);
+            }
+            if (!freeSlots.isEmpty()) {
+                return;
+            }
+        }
+        evictOldestSample();
+    }
+
+    private void evictOldestSample() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Entry oldest = null;
+        for (int i = 0; i < EVICTION_SAMPLES; i++) {
+            Entry entry = slots.get(random.nextInt(maxKeys));
+            if (entry != null && (oldest == null
+                    || entry.window.getLastAccessTime() < oldest.window.getLastAccessTime())) {
+                oldest = entry;
+            }
+        }
+        if (oldest != null) {
+            remove(oldest);
+        }
+    }
+
+    private void remove(Entry entry) {
+        if (windows.remove(entry.key, entry)) {
+            slots.compareAndSet(entry.slot, entry, null);
+            freeSlots.offer(entry.slot);
+        }
+    }
+
+    private static final class Entry {
+
+        private final WindowKey key;
+
+        private final SlLocalWindow window;
+
+        private final int slot;
+
+        private Entry(WindowKey key, SlLocalWindow window, int slot) {
+            this.key = key;
+            this.window = window;
+            this.slot = slot;
+        }
+    }
+
+    private static final class WindowKey {
+
+        private final String key;
+
+        private final long windowLengthInMs;
+
+        private WindowKey(String key, long windowLengthInMs) {
+            this.key = key;
+            this.windowLengthInMs = windowLengthInMs;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof WindowKey)) {
+                return false;
+            }
+            WindowKey that = (WindowKey) o;
+            return windowLengthInMs == that.windowLengthInMs && key.equals(that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * key.hashCode() + Long.hashCode(windowLengthInMs);
+        }
+    }
+}
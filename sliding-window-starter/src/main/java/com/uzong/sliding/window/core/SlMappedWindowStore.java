@@ -0,0 +1,346 @@
+package com.uzong.sliding.window.core;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 堆外滑动窗口存储：固定大小槽位的开放寻址哈希表，映射到文件，不在堆上为每个键创建对象，重启后计数仍然有效。
+ * 每个槽位对应一个键与窗口长度，保存两者的128位指纹、窗口长度、最近访问时间和bucketCount个时间桶，
+ * 时间桶与SlLocalWindow相同，用一个long打包桶序号与计数，通过CAS更新。
+ * 同一个键的不同窗口使用各自的槽位，互不清空。键只保存指纹，不同键指纹相同的概率可以忽略；线性探测最多16个槽位，都被占用时复用其中最久未访问的槽位。
+ * 进程在占用槽位的过程中退出时，加载文件或等待超时后清理该槽位
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+@Slf4j
+public class SlMappedWindowStore implements Closeable {
+
+    private static final long MAGIC = 0x534C57494E444F57L;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+
+    /**
+     * 槽位头：指纹高64位、指纹低64位、窗口长度、最近访问时间
+     */
+    private static final int SLOT_HEADER_SIZE = 32;
+
+    private static final long EMPTY = 0;
+
+    /**
+     * 槽位正在被占用或重置，其他线程等待
+     */
+    private static final long CLAIMING = Long.MIN_VALUE;
+
+    /**
+     * 中断的占用被清理后使用的指纹高位：不能改回EMPTY，否则其后槽位中的键会查找不到；
+     * 访问时间为0，会最先被复用
+     */
+    private static final long STALE = 1;
+
+    private static final long COUNT_MASK = 0xFFFFFFFFL;
+
+    private static final int PROBES = 16;
+
+    /**
+     * 等待其他线程占用槽位的最长时间，超过时认为占用者已经退出
+     */
+    private static final long MAX_CLAIM_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final int bucketCount;
+
+    private final int slotSize;
+
+    private final int mask;
+
+    private final MappedByteBuffer buffer;
+
+    private final long base;
+
+    /**
+     * @param file        映射文件，不存在时创建；文件格式或参数不一致时启动失败，不会清空其他应用的文件
+     * @param bucketCount 每个窗口的时间桶数量
+     * @param maxKeys     最大键数量，槽位数为其4/3向上取2的幂
+     */
+    public SlMappedWindowStore(File file, int bucketCount, int maxKeys) {
+        if (bucketCount <= 0) {
+            throw new IllegalArgumentException("bucketCount must be positive");
+        }
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("maxKeys must be positive");
+        }
+        int capacity = Math.max(PROBES, Integer.highestOneBit((int) Math.min(1 << 30, maxKeys * 4L / 3) - 1) << 1);
+        this.bucketCount = bucketCount;
+        this.slotSize = SLOT_HEADER_SIZE + bucketCount * 8;
+        this.mask = capacity - 1;
+        long size = HEADER_SIZE + (long) capacity * slotSize;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("mapped file can not exceed 2GB, maxKeys:" + maxKeys
+                    + ", bucketCount:" + bucketCount);
+        }
+        this.buffer = map(file, (int) size, capacity);
+        this.base = SlUnsafe.address(buffer);
+    }
+
+    /**
+     * 记录事件并返回窗口内的事件总数
+     */
+    public long addAndCount(String key, long windowLengthInMs, long now, long permits) {
+        long slot = slot(key, windowLengthInMs, now);
+        add(slot, windowLengthInMs, now, permits);
+        return count(slot, windowLengthInMs, now);
+    }
+
+    /**
+     * 记录事件
+     */
+    public void add(String key, long windowLengthInMs, long now, long permits) {
+        add(slot(key, windowLengthInMs, now), windowLengthInMs, now, permits);
+    }
+
+    /**
+     * 统计窗口内的事件总数
+     */
+    public long count(String key, long windowLengthInMs, long now) {
+        return count(slot(key, windowLengthInMs, now), windowLengthInMs, now);
+    }
+
+    /**
+     * 清空键对应窗口内的所有计数
+     */
+    public void reset(String key, long windowLengthInMs, long now) {
+        long slot = slot(key, windowLengthInMs, now);
+        for (int i = 0; i < bucketCount; i++) {
+            SlUnsafe.putLongVolatile(slot + SLOT_HEADER_SIZE + i * 8L, 0L);
+        }
+    }
+
+    /**
+     * 把修改写回文件，关闭时调用；进程退出但操作系统未宕机时，未写回的修改也不会丢失
+     */
+    public void flush() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private void add(long slot, long windowLengthInMs, long now, long permits) {
+        long bucketLengthInMs = Math.max(1, windowLengthInMs / bucketCount);
+        long epoch = now / bucketLengthInMs;
+        int tag = (int) epoch;
+        long address = slot + SLOT_HEADER_SIZE + (epoch % bucketCount) * 8;
+        for (; ; ) {
+            long current = SlUnsafe.getLongVolatile(address);
+            long next = (int) (current >>> 32) == tag
+                    ? (current & ~COUNT_MASK) | Math.min(COUNT_MASK, (current & COUNT_MASK) + permits)
+                    : ((long) tag << 32) | Math.min(COUNT_MASK, permits);
+            if (SlUnsafe.compareAndSwapLong(address, current, next)) {
+                return;
+            }
+        }
+    }
+
+    private long count(long slot, long windowLengthInMs, long now) {
+        int tag = (int) (now / Math.max(1, windowLengthInMs / bucketCount));
+        long sum = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            long value = SlUnsafe.getLongVolatile(slot + SLOT_HEADER_SIZE + i * 8L);
+            int age = tag - (int) (value >>> 32);
+            if (age >= 0 && age < bucketCount) {
+                sum += value & COUNT_MASK;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 查找键与窗口长度对应的槽位地址，不存在时占用第一个空槽位，没有空槽位时复用最久未访问的槽位
+     */
+    private long slot(String key, long windowLengthInMs, long now) {
+        long high = hash(key, 0x9E3779B97F4A7C15L ^ windowLengthInMs);
+        long low = hash(key, 0xC2B2AE3D27D4EB4FL + windowLengthInMs * 0x9E3779B97F4A7C15L);
+        if (high == EMPTY || high == CLAIMING) {
+            high = 1;
+        }
+        for (; ; ) {
+            long oldest = -1;
+            long oldestHigh = EMPTY;
+            long oldestAccessTime = Long.MAX_VALUE;
+            int index = (int) low & mask;
+            for (int i = 0; i < PROBES; i++, index = (index + 1) & mask) {
+                long slot = base + HEADER_SIZE + (long) index * slotSize;
+                long current = awaitClaimed(slot);
+                if (current == EMPTY) {
+                    // 槽位不会被释放，键只可能出现在第一个空槽位之前
+                    if (claim(slot, EMPTY, high, low, windowLengthInMs, now)) {
+                        return slot;
+                    }
+                    oldest = -2;
+                    break;
+                }
+                if (current == high && SlUnsafe.getLongVolatile(slot + 8) == low
+                        && SlUnsafe.getLongVolatile(slot + 16) == windowLengthInMs) {
+                    touch(slot, now);
+                    return slot;
+                }
+                long accessTime = SlUnsafe.getLongVolatile(slot + 24);
+                if (accessTime < oldestAccessTime) {
+                    oldest = slot;
+                    oldestHigh = current;
+                    oldestAccessTime = accessTime;
+                }
+            }
+            // 占用失败说明其他线程同时修改了该槽位，重新查找
+            if (oldest >= 0 && claim(oldest, oldestHigh, high, low, windowLengthInMs, now)) {
+                return oldest;
+            }
+        }
+    }
+
+    /**
+     * 先把指纹高位置为CLAIMING，清空计数并写入其他字段后再发布指纹
+     */
+    private boolean claim(long slot, long expected, long high, long low, long windowLengthInMs, long now) {
+        if (!SlUnsafe.compareAndSwapLong(slot, expected, CLAIMING)) {
+            return false;
+        }
+        for (int i = 0; i < bucketCount; i++) {
+            SlUnsafe.putLongVolatile(slot + SLOT_HEADER_SIZE + i * 8L, 0L);
+        }
+        SlUnsafe.putLongVolatile(slot + 8, low);
+        SlUnsafe.putLongVolatile(slot + 16, windowLengthInMs);
+        SlUnsafe.putLongVolatile(slot + 24, now);
+        SlUnsafe.putLongVolatile(slot, high);
+        return true;
+    }
+
+    /**
+     * 等待其他线程完成占用。占用者在两次写之间崩溃(共享文件的其他进程)时槽位会一直是CLAIMING，
+     * 超过等待时间后清理该槽位
+     */
+    private long awaitClaimed(long slot) {
+        long current = SlUnsafe.getLongVolatile(slot);
+        if (current != CLAIMING) {
+            return current;
+        }
+        long deadline = System.nanoTime() + MAX_CLAIM_WAIT_NANOS;
+        while ((current = SlUnsafe.getLongVolatile(slot)) == CLAIMING) {
+            if (System.nanoTime() - deadline > 0) {
+                log.warn("===>>> mapped window slot claim timed out, release it, slot:{}", (slot - base - HEADER_SIZE) / slotSize);
+                release(slot);
+            }
+            Thread.yield();
+        }
+        return current;
+    }
+
+    /**
+     * 把中断的占用改为STALE：清空计数与访问时间后再发布指纹
+     */
+    private void release(long slot) {
+        for (int i = 0; i < bucketCount; i++) {
+            SlUnsafe.putLongVolatile(slot + SLOT_HEADER_SIZE + i * 8L, 0L);
+        }
+        SlUnsafe.putLongVolatile(slot + 8, 0L);
+        SlUnsafe.putLongVolatile(slot + 16, 0L);
+        SlUnsafe.putLongVolatile(slot + 24, 0L);
+        SlUnsafe.compareAndSwapLong(slot, CLAIMING, STALE);
+    }
+
+    /**
+     * 加载已有文件时清理上次进程退出时没有完成的占用
+     */
+    private int releaseClaiming(long address, int capacity) {
+        int released = 0;
+        for (long index = 0; index < capacity; index++) {
+            long slot = address + HEADER_SIZE + index * slotSize;
+            if (SlUnsafe.getLongVolatile(slot) == CLAIMING) {
+                release(slot);
+                released++;
+            }
+        }
+        return released;
+    }
+
+    private void touch(long slot, long now) {
+        // 同一毫秒内不重复写，避免热点键上的缓存行抖动
+        if (SlUnsafe.getLong(slot + 24) != now) {
+            SlUnsafe.putOrderedLong(slot + 24, now);
+        }
+    }
+
+    private MappedByteBuffer map(File file, int size, int capacity) {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs() && !parent.exists()) {
+            throw new IllegalStateException("can not create directory " + parent);
+        }
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            // 多个进程同时初始化同一个文件时串行执行
+            FileLock lock = channel.lock();
+            try {
+                long fileSize = channel.size();
+                MappedByteBuffer mapped = fileSize == 0 ? null : channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(fileSize, size));
+                if (mapped == null || fileSize == size && mapped.getLong(0) == 0) {
+                    // 新文件，或上次初始化未完成(魔数最后写入)
+                    randomAccessFile.setLength(size);
+                    mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                    mapped.putInt(8, VERSION);
+                    mapped.putInt(12, bucketCount);
+                    mapped.putInt(16, capacity);
+                    mapped.putLong(0, MAGIC);
+                    mapped.force();
+                    log.info("===>>> mapped window file created, file:{}, capacity:{}", file, capacity);
+                    return mapped;
+                }
+                if (fileSize < HEADER_SIZE || mapped.getLong(0) != MAGIC || mapped.getInt(8) != VERSION
+                        || mapped.getInt(12) != bucketCount || mapped.getInt(16) != capacity || fileSize != size) {
+                    // 文件可能属于其他应用或使用了其他配置，不自动清空
+                    throw new IllegalStateException("mapped window file does not match, delete it or use another file,"
+                            + " file:" + file + ", expected bucketCount:" + bucketCount + ", capacity:" + capacity
+                            + ", size:" + size + ", actual size:" + fileSize
+                            + (fileSize >= HEADER_SIZE && mapped.getLong(0) == MAGIC
+                            ? ", bucketCount:" + mapped.getInt(12) + ", capacity:" + mapped.getInt(16) : ", not a mapped window file"));
+                }
+                int released = releaseClaiming(SlUnsafe.address(mapped), capacity);
+                log.info("===>>> mapped window file loaded, file:{}, capacity:{}, released claims:{}", file, capacity, released);
+                return mapped;
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("can not map " + file, e);
+        }
+    }
+
+    /**
+     * 按字符计算，不需要编码为字节数组
+     */
+    private static long hash(String key, long seed) {
+        long h = seed ^ key.length();
+        for (int i = 0, len = key.length(); i < len; i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001B3L;
+            h = Long.rotateLeft(h, 23) + seed;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
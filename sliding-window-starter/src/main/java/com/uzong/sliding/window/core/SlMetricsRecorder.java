@@ -0,0 +1,75 @@
+package com.uzong.sliding.window.core;
+
+import com.uzong.sliding.window.dto.SlidingWindowMode;
+
+/**
+ * 滑动窗口指标记录，默认不记录；存在MeterRegistry时自动配置为Micrometer实现。
+ * 在每次调用的热路径上执行，实现需要避免分配对象
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+public interface SlMetricsRecorder {
+
+    SlMetricsRecorder NOOP = new SlMetricsRecorder() {
+    };
+
+    /**
+     * 记录一次判断
+     *
+     * @param mode      存储模式，去重计数没有存储模式，为空
+     * @param overLimit 是否超过阈值，调用异常时为空
+     */
+    default void recordDecision(Operation operation, SlidingWindowMode mode, Boolean overLimit, long elapsedNanos) {
+    }
+
+    /**
+     * 记录一次计数。计算脚本只返回是否超过阈值，不返回窗口内事件数，因此只有计数操作会记录
+     *
+     * @param mode  存储模式，去重计数没有存储模式，为空
+     * @param count 窗口内事件数，调用异常时忽略
+     */
+    default void recordCount(SlidingWindowMode mode, long count, boolean error, long elapsedNanos) {
+    }
+
+    /**
+     * 记录一次场景判断
+     */
+    default void recordSceneDecision(String scene, Operation operation, boolean overLimit) {
+    }
+
+    /**
+     * 记录一次Redis脚本调用，pipeline按一次调用记录
+     */
+    default void recordScript(String script, boolean error, long elapsedNanos) {
+    }
+
+    /**
+     * 记录一次生成事件ID时等待时钟的时间，只在序列号用完或时钟回退需要等待时调用
+     */
+    default void recordIdWait(long elapsedNanos) {
+    }
+
+    /**
+     * 操作类型
+     */
+    enum Operation {
+        CALCULATE("calculate"),
+        CALCULATE_AND_CLEANUP("calculate_and_cleanup"),
+        COUNT("count"),
+        BATCH("batch"),
+        MULTI("multi"),
+        ACQUIRE("acquire"),
+        DISTINCT("distinct");
+
+        private final String tag;
+
+        Operation(String tag) {
+            this.tag = tag;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.uzong.sliding.window.core;
+
+import com.uzong.sliding.window.dto.SlidingWindowMode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 基于Micrometer的指标记录。
+ * 指标在首次使用时注册并缓存，之后按枚举下标或常量字符串查找，热路径上不创建标签对象
+ *
+ * <ul>
+ *     <li>sliding.window.calls：判断与计数耗时，标签operation、mode、outcome(allow/deny/success/error)；去重计数没有存储模式，mode为hyperloglog</li>
+ *     <li>sliding.window.count：计数操作返回的窗口内事件数分布，标签mode；计算脚本只返回判断结果，不计入</li>
+ *     <li>sliding.window.scene.decisions：场景判断次数，标签scene、operation、outcome(allow/deny)</li>
+ *     <li>sliding.window.script：Redis脚本耗时，标签script、outcome(success/error)</li>
+ *     <li>sliding.window.id.wait：生成事件ID时等待时钟的时间，只在需要等待时记录</li>
+ *     <li>sliding.window.deny.cache：开启本地拒绝缓存时的命中、未命中与淘汰次数，标签result(hit/miss/eviction)，
+ *     由bindDenyCache注册，读取缓存自身的计数</li>
+ * </ul>
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+public class SlMicrometerMetricsRecorder implements SlMetricsRecorder {
+
+    private static final String[] OUTCOMES = {"allow", "deny", "error"};
+
+    private static final String[] COUNT_OUTCOMES = {"success", "error"};
+
+    private static final int OPERATIONS = Operation.values().length;
+
+    /**
+     * 存储模式数量，另加一个位置给没有存储模式的去重计数
+     */
+    private static final int MODES = SlidingWindowMode.values().length + 1;
+
+    private static final String DISTINCT_MODE_TAG = "hyperloglog";
+
+    private final MeterRegistry registry;
+
+    /**
+     * 下标：(operation * MODES + mode) * OUTCOMES + outcome
+     */
+    private final AtomicReferenceArray<Timer> callTimers = new AtomicReferenceArray<>(OPERATIONS * MODES * OUTCOMES.length);
+
+    private final AtomicReferenceArray<DistributionSummary> countSummaries = new AtomicReferenceArray<>(MODES);
+
+    /**
+     * 值的下标：operation * 2 + outcome
+     */
+    private final ConcurrentMap<String, AtomicReferenceArray<Counter>> sceneCounters = new ConcurrentHashMap<>();
+
+    /**
+     * 值的下标：outcome
+     */
+    private final ConcurrentMap<String, AtomicReferenceArray<Timer>> scriptTimers = new ConcurrentHashMap<>();
+
+    private final Timer idWaitTimer;
+
+    public SlMicrometerMetricsRecorder(MeterRegistry registry) {
+        this.registry = registry;
+        this.idWaitTimer = Timer.builder("sliding.window.id.wait").register(registry);
+    }
+
+    @Override
+    public void recordDecision(Operation operation, SlidingWindowMode mode, Boolean overLimit, long elapsedNanos) {
+        int outcome = overLimit == null ? 2 : overLimit ? 1 : 0;
+        callTimer(operation, mode, outcome, OUTCOMES[outcome]).record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordCount(SlidingWindowMode mode, long count, boolean error, long elapsedNanos) {
+        int outcome = error ? 1 : 0;
+        callTimer(Operation.COUNT, mode, outcome, COUNT_OUTCOMES[outcome]).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (!error) {
+            countSummary(mode).record(count);
+        }
+    }
+
+    @Override
+    public void recordSceneDecision(String scene, Operation operation, boolean overLimit) {
+        AtomicReferenceArray<Counter> counters = sceneCounters.get(scene);
+        if (counters == null) {
+            counters = sceneCounters.computeIfAbsent(scene, s -> new AtomicReferenceArray<>(OPERATIONS * 2));
+        }
+        int outcome = overLimit ? 1 : 0;
+        int index = operation.ordinal() * 2 + outcome;
+        Counter counter = counters.get(index);
+        if (counter == null) {
+            counter = Counter.builder("sliding.window.scene.decisions")
+                    .tag("scene", scene)
+                    .tag("operation", operation.getTag())
+                    .tag("outcome", OUTCOMES[outcome])
+                    .register(registry);
+            counters.set(index, counter);
+        }
+        counter.increment();
+    }
+
+    @Override
+    public void recordScript(String script, boolean error, long elapsedNanos) {
+        AtomicReferenceArray<Timer> timers = scriptTimers.get(script);
+        if (timers == null) {
+            timers = scriptTimers.computeIfAbsent(script, s -> new AtomicReferenceArray<>(2));
+        }
+        int outcome = error ? 1 : 0;
+        Timer timer = timers.get(outcome);
+        if (timer == null) {
+            timer = Timer.builder("sliding.window.script")
+                    .tag("script", script)
+                    .tag("outcome", COUNT_OUTCOMES[outcome])
+                    .publishPercentileHistogram()
+                    .register(registry);
+            timers.set(outcome, timer);
+        }
+        timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordIdWait(long elapsedNanos) {
+        idWaitTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 把拒绝缓存的计数注册为FunctionCounter，抓取指标时读取，不在热路径上记录
+     */
+    public static void bindDenyCache(SlDenyCache denyCache, MeterRegistry registry) {
+        FunctionCounter.builder("sliding.window.deny.cache", denyCache, SlDenyCache::getHitCount)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("sliding.window.deny.cache", denyCache, SlDenyCache::getMissCount)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("sliding.window.deny.cache", denyCache, SlDenyCache::getEvictionCount)
+                .tag("result", "eviction")
+                .register(registry);
+        Gauge.builder("sliding.window.deny.cache.size", denyCache, SlDenyCache::size)
+                .register(registry);
+    }
+
+    private Timer callTimer(Operation operation, SlidingWindowMode mode, int outcomeIndex, String outcome) {
+        int index = (operation.ordinal() * MODES + modeIndex(mode)) * OUTCOMES.length + outcomeIndex;
+        Timer timer = callTimers.get(index);
+        if (timer == null) {
+            // 并发注册时Micrometer返回同一个实例
+            timer = Timer.builder("sliding.window.calls")
+                    .tag("operation", operation.getTag())
+                    .tag("mode", modeTag(mode))
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            callTimers.set(index, timer);
+        }
+        return timer;
+    }
+
+    private DistributionSummary countSummary(SlidingWindowMode mode) {
+        DistributionSummary summary = countSummaries.get(modeIndex(mode));
+        if (summary == null) {
+            summary = DistributionSummary.builder("sliding.window.count")
+                    .tag("mode", modeTag(mode))
+                    .publishPercentileHistogram()
+                    .register(registry);
+            countSummaries.set(modeIndex(mode), summary);
+        }
+        return summary;
+    }
+
+    private static int modeIndex(SlidingWindowMode mode) {
+        return mode == null ? MODES - 1 : mode.ordinal();
+    }
+
+    private static String modeTag(SlidingWindowMode mode) {
+        return mode == null ? DISTINCT_MODE_TAG : mode.name().toLowerCase(Locale.ROOT);
+    }
+}
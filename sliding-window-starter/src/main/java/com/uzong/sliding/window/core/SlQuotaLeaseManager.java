@@ -0,0 +1,240 @@
+package com.uzong.sliding.window.core;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 客户端配额租约管理。
+ * 节点一次从Redis预留一批许可，在本地用原子计数消费，用完或到期后再访问Redis，同时归还未用完的许可。
+ * 许可先在Redis中记账再消费，因此不会超过阈值；误差表现为少放行，上限为 节点数 × 每批许可数。
+ * 窗口已满时在租约期内直接拒绝，不再访问Redis。
+ * 后台线程每隔sweepIntervalInMs归还已到期租约未用完的许可，并移除空闲的键。
+ * 键数量达到上限时新键不预留租约，每次直接在Redis中记账一个许可，不在请求线程上批量清理
+ * @author sky
+ * @since 2026/10/18
+ */
+@Slf4j
+@Setter
+public class SlQuotaLeaseManager implements DisposableBean {
+
+    @Autowired
+    private PlentifulRedisService plentifulRedisService;
+
+    /**
+     * 每批许可数占阈值的比例
+     */
+    private double maxErrorRatio = 0.05;
+
+    /**
+     * 租约最长有效期(ms)，同时不会超过当前子窗口的结束时间
+     */
+    private long leaseTimeInMs = 1000;
+
+    /**
+     * 最多保留租约的键数量，超过时新键的请求直接访问Redis
+     */
+    private int maxKeys = 10000;
+
+    /**
+     * 到期租约的清理间隔(ms)，未用完的许可最多延迟这么久归还
+     */
+    private long sweepIntervalInMs = 200;
+
+    private final ConcurrentHashMap<String, LeaseHolder> holders = new ConcurrentHashMap<>();
+
+    private volatile ScheduledExecutorService sweeper;
+
+    /**
+     * 消费一个许可
+     *
+     * @return 获得许可返回true，窗口已满返回false
+     */
+    public boolean acquire(String key, long currentTime, long windowLengthInMs, long threshold, int bucketCount) {
+        while (true) {
+            LeaseHolder holder = holders.get(key);
+            if (holder == null) {
+                if (holders.size() >= maxKeys) {
+                    // 空闲的键由清理线程移除
+                    return acquireDirectly(key, currentTime, windowLengthInMs, threshold, bucketCount);
+                }
+                startSweeper();
+                holder = holders.computeIfAbsent(key, k -> new LeaseHolder());
+            }
+            if (holder.tryConsume(currentTime)) {
+                return true;
+            }
+            if (holder.isDenied(currentTime)) {
+                return false;
+            }
+            synchronized (holder) {
+                if (holder.removed) {
+                    // 清理线程刚移除了空闲的键，重新创建
+                    continue;
+                }
+                // 其他线程可能已经续约
+                if (holder.tryConsume(currentTime)) {
+                    return true;
+                }
+                if (holder.isDenied(currentTime)) {
+                    return false;
+                }
+                return renew(holder, key, currentTime, windowLengthInMs, threshold, bucketCount);
+            }
+        }
+    }
+
+    /**
+     * 归还已到期租约未用完的许可，租约到期超过一个租约期的键从本地移除，由清理线程定时调用
+     */
+    public void sweep(long currentTime) {
+        for (Map.Entry<String, LeaseHolder> entry : holders.entrySet()) {
+            LeaseHolder holder = entry.getValue();
+            Lease lease = holder.lease;
+            if (lease != null && currentTime < lease.expireTime) {
+                continue;
+            }
+            synchronized (holder) {
+                lease = holder.lease;
+                if (lease != null && currentTime < lease.expireTime) {
+                    continue;
+                }
+                release(entry.getKey(), holder);
+                if (lease == null || currentTime >= lease.expireTime + leaseTimeInMs) {
+                    holder.removed = true;
+                    holders.remove(entry.getKey(), holder);
+                }
+            }
+        }
+    }
+
+    private boolean renew(
+            LeaseHolder holder, String key, long currentTime, long windowLengthInMs, long threshold, int bucketCount
+    ) {
+        Lease expired = holder.lease;
+        long releaseBucket = expired == null ? 0 : expired.bucket;
+        long releasePermits = expired == null ? 0 : Math.max(0, expired.remaining.getAndSet(0));
+
+        long bucketLengthInMs = SlScriptArgs.bucketLength(windowLengthInMs, bucketCount);
+        long bucket = currentTime / bucketLengthInMs;
+        long permits = Math.max(1, (long) (threshold * maxErrorRatio));
+        long granted = plentifulRedisService.leaseAcquire(key, currentTime, windowLengthInMs, threshold,
+                bucketCount, permits, releaseBucket, releasePermits);
+        // 许可记在当前子窗口，必须在该子窗口内用完，否则会比真实事件更早滑出窗口
+        long expireTime = Math.min(currentTime + leaseTimeInMs, (bucket + 1) * bucketLengthInMs);
+        if (granted <= 0) {
+            // 窗口已满，租约期内直接拒绝，不再访问Redis
+            holder.lease = new Lease(bucket, 0, expireTime, true);
+            return false;
+        }
+        holder.lease = new Lease(bucket, granted - 1, expireTime, false);
+        return true;
+    }
+
+    /**
+     * 键数量达到上限时不预留租约，只记账一个许可
+     */
+    private boolean acquireDirectly(String key, long currentTime, long windowLengthInMs, long threshold, int bucketCount) {
+        return plentifulRedisService.leaseAcquire(key, currentTime, windowLengthInMs, threshold,
+                bucketCount, 1L, 0L, 0L) > 0;
+    }
+
+    @Override
+    public void destroy() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+        for (Map.Entry<String, LeaseHolder> entry : holders.entrySet()) {
+            synchronized (entry.getValue()) {
+                release(entry.getKey(), entry.getValue());
+            }
+        }
+        holders.clear();
+    }
+
+    private void startSweeper() {
+        if (sweeper != null) {
+            return;
+        }
+        synchronized (this) {
+            if (sweeper == null) {
+                ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "sliding-window-lease-sweeper");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                executor.scheduleWithFixedDelay(() -> {
+                    try {
+                        sweep(System.currentTimeMillis());
+                    } catch (RuntimeException e) {
+                        log.warn("===>>> sliding window lease sweep failed", e);
+                    }
+                }, sweepIntervalInMs, sweepIntervalInMs, TimeUnit.MILLISECONDS);
+                sweeper = executor;
+            }
+        }
+    }
+
+    private void release(String key, LeaseHolder holder) {
+        Lease lease = holder.lease;
+        if (lease == null) {
+            return;
+        }
+        long unused = lease.remaining.getAndSet(0);
+        if (unused <= 0) {
+            return;
+        }
+        try {
+            plentifulRedisService.leaseRelease(key, lease.bucket, unused);
+        } catch (RuntimeException e) {
+            log.warn("===>>> release lease failed, key:{}, permits:{}", key, unused, e);
+        }
+    }
+
+    private static final class LeaseHolder {
+
+        private volatile Lease lease;
+
+        /**
+         * 已从本地移除，只在持有锁时读写
+         */
+        private boolean removed;
+
+        private boolean tryConsume(long currentTime) {
+            Lease current = lease;
+            return current != null && !current.denied && currentTime < current.expireTime
+                    && current.remaining.getAndDecrement() > 0;
+        }
+
+        private boolean isDenied(long currentTime) {
+            Lease current = lease;
+            return current != null && current.denied && currentTime < current.expireTime;
+        }
+    }
+
+    private static final class Lease {
+
+        private final long bucket;
+
+        private final AtomicLong remaining;
+
+        private final long expireTime;
+
+        private final boolean denied;
+
+        private Lease(long bucket, long remaining, long expireTime, boolean denied) {
+            this.bucket = bucket;
+            this.remaining = new AtomicLong(remaining);
+            this.expireTime = expireTime;
+            this.denied = denied;
+        }
+    }
+}
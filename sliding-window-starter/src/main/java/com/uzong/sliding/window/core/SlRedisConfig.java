@@ -43,6 +43,176 @@ public class SlRedisConfig {
         return redisScript;
     }
 
+    @Bean
+    @Qualifier("calculateUntilScript")
+    public DefaultRedisScript<Long> calculateUntilScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("META-INF/scripts/calculate_until.lua")));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    @Bean
+    @Qualifier("boundedCalculateScript")
+    public DefaultRedisScript<Long> boundedCalculateScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("META-INF/scripts/bounded_calculate.lua")));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    @Bean
+    @Qualifier("boundedCalculateAndCleanUpScript")
+    public DefaultRedisScript<Boolean> boundedCalculateAndCleanUpScript() {
+        DefaultRedisScript<Boolean> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("META-INF/scripts/bounded_calculate_and_cleanup.lua")));
+        redisScript.setResultType(Boolean.class);
+        return redisScript;
+    }
+
+    @Bean
+    @Qualifier("boundedCalculateCountScript")
+    public DefaultRedisScript<Long> boundedCalculateCountScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("META-INF/scripts/bounded_calculate_count.lua")));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    @Bean
+    @Qualifier("shardCountScript")
+    public DefaultRedisScript<Long> shardCountScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("META-INF/scripts/shard_count.lua")));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    @Bean
+    @Qualifier("calculateMultiScript")
+    public DefaultRedisScript<Long> calculateMultiScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("META-INF/scripts/calculate_multi.lua")));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    @Bean
+    @Qualifier("counterCalculateScript")
+    public DefaultRedisScript<Boolean> counterCalculateScript() {
+        DefaultRedisScript<Boolean> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("META-INF/scripts/counter_calculate.lua")));
+        redisScript.setResultType(Boolean.class);
+        return redisScript;
+    }
+
+    @Bean
+    @Qualifier("counterCalculateAndCleanUpScript")
+    public DefaultRedisScript<Boolean> counterCalculateAndCleanUpScript() {
+        DefaultRedisScript<Boolean> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("META-INF/scripts/counter_calculate_and_cleanup.lua")));
+        redisScript.setResultType(Boolean.class);
+        return redisScript;
+    }
+
+    @Bean
+    @Qualifier("counterCalculateCountScript")
+    public DefaultRedisScript<Long> counterCalculateCountScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("META-INF/scripts/counter_calculate_count.lua")));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    @Bean
+    @Qualifier("leaseAcquireScript")
+    public DefaultRedisScript<Long> leaseAcquireScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("META-INF/scripts/lease_acquire.lua")));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    @Bean
+    @Qualifier("gcraScript")
+    public DefaultRedisScript<Long> gcraScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("META-INF/scripts/gcra.lua")));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    @Bean
+    @Qualifier("distinctCountScript")
+    public DefaultRedisScript<Long> distinctCountScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("META-INF/scripts/distinct_count.lua")));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    @Bean
+    @Qualifier("acquireScript")
+    public DefaultRedisScript<Long> acquireScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("META-INF/scripts/acquire.lua")));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    @Bean
+    @Qualifier("counterAcquireScript")
+    public DefaultRedisScript<Long> counterAcquireScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("META-INF/scripts/counter_acquire.lua")));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    @Bean
+    @Qualifier("leaseReleaseScript")
+    public DefaultRedisScript<Long> leaseReleaseScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("META-INF/scripts/lease_release.lua")));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    @Bean
+    @Qualifier("calculateCoalescedScript")
+    public DefaultRedisScript<Long> calculateCoalescedScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("META-INF/scripts/calculate_coalesced.lua")));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    @Bean
+    @Qualifier("counterCalculateCoalescedScript")
+    public DefaultRedisScript<String> counterCalculateCoalescedScript() {
+        DefaultRedisScript<String> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(
+                new ClassPathResource("META-INF/scripts/counter_calculate_coalesced.lua")));
+        redisScript.setResultType(String.class);
+        return redisScript;
+    }
+
     @Bean
     @Qualifier("redisStringRedisSerializer")
     public RedisSerializer redisSerializer() {
@@ -0,0 +1,92 @@
+package com.uzong.sliding.window.core;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * 启动预热：加载函数库与脚本、建立连接，在Web服务器开始接收请求之前完成；
+ * 开启Functions时订阅重连事件，重连后重新校验函数库版本
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+@Slf4j
+public class SlRedisWarmUp implements SmartLifecycle {
+
+    /**
+     * 早于Web服务器(Integer.MAX_VALUE - 1)启动
+     */
+    private static final int PHASE = Integer.MAX_VALUE - 1024;
+
+    @Autowired
+    private PlentifulRedisService plentifulRedisService;
+
+    /**
+     * 是否加载脚本并建立连接
+     */
+    @Setter
+    private boolean enabled;
+
+    /**
+     * 同时建立的连接数
+     */
+    @Setter
+    private int connections = 8;
+
+    /**
+     * 预热失败时是否中止启动，否则只记录日志，第一次调用时再加载
+     */
+    @Setter
+    private boolean failOnError;
+
+    private Runnable reconnectSubscription;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        SlFunctionLibrary functionLibrary = plentifulRedisService.getFunctionLibrary();
+        if (enabled || functionLibrary != null) {
+            long start = System.currentTimeMillis();
+            try {
+                plentifulRedisService.loadScripts();
+                if (enabled) {
+                    plentifulRedisService.warmUpConnections(connections);
+                }
+                log.info("===>>> sliding window redis warmed up, functions:{}, connections:{}, cost:{}ms",
+                        functionLibrary != null && functionLibrary.isAvailable(), enabled ? connections : 0,
+                        System.currentTimeMillis() - start);
+            } catch (RuntimeException e) {
+                if (failOnError) {
+                    throw e;
+                }
+                log.warn("===>>> sliding window redis warm-up failed", e);
+            }
+        }
+        if (functionLibrary != null && functionLibrary.isAvailable()) {
+            reconnectSubscription = functionLibrary.invalidateOnConnectionActivated();
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        if (reconnectSubscription != null) {
+            reconnectSubscription.run();
+            reconnectSubscription = null;
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
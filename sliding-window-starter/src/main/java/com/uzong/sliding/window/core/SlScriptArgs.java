@@ -0,0 +1,60 @@
+package com.uzong.sliding.window.core;
+
+/**
+ * 滑动窗口脚本的参数构造，同步与异步执行共用
+ * @author sky
+ * @since 2026/10/18
+ */
+final class SlScriptArgs {
+
+    private SlScriptArgs() {
+    }
+
+    /**
+     * 滑动日志脚本参数：当前时间、窗口起始时间、过期时间(秒，有界写入脚本为窗口长度毫秒)、阈值、事件ID
+     */
+    static String[] logArgs(long currentTime, long windowLengthInMs, long threshold,
+                            long expireSeconds, long eventId) {
+        return new String[]{
+                Long.toString(currentTime),
+                Long.toString(currentTime - windowLengthInMs),
+                Long.toString(expireSeconds),
+                Long.toString(threshold),
+                Long.toString(eventId)
+        };
+    }
+
+    /**
+     * 滑动窗口计数器脚本参数：当前子窗口序号、子窗口长度、子窗口内偏移、子窗口数量、阈值
+     */
+    static String[] counterArgs(long currentTime, long windowLengthInMs, long threshold, int bucketCount) {
+        long bucketLengthInMs = bucketLength(windowLengthInMs, bucketCount);
+        return new String[]{
+                Long.toString(currentTime / bucketLengthInMs),
+                Long.toString(bucketLengthInMs),
+                Long.toString(currentTime % bucketLengthInMs),
+                Integer.toString(bucketCount),
+                Long.toString(threshold)
+        };
+    }
+
+    /**
+     * GCRA脚本参数：当前时间、窗口长度(ms)、阈值、突发容量、超过阈值时是否清除
+     */
+    static String[] gcraArgs(long currentTime, long windowLengthInMs, long threshold, long burst, boolean cleanUp) {
+        return new String[]{
+                Long.toString(currentTime),
+                Long.toString(windowLengthInMs),
+                Long.toString(threshold),
+                Long.toString(burst),
+                cleanUp ? "1" : "0"
+        };
+    }
+
+    /**
+     * 子窗口长度(ms)
+     */
+    static long bucketLength(long windowLengthInMs, int bucketCount) {
+        return Math.max(1, windowLengthInMs / bucketCount);
+    }
+}
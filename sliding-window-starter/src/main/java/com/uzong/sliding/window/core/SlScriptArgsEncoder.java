@@ -0,0 +1,121 @@
+package com.uzong.sliding.window.core;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 单键脚本调用的字节级参数编码，结果与StringRedisSerializer(UTF-8)序列化相同。
+ * 数字直接按ASCII写入对应长度的数组，键按前缀字节+键名写入，请求路径上不创建String、不做字符集编码。
+ * 每次编码都返回新的数组：驱动在同步调用超时后仍可能持有参数的引用，复用缓冲会改写尚未发送的命令
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+final class SlScriptArgsEncoder {
+
+    static final byte[] EMPTY_PREFIX = new byte[0];
+
+    /**
+     * 单键脚本的参数个数
+     */
+    private static final int ARG_COUNT = 5;
+
+    private SlScriptArgsEncoder() {
+    }
+
+    /**
+     * 滑动日志脚本的键与参数，参数含义同SlScriptArgs.logArgs
+     */
+    static byte[][] logArgs(byte[] keyPrefix, String key, long currentTime, long windowLengthInMs,
+                            long threshold, long expireSeconds, long eventId) {
+        byte[][] keysAndArgs = new byte[ARG_COUNT + 1][];
+        keysAndArgs[0] = key(keyPrefix, key);
+        keysAndArgs[1] = number(currentTime);
+        keysAndArgs[2] = number(currentTime - windowLengthInMs);
+        keysAndArgs[3] = number(expireSeconds);
+        keysAndArgs[4] = number(threshold);
+        keysAndArgs[5] = number(eventId);
+        return keysAndArgs;
+    }
+
+    /**
+     * 滑动窗口计数器脚本的键与参数，参数含义同SlScriptArgs.counterArgs
+     */
+    static byte[][] counterArgs(byte[] keyPrefix, String key, long currentTime, long windowLengthInMs,
+                                long threshold, int bucketCount) {
+        long bucketLengthInMs = SlScriptArgs.bucketLength(windowLengthInMs, bucketCount);
+        byte[][] keysAndArgs = new byte[ARG_COUNT + 1][];
+        keysAndArgs[0] = key(keyPrefix, key);
+        keysAndArgs[1] = number(currentTime / bucketLengthInMs);
+        keysAndArgs[2] = number(bucketLengthInMs);
+        keysAndArgs[3] = number(currentTime % bucketLengthInMs);
+        keysAndArgs[4] = number(bucketCount);
+        keysAndArgs[5] = number(threshold);
+        return keysAndArgs;
+    }
+
+    /**
+     * GCRA脚本的键与参数，参数含义同SlScriptArgs.gcraArgs
+     */
+    static byte[][] gcraArgs(byte[] keyPrefix, String key, long currentTime, long windowLengthInMs,
+                             long threshold, long burst, boolean cleanUp) {
+        byte[][] keysAndArgs = new byte[ARG_COUNT + 1][];
+        keysAndArgs[0] = key(keyPrefix, key);
+        keysAndArgs[1] = number(currentTime);
+        keysAndArgs[2] = number(windowLengthInMs);
+        keysAndArgs[3] = number(threshold);
+        keysAndArgs[4] = number(burst);
+        keysAndArgs[5] = number(cleanUp ? 1 : 0);
+        return keysAndArgs;
+    }
+
+    /**
+     * 前缀字节+键名；键名含非ASCII字符时按UTF-8编码后拼接
+     */
+    private static byte[] key(byte[] keyPrefix, String key) {
+        byte[] bytes = new byte[keyPrefix.length + key.length()];
+        System.arraycopy(keyPrefix, 0, bytes, 0, keyPrefix.length);
+        for (int i = 0, offset = keyPrefix.length; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c >= 0x80) {
+                return concat(keyPrefix, key);
+            }
+            bytes[offset + i] = (byte) c;
+        }
+        return bytes;
+    }
+
+    private static byte[] concat(byte[] keyPrefix, String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = new byte[keyPrefix.length + keyBytes.length];
+        System.arraycopy(keyPrefix, 0, bytes, 0, keyPrefix.length);
+        System.arraycopy(keyBytes, 0, bytes, keyPrefix.length, keyBytes.length);
+        return bytes;
+    }
+
+    /**
+     * 十进制ASCII，与Long.toString相同
+     */
+    private static byte[] number(long value) {
+        if (value == Long.MIN_VALUE) {
+            return Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+        }
+        boolean negative = value < 0;
+        long remaining = negative ? -value : value;
+        int length = negative ? 1 : 0;
+        for (long v = remaining; ; v /= 10) {
+            length++;
+            if (v < 10) {
+                break;
+            }
+        }
+        byte[] bytes = new byte[length];
+        for (int i = length - 1; i >= (negative ? 1 : 0); i--) {
+            bytes[i] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        if (negative) {
+            bytes[0] = '-';
+        }
+        return bytes;
+    }
+}
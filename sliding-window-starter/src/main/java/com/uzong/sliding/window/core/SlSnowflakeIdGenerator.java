@@ -1,5 +1,12 @@
 package com.uzong.sliding.window.core;
 
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
 /**
  * 滑动窗口专用：雪花算法ID生成器。
  * @author sky
@@ -25,11 +32,28 @@ public class SlSnowflakeIdGenerator {
     private final static long MACHINE_LEFT = SEQUENCE_BIT;
     private final static long DATACENTER_LEFT = SEQUENCE_BIT + MACHINE_BIT;
     private final static long TIMESTAMP_LEFT = DATACENTER_LEFT + DATACENTER_BIT;
+
+    // 序列号用完时最多借用的未来毫秒数，超过后等待时钟追上，重启后不会与上一个进程借用的ID重复
+    private final static long MAX_BORROW_MILLIS = 1;
+
+    // 允许等待的时钟回退毫秒数，回退更多时直接失败，不占用CPU等待
+    private final static long MAX_BACKWARD_MILLIS = 5;
     
     private final long datacenterId;  // 数据中心ID
     private final long machineId;     // 机器ID
-    private long sequence = 0L;       // 序列号
-    private long lastTimestamp = -1L;  // 上一次时间戳
+    private final long workerBits;    // 数据中心与机器标识部分
+
+    /**
+     * 打包状态：高位为上一次ID的时间戳(相对起始时间)，低12位为序列号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * 只在需要等待时钟时记录等待时间
+     */
+    @Setter
+    @Autowired(required = false)
+    private SlMetricsRecorder slMetricsRecorder = SlMetricsRecorder.NOOP;
 
     /**
      * 构造函数
@@ -45,53 +69,60 @@ public class SlSnowflakeIdGenerator {
         }
         this.datacenterId = datacenterId;
         this.machineId = machineId;
+        this.workerBits = (datacenterId << DATACENTER_LEFT) | (machineId << MACHINE_LEFT);
     }
 
     /**
-     * 生成下一个ID
+     * 生成下一个ID，无锁实现：通过CAS更新打包状态。
+     * 时间戳前进时序列号归零；同一毫秒内序列号自增，用完后进位借用下一毫秒，
+     * 借用最多领先时钟MAX_BORROW_MILLIS，超过后挂起线程等待时钟追上；
+     * 时钟回退不超过MAX_BACKWARD_MILLIS时同样等待，超过时抛出异常
      * @return 唯一ID
      */
-    public synchronized long nextId() {
-        long currentTimestamp = getCurrentTimestamp();
-        
-        // 如果当前时间小于上一次ID生成的时间戳，说明系统时钟回退过，此时应当抛出异常
-        if (currentTimestamp < lastTimestamp) {
-            throw new RuntimeException("Clock moved backwards. Refusing to generate id for " + 
-                    (lastTimestamp - currentTimestamp) + " milliseconds");
-        }
-        
-        // 如果是同一时间生成的，则进行序列号自增
-        if (currentTimestamp == lastTimestamp) {
-            sequence = (sequence + 1) & MAX_SEQUENCE;
-            // 序列号已经达到最大值，需要等待下一毫秒
-            if (sequence == 0L) {
-                currentTimestamp = getNextTimestamp();
-            }
-        } else {
-            // 时间戳改变，序列号重置
-            sequence = 0L;
-        }
-        
-        // 上次生成ID的时间戳
-        lastTimestamp = currentTimestamp;
-        
-        // 移位并通过或运算拼到一起组成64位的ID
-        return ((currentTimestamp - START_TIMESTAMP) << TIMESTAMP_LEFT) // 时间戳部分
-                | (datacenterId << DATACENTER_LEFT)                   // 数据中心部分
-                | (machineId << MACHINE_LEFT)                         // 机器标识部分
-                | sequence;                                           // 序列号部分
+    public long nextId() {
+        return nextId(getCurrentTimestamp());
     }
 
     /**
-     * 获取下一毫秒
-     * @return 下一毫秒时间戳
+     * 使用调用方已经获取的当前时间生成ID，避免同一次调用重复读取时钟
+     * @param currentTimeMillis 当前时间戳(毫秒)
+     * @return 唯一ID
      */
-    private long getNextTimestamp() {
-        long timestamp = getCurrentTimestamp();
-        while (timestamp <= lastTimestamp) {
-            timestamp = getCurrentTimestamp();
+    public long nextId(long currentTimeMillis) {
+        long timestamp = currentTimeMillis - START_TIMESTAMP;
+        long waitStart = 0;
+        while (true) {
+            long prev = state.get();
+            long next = timestamp > (prev >>> SEQUENCE_BIT) ? timestamp << SEQUENCE_BIT : prev + 1;
+            long ahead = (next >>> SEQUENCE_BIT) - timestamp - MAX_BORROW_MILLIS;
+            if (ahead > 0) {
+                // 传入的时间可能已经过时，重新读取时钟
+                long now = getCurrentTimestamp() - START_TIMESTAMP;
+                if (now > timestamp) {
+                    timestamp = now;
+                    continue;
+                }
+                if (ahead > MAX_BACKWARD_MILLIS) {
+                    throw new IllegalStateException("Clock moved backwards. Refusing to generate id for "
+                            + ahead + " milliseconds");
+                }
+                // 仍然领先时挂起到时钟追上，最多MAX_BACKWARD_MILLIS
+                if (waitStart == 0) {
+                    waitStart = System.nanoTime();
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(ahead));
+                continue;
+            }
+            if (state.compareAndSet(prev, next)) {
+                if (waitStart != 0) {
+                    slMetricsRecorder.recordIdWait(System.nanoTime() - waitStart);
+                }
+                // 移位并通过或运算拼到一起组成64位的ID
+                return ((next >>> SEQUENCE_BIT) << TIMESTAMP_LEFT) // 时间戳部分
+                        | workerBits                                // 数据中心与机器标识部分
+                        | (next & MAX_SEQUENCE);                    // 序列号部分
+            }
         }
-        return timestamp;
     }
 
     /**
@@ -0,0 +1,61 @@
+package com.uzong.sliding.window.core;
+
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+
+/**
+ * 堆外地址上的原子读写，项目中只有这里引用sun.misc.Unsafe。
+ * JDK 8编译时会对这里输出一条"internal proprietary API"警告，该警告不能用@SuppressWarnings关闭，其余类不会产生
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+final class SlUnsafe {
+
+    private static final Unsafe UNSAFE;
+
+    private static final long ADDRESS_OFFSET;
+
+    static {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            UNSAFE = (Unsafe) field.get(null);
+            ADDRESS_OFFSET = UNSAFE.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private SlUnsafe() {
+    }
+
+    /**
+     * 直接缓冲区的起始地址
+     */
+    static long address(Buffer buffer) {
+        return UNSAFE.getLong(buffer, ADDRESS_OFFSET);
+    }
+
+    static long getLong(long address) {
+        return UNSAFE.getLong(address);
+    }
+
+    static long getLongVolatile(long address) {
+        return UNSAFE.getLongVolatile(null, address);
+    }
+
+    static void putLongVolatile(long address, long value) {
+        UNSAFE.putLongVolatile(null, address, value);
+    }
+
+    static void putOrderedLong(long address, long value) {
+        UNSAFE.putOrderedLong(null, address, value);
+    }
+
+    static boolean compareAndSwapLong(long address, long expected, long value) {
+        return UNSAFE.compareAndSwapLong(null, address, expected, value);
+    }
+}
@@ -0,0 +1,411 @@
+package com.uzong.sliding.window.core;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 写后聚合计数。
+ * 事件在本地按键、窗口长度与子窗口累加，刷新线程每隔flushIntervalInMs把增量通过一次pipeline INCRBY写入子窗口计数键
+ * ({键}:wb:窗口长度:子窗口长度:子窗口序号，哈希标签保证同一个键的子窗口落在同一个哈希槽，不同窗口互不影响)；
+ * 读取时MGET窗口内的子窗口，
+ * 结果缓存一个刷新间隔，再加上本节点尚未刷新的增量。
+ * 每个键每个刷新间隔最多一次写入与一次读取，其他节点的事件最多滞后一个刷新间隔
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+@Slf4j
+@Setter
+public class SlWriteBehindCounter implements DisposableBean {
+
+    @Autowired
+    private PlentifulRedisService plentifulRedisService;
+
+    /**
+     * 刷新间隔(ms)，也是读取结果的缓存时间
+     */
+    private long flushIntervalInMs = 1000;
+
+    /**
+     * 本地最多聚合的键数量，超过时新键的事件直接写入Redis
+     */
+    private int maxKeys = 100000;
+
+    private final ConcurrentHashMap<WindowKey, KeyCounter> counters = new ConcurrentHashMap<>();
+
+    private volatile ScheduledExecutorService flusher;
+
+    /**
+     * 记录一个事件并返回窗口内的事件数
+     */
+    public long addAndCount(String key, long currentTime, long windowLengthInMs, int bucketCount) {
+        WindowKey windowKey = new WindowKey(key, windowLengthInMs, bucketCount);
+        while (true) {
+            KeyCounter counter = counters.get(windowKey);
+            if (counter == null) {
+                if (counters.size() >= maxKeys) {
+                    return addAndCountDirectly(key, currentTime, windowLengthInMs, bucketCount);
+                }
+                startFlusher();
+                counter = counters.computeIfAbsent(windowKey, k -> new KeyCounter(key, windowLengthInMs, bucketCount));
+            }
+            if (counter.add(currentTime / counter.bucketLengthInMs)) {
+                return counter.count(currentTime);
+            }
+            // 刷新线程刚移除了空闲的键，重新创建
+        }
+    }
+
+    /**
+     * 把所有键尚未写入的增量写入Redis，由刷新线程定时调用
+     */
+    public synchronized void flush() {
+        long now = System.currentTimeMillis();
+        List<String> keys = new ArrayList<>();
+        List<Long> deltas = new ArrayList<>();
+        List<Long> expireAts = new ArrayList<>();
+        List<Bucket> buckets = new ArrayList<>();
+        List<KeyCounter> flushedCounters = new ArrayList<>();
+        Iterator<Map.Entry<WindowKey, KeyCounter>> iterator = counters.entrySet().iterator();
+        while (iterator.hasNext()) {
+            KeyCounter counter = iterator.next().getValue();
+            int before = keys.size();
+            counter.collect(now / counter.bucketLengthInMs, keys, deltas, expireAts, buckets);
+            if (keys.size() > before) {
+                flushedCounters.add(counter);
+            } else if (counter.tryRemove()) {
+                iterator.remove();
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<Boolean> applied;
+        try {
+            applied = plentifulRedisService.incrementBuckets(keys, deltas, expireAts);
+        } catch (RuntimeException e) {
+            applied = Collections.nCopies(keys.size(), Boolean.FALSE);
+            log.warn("===>>> sliding window write-behind flush failed, keys:{}, error:{}", keys.size(), e.getMessage());
+        }
+        for (int i = 0; i < applied.size(); i++) {
+            if (!applied.get(i)) {
+                // 下一次刷新时重试
+                buckets.get(i).flushed -= deltas.get(i);
+            }
+        }
+        for (KeyCounter counter : flushedCounters) {
+            counter.invalidate();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        flush();
+    }
+
+    private void startFlusher() {
+        if (flusher != null) {
+            return;
+        }
+        synchronized (this) {
+            if (flusher == null) {
+                ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "sliding-window-write-behind");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                executor.scheduleWithFixedDelay(() -> {
+                    try {
+                        flush();
+                    } catch (RuntimeException e) {
+                        log.warn("===>>> sliding window write-behind flush failed", e);
+                    }
+                }, flushIntervalInMs, flushIntervalInMs, TimeUnit.MILLISECONDS);
+                flusher = executor;
+            }
+        }
+    }
+
+    /**
+     * 本地聚合的键过多时同步写入并读取
+     */
+    private long addAndCountDirectly(String key, long currentTime, long windowLengthInMs, int bucketCount) {
+        KeyCounter counter = new KeyCounter(key, windowLengthInMs, bucketCount);
+        long index = currentTime / counter.bucketLengthInMs;
+        plentifulRedisService.incrementBuckets(Collections.singletonList(counter.bucketKey(index)),
+                Collections.singletonList(1L), Collections.singletonList(counter.expireAt(index)));
+        return counter.count(currentTime);
+    }
+
+    private final class KeyCounter {
+
+        private final String tag;
+
+        private final long windowLengthInMs;
+
+        private final long bucketLengthInMs;
+
+        private final int bucketCount;
+
+        /**
+         * 尚未写完或仍可能被写入的子窗口，按时间先后排列
+         */
+        private final ConcurrentLinkedQueue<Bucket> buckets = new ConcurrentLinkedQueue<>();
+
+        private volatile Bucket current;
+
+        private volatile Snapshot snapshot;
+
+        /**
+         * 每次写入后递增，写入前发出的读取结果不再缓存
+         */
+        private volatile long flushVersion;
+
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private volatile boolean removed;
+
+        private KeyCounter(String key, long windowLengthInMs, int bucketCount) {
+            this.windowLengthInMs = windowLengthInMs;
+            this.bucketLengthInMs = SlScriptArgs.bucketLength(windowLengthInMs, bucketCount);
+            this.tag = "{" + key + "}:wb:" + windowLengthInMs + ":" + bucketLengthInMs + ":";
+            this.bucketCount = bucketCount;
+        }
+
+        /**
+         * @return 已被刷新线程移除时返回false
+         */
+        private boolean add(long index) {
+            Bucket bucket = current;
+            if (bucket == null || bucket.index != index) {
+                bucket = rotate(index);
+                if (bucket == null) {
+                    return false;
+                }
+            }
+            bucket.count.increment();
+            return true;
+        }
+
+        private synchronized Bucket rotate(long index) {
+            if (removed) {
+                return null;
+            }
+            Bucket bucket = current;
+            // 取时间较早的线程晚于轮转到达时，事件记在当前子窗口
+            if (bucket != null && bucket.index >= index) {
+                return bucket;
+            }
+            Bucket created = new Bucket(index);
+            buckets.add(created);
+            current = created;
+            return created;
+        }
+
+        /**
+         * 与COUNTER存储相同，最旧的子窗口按未滑出的比例计入
+         */
+        private long count(long currentTime) {
+            long index = currentTime / bucketLengthInMs;
+            long oldest = index - bucketCount;
+            Snapshot remote = snapshot(currentTime);
+            double total = 0;
+            for (int i = 0; i < remote.counts.length; i++) {
+                total += weighted(remote.index - i, remote.counts[i], oldest, currentTime);
+            }
+            for (Bucket bucket : buckets) {
+                total += weighted(bucket.index, bucket.count.sum() - bucket.flushed, oldest, currentTime);
+            }
+            return (long) Math.floor(total + 0.5);
+        }
+
+        private double weighted(long index, long count, long oldest, long currentTime) {
+            if (index < oldest) {
+                return 0;
+            }
+            if (index == oldest) {
+                return (double) count * (bucketLengthInMs - currentTime % bucketLengthInMs) / bucketLengthInMs;
+            }
+            return count;
+        }
+
+        /**
+         * 缓存过期时只有一个线程读取Redis，其余线程继续使用过期的结果
+         */
+        private Snapshot snapshot(long currentTime) {
+            Snapshot cached = snapshot;
+            if (cached != null && currentTime - cached.readTime < flushIntervalInMs) {
+                return cached;
+            }
+            if (cached != null) {
+                if (!refreshing.compareAndSet(false, true)) {
+                    return cached;
+                }
+                try {
+                    return refresh(currentTime);
+                } finally {
+                    refreshing.set(false);
+                }
+            }
+            synchronized (refreshing) {
+                cached = snapshot;
+                return cached != null ? cached : refresh(currentTime);
+            }
+        }
+
+        private Snapshot refresh(long currentTime) {
+            long version = flushVersion;
+            long index = currentTime / bucketLengthInMs;
+            List<String> keys = new ArrayList<>(bucketCount + 1);
+            for (int i = 0; i <= bucketCount; i++) {
+                keys.add(bucketKey(index - i));
+            }
+            List<Long> values = plentifulRedisService.bucketCounts(keys);
+            long[] counts = new long[values.size()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = values.get(i);
+            }
+            // 读取期间发生过写入时结果可能不包含本次写入，下一次读取重新获取
+            Snapshot refreshed = new Snapshot(index, counts, version == flushVersion ? currentTime : 0);
+            snapshot = refreshed;
+            return refreshed;
+        }
+
+        private void invalidate() {
+            flushVersion++;
+            Snapshot cached = snapshot;
+            if (cached != null) {
+                snapshot = new Snapshot(cached.index, cached.counts, 0);
+            }
+        }
+
+        /**
+         * 收集尚未写入的增量。增量先从本地计数中扣除再写入，写入失败时加回；
+         * 已滑出窗口的增量直接丢弃，已写完且早于上一个子窗口的子窗口从本地移除，
+         * 留一个子窗口的余量给取时间较早的线程
+         */
+        private void collect(long index, List<String> keys, List<Long> deltas, List<Long> expireAts,
+                             List<Bucket> collected) {
+            Iterator<Bucket> iterator = buckets.iterator();
+            while (iterator.hasNext()) {
+                Bucket bucket = iterator.next();
+                long sum = bucket.count.sum();
+                long delta = sum - bucket.flushed;
+                if (delta > 0 && bucket.index >= index - bucketCount) {
+                    keys.add(bucketKey(bucket.index));
+                    deltas.add(delta);
+                    expireAts.add(expireAt(bucket.index));
+                    collected.add(bucket);
+                    bucket.flushed = sum;
+                } else if (bucket.index < index - 1) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        /**
+         * 一个子窗口以上没有新事件且增量都已写入时移除。与轮转互斥，移除后的写入会重新创建
+         */
+        private synchronized boolean tryRemove() {
+            if (buckets.isEmpty()) {
+                removed = true;
+            }
+            return removed;
+        }
+
+        private String bucketKey(long index) {
+            return tag + index;
+        }
+
+        /**
+         * 子窗口完全滑出窗口的时间
+         */
+        private long expireAt(long index) {
+            return (index + bucketCount + 1) * bucketLengthInMs;
+        }
+    }
+
+    private static final class WindowKey {
+
+        private final String key;
+
+        private final long windowLengthInMs;
+
+        private final int bucketCount;
+
+        private WindowKey(String key, long windowLengthInMs, int bucketCount) {
+            this.key = key;
+            this.windowLengthInMs = windowLengthInMs;
+            this.bucketCount = bucketCount;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof WindowKey)) {
+                return false;
+            }
+            WindowKey that = (WindowKey) o;
+            return windowLengthInMs == that.windowLengthInMs && bucketCount == that.bucketCount && key.equals(that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * key.hashCode() + Long.hashCode(windowLengthInMs)) * 31 + bucketCount;
+        }
+    }
+
+    private static final class Bucket {
+
+        private final long index;
+
+        private final LongAdder count = new LongAdder();
+
+        /**
+         * 已写入Redis的数量，只由刷新线程修改
+         */
+        private volatile long flushed;
+
+        private Bucket(long index) {
+            this.index = index;
+        }
+    }
+
+    private static final class Snapshot {
+
+        /**
+         * counts[i]为子窗口index - i的计数
+         */
+        private final long index;
+
+        private final long[] counts;
+
+        private final long readTime;
+
+        private Snapshot(long index, long[] counts, long readTime) {
+            this.index = index;
+            this.counts = counts;
+            this.readTime = readTime;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.uzong.sliding.window.dto;
+
+/**
+ * 热点键分片后的阈值判断方式
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+public enum ShardThresholdMode {
+
+    /**
+     * 汇总判断：事件写入一个分片，同时读取所有分片的事件数求和后与阈值比较，精确，一次pipeline完成
+     */
+    AGGREGATE,
+
+    /**
+     * 拆分判断：阈值按分片数向上取整拆分，只访问写入的分片，一次脚本调用完成；
+     * 分片间流量不均时整体放行数会偏离阈值，分片越多偏差越大
+     */
+    SPLIT
+}
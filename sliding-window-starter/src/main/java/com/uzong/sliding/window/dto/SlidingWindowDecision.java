@@ -0,0 +1,39 @@
+package com.uzong.sliding.window.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 一次判断的结果，超过阈值时附带需要等待的时间
+ * @author sky
+ * @since 2026/10/18
+ */
+@Getter
+@ToString
+public final class SlidingWindowDecision {
+
+    public static final SlidingWindowDecision ALLOWED = new SlidingWindowDecision(false, 0);
+
+    /**
+     * 是否超过阈值
+     */
+    private final boolean overLimit;
+
+    /**
+     * 超过阈值时，下一次请求最早可能放行前需要等待的时间(ms)，存储模式无法给出时为0
+     */
+    private final long retryAfterInMs;
+
+    private SlidingWindowDecision(boolean overLimit, long retryAfterInMs) {
+        this.overLimit = overLimit;
+        this.retryAfterInMs = retryAfterInMs;
+    }
+
+    public static SlidingWindowDecision denied(long retryAfterInMs) {
+        return new SlidingWindowDecision(true, Math.max(0, retryAfterInMs));
+    }
+
+    public static SlidingWindowDecision of(boolean overLimit) {
+        return overLimit ? denied(0) : ALLOWED;
+    }
+}
@@ -0,0 +1,25 @@
+package com.uzong.sliding.window.dto;
+
+/**
+ * Redis熔断或调用失败时的降级策略
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+public enum SlidingWindowFallback {
+
+    /**
+     * 放行所有请求
+     */
+    FAIL_OPEN,
+
+    /**
+     * 拒绝所有请求
+     */
+    FAIL_CLOSED,
+
+    /**
+     * 使用进程内的近似滑动窗口判断，阈值按本节点计算
+     */
+    LOCAL
+}
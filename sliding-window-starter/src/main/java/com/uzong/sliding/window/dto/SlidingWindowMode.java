@@ -0,0 +1,63 @@
+package com.uzong.sliding.window.dto;
+
+/**
+ * 滑动窗口在Redis中的存储模式
+ * @author sky
+ * @since 2026/10/18
+ */
+public enum SlidingWindowMode {
+
+    /**
+     * 滑动日志：每个事件一个ZSET成员，计数精确，内存与窗口内事件数成正比
+     */
+    LOG,
+
+    /**
+     * 有界滑动日志：与LOG共用ZSET结构，先清理再判断，只记录放行的事件，ZSET大小不超过阈值；
+     * 过期时间精确到毫秒，且只在新建键或最新事件时间后移时设置
+     */
+    BOUNDED_LOG,
+
+    /**
+     * 滑动窗口计数器：HASH中保存固定数量的子窗口计数，按时间加权估算窗口内事件数，内存与子窗口数成正比
+     */
+    COUNTER,
+
+    /**
+     * 客户端配额租约：基于COUNTER存储，节点一次从Redis预留一批许可在本地消费，用完或到期后再访问Redis。
+     * 只影响slidingWindowCalculate，其余操作按COUNTER处理
+     */
+    LEASE,
+
+    /**
+     * GCRA(通用信元速率算法)：每个键只保存一个理论到达时间，内存与流量无关。
+     * 按阈值/窗口长度的速率放行，允许突发容量(默认等于阈值)内的请求同时到达，超过时可以给出需要等待的时间。
+     * 不记录事件，不支持计数与分片
+     */
+    GCRA,
+
+    /**
+     * 写后聚合计数：事件先在本地按键与子窗口聚合，定时通过pipeline INCRBY写入每个子窗口一个的计数键，
+     * 读取时合计窗口内的子窗口。结果最多滞后一个刷新间隔，适合统计与软阈值，不适合严格限流。
+     * 只支持slidingWindowCalculate与slidingWindowCalculateCount，不支持清理、按数量获取与分片
+     */
+    AGGREGATED;
+
+    /**
+     * 是否使用HASH子窗口计数存储
+     */
+    public boolean isCounterStorage() {
+        return this == COUNTER || this == LEASE;
+    }
+
+    /**
+     * 键名中区分存储结构的段，拼接在键前缀之后。同一个键切换存储模式时各自使用不同的Redis键，
+     * 不会因数据结构不同而报WRONGTYPE；滑动日志保持原有键名，写后聚合计数使用独立的子窗口计数键
+     */
+    public String keyNamespace() {
+        if (isCounterStorage()) {
+            return "c:";
+        }
+        return this == GCRA ? "g:" : "";
+    }
+}
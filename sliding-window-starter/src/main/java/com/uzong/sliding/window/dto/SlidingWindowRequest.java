@@ -0,0 +1,40 @@
+package com.uzong.sliding.window.dto;
+
+import lombok.Data;
+
+/**
+ * 批量计算时的单个请求
+ * @author sky
+ * @since 2026/10/18
+ */
+@Data
+public class SlidingWindowRequest {
+
+    /**
+     * 事件的唯一标识符
+     */
+    private String key;
+
+    /**
+     * 窗口大小
+     */
+    private long windowLenInSeconds;
+
+    /**
+     * 阈值
+     */
+    private long threshold;
+
+    /**
+     * 存储模式，为空时使用全局配置
+     */
+    private SlidingWindowMode mode;
+
+    public static SlidingWindowRequest of(String key, long windowLenInSeconds, long threshold) {
+        SlidingWindowRequest request = new SlidingWindowRequest();
+        request.setKey(key);
+        request.setWindowLenInSeconds(windowLenInSeconds);
+        request.setThreshold(threshold);
+        return request;
+    }
+}
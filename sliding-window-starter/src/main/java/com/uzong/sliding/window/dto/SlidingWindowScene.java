@@ -0,0 +1,57 @@
+package com.uzong.sliding.window.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 场景配置快照，创建时复制窗口配置，之后修改原配置对象不影响快照；
+ * 通过getPair、getPairs取得的对象不应修改
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+@Getter
+@ToString
+public class SlidingWindowScene {
+
+    /**
+     * 场景名
+     */
+    private final String name;
+
+    /**
+     * 场景下键的前缀，不同场景的同名键互不影响
+     */
+    private final String keyPrefix;
+
+    /**
+     * 主窗口
+     */
+    private final WindowLinThresholdPair pair;
+
+    /**
+     * 所有窗口，第一个为主窗口
+     */
+    private final List<WindowLinThresholdPair> pairs;
+
+    public SlidingWindowScene(String name, String keyPrefix, List<WindowLinThresholdPair> pairs) {
+        if (pairs == null || pairs.isEmpty()) {
+            throw new IllegalArgumentException("scene must have at least one window,scene:" + name);
+        }
+        this.name = name;
+        this.keyPrefix = keyPrefix;
+        List<WindowLinThresholdPair> copied = new ArrayList<>(pairs.size());
+        for (WindowLinThresholdPair source : pairs) {
+            if (source == null) {
+                throw new IllegalArgumentException("scene window must not be null,scene:" + name);
+            }
+            copied.add(source.copy());
+        }
+        this.pairs = Collections.unmodifiableList(copied);
+        this.pair = copied.get(0);
+    }
+}
@@ -18,4 +18,49 @@ public class WindowLinThresholdPair {
      * 阈值
      */
     private long threshold;
+
+    /**
+     * 存储模式，为空时使用全局配置
+     */
+    private SlidingWindowMode mode;
+
+    /**
+     * 热点键分片数，大于1时一个逻辑键拆分为多个物理键，为空时使用全局配置
+     */
+    private Integer shards;
+
+    /**
+     * 分片后的阈值判断方式，为空时使用全局配置
+     */
+    private ShardThresholdMode shardThresholdMode;
+
+    /**
+     * Redis熔断或调用失败时的降级策略，为空时使用全局配置
+     */
+    private SlidingWindowFallback fallback;
+
+    /**
+     * GCRA模式的突发容量，即空闲后可以同时放行的请求数，为空时等于阈值
+     */
+    private Long burst;
+
+    public static WindowLinThresholdPair of(long windowLenInSeconds, long threshold) {
+        WindowLinThresholdPair pair = new WindowLinThresholdPair();
+        pair.setWindowLenInSeconds(windowLenInSeconds);
+        pair.setThreshold(threshold);
+        return pair;
+    }
+
+    /**
+     * 复制所有字段
+     */
+    public WindowLinThresholdPair copy() {
+        WindowLinThresholdPair copied = of(windowLenInSeconds, threshold);
+        copied.setMode(mode);
+        copied.setShards(shards);
+        copied.setShardThresholdMode(shardThresholdMode);
+        copied.setFallback(fallback);
+        copied.setBurst(burst);
+        return copied;
+    }
 }
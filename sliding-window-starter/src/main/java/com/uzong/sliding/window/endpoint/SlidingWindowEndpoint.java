@@ -0,0 +1,45 @@
+package com.uzong.sliding.window.endpoint;
+
+import com.uzong.sliding.window.core.SlHotKeyTracker;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 滑动窗口actuator端点，GET /actuator/slidingwindow?limit=20 返回当前周期与上一个完整周期的热点键，
+ * DELETE 清空热点键统计
+ *
+ * @author sky
+ * @since 2026/10/18
+ */
+@Endpoint(id = "slidingwindow")
+public class SlidingWindowEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final SlHotKeyTracker hotKeyTracker;
+
+    public SlidingWindowEndpoint(SlHotKeyTracker hotKeyTracker) {
+        this.hotKeyTracker = hotKeyTracker;
+    }
+
+    @ReadOperation
+    public Map<String, Object> hotKeys(@Nullable Integer limit) {
+        int size = limit == null || limit <= 0 ? DEFAULT_LIMIT : limit;
+        long now = System.currentTimeMillis();
+        Map<String, Object> hotKeys = new LinkedHashMap<>();
+        hotKeys.put("periodInMs", hotKeyTracker.getPeriodInMs());
+        hotKeys.put("current", hotKeyTracker.current(size, now));
+        hotKeys.put("previous", hotKeyTracker.previous(size, now));
+        return hotKeys;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        hotKeyTracker.reset();
+    }
+}
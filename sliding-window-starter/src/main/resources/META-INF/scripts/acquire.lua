@@ -0,0 +1,28 @@
+-- ARGV: 1 当前时间, 2 窗口起始时间, 3 窗口长度(ms), 4 阈值, 5 事件ID, 6 许可数
+-- 带权重的事件使用独立的键，每次获取记录一个成员"事件ID:许可数"，只记录获取成功的许可。
+-- 窗口内的许可总数保存在成员"#total"的分数中(取负数，不会被按时间清理)，每次只读取滑出窗口的成员扣减，
+-- 每个成员只被扣减一次，开销与窗口内的事件数无关
+-- 获取成功返回1，记录后窗口内许可数会达到阈值时返回0
+local total = -tonumber(redis.call('zscore', KEYS[1], '#total') or 0);
+local expired = redis.call('zrangebyscore', KEYS[1], '(0', ARGV[2]);
+for i = 1, #expired do
+    local sep = string.find(expired[i], ':', 1, true);
+    total = total - tonumber(string.sub(expired[i], sep + 1));
+end
+if #expired > 0 then
+    redis.call('zremrangebyscore', KEYS[1], '(0', ARGV[2]);
+end;
+if total < 0 then
+    total = 0;
+end;
+local permits = tonumber(ARGV[6]);
+if total + permits >= tonumber(ARGV[4]) then
+    if #expired > 0 then
+        redis.call('zadd', KEYS[1], -total, '#total');
+    end;
+    return 0;
+end;
+redis.call('zadd', KEYS[1], ARGV[1], ARGV[5] .. ':' .. ARGV[6]);
+redis.call('zadd', KEYS[1], -(total + permits), '#total');
+redis.call('pexpire', KEYS[1], ARGV[3]);
+return 1;
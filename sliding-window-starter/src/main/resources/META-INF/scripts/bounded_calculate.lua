@@ -0,0 +1,20 @@
+-- ARGV: 1 当前时间, 2 窗口起始时间, 3 窗口长度(ms), 4 阈值, 5 事件ID
+-- 先清理再判断，只记录放行的事件；未达到阈值返回0，达到阈值返回下一次请求最早可能放行的时间(ms)
+redis.call('zremrangebyscore', KEYS[1], 0, ARGV[2]);
+local count = redis.call('zcard', KEYS[1]);
+local threshold = tonumber(ARGV[4]);
+if count + 1 >= threshold then
+    local index = count - threshold + 1;
+    if index >= count then
+        return tonumber(ARGV[1]) + tonumber(ARGV[3])
+    end;
+    local event = redis.call('zrange', KEYS[1], index, index, 'WITHSCORES');
+    return tonumber(event[2]) + tonumber(ARGV[3]);
+end;
+redis.call('zadd', KEYS[1], ARGV[1], ARGV[5]);
+-- 过期时间多留十分之一个窗口，剩余时间不足一个窗口时才延长，每个键每十分之一个窗口最多一次PEXPIRE
+local windowLen = tonumber(ARGV[3]);
+if redis.call('pttl', KEYS[1]) < windowLen then
+    redis.call('pexpire', KEYS[1], windowLen + math.floor(windowLen / 10));
+end;
+return 0;
@@ -0,0 +1,9 @@
+-- ARGV: 1 当前时间, 2 窗口起始时间, 3 窗口长度(ms), 4 未使用, 5 事件ID
+redis.call('zremrangebyscore', KEYS[1], 0, ARGV[2]);
+redis.call('zadd', KEYS[1], ARGV[1], ARGV[5]);
+-- 过期时间多留十分之一个窗口，剩余时间不足一个窗口时才延长，每个键每十分之一个窗口最多一次PEXPIRE
+local windowLen = tonumber(ARGV[3]);
+if redis.call('pttl', KEYS[1]) < windowLen then
+    redis.call('pexpire', KEYS[1], windowLen + math.floor(windowLen / 10));
+end;
+return redis.call('zcard', KEYS[1]);
@@ -0,0 +1,8 @@
+-- ARGV: 1 当前时间, 2 窗口起始时间, 3 过期时间(秒), 4 阈值(未使用), 5 事件ID, 6 合并的调用次数
+-- 同一个键的多次调用合并为一次执行：记录调用次数个成员"事件ID-序号"，返回记录后窗口内的事件数
+for i = 1, tonumber(ARGV[6]) do
+    redis.pcall('zadd', KEYS[1], ARGV[1], ARGV[5] .. '-' .. i);
+end
+redis.pcall('zremrangebyscore', KEYS[1], 0, ARGV[2]);
+redis.pcall("expire", KEYS[1], ARGV[3]);
+return redis.pcall("zcard", KEYS[1]);
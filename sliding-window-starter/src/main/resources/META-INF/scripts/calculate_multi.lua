@@ -0,0 +1,11 @@
+-- ARGV: 1 当前时间, 2 事件ID, 3 最大窗口的起始时间, 4 过期时间(ms), 之后每两个参数为一组(窗口起始时间, 阈值)
+-- 返回第一个达到阈值的窗口序号(从1开始)，都未达到时返回0
+redis.pcall('zadd', KEYS[1], ARGV[1], ARGV[2]);
+redis.pcall('zremrangebyscore', KEYS[1], 0, ARGV[3]);
+redis.pcall('pexpire', KEYS[1], ARGV[4]);
+for i = 5, #ARGV, 2 do
+    if tonumber(redis.pcall('zcount', KEYS[1], '(' .. ARGV[i], '+inf')) >= tonumber(ARGV[i + 1]) then
+        return (i - 3) / 2;
+    end
+end
+return 0;
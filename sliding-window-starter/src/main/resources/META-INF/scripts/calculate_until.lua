@@ -0,0 +1,17 @@
+-- 参数同calculate.lua，未达到阈值返回0，达到阈值返回下一次请求最早可能放行的时间(ms)
+redis.pcall('zadd', KEYS[1], ARGV[1], ARGV[5]);
+redis.pcall('zremrangebyscore', KEYS[1], 0, ARGV[2]);
+redis.pcall("expire", KEYS[1], ARGV[3]);
+local count = tonumber(redis.pcall('zcard', KEYS[1]));
+local threshold = tonumber(ARGV[4]);
+if count < threshold then
+    return 0
+end;
+local windowLen = tonumber(ARGV[1]) - tonumber(ARGV[2]);
+-- 下一次请求放行时窗口内最多剩threshold-2个事件，即第count-threshold+2早的事件滑出窗口
+local index = count - threshold + 1;
+if index >= count then
+    return tonumber(ARGV[1]) + windowLen
+end;
+local event = redis.pcall('zrange', KEYS[1], index, index, 'WITHSCORES');
+return tonumber(event[2]) + windowLen;
@@ -0,0 +1,25 @@
+-- ARGV: 1 当前子窗口序号, 2 子窗口长度(ms), 3 当前时间在子窗口内的偏移(ms), 4 子窗口数量, 5 阈值, 6 许可数
+-- 先按时间加权估算窗口内许可数，获取成功时当前子窗口增加许可数，否则不记录
+-- 获取成功返回1，记录后窗口内许可数会达到阈值时返回0
+local current = tonumber(ARGV[1]);
+local bucketLen = tonumber(ARGV[2]);
+local oldest = current - tonumber(ARGV[4]);
+local fields = redis.call('hgetall', KEYS[1]);
+local total = 0;
+for i = 1, #fields, 2 do
+    local bucket = tonumber(fields[i]);
+    if bucket < oldest then
+        redis.call('hdel', KEYS[1], fields[i]);
+    elseif bucket == oldest then
+        total = total + tonumber(fields[i + 1]) * (bucketLen - tonumber(ARGV[3])) / bucketLen;
+    else
+        total = total + tonumber(fields[i + 1]);
+    end
+end
+local permits = tonumber(ARGV[6]);
+if total + permits >= tonumber(ARGV[5]) then
+    return 0;
+end;
+redis.call('hincrby', KEYS[1], ARGV[1], permits);
+redis.call('pexpire', KEYS[1], bucketLen * (tonumber(ARGV[4]) + 1));
+return 1;
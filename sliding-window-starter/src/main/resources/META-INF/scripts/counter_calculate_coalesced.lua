@@ -0,0 +1,20 @@
+-- ARGV: 1 当前子窗口序号, 2 子窗口长度(ms), 3 当前时间在子窗口内的偏移(ms), 4 子窗口数量, 5 阈值(未使用), 6 合并的调用次数
+-- 同一个键的多次调用合并为一次执行：当前子窗口增加调用次数，返回记录后按时间加权的窗口内事件数(字符串，保留小数)
+local current = tonumber(ARGV[1]);
+local bucketLen = tonumber(ARGV[2]);
+local oldest = current - tonumber(ARGV[4]);
+redis.call('hincrby', KEYS[1], ARGV[1], ARGV[6]);
+local fields = redis.call('hgetall', KEYS[1]);
+local total = 0;
+for i = 1, #fields, 2 do
+    local bucket = tonumber(fields[i]);
+    if bucket < oldest then
+        redis.call('hdel', KEYS[1], fields[i]);
+    elseif bucket == oldest then
+        total = total + tonumber(fields[i + 1]) * (bucketLen - tonumber(ARGV[3])) / bucketLen;
+    else
+        total = total + tonumber(fields[i + 1]);
+    end
+end
+redis.call('pexpire', KEYS[1], bucketLen * (tonumber(ARGV[4]) + 1));
+return tostring(total);
@@ -0,0 +1,6 @@
+-- KEYS: 1 当前子窗口的HyperLogLog, 2..n 窗口内其余子窗口的HyperLogLog(同一个哈希槽)
+-- ARGV: 1 成员, 2 当前子窗口的过期时间(ms)
+-- 记录成员后合并窗口内所有子窗口，返回近似去重数
+redis.call('pfadd', KEYS[1], ARGV[1]);
+redis.call('pexpire', KEYS[1], ARGV[2]);
+return redis.call('pfcount', unpack(KEYS));
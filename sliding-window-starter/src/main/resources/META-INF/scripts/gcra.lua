@@ -0,0 +1,18 @@
+-- ARGV: 1 当前时间(ms), 2 窗口长度(ms), 3 阈值, 4 突发容量, 5 超过阈值时是否清除(1/0), 6 许可数(可选，默认1)
+-- GCRA：每个键只保存理论到达时间(TAT)，放行返回0，否则返回还需等待的时间(ms)
+local now = tonumber(ARGV[1]);
+local interval = tonumber(ARGV[2]) / tonumber(ARGV[3]);
+local tat = tonumber(redis.call('get', KEYS[1]));
+if tat == nil or tat < now then
+    tat = now;
+end;
+local newTat = tat + interval * tonumber(ARGV[6] or '1');
+local retryAfter = newTat - now - interval * tonumber(ARGV[4]);
+if retryAfter > 0 then
+    if ARGV[5] == '1' then
+        redis.call('del', KEYS[1]);
+    end;
+    return math.ceil(retryAfter);
+end;
+redis.call('set', KEYS[1], string.format('%.3f', newTat), 'PX', math.ceil(newTat - now));
+return 0;
@@ -0,0 +1,30 @@
+-- ARGV: 1 当前子窗口序号, 2 子窗口长度(ms), 3 子窗口内偏移(ms), 4 子窗口数量, 5 阈值, 6 申请的许可数, 7 归还的子窗口序号, 8 归还的许可数
+-- 返回实际预留的许可数
+local current = tonumber(ARGV[1]);
+local bucketLen = tonumber(ARGV[2]);
+local oldest = current - tonumber(ARGV[4]);
+local returned = tonumber(ARGV[8]);
+if returned > 0 and tonumber(ARGV[7]) >= oldest then
+    if redis.call('hincrby', KEYS[1], ARGV[7], -returned) <= 0 then
+        redis.call('hdel', KEYS[1], ARGV[7]);
+    end
+end
+local fields = redis.call('hgetall', KEYS[1]);
+local total = 0;
+for i = 1, #fields, 2 do
+    local bucket = tonumber(fields[i]);
+    if bucket < oldest then
+        redis.call('hdel', KEYS[1], fields[i]);
+    elseif bucket == oldest then
+        total = total + tonumber(fields[i + 1]) * (bucketLen - tonumber(ARGV[3])) / bucketLen;
+    else
+        total = total + tonumber(fields[i + 1]);
+    end
+end
+local granted = math.min(tonumber(ARGV[6]), math.floor(tonumber(ARGV[5]) - 1 - total));
+if granted <= 0 then
+    return 0
+end;
+redis.call('hincrby', KEYS[1], ARGV[1], granted);
+redis.call('pexpire', KEYS[1], bucketLen * (tonumber(ARGV[4]) + 1));
+return granted;
@@ -0,0 +1,7 @@
+-- ARGV: 1 归还的子窗口序号, 2 归还的许可数
+if redis.call('hexists', KEYS[1], ARGV[1]) == 1 then
+    if redis.call('hincrby', KEYS[1], ARGV[1], -tonumber(ARGV[2])) <= 0 then
+        redis.call('hdel', KEYS[1], ARGV[1]);
+    end
+end
+return 0;
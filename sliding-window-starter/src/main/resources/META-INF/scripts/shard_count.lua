@@ -0,0 +1,3 @@
+-- ARGV: 1 窗口起始时间
+-- 只读取分片在窗口内的事件数，不记录事件
+return redis.call('zcount', KEYS[1], '(' .. ARGV[1], '+inf');
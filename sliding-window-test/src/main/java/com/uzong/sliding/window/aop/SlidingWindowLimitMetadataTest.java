@@ -0,0 +1,61 @@
+package com.uzong.sliding.window.aop;
+
+import com.uzong.sliding.window.annotation.SlidingWindowLimit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.lang.reflect.Method;
+
+
+/**
+ * SlidingWindowLimitMetadata测试类
+ * 元数据为包内可见，测试与其同包；不依赖Redis
+ */
+public class SlidingWindowLimitMetadataTest {
+
+    /**
+     * 测试按参数下标与表达式内赋值的变量求值
+     */
+    @Test
+    public void testKnownVariables() throws NoSuchMethodException {
+        StandardEvaluationContext context = new StandardEvaluationContext();
+        Assertions.assertEquals("user:1:2", metadataOf("byIndex").key(new Object[]{"1", "2"}, context));
+        Assertions.assertEquals("user:1", metadataOf("byAssign").key(new Object[]{"1"}, context));
+    }
+
+    /**
+     * 测试引用不存在的变量时启动失败，而不是求值为null让所有请求共用一个键
+     */
+    @Test
+    public void testUnknownVariable() {
+        IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class, () -> metadataOf("byUnknown"));
+        Assertions.assertTrue(e.getMessage().contains("#userld"), "异常信息应该包含不存在的变量名");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> metadataOf("byOutOfRange"), "参数下标超出范围时启动失败");
+    }
+
+    @SlidingWindowLimit(key = "'user:' + #p0 + ':' + #a1", window = 10, threshold = 5)
+    public void byIndex(String userId, String orderId) {
+    }
+
+    @SlidingWindowLimit(key = "(#id = #p0) == null ? '' : 'user:' + #id", window = 10, threshold = 5)
+    public void byAssign(String userId) {
+    }
+
+    @SlidingWindowLimit(key = "'user:' + #userld", window = 10, threshold = 5)
+    public void byUnknown(String userId) {
+    }
+
+    @SlidingWindowLimit(key = "'user:' + #p1", window = 10, threshold = 5)
+    public void byOutOfRange(String userId) {
+    }
+
+    private SlidingWindowLimitMetadata metadataOf(String methodName) throws NoSuchMethodException {
+        for (Method method : getClass().getMethods()) {
+            if (method.getName().equals(methodName)) {
+                return new SlidingWindowLimitMetadata(method.getAnnotation(SlidingWindowLimit.class), method, getClass());
+            }
+        }
+        throw new NoSuchMethodException(methodName);
+    }
+}
@@ -0,0 +1,94 @@
+package com.uzong.sliding.window.core;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * SlScriptArgsEncoder测试类
+ * 编码器为包内可见，测试与其同包；不依赖Redis
+ */
+public class SlScriptArgsEncoderTest {
+
+    private final StringRedisSerializer serializer = new StringRedisSerializer();
+
+    private static final List<String> KEYS = Arrays.asList("", "user:10086", "用户:10086", "emoji:😀", repeat('k', 1000));
+
+    private static final long[] NUMBERS = {0, 1, -1, 9, 10, -10, 99, 100, 1577836800000L, Integer.MAX_VALUE,
+            Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1};
+
+    /**
+     * 测试编码结果与StringRedisSerializer序列化字符串参数逐字节相同
+     */
+    @Test
+    public void testSameBytesAsStringSerializer() {
+        byte[] prefix = "sl_:c:".getBytes(StandardCharsets.UTF_8);
+        for (String key : KEYS) {
+            for (long value : NUMBERS) {
+                assertSameBytes(serialize("sl_:c:" + key, SlScriptArgs.logArgs(value, 60000, value, value, value)),
+                        SlScriptArgsEncoder.logArgs(prefix, key, value, 60000, value, value, value));
+                assertSameBytes(serialize("sl_:c:" + key, SlScriptArgs.gcraArgs(value, value, value, value, true)),
+                        SlScriptArgsEncoder.gcraArgs(prefix, key, value, value, value, value, true));
+            }
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 10000; i++) {
+            long currentTime = random.nextLong(0, Long.MAX_VALUE / 2);
+            long windowLengthInMs = random.nextLong(1, 86400000L);
+            int bucketCount = random.nextInt(1, 100);
+            long threshold = random.nextLong();
+            assertSameBytes(serialize("sl_:c:user", SlScriptArgs.counterArgs(currentTime, windowLengthInMs, threshold, bucketCount)),
+                    SlScriptArgsEncoder.counterArgs(prefix, "user", currentTime, windowLengthInMs, threshold, bucketCount));
+            long expireSeconds = random.nextLong(1, 86400);
+            assertSameBytes(serialize("user", SlScriptArgs.logArgs(currentTime, windowLengthInMs, threshold, expireSeconds, i)),
+                    SlScriptArgsEncoder.logArgs(SlScriptArgsEncoder.EMPTY_PREFIX, "user", currentTime, windowLengthInMs,
+                            threshold, expireSeconds, i));
+        }
+    }
+
+    /**
+     * 测试每次编码都返回新的数组，驱动持有的参数不会被下一次编码改写
+     */
+    @Test
+    public void testFreshArrays() {
+        byte[][] first = SlScriptArgsEncoder.logArgs(SlScriptArgsEncoder.EMPTY_PREFIX, "user", 1000, 100, 5, 1, 1);
+        byte[][] copy = new byte[first.length][];
+        for (int i = 0; i < first.length; i++) {
+            copy[i] = first[i].clone();
+        }
+        byte[][] second = SlScriptArgsEncoder.logArgs(SlScriptArgsEncoder.EMPTY_PREFIX, "abcd", 2000, 100, 6, 2, 2);
+        Assertions.assertNotSame(first, second);
+        for (int i = 0; i < first.length; i++) {
+            Assertions.assertNotSame(first[i], second[i], "第" + i + "个参数不应该复用数组");
+            Assertions.assertArrayEquals(copy[i], first[i], "第" + i + "个参数不应该被下一次编码改写");
+        }
+    }
+
+    private byte[][] serialize(String key, String[] args) {
+        byte[][] keysAndArgs = new byte[args.length + 1][];
+        keysAndArgs[0] = serializer.serialize(key);
+        for (int i = 0; i < args.length; i++) {
+            keysAndArgs[i + 1] = serializer.serialize(args[i]);
+        }
+        return keysAndArgs;
+    }
+
+    private void assertSameBytes(byte[][] expected, byte[][] actual) {
+        Assertions.assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            Assertions.assertArrayEquals(expected[i], actual[i], "第" + i + "个参数与StringRedisSerializer不一致");
+        }
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
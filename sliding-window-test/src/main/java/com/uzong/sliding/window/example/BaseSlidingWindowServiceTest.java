@@ -1,15 +1,32 @@
 package com.uzong.sliding.window.example;
 
+import com.uzong.sliding.window.annotation.SlidingWindowLimitException;
 import com.uzong.sliding.window.base.BaseSlidingWindowService;
+import com.uzong.sliding.window.core.PlentifulRedisService;
+import com.uzong.sliding.window.core.SlCommandCoalescer;
+import com.uzong.sliding.window.core.SlDenyCache;
+import com.uzong.sliding.window.core.SlQuotaLeaseManager;
+import com.uzong.sliding.window.core.SlWriteBehindCounter;
+import com.uzong.sliding.window.dto.SlidingWindowDecision;
+import com.uzong.sliding.window.dto.SlidingWindowMode;
+import com.uzong.sliding.window.dto.SlidingWindowRequest;
+import com.uzong.sliding.window.dto.WindowLinThresholdPair;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.DataType;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -26,6 +43,12 @@ public class BaseSlidingWindowServiceTest {
     @Autowired
     private RedisTemplate redisTemplate;
 
+    @Autowired
+    private SlWriteBehindCounter slWriteBehindCounter;
+
+    @Autowired
+    private SlidingWindowExampleController exampleController;
+
     private static final String TEST_KEY_PREFIX = "sl_:";
 
     @BeforeEach
@@ -182,4 +205,455 @@ public class BaseSlidingWindowServiceTest {
         boolean result = baseSlidingWindowService.slidingWindowCalculate(key, windowLenInSeconds, threshold);
         Assertions.assertFalse(result, "30+1=31次请求，未达到50的阈值，应该返回false");
     }
-}
\ No newline at end of file
+
+    /**
+     * 测试滑动窗口计数器模式
+     * 验证子窗口计数不随事件数增长，且阈值判断正确
+     */
+    @Test
+    public void testCounterMode() {
+        String key = "base_counter_test";
+        WindowLinThresholdPair pair = WindowLinThresholdPair.of(10, 50);
+        pair.setMode(SlidingWindowMode.COUNTER);
+
+        for (int i = 0; i < 49; i++) {
+            Assertions.assertFalse(baseSlidingWindowService.slidingWindowCalculate(key, pair), "前49次请求应该未达到阈值");
+        }
+        Assertions.assertTrue(baseSlidingWindowService.slidingWindowCalculate(key, pair), "第50次请求应该达到阈值");
+
+        // 子窗口数量有上限，与事件数无关
+        Long fields = redisTemplate.opsForHash().size(TEST_KEY_PREFIX + "c:" + key);
+        Assertions.assertTrue(fields <= 11, "HASH中的子窗口数量不应超过配置的数量");
+        Assertions.assertEquals(51, baseSlidingWindowService.slidingWindowCalculateCount(key, pair), "窗口内应该有51次请求");
+    }
+
+    /**
+     * 测试有界写入模式
+     * 验证超过阈值的请求不写入ZSET
+     */
+    @Test
+    public void testBoundedLogMode() {
+        String key = "base_bounded_test";
+        WindowLinThresholdPair pair = WindowLinThresholdPair.of(10, 5);
+        pair.setMode(SlidingWindowMode.BOUNDED_LOG);
+
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertFalse(baseSlidingWindowService.slidingWindowCalculate(key, pair), "前4次请求应该未达到阈值");
+        }
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertTrue(baseSlidingWindowService.slidingWindowCalculate(key, pair), "之后的请求应该达到阈值");
+        }
+
+        Long count = redisTemplate.opsForZSet().zCard(TEST_KEY_PREFIX + key);
+        Assertions.assertEquals(4, count, "被拒绝的请求不应写入ZSET");
+        Long ttl = redisTemplate.getExpire(TEST_KEY_PREFIX + key, TimeUnit.MILLISECONDS);
+        Assertions.assertTrue(ttl > 0 && ttl <= 11000, "过期时间应该不超过窗口长度加十分之一个窗口");
+
+        // 剩余时间不少于一个窗口时不延长过期时间
+        redisTemplate.expire(TEST_KEY_PREFIX + key, 10500, TimeUnit.MILLISECONDS);
+        baseSlidingWindowService.slidingWindowCalculateCount(key, pair);
+        ttl = redisTemplate.getExpire(TEST_KEY_PREFIX + key, TimeUnit.MILLISECONDS);
+        Assertions.assertTrue(ttl > 0 && ttl <= 10500, "剩余时间足够时不应该执行PEXPIRE");
+    }
+
+    /**
+     * 测试GCRA模式
+     * 验证突发容量内放行，超过后返回需要等待的时间，每个键只保存一个值
+     */
+    @Test
+    public void testGcraMode() {
+        String key = "base_gcra_test";
+        WindowLinThresholdPair pair = WindowLinThresholdPair.of(10, 5);
+        pair.setMode(SlidingWindowMode.GCRA);
+        pair.setBurst(3L);
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertFalse(baseSlidingWindowService.slidingWindowDecide(key, pair).isOverLimit(), "突发容量内的请求应该放行");
+        }
+        SlidingWindowDecision decision = baseSlidingWindowService.slidingWindowDecide(key, pair);
+        Assertions.assertTrue(decision.isOverLimit(), "超过突发容量的请求应该拒绝");
+        Assertions.assertTrue(decision.getRetryAfterInMs() > 0 && decision.getRetryAfterInMs() <= 2000,
+                "等待时间应该不超过一个发放间隔");
+
+        Assertions.assertEquals(DataType.STRING, redisTemplate.type(TEST_KEY_PREFIX + "g:" + key), "每个键只保存一个值");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> baseSlidingWindowService.slidingWindowCalculateCount(key, pair), "GCRA模式不支持计数");
+    }
+
+    /**
+     * 测试一次获取多个许可
+     * 验证按许可数判断阈值，每次获取只写入一个成员，获取失败时不记录，滑出窗口的许可从总数中扣减
+     */
+    @Test
+    public void testAcquire() throws InterruptedException {
+        String key = "base_acquire_test";
+        Assertions.assertTrue(baseSlidingWindowService.slidingWindowAcquire(key, 5, 10, 10), "许可数未达到阈值应该获取成功");
+        Assertions.assertTrue(baseSlidingWindowService.slidingWindowAcquire(key, 4, 10, 10), "许可数未达到阈值应该获取成功");
+        Assertions.assertFalse(baseSlidingWindowService.slidingWindowAcquire(key, 1, 10, 10), "许可数达到阈值应该获取失败");
+        Assertions.assertEquals(3, redisTemplate.opsForZSet().zCard(TEST_KEY_PREFIX + "w:" + key), "每次获取只写入一个成员，另有一个许可总数成员");
+        Assertions.assertEquals(-9.0, redisTemplate.opsForZSet().score(TEST_KEY_PREFIX + "w:" + key, "#total"), "应该维护窗口内的许可总数");
+        Assertions.assertFalse(redisTemplate.hasKey(TEST_KEY_PREFIX + key), "带权重的事件不应写入逐个记录事件的键");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> baseSlidingWindowService.slidingWindowAcquire(key, 10, 10, 10), "许可数不小于阈值时永远无法获取");
+
+        String counterKey = "base_counter_acquire_test";
+        WindowLinThresholdPair pair = WindowLinThresholdPair.of(10, 1000);
+        pair.setMode(SlidingWindowMode.COUNTER);
+        Assertions.assertTrue(baseSlidingWindowService.slidingWindowAcquire(counterKey, 999, pair), "许可数未达到阈值应该获取成功");
+        Assertions.assertFalse(baseSlidingWindowService.slidingWindowAcquire(counterKey, 1, pair), "许可数达到阈值应该获取失败");
+        Assertions.assertEquals(999, baseSlidingWindowService.slidingWindowCalculateCount(counterKey, pair) - 1, "获取失败时不应记录");
+
+        String slidingKey = "base_acquire_sliding_test";
+        WindowLinThresholdPair shortPair = WindowLinThresholdPair.of(2, 10);
+        Assertions.assertTrue(baseSlidingWindowService.slidingWindowAcquire(slidingKey, 5, shortPair), "许可数未达到阈值应该获取成功");
+        TimeUnit.MILLISECONDS.sleep(1100);
+        Assertions.assertTrue(baseSlidingWindowService.slidingWindowAcquire(slidingKey, 4, shortPair), "许可数未达到阈值应该获取成功");
+        Assertions.assertFalse(baseSlidingWindowService.slidingWindowAcquire(slidingKey, 1, shortPair), "许可数达到阈值应该获取失败");
+        TimeUnit.MILLISECONDS.sleep(1000);
+        Assertions.assertTrue(baseSlidingWindowService.slidingWindowAcquire(slidingKey, 5, shortPair), "滑出窗口的许可应该从总数中扣减");
+
+        String gcraKey = "base_gcra_acquire_test";
+        WindowLinThresholdPair gcraPair = WindowLinThresholdPair.of(10, 5);
+        gcraPair.setMode(SlidingWindowMode.GCRA);
+        gcraPair.setBurst(8L);
+        Assertions.assertTrue(baseSlidingWindowService.slidingWindowAcquire(gcraKey, 8, gcraPair), "GCRA模式下许可数不超过突发容量应该获取成功");
+        Assertions.assertFalse(baseSlidingWindowService.slidingWindowAcquire(gcraKey, 1, gcraPair), "突发容量用完后应该获取失败");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> baseSlidingWindowService.slidingWindowAcquire(gcraKey, 9, gcraPair), "许可数超过突发容量时永远无法获取");
+    }
+
+    /**
+     * 测试&#64;SlidingWindowLimit注解
+     * 验证按参数求值的键限流，超过阈值时不再调用方法
+     */
+    @Test
+    public void testSlidingWindowLimit() {
+        String key = "annotation_test";
+        Assertions.assertEquals(key, exampleController.limited(key).get("key"), "未达到阈值应该调用方法");
+        exampleController.limited(key);
+        SlidingWindowLimitException exception = Assertions.assertThrows(SlidingWindowLimitException.class,
+                () -> exampleController.limited(key), "达到阈值应该拒绝");
+        Assertions.assertEquals("limited:" + key, exception.getKey(), "键应该按表达式求值");
+        Assertions.assertNotNull(exampleController.limited("annotation_other_test"), "不同参数使用不同的窗口");
+    }
+
+    /**
+     * 测试窗口内去重计数
+     * 验证重复成员不重复计数，子窗口键带哈希标签
+     */
+    @Test
+    public void testDistinctCount() {
+        String key = "base_distinct_test";
+        redisTemplate.delete(redisTemplate.keys("{" + TEST_KEY_PREFIX + key + "}:*"));
+
+        long count = 0;
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 100; i++) {
+                count = baseSlidingWindowService.slidingWindowDistinctCount(key, "user" + i, 60);
+            }
+        }
+        Assertions.assertTrue(count >= 98 && count <= 102, "重复成员不应重复计数，实际:" + count);
+        Assertions.assertFalse(baseSlidingWindowService.slidingWindowDistinctCalculate(key, "user0", 60, 200), "去重数未达到阈值");
+        Assertions.assertTrue(baseSlidingWindowService.slidingWindowDistinctCalculate(key, "user100", 60, 50), "去重数达到阈值");
+        Assertions.assertFalse(redisTemplate.keys("{" + TEST_KEY_PREFIX + key + "}:*").isEmpty(), "子窗口键应该带哈希标签");
+    }
+
+    /**
+     * 测试写后聚合计数模式
+     * 验证刷新前只在本地累加，刷新后从子窗口计数键读取
+     */
+    @Test
+    public void testAggregatedMode() {
+        String key = "base_aggregated_test";
+        redisTemplate.delete(redisTemplate.keys("{" + TEST_KEY_PREFIX + key + "}:*"));
+        WindowLinThresholdPair pair = WindowLinThresholdPair.of(60, 150);
+        pair.setMode(SlidingWindowMode.AGGREGATED);
+
+        long count = 0;
+        for (int i = 0; i < 100; i++) {
+            count = baseSlidingWindowService.slidingWindowCalculateCount(key, pair);
+        }
+        Assertions.assertEquals(100, count, "本地未刷新的事件应该计入");
+
+        slWriteBehindCounter.flush();
+        Assertions.assertFalse(redisTemplate.keys("{" + TEST_KEY_PREFIX + key + "}:wb:*").isEmpty(), "刷新后应该写入子窗口计数键");
+        Assertions.assertEquals(101, baseSlidingWindowService.slidingWindowCalculateCount(key, pair), "刷新后从Redis读取，不应重复计数");
+        Assertions.assertFalse(baseSlidingWindowService.slidingWindowCalculate(key, pair), "未达到阈值");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> baseSlidingWindowService.slidingWindowAcquire(key, 1, pair), "不支持按数量获取");
+
+        WindowLinThresholdPair shortPair = WindowLinThresholdPair.of(10, 150);
+        shortPair.setMode(SlidingWindowMode.AGGREGATED);
+        Assertions.assertEquals(1, baseSlidingWindowService.slidingWindowCalculateCount(key, shortPair), "同一个键的其他窗口应该单独计数");
+        slWriteBehindCounter.flush();
+        Assertions.assertEquals(2, baseSlidingWindowService.slidingWindowCalculateCount(key, shortPair), "不同窗口的子窗口计数键互不影响");
+        Assertions.assertEquals(103, baseSlidingWindowService.slidingWindowCalculateCount(key, pair), "不同窗口的子窗口计数键互不影响");
+    }
+
+    /**
+     * 测试热点键分片
+     * 验证事件分散到多个分片，阈值按所有分片汇总判断
+     */
+    @Test
+    public void testShardedAggregate() {
+        String key = "base_shard_test";
+        WindowLinThresholdPair pair = WindowLinThresholdPair.of(10, 20);
+        pair.setShards(4);
+
+        for (int i = 0; i < 19; i++) {
+            Assertions.assertFalse(baseSlidingWindowService.slidingWindowCalculate(key, pair), "前19次请求应该未达到阈值");
+        }
+        Assertions.assertTrue(baseSlidingWindowService.slidingWindowCalculate(key, pair), "第20次请求应该达到阈值");
+
+        long total = 0;
+        for (int i = 0; i < 4; i++) {
+            total += redisTemplate.opsForZSet().zCard(TEST_KEY_PREFIX + key + ":" + i);
+        }
+        Assertions.assertEquals(20, total, "所有分片的事件数之和应该等于请求数");
+        Assertions.assertEquals(21, baseSlidingWindowService.slidingWindowCalculateCount(key, pair), "计数应该汇总所有分片");
+    }
+
+    /**
+     * 测试有界写入模式下的热点键分片
+     * 验证所有分片之和达到阈值后不再记录事件
+     */
+    @Test
+    public void testShardedBoundedAggregate() {
+        String key = "base_shard_bounded_test";
+        WindowLinThresholdPair pair = WindowLinThresholdPair.of(10, 20);
+        pair.setShards(4);
+        pair.setMode(SlidingWindowMode.BOUNDED_LOG);
+
+        for (int i = 0; i < 19; i++) {
+            Assertions.assertFalse(baseSlidingWindowService.slidingWindowCalculate(key, pair), "前19次请求应该未达到阈值");
+        }
+        for (int i = 0; i < 50; i++) {
+            Assertions.assertTrue(baseSlidingWindowService.slidingWindowCalculate(key, pair), "之后的请求应该达到阈值");
+        }
+
+        long total = 0;
+        for (int i = 0; i < 4; i++) {
+            total += redisTemplate.opsForZSet().zCard(TEST_KEY_PREFIX + key + ":" + i);
+        }
+        Assertions.assertEquals(19, total, "被拒绝的请求不应写入任何分片");
+    }
+
+    /**
+     * 测试批量计算
+     * 验证结果顺序与请求顺序一致
+     */
+    @Test
+    public void testSlidingWindowCalculateBatch() {
+        SlidingWindowRequest user = SlidingWindowRequest.of("base_batch_user", 10, 2);
+        SlidingWindowRequest ip = SlidingWindowRequest.of("base_batch_ip", 10, 100);
+        SlidingWindowRequest tenant = SlidingWindowRequest.of("base_batch_tenant", 10, 1);
+
+        List<Boolean> results = baseSlidingWindowService.slidingWindowCalculateBatch(Arrays.asList(user, ip, tenant));
+        Assertions.assertEquals(Arrays.asList(false, false, true), results, "结果应该与请求顺序一致");
+
+        results = baseSlidingWindowService.slidingWindowCalculateBatch(Arrays.asList(user, ip, tenant));
+        Assertions.assertEquals(Arrays.asList(true, false, true), results, "第二次批量请求user应该达到阈值");
+    }
+
+    /**
+     * 测试多窗口组合限制
+     * 验证事件只记录一次，并返回触发的窗口下标
+     */
+    @Test
+    public void testSlidingWindowCalculateMulti() {
+        String key = "base_multi_test";
+        List<WindowLinThresholdPair> pairs = Arrays.asList(
+                WindowLinThresholdPair.of(1, 10),
+                WindowLinThresholdPair.of(60, 3));
+
+        Assertions.assertEquals(-1, baseSlidingWindowService.slidingWindowCalculateMulti(key, pairs), "第1次请求不应触发任何窗口");
+        Assertions.assertEquals(-1, baseSlidingWindowService.slidingWindowCalculateMulti(key, pairs), "第2次请求不应触发任何窗口");
+        Assertions.assertEquals(1, baseSlidingWindowService.slidingWindowCalculateMulti(key, pairs), "第3次请求应该触发分钟窗口");
+
+        Long count = redisTemplate.opsForZSet().zCard(TEST_KEY_PREFIX + key);
+        Assertions.assertEquals(3, count, "每次请求只应记录一条数据");
+    }
+
+    /**
+     * 测试同一个键切换存储模式
+     * 验证不同存储结构使用不同的Redis键，不会报WRONGTYPE
+     */
+    @Test
+    public void testModeSwitchOnSameKey() {
+        String key = "base_mode_switch_test";
+        for (SlidingWindowMode mode : Arrays.asList(SlidingWindowMode.LOG, SlidingWindowMode.COUNTER, SlidingWindowMode.GCRA)) {
+            WindowLinThresholdPair pair = WindowLinThresholdPair.of(10, 5);
+            pair.setMode(mode);
+            Assertions.assertFalse(baseSlidingWindowService.slidingWindowCalculate(key, pair), mode + "模式第1次请求应该未达到阈值");
+        }
+        Assertions.assertEquals(-1, baseSlidingWindowService.slidingWindowCalculateMulti(key,
+                Arrays.asList(WindowLinThresholdPair.of(10, 5), WindowLinThresholdPair.of(60, 10))), "多窗口计算应该使用独立的ZSET");
+
+        Assertions.assertEquals(DataType.ZSET, redisTemplate.type(TEST_KEY_PREFIX + key), "滑动日志保持原有键名");
+        Assertions.assertEquals(DataType.HASH, redisTemplate.type(TEST_KEY_PREFIX + "c:" + key), "计数器使用c:段");
+        Assertions.assertEquals(DataType.STRING, redisTemplate.type(TEST_KEY_PREFIX + "g:" + key), "GCRA使用g:段");
+    }
+
+    /**
+     * 测试租约模式
+     * 验证许可在Redis中先记账再消费，窗口已满后拒绝
+     */
+    @Test
+    public void testLeaseCalculate() {
+        String key = "base_lease_test";
+        WindowLinThresholdPair pair = WindowLinThresholdPair.of(10, 5);
+        pair.setMode(SlidingWindowMode.LEASE);
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertFalse(baseSlidingWindowService.slidingWindowCalculate(key, pair), "前4次请求应该未达到阈值");
+        }
+        Assertions.assertTrue(baseSlidingWindowService.slidingWindowCalculate(key, pair), "第5次请求应该达到阈值");
+        Assertions.assertTrue(baseSlidingWindowService.slidingWindowCalculate(key, pair), "租约期内应该直接拒绝");
+        Assertions.assertEquals(DataType.HASH, redisTemplate.type(TEST_KEY_PREFIX + "c:" + key), "租约与计数器共用c:段");
+        Assertions.assertEquals(4, baseSlidingWindowService.slidingWindowCalculateCount(key, pair), "拒绝的请求不应该记账");
+    }
+
+    /**
+     * 测试租约到期后归还未用完的许可
+     * 验证清理线程在下一次获取之前归还许可
+     */
+    @Test
+    public void testLeaseReleaseOnExpiry() throws InterruptedException {
+        String key = "base_lease_release_test";
+        WindowLinThresholdPair pair = WindowLinThresholdPair.of(10, 100);
+        pair.setMode(SlidingWindowMode.LEASE);
+        Assertions.assertFalse(baseSlidingWindowService.slidingWindowCalculate(key, pair), "第1次请求应该获得许可");
+        Assertions.assertEquals(5, baseSlidingWindowService.slidingWindowCalculateCount(key, pair), "应该预留一批许可");
+
+        // 租约不超过一个子窗口(1秒)，清理间隔200ms
+        TimeUnit.MILLISECONDS.sleep(1500);
+        Assertions.assertEquals(1, baseSlidingWindowService.slidingWindowCalculateCount(key, pair), "到期后应该归还未用完的许可");
+    }
+
+    /**
+     * 测试租约键数量达到上限时新键直接访问Redis，不预留租约，也不在请求线程上清理其他键
+     */
+    @Test
+    public void testLeaseMaxKeys() {
+        String leasedKey = TEST_KEY_PREFIX + "c:base_lease_max_keys_leased";
+        String directKey = TEST_KEY_PREFIX + "c:base_lease_max_keys_direct";
+        SlQuotaLeaseManager leaseManager = new SlQuotaLeaseManager();
+        leaseManager.setPlentifulRedisService(baseSlidingWindowService.getPlentifulRedisService());
+        leaseManager.setMaxKeys(1);
+        try {
+            long now = System.currentTimeMillis();
+            Assertions.assertTrue(leaseManager.acquire(leasedKey, now, 10000, 100, 10), "第1个键应该获得租约");
+            Assertions.assertTrue(leaseManager.acquire(directKey, now, 10000, 100, 10), "超过上限的键应该直接获得许可");
+            Assertions.assertTrue(leaseManager.acquire(directKey, now, 10000, 100, 10), "超过上限的键应该直接获得许可");
+            Assertions.assertEquals(5L, sumOf(leasedKey), "第1个键应该预留一批许可");
+            Assertions.assertEquals(2L, sumOf(directKey), "超过上限的键每次只记账一个许可");
+        } finally {
+            leaseManager.destroy();
+        }
+        Assertions.assertEquals(1L, sumOf(leasedKey), "关闭时应该归还未用完的许可");
+    }
+
+    private long sumOf(String hashKey) {
+        long sum = 0;
+        for (Object value : redisTemplate.opsForHash().values(hashKey)) {
+            sum += Long.parseLong(value.toString());
+        }
+        return sum;
+    }
+
+    /**
+     * 测试calculate_until脚本
+     * 验证达到阈值时返回下一次请求最早可能放行的时间
+     */
+    @Test
+    public void testCalculateUntil() {
+        String redisKey = TEST_KEY_PREFIX + "base_until_test";
+        PlentifulRedisService redisService = baseSlidingWindowService.getPlentifulRedisService();
+        Assertions.assertEquals(0L, redisService.slidingWindowCalculateUntil(redisKey, 1000L, 10000L, 3L, 10L), "第1次请求应该未达到阈值");
+        Assertions.assertEquals(0L, redisService.slidingWindowCalculateUntil(redisKey, 2000L, 10000L, 3L, 10L), "第2次请求应该未达到阈值");
+        Assertions.assertEquals(12000L, redisService.slidingWindowCalculateUntil(redisKey, 3000L, 10000L, 3L, 10L), "第2早的事件滑出窗口后才能放行");
+        Assertions.assertEquals(0L, redisService.slidingWindowCalculateUntil(redisKey, 12000L, 10000L, 3L, 10L), "到达拒绝截止时间后应该放行");
+    }
+
+    /**
+     * 测试本地拒绝缓存
+     * 验证拒绝期内不访问Redis，且按窗口与阈值区分
+     */
+    @Test
+    public void testDenyCache() {
+        String key = "base_deny_cache_test";
+        SlDenyCache denyCache = new SlDenyCache(100);
+        baseSlidingWindowService.setSlDenyCache(denyCache);
+        try {
+            Assertions.assertFalse(baseSlidingWindowService.slidingWindowCalculate(key, 10, 3), "第1次请求应该未达到阈值");
+            Assertions.assertFalse(baseSlidingWindowService.slidingWindowCalculate(key, 10, 3), "第2次请求应该未达到阈值");
+            Assertions.assertTrue(baseSlidingWindowService.slidingWindowCalculate(key, 10, 3), "第3次请求应该达到阈值");
+            Assertions.assertTrue(baseSlidingWindowService.slidingWindowCalculate(key, 10, 3), "拒绝期内应该直接拒绝");
+            Assertions.assertEquals(1, denyCache.getHitCount(), "第4次请求应该命中拒绝缓存");
+            Assertions.assertEquals(3, redisTemplate.opsForZSet().zCard(TEST_KEY_PREFIX + key), "命中拒绝缓存的请求不应该记录");
+
+            Assertions.assertFalse(baseSlidingWindowService.slidingWindowCalculate(key, 10, 10), "不同阈值不应该被拒绝");
+            Assertions.assertFalse(baseSlidingWindowService.slidingWindowCalculate(key, 60, 10), "不同窗口不应该被拒绝");
+            Assertions.assertEquals(1, denyCache.getHitCount(), "不同窗口与阈值不应该命中拒绝缓存");
+        } finally {
+            baseSlidingWindowService.setSlDenyCache(null);
+        }
+    }
+
+    /**
+     * 测试跨线程合并调用
+     * 验证滑动日志与计数器的合并脚本按次数记录、每个调用得到的结果与依次执行相同，
+     * 且某个键的脚本出错时只有该键的调用失败
+     */
+    @Test
+    public void testCoalescedCalculate() throws InterruptedException {
+        String logKey = "base_coalesced_log_test";
+        String counterKey = "base_coalesced_counter_test";
+        String wrongTypeKey = "base_coalesced_wrong_type_test";
+        WindowLinThresholdPair counterPair = WindowLinThresholdPair.of(60, 1000);
+        counterPair.setMode(SlidingWindowMode.COUNTER);
+        redisTemplate.opsForValue().set(TEST_KEY_PREFIX + wrongTypeKey, "1");
+
+        PlentifulRedisService redisService = baseSlidingWindowService.getPlentifulRedisService();
+        redisService.setCommandCoalescer(new SlCommandCoalescer(64, 200, 2));
+        redisService.afterPropertiesSet();
+        Set<Long> logCounts = ConcurrentHashMap.newKeySet();
+        Set<Long> counterCounts = ConcurrentHashMap.newKeySet();
+        AtomicInteger failures = new AtomicInteger();
+        try {
+            Thread[] threads = new Thread[12];
+            for (int i = 0; i < threads.length; i++) {
+                int kind = i % 3;
+                threads[i] = new Thread(() -> {
+                    for (int j = 0; j < 50; j++) {
+                        if (kind == 0) {
+                            logCounts.add(baseSlidingWindowService.slidingWindowCalculateCount(logKey, 60));
+                        } else if (kind == 1) {
+                            counterCounts.add(baseSlidingWindowService.slidingWindowCalculateCount(counterKey, counterPair));
+                        } else {
+                            try {
+                                baseSlidingWindowService.slidingWindowCalculateCount(wrongTypeKey, 60);
+                            } catch (DataAccessException e) {
+                                failures.incrementAndGet();
+                            }
+                        }
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } finally {
+            redisService.destroy();
+            redisService.setCommandCoalescer(null);
+        }
+
+        Assertions.assertEquals(200, logCounts.size(), "滑动日志的每个调用应该得到不同的窗口内事件数");
+        Assertions.assertEquals(200L, logCounts.stream().mapToLong(Long::longValue).max().getAsLong());
+        Assertions.assertEquals(200L, redisTemplate.opsForZSet().zCard(TEST_KEY_PREFIX + logKey), "合并后应该按调用次数记录事件");
+        Assertions.assertEquals(200, counterCounts.size(), "计数器的每个调用应该得到不同的窗口内事件数");
+        Assertions.assertEquals(200L, counterCounts.stream().mapToLong(Long::longValue).max().getAsLong());
+        Assertions.assertEquals(201, baseSlidingWindowService.slidingWindowCalculateCount(counterKey, counterPair), "合并后应该按调用次数累加计数");
+        Assertions.assertEquals(200, failures.get(), "类型不对的键的调用应该全部失败，且不影响同一批的其他调用");
+    }
+}
@@ -0,0 +1,122 @@
+package com.uzong.sliding.window.example;
+
+import com.uzong.sliding.window.SceneConfigSource;
+import com.uzong.sliding.window.base.CachedSceneConfigService;
+import com.uzong.sliding.window.config.SlidingWindowProperties;
+import com.uzong.sliding.window.dto.SlidingWindowScene;
+import com.uzong.sliding.window.dto.WindowLinThresholdPair;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * CachedSceneConfigService测试类
+ * 场景注册表不依赖Redis，直接构造即可测试
+ */
+public class CachedSceneConfigServiceTest {
+
+    private SlidingWindowProperties properties;
+
+    private Map<String, List<WindowLinThresholdPair>> sourceScenes;
+
+    private CachedSceneConfigService sceneConfigService;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new SlidingWindowProperties();
+        SlidingWindowProperties.Scene login = new SlidingWindowProperties.Scene();
+        login.setWindowLenInSeconds(60);
+        login.setThreshold(5);
+        properties.getScenes().put("login", login);
+
+        sourceScenes = new HashMap<>();
+        SceneConfigSource source = () -> sourceScenes;
+        sceneConfigService = new CachedSceneConfigService(properties, Collections.singletonList(source));
+        sceneConfigService.afterPropertiesSet();
+    }
+
+    /**
+     * 测试从配置属性加载场景
+     * 验证主窗口与键前缀
+     */
+    @Test
+    public void testLoadFromProperties() {
+        SlidingWindowScene scene = sceneConfigService.getScene("login");
+        Assertions.assertNotNull(scene, "配置中的场景应该被加载");
+        Assertions.assertEquals("login:", scene.getKeyPrefix(), "键前缀应该为场景名加冒号");
+        Assertions.assertEquals(60, scene.getPair().getWindowLenInSeconds());
+        Assertions.assertEquals(5, scene.getPair().getThreshold());
+        Assertions.assertSame(scene, sceneConfigService.getScene("login"), "未刷新时应该返回同一个快照");
+        Assertions.assertNull(sceneConfigService.getScene("unknown"), "未配置的场景应该返回空");
+    }
+
+    /**
+     * 测试刷新
+     * 验证来源中的场景覆盖配置属性，且刷新前获取的快照不受影响
+     */
+    @Test
+    public void testRefresh() {
+        SlidingWindowScene before = sceneConfigService.getScene("login");
+
+        sourceScenes.put("login", Arrays.asList(WindowLinThresholdPair.of(1, 3), WindowLinThresholdPair.of(60, 20)));
+        sceneConfigService.refresh();
+
+        SlidingWindowScene after = sceneConfigService.getScene("login");
+        Assertions.assertEquals(2, after.getPairs().size(), "来源中的场景应该覆盖配置属性");
+        Assertions.assertEquals(3, sceneConfigService.getSceneConfig("login").getThreshold(), "主窗口应该为第一个窗口");
+        Assertions.assertEquals(5, before.getPair().getThreshold(), "刷新前的快照不应该被修改");
+    }
+
+    /**
+     * 测试快照与来源对象隔离
+     * 验证修改来源中的窗口配置不影响快照，且快照的窗口列表不可修改
+     */
+    @Test
+    public void testSnapshotCopiesPairs() {
+        WindowLinThresholdPair pair = WindowLinThresholdPair.of(10, 2);
+        sourceScenes.put("copy", Collections.singletonList(pair));
+        sceneConfigService.refresh();
+
+        pair.setThreshold(100);
+        SlidingWindowScene scene = sceneConfigService.getScene("copy");
+        Assertions.assertEquals(2, scene.getPair().getThreshold(), "修改来源对象不应该影响快照");
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> scene.getPairs().add(WindowLinThresholdPair.of(1, 1)), "快照的窗口列表不应该可以修改");
+    }
+
+    /**
+     * 测试来源返回空
+     * 验证跳过空的来源、空的窗口列表与空的窗口配置，不影响其他场景
+     */
+    @Test
+    public void testRefreshWithNulls() {
+        SceneConfigSource nullSource = () -> null;
+        sourceScenes.put("empty", null);
+        sourceScenes.put("partial", Arrays.asList(null, WindowLinThresholdPair.of(10, 2)));
+        CachedSceneConfigService service = new CachedSceneConfigService(properties,
+                Arrays.asList(nullSource, () -> sourceScenes));
+        service.refresh();
+
+        Assertions.assertNotNull(service.getScene("login"), "配置中的场景不应该受影响");
+        Assertions.assertNull(service.getScene("empty"), "没有窗口的场景应该被跳过");
+        Assertions.assertEquals(1, service.getSceneConfigs("partial").size(), "空的窗口配置应该被跳过");
+    }
+
+    /**
+     * 测试关闭场景键前缀
+     * 验证场景下的键沿用原始key
+     */
+    @Test
+    public void testKeyPrefixDisabled() {
+        properties.setSceneKeyPrefixEnabled(false);
+        sceneConfigService.refresh();
+        Assertions.assertEquals("", sceneConfigService.getScene("login").getKeyPrefix(), "关闭后不应该加场景前缀");
+    }
+}
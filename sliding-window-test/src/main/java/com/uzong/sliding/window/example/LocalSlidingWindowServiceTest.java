@@ -0,0 +1,179 @@
+package com.uzong.sliding.window.example;
+
+import com.uzong.sliding.window.base.LocalSlidingWindowService;
+import com.uzong.sliding.window.core.SlLocalWindow;
+import com.uzong.sliding.window.core.SlLocalWindowStore;
+import com.uzong.sliding.window.dto.WindowLinThresholdPair;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * LocalSlidingWindowService测试类
+ * 本地引擎不依赖Redis，直接构造即可测试
+ */
+public class LocalSlidingWindowServiceTest {
+
+    private LocalSlidingWindowService localSlidingWindowService;
+
+    private SlLocalWindowStore localWindowStore;
+
+    @BeforeEach
+    public void setUp() {
+        localWindowStore = new SlLocalWindowStore(10, 4, 100);
+        localSlidingWindowService = new LocalSlidingWindowService();
+        localSlidingWindowService.setLocalWindowStore(localWindowStore);
+    }
+
+    /**
+     * 测试本地滑动窗口计算功能
+     */
+    @Test
+    public void testSlidingWindowCalculate() {
+        String key = "local_calculate_test";
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertFalse(localSlidingWindowService.slidingWindowCalculate(key, 5, 5), "前4次请求应该未达到阈值");
+        }
+        Assertions.assertTrue(localSlidingWindowService.slidingWindowCalculate(key, 5, 5), "第5次请求应该达到阈值");
+    }
+
+    /**
+     * 测试本地滑动窗口计算并清理功能
+     */
+    @Test
+    public void testSlidingWindowCalculateAndCleanUp() {
+        String key = "local_cleanup_test";
+        for (int i = 0; i < 4; i++) {
+            localSlidingWindowService.slidingWindowCalculateAndCleanUp(key, 5, 5);
+        }
+        Assertions.assertTrue(localSlidingWindowService.slidingWindowCalculateAndCleanUp(key, 5, 5), "第5次请求应该达到阈值并清理数据");
+        Assertions.assertEquals(1, localSlidingWindowService.slidingWindowCalculateCount(key, 5), "清理后窗口应该重新计数");
+    }
+
+    /**
+     * 测试窗口滑动功能
+     */
+    @Test
+    public void testWindowSliding() throws InterruptedException {
+        String key = "local_sliding_test";
+        for (int i = 0; i < 5; i++) {
+            localSlidingWindowService.slidingWindowCalculateCount(key, 1);
+        }
+        TimeUnit.MILLISECONDS.sleep(1200);
+        Assertions.assertEquals(1, localSlidingWindowService.slidingWindowCalculateCount(key, 1), "窗口期过后应该只剩新的请求");
+    }
+
+    /**
+     * 测试高并发场景下计数不丢失
+     */
+    @Test
+    public void testConcurrentRequests() throws InterruptedException {
+        String key = "local_concurrent_test";
+        Thread[] threads = new Thread[16];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    localSlidingWindowService.slidingWindowCalculate(key, 100, Long.MAX_VALUE);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertEquals(16001, localSlidingWindowService.slidingWindowCalculateCount(key, 100), "所有请求都应该被计数");
+    }
+
+    /**
+     * 测试键数量上限
+     */
+    @Test
+    public void testMaxKeys() {
+        for (int i = 0; i < 500; i++) {
+            localSlidingWindowService.slidingWindowCalculate("local_key_" + i, 10, 10);
+        }
+        Assertions.assertTrue(localWindowStore.size() <= 100, "键数量不应超过上限");
+    }
+
+    /**
+     * 测试同一个键使用不同窗口长度时互不影响
+     */
+    @Test
+    public void testMultipleWindowsOnSameKey() {
+        String key = "local_multi_window_test";
+        for (int i = 0; i < 3; i++) {
+            localSlidingWindowService.slidingWindowCalculate(key, 1, 10);
+            localSlidingWindowService.slidingWindowCalculate(key, 60, 10);
+        }
+        Assertions.assertEquals(4, localSlidingWindowService.slidingWindowCalculateCount(key, 1), "1秒窗口不应被60秒窗口重置");
+        Assertions.assertEquals(4, localSlidingWindowService.slidingWindowCalculateCount(key, 60), "60秒窗口不应被1秒窗口重置");
+    }
+
+    /**
+     * 测试多窗口组合限流：窗口长度相同、阈值不同的配置各自计数，不会重复记录
+     */
+    @Test
+    public void testSlidingWindowCalculateMulti() {
+        String key = "local_multi_test";
+        List<WindowLinThresholdPair> pairs = Arrays.asList(WindowLinThresholdPair.of(10, 3), WindowLinThresholdPair.of(10, 5));
+        Assertions.assertEquals(-1, localSlidingWindowService.slidingWindowCalculateMulti(key, pairs), "第1次请求不应触发任何窗口");
+        Assertions.assertEquals(-1, localSlidingWindowService.slidingWindowCalculateMulti(key, pairs), "第2次请求不应触发任何窗口");
+        Assertions.assertEquals(0, localSlidingWindowService.slidingWindowCalculateMulti(key, pairs), "第3次请求应该触发阈值为3的窗口");
+        Assertions.assertEquals(4, localSlidingWindowService.slidingWindowCalculateCount(key + "#1", 10), "每次请求在每个配置上只记录一次");
+    }
+
+    /**
+     * 测试并发插入时键数量不超过上限
+     */
+    @Test
+    public void testConcurrentMaxKeys() throws InterruptedException {
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            int offset = i * 1000;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    localSlidingWindowService.slidingWindowCalculate("local_concurrent_key_" + (offset + j), 10, 10);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertTrue(localWindowStore.size() <= 100, "并发插入时键数量不应超过上限");
+    }
+
+    /**
+     * 测试按数量获取许可：许可数不小于阈值时直接拒绝，获取失败时不记录
+     */
+    @Test
+    public void testAcquire() {
+        String key = "local_acquire_test";
+        Assertions.assertTrue(localSlidingWindowService.slidingWindowAcquire(key, 5, 10, 10), "许可数未达到阈值应该获取成功");
+        Assertions.assertFalse(localSlidingWindowService.slidingWindowAcquire(key, 5, 10, 10), "许可数达到阈值应该获取失败");
+        Assertions.assertEquals(6, localSlidingWindowService.slidingWindowCalculateCount(key, 10), "获取失败时不应记录");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> localSlidingWindowService.slidingWindowAcquire(key, 10, 10, 10), "许可数不小于阈值时永远无法获取");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> localSlidingWindowService.slidingWindowAcquire(key, Long.MAX_VALUE, 10, 10), "许可数不小于阈值时永远无法获取");
+    }
+
+    /**
+     * 测试子窗口计数达到上限后饱和，不会进位到桶序号
+     */
+    @Test
+    public void testCountSaturation() {
+        SlLocalWindow window = new SlLocalWindow(10000, 10, 1);
+        long now = System.currentTimeMillis();
+        window.add(now, Long.MAX_VALUE);
+        window.add(now, 1);
+        Assertions.assertEquals(0xFFFFFFFFL, window.count(now), "子窗口计数应该停在上限");
+        window.add(now, 0xFFFFFFFFL);
+        Assertions.assertEquals(0xFFFFFFFFL, window.count(now), "子窗口计数应该停在上限");
+    }
+}
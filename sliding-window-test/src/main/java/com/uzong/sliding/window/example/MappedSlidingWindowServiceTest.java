@@ -0,0 +1,201 @@
+package com.uzong.sliding.window.example;
+
+import com.uzong.sliding.window.base.MappedSlidingWindowService;
+import com.uzong.sliding.window.core.SlMappedWindowStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+
+
+/**
+ * MappedSlidingWindowService测试类
+ * 映射文件引擎不依赖Redis，使用临时文件直接构造即可测试
+ */
+public class MappedSlidingWindowServiceTest {
+
+    @TempDir
+    File tempDir;
+
+    private File file;
+
+    private MappedSlidingWindowService mappedSlidingWindowService;
+
+    @BeforeEach
+    public void setUp() {
+        file = new File(tempDir, "sliding-window.dat");
+        mappedSlidingWindowService = serviceOf(new SlMappedWindowStore(file, 10, 1000));
+    }
+
+    /**
+     * 测试映射文件滑动窗口计算并清理功能
+     */
+    @Test
+    public void testSlidingWindowCalculateAndCleanUp() {
+        String key = "mapped_cleanup_test";
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertFalse(mappedSlidingWindowService.slidingWindowCalculateAndCleanUp(key, 5, 5), "前4次请求应该未达到阈值");
+        }
+        Assertions.assertTrue(mappedSlidingWindowService.slidingWindowCalculateAndCleanUp(key, 5, 5), "第5次请求应该达到阈值并清理数据");
+        Assertions.assertEquals(1, mappedSlidingWindowService.slidingWindowCalculateCount(key, 5), "清理后窗口应该重新计数");
+    }
+
+    /**
+     * 测试同一个键交替使用两个窗口长度时互不清空，各自达到阈值
+     */
+    @Test
+    public void testMultipleWindowsOnSameKey() {
+        String key = "mapped_multi_window_test";
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertFalse(mappedSlidingWindowService.slidingWindowCalculate(key, 10, 5), "前4次请求应该未达到10秒窗口的阈值");
+            Assertions.assertFalse(mappedSlidingWindowService.slidingWindowCalculate(key, 60, 10), "前4次请求应该未达到60秒窗口的阈值");
+        }
+        Assertions.assertTrue(mappedSlidingWindowService.slidingWindowCalculate(key, 10, 5), "10秒窗口不应被60秒窗口清空");
+        Assertions.assertEquals(5, mappedSlidingWindowService.slidingWindowCalculateCount(key, 60), "60秒窗口不应被10秒窗口清空");
+    }
+
+    /**
+     * 测试重新打开文件后计数仍然有效
+     */
+    @Test
+    public void testReloadAfterRestart() {
+        String key = "mapped_restart_test";
+        for (int i = 0; i < 10; i++) {
+            mappedSlidingWindowService.slidingWindowCalculate(key, 60, 100);
+        }
+        mappedSlidingWindowService.getMappedWindowStore().close();
+
+        MappedSlidingWindowService restarted = serviceOf(new SlMappedWindowStore(file, 10, 1000));
+        Assertions.assertEquals(11, restarted.slidingWindowCalculateCount(key, 60), "重启后应该保留之前的计数");
+
+        long length = file.length();
+        Assertions.assertThrows(IllegalStateException.class, () -> new SlMappedWindowStore(file, 12, 1000),
+                "配置变化时应该启动失败");
+        Assertions.assertEquals(length, file.length(), "配置变化时不应该清空文件");
+        Assertions.assertEquals(12, restarted.slidingWindowCalculateCount(key, 60), "配置变化时不应该清空计数");
+    }
+
+    /**
+     * 测试不是映射窗口格式的文件不会被清空
+     */
+    @Test
+    public void testForeignFile() throws IOException {
+        File foreign = new File(tempDir, "foreign.dat");
+        byte[] content = "not a sliding window file".getBytes(StandardCharsets.UTF_8);
+        Files.write(foreign.toPath(), content);
+        Assertions.assertThrows(IllegalStateException.class, () -> new SlMappedWindowStore(foreign, 10, 1000),
+                "文件格式不一致时应该启动失败");
+        Assertions.assertArrayEquals(content, Files.readAllBytes(foreign.toPath()), "不应该改写其他文件");
+    }
+
+    /**
+     * 测试进程在占用槽位时退出，重新加载文件后清理未完成的占用
+     */
+    @Test
+    public void testReleaseClaimingOnLoad() throws IOException {
+        String key = "mapped_claiming_test";
+        mappedSlidingWindowService.slidingWindowCalculate(key, 60, 100);
+        mappedSlidingWindowService.getMappedWindowStore().close();
+        markAllClaiming(file);
+
+        MappedSlidingWindowService restarted = serviceOf(new SlMappedWindowStore(file, 10, 1000));
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1),
+                () -> Assertions.assertEquals(1, restarted.slidingWindowCalculateCount(key, 60), "未完成的占用应该被清空"),
+                "加载时应该清理未完成的占用，不需要等待");
+        Assertions.assertEquals(1, restarted.slidingWindowCalculateCount("mapped_claiming_other", 60), "清理后的槽位可以复用");
+    }
+
+    /**
+     * 测试共享文件的其他进程在占用槽位时退出，等待超时后清理，不会一直等待
+     */
+    @Test
+    public void testReleaseClaimingOnTimeout() throws IOException {
+        markAllClaiming(file);
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> Assertions.assertEquals(1, mappedSlidingWindowService.slidingWindowCalculateCount("mapped_timeout_test", 60)),
+                "等待超时后应该清理未完成的占用");
+    }
+
+    /**
+     * 测试高并发场景下计数不丢失
+     */
+    @Test
+    public void testConcurrentRequests() throws InterruptedException {
+        String key = "mapped_concurrent_test";
+        Thread[] threads = new Thread[16];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    mappedSlidingWindowService.slidingWindowCalculate(key, 100, Long.MAX_VALUE);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertEquals(16001, mappedSlidingWindowService.slidingWindowCalculateCount(key, 100), "所有请求都应该被计数");
+    }
+
+    /**
+     * 测试键数量超过槽位数时复用最久未访问的槽位
+     */
+    @Test
+    public void testMaxKeys() {
+        for (int i = 0; i < 5000; i++) {
+            mappedSlidingWindowService.slidingWindowCalculate("mapped_key_" + i, 10, 10);
+        }
+        Assertions.assertEquals(2, mappedSlidingWindowService.slidingWindowCalculateCount("mapped_key_4999", 10), "最近访问的键应该保留");
+        Assertions.assertEquals(64 + 2048L * (32 + 8 * 10), file.length(), "文件大小不应随键数量增长");
+    }
+
+    /**
+     * 测试按数量获取许可：许可数不小于阈值时直接拒绝，子窗口计数达到上限后饱和
+     */
+    @Test
+    public void testAcquire() {
+        String key = "mapped_acquire_test";
+        Assertions.assertTrue(mappedSlidingWindowService.slidingWindowAcquire(key, 5, 10, 10), "许可数未达到阈值应该获取成功");
+        Assertions.assertFalse(mappedSlidingWindowService.slidingWindowAcquire(key, 5, 10, 10), "许可数达到阈值应该获取失败");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> mappedSlidingWindowService.slidingWindowAcquire(key, Long.MAX_VALUE, 10, 10), "许可数不小于阈值时永远无法获取");
+
+        try (SlMappedWindowStore store = new SlMappedWindowStore(new File(tempDir, "saturation.dat"), 10, 1000)) {
+            long now = System.currentTimeMillis();
+            store.add(key, 10000, now, Long.MAX_VALUE);
+            store.add(key, 10000, now, 1);
+            Assertions.assertEquals(0xFFFFFFFFL, store.count(key, 10000, now), "子窗口计数应该停在上限，不会进位到桶序号");
+        }
+    }
+
+    /**
+     * 把所有槽位的指纹高位改为CLAIMING，模拟占用过程中退出的进程
+     */
+    private static void markAllClaiming(File file) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int capacity = mapped.getInt(16);
+            int slotSize = 32 + 8 * mapped.getInt(12);
+            for (int i = 0; i < capacity; i++) {
+                mapped.putLong(64 + i * slotSize, Long.MIN_VALUE);
+            }
+            mapped.force();
+        }
+    }
+
+    private static MappedSlidingWindowService serviceOf(SlMappedWindowStore store) {
+        MappedSlidingWindowService service = new MappedSlidingWindowService();
+        service.setMappedWindowStore(store);
+        return service;
+    }
+}
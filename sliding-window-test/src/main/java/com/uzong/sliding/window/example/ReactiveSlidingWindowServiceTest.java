@@ -0,0 +1,113 @@
+package com.uzong.sliding.window.example;
+
+import com.uzong.sliding.window.AsyncSlidingWindowService;
+import com.uzong.sliding.window.ReactiveSlidingWindowService;
+import com.uzong.sliding.window.base.BaseSlidingWindowService;
+import com.uzong.sliding.window.dto.SlidingWindowMode;
+import com.uzong.sliding.window.dto.WindowLinThresholdPair;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ExecutionException;
+
+
+/**
+ * ReactiveSlidingWindowService与AsyncSlidingWindowService测试类
+ * 与阻塞版本共用存储结构
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class ReactiveSlidingWindowServiceTest {
+
+    @Autowired
+    private ReactiveSlidingWindowService reactiveSlidingWindowService;
+
+    @Autowired
+    private AsyncSlidingWindowService asyncSlidingWindowService;
+
+    @Autowired
+    private BaseSlidingWindowService baseSlidingWindowService;
+
+    @Autowired
+    private RedisTemplate redisTemplate;
+
+    private static final String TEST_KEY_PREFIX = "sl_:";
+
+    @BeforeEach
+    public void setUp() {
+        redisTemplate.delete(redisTemplate.keys(TEST_KEY_PREFIX + "*"));
+    }
+
+    /**
+     * 测试响应式计算与计数
+     */
+    @Test
+    public void testReactiveCalculate() {
+        String key = "reactive_calculate_test";
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertFalse(reactiveSlidingWindowService.slidingWindowCalculate(key, 10, 5).block(), "前4次请求应该未达到阈值");
+        }
+        Assertions.assertTrue(reactiveSlidingWindowService.slidingWindowCalculate(key, 10, 5).block(), "第5次请求应该达到阈值");
+        Assertions.assertEquals(6, reactiveSlidingWindowService.slidingWindowCalculateCount(key, 10).block(), "窗口内应该有6次请求");
+        Assertions.assertEquals(7, baseSlidingWindowService.slidingWindowCalculateCount(key, 10), "与阻塞版本共用存储结构");
+    }
+
+    /**
+     * 测试同一个Mono重复订阅时每次都记录新的事件
+     */
+    @Test
+    public void testResubscribe() {
+        String key = "reactive_resubscribe_test";
+        Mono<Long> count = reactiveSlidingWindowService.slidingWindowCalculateCount(key, 10);
+        Assertions.assertEquals(1, count.block(), "第1次订阅应该记录1次");
+        Assertions.assertEquals(2, count.block(), "重复订阅应该生成新的事件ID");
+    }
+
+    /**
+     * 测试按调用指定存储模式
+     */
+    @Test
+    public void testPairMode() {
+        String key = "reactive_counter_test";
+        WindowLinThresholdPair pair = WindowLinThresholdPair.of(10, 3);
+        pair.setMode(SlidingWindowMode.COUNTER);
+        Assertions.assertFalse(reactiveSlidingWindowService.slidingWindowCalculate(key, pair).block(), "第1次请求应该未达到阈值");
+        Assertions.assertFalse(reactiveSlidingWindowService.slidingWindowCalculate(key, pair).block(), "第2次请求应该未达到阈值");
+        Assertions.assertTrue(reactiveSlidingWindowService.slidingWindowCalculate(key, pair).block(), "第3次请求应该达到阈值");
+        Assertions.assertTrue(redisTemplate.hasKey(TEST_KEY_PREFIX + "c:" + key), "应该按调用指定的模式写入HASH");
+        Assertions.assertEquals(4, baseSlidingWindowService.slidingWindowCalculateCount(key, pair), "与阻塞版本共用计数");
+    }
+
+    /**
+     * 测试异步计算
+     */
+    @Test
+    public void testAsyncCalculate() throws ExecutionException, InterruptedException {
+        String key = "async_calculate_test";
+        Assertions.assertFalse(asyncSlidingWindowService.slidingWindowCalculate(key, 10, 2).get(), "第1次请求应该未达到阈值");
+        Assertions.assertTrue(asyncSlidingWindowService.slidingWindowCalculate(key, 10, 2).get(), "第2次请求应该达到阈值");
+        Assertions.assertTrue(asyncSlidingWindowService.slidingWindowCalculateAndCleanUp(key, 10, 2).get(), "第3次请求应该达到阈值并清理");
+        Assertions.assertEquals(1, asyncSlidingWindowService.slidingWindowCalculateCount(key, 10).get(), "清理后窗口应该重新计数");
+    }
+
+    /**
+     * 测试响应式GCRA模式按配置的突发容量放行
+     */
+    @Test
+    public void testReactiveGcraBurst() {
+        String key = "reactive_gcra_test";
+        WindowLinThresholdPair pair = WindowLinThresholdPair.of(10, 5);
+        pair.setMode(SlidingWindowMode.GCRA);
+        pair.setBurst(3L);
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertFalse(reactiveSlidingWindowService.slidingWindowCalculate(key, pair).block(), "突发容量内的请求应该放行");
+        }
+        Assertions.assertTrue(reactiveSlidingWindowService.slidingWindowCalculate(key, pair).block(), "超过突发容量的请求应该拒绝");
+    }
+}
@@ -0,0 +1,162 @@
+package com.uzong.sliding.window.example;
+
+import com.uzong.sliding.window.core.SlCircuitBreaker;
+import com.uzong.sliding.window.core.SlCircuitBreakerStateEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * SlCircuitBreaker测试类
+ * 熔断器不依赖Redis，直接构造并传入时间即可测试
+ */
+public class SlCircuitBreakerTest {
+
+    private SlCircuitBreaker circuitBreaker;
+
+    private List<SlCircuitBreakerStateEvent> events;
+
+    @BeforeEach
+    public void setUp() {
+        circuitBreaker = new SlCircuitBreaker();
+        circuitBreaker.setMinimumCalls(10);
+        circuitBreaker.setFailureRateThreshold(0.5);
+        circuitBreaker.setSlowCallThresholdInMs(100);
+        circuitBreaker.setOpenDurationInMs(1000);
+        circuitBreaker.setHalfOpenProbes(2);
+        events = new ArrayList<>();
+        circuitBreaker.setApplicationEventPublisher(event -> events.add((SlCircuitBreakerStateEvent) event));
+    }
+
+    /**
+     * 测试慢调用计为失败并打开熔断器
+     */
+    @Test
+    public void testOpenOnSlowCalls() {
+        long now = 10_000;
+        for (int i = 0; i < 5; i++) {
+            circuitBreaker.onSuccess(10, now);
+        }
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertTrue(circuitBreaker.tryAcquire(now), "关闭状态应该允许调用");
+            circuitBreaker.onSuccess(500, now);
+        }
+        Assertions.assertEquals(SlCircuitBreaker.State.OPEN, circuitBreaker.getState(), "慢调用比例达到阈值后应该打开");
+        Assertions.assertFalse(circuitBreaker.tryAcquire(now + 999), "打开期间应该直接降级");
+        Assertions.assertEquals(1, events.size(), "状态变化应该发布事件");
+        Assertions.assertEquals(SlCircuitBreaker.State.OPEN, events.get(0).getTo());
+    }
+
+    /**
+     * 测试半开状态探测成功后关闭，探测失败后重新打开
+     */
+    @Test
+    public void testHalfOpenProbes() {
+        long now = 10_000;
+        for (int i = 0; i < 10; i++) {
+            circuitBreaker.onFailure(now);
+        }
+        Assertions.assertEquals(SlCircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        now += 1000;
+        Assertions.assertTrue(circuitBreaker.tryAcquire(now), "打开时间结束后应该放行探测调用");
+        Assertions.assertTrue(circuitBreaker.tryAcquire(now), "应该放行配置数量的探测调用");
+        Assertions.assertFalse(circuitBreaker.tryAcquire(now), "超过探测数量应该降级");
+        circuitBreaker.onFailure(now);
+        Assertions.assertEquals(SlCircuitBreaker.State.OPEN, circuitBreaker.getState(), "探测失败应该重新打开");
+
+        now += 1000;
+        Assertions.assertTrue(circuitBreaker.tryAcquire(now));
+        Assertions.assertTrue(circuitBreaker.tryAcquire(now));
+        circuitBreaker.onSuccess(10, now);
+        circuitBreaker.onSuccess(10, now);
+        Assertions.assertEquals(SlCircuitBreaker.State.CLOSED, circuitBreaker.getState(), "探测全部成功应该关闭");
+    }
+
+    /**
+     * 测试非Redis异常归还探测名额，半开状态不会卡住
+     */
+    @Test
+    public void testReleaseProbe() {
+        long now = 10_000;
+        for (int i = 0; i < 10; i++) {
+            circuitBreaker.onFailure(now);
+        }
+        now += 1000;
+        Assertions.assertTrue(circuitBreaker.tryAcquire(now));
+        Assertions.assertTrue(circuitBreaker.tryAcquire(now));
+        Assertions.assertFalse(circuitBreaker.tryAcquire(now), "探测名额已经用完");
+        circuitBreaker.release();
+        circuitBreaker.release();
+        Assertions.assertTrue(circuitBreaker.tryAcquire(now), "归还后应该可以重新探测");
+        Assertions.assertTrue(circuitBreaker.tryAcquire(now));
+        circuitBreaker.onSuccess(10, now);
+        circuitBreaker.onSuccess(10, now);
+        Assertions.assertEquals(SlCircuitBreaker.State.CLOSED, circuitBreaker.getState(), "重新探测成功后应该关闭");
+    }
+
+    /**
+     * 测试并发进入半开状态时放行的探测调用不超过配置数量
+     */
+    @Test
+    public void testConcurrentHalfOpen() throws InterruptedException {
+        long now = 10_000;
+        for (int i = 0; i < 10; i++) {
+            circuitBreaker.onFailure(now);
+        }
+        long probeTime = now + 1000;
+        int threads = 32;
+        AtomicInteger acquired = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    if (circuitBreaker.tryAcquire(probeTime)) {
+                        acquired.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+        Assertions.assertEquals(2, acquired.get(), "并发时放行的探测调用应该等于配置数量");
+    }
+
+    /**
+     * 测试调用等待上限
+     */
+    @Test
+    public void testCallTimeout() {
+        circuitBreaker.setCallTimeoutInMs(50);
+        try {
+            Assertions.assertEquals(1, (int) circuitBreaker.call(() -> 1), "未超时应该返回调用结果");
+            Assertions.assertThrows(QueryTimeoutException.class, () -> circuitBreaker.call(() -> {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 1;
+            }), "超过等待上限应该抛出超时异常");
+            Assertions.assertThrows(IllegalArgumentException.class, () -> circuitBreaker.call(() -> {
+                throw new IllegalArgumentException("bad argument");
+            }), "调用抛出的异常应该原样抛出");
+        } finally {
+            circuitBreaker.destroy();
+        }
+    }
+}
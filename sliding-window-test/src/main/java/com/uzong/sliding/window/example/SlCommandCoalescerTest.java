@@ -0,0 +1,200 @@
+package com.uzong.sliding.window.example;
+
+import com.uzong.sliding.window.core.SlCommandCoalescer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * SlCommandCoalescer测试类
+ * 用内存中的计数代替Redis脚本，只校验合并与结果分配
+ */
+public class SlCommandCoalescerTest {
+
+    private static final byte[] PREFIX = "sl_:".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 测试并发调用合并后每个调用得到的结果与依次单独执行相同
+     */
+    @Test
+    public void testMergeSameKey() throws InterruptedException {
+        Map<String, Long> counts = new HashMap<>();
+        AtomicInteger executions = new AtomicInteger();
+        SlCommandCoalescer coalescer = new SlCommandCoalescer(64, 200, 1);
+        coalescer.start((commands, merged) -> {
+            List<Object> totals = new ArrayList<>(commands.size());
+            for (int i = 0; i < commands.size(); i++) {
+                executions.incrementAndGet();
+                totals.add((double) counts.merge(commands.get(i).getKey(), (long) merged[i], Long::sum));
+            }
+            return totals;
+        });
+
+        Set<Double> results = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[16];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 500; j++) {
+                    results.add(coalescer.submit(SlCommandCoalescer.Kind.LOG, PREFIX, "coalesce_test",
+                            System.currentTimeMillis(), 60000, 60));
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        coalescer.close();
+
+        Assertions.assertEquals(8000, results.size(), "每个调用应该得到不同的窗口内事件数");
+        Assertions.assertEquals(1, results.stream().mapToDouble(Double::doubleValue).min().getAsDouble());
+        Assertions.assertEquals(8000, results.stream().mapToDouble(Double::doubleValue).max().getAsDouble());
+        Assertions.assertTrue(executions.get() < 8000, "同一个键的调用应该被合并");
+    }
+
+    /**
+     * 测试执行失败时异常交还给所有等待的调用，关闭后直接执行
+     */
+    @Test
+    public void testFailure() {
+        SlCommandCoalescer coalescer = new SlCommandCoalescer(64, 0, 1);
+        coalescer.start((commands, merged) -> {
+            if (commands.get(0).getKey().equals("fail")) {
+                throw new IllegalStateException("redis down");
+            }
+            List<Object> totals = new ArrayList<>();
+            for (int count : merged) {
+                totals.add((double) count);
+            }
+            return totals;
+        });
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> coalescer.submit(SlCommandCoalescer.Kind.COUNTER, PREFIX, "fail", System.currentTimeMillis(), 60000, 10));
+        coalescer.close();
+        Assertions.assertEquals(1, coalescer.submit(SlCommandCoalescer.Kind.COUNTER, PREFIX, "ok", System.currentTimeMillis(), 60000, 10));
+    }
+
+    /**
+     * 测试同一批中某个键执行失败时只有该键的调用失败，其余键正常得到结果
+     */
+    @Test
+    public void testGroupFailure() throws InterruptedException {
+        SlCommandCoalescer coalescer = new SlCommandCoalescer(64, 200, 1);
+        coalescer.start((commands, merged) -> {
+            List<Object> totals = new ArrayList<>(commands.size());
+            for (int i = 0; i < commands.size(); i++) {
+                totals.add(commands.get(i).getKey().equals("fail")
+                        ? new IllegalStateException("WRONGTYPE") : (Object) (double) merged[i]);
+            }
+            return totals;
+        });
+
+        AtomicInteger failures = new AtomicInteger();
+        AtomicInteger successes = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            String key = i % 2 == 0 ? "fail" : "ok";
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 100; j++) {
+                    try {
+                        coalescer.submit(SlCommandCoalescer.Kind.LOG, PREFIX, key, System.currentTimeMillis(), 60000, 60);
+                        successes.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        coalescer.close();
+
+        Assertions.assertEquals(400, failures.get(), "失败的键的调用应该全部失败");
+        Assertions.assertEquals(400, successes.get(), "同一批中其余键的调用不受影响");
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> coalescer.submit(SlCommandCoalescer.Kind.LOG, PREFIX, "fail", System.currentTimeMillis(), 60000, 60),
+                "关闭后直接执行时同样抛出该键的异常");
+    }
+
+    /**
+     * 测试发送线程卡住时请求线程按Redis超时加合并延迟失败，不会一直等待
+     */
+    @Test
+    public void testWaitTimeout() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        SlCommandCoalescer coalescer = new SlCommandCoalescer(64, 0, 1, 50);
+        coalescer.start((commands, merged) -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ArrayList<>(Collections.nCopies(commands.size(), (Object) 1.0));
+        });
+        long start = System.nanoTime();
+        Assertions.assertThrows(QueryTimeoutException.class,
+                () -> coalescer.submit(SlCommandCoalescer.Kind.LOG, PREFIX, "timeout", System.currentTimeMillis(), 60000, 60));
+        Assertions.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000, "应该按Redis超时失败");
+        blocked.countDown();
+        coalescer.close();
+    }
+
+    /**
+     * 测试关闭时发送线程未能发送的调用以异常结束
+     */
+    @Test
+    public void testCloseFailsLeftover() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        SlCommandCoalescer coalescer = new SlCommandCoalescer(64, 0, 1, 10000);
+        coalescer.start((commands, merged) -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ArrayList<>(Collections.nCopies(commands.size(), (Object) 1.0));
+        });
+        Thread inFlight = new Thread(() -> coalescer.submit(SlCommandCoalescer.Kind.LOG, PREFIX, "in_flight", System.currentTimeMillis(), 60000, 60));
+        inFlight.start();
+        TimeUnit.MILLISECONDS.sleep(100);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread leftover = new Thread(() -> {
+            try {
+                coalescer.submit(SlCommandCoalescer.Kind.LOG, PREFIX, "leftover", System.currentTimeMillis(), 60000, 60);
+            } catch (RuntimeException e) {
+                failure.set(e);
+            }
+        });
+        leftover.start();
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        // 关闭线程等待发送线程时被中断，不再等待，直接结束队列中剩余的调用
+        Thread closer = new Thread(coalescer::close);
+        closer.start();
+        TimeUnit.MILLISECONDS.sleep(100);
+        closer.interrupt();
+        closer.join();
+        leftover.join(TimeUnit.SECONDS.toMillis(5));
+        Assertions.assertFalse(leftover.isAlive(), "关闭后剩余的调用不应一直等待");
+        Assertions.assertTrue(failure.get() instanceof DataAccessResourceFailureException, "剩余的调用应该以DataAccessException失败");
+        blocked.countDown();
+        inFlight.join();
+    }
+}
@@ -0,0 +1,101 @@
+package com.uzong.sliding.window.example;
+
+import com.uzong.sliding.window.core.PlentifulRedisService;
+import com.uzong.sliding.window.core.SlFunctionLibrary;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * 开启Redis Functions后的集成测试
+ * Redis 7及以上验证通过FCALL计算与FUNCTION FLUSH后的恢复，Redis 7以下验证回退为EVALSHA
+ */
+@SpringBootTest(properties = "sliding.window.functions.enabled=true")
+@ActiveProfiles("test")
+public class SlFunctionCallTest {
+
+    @Autowired
+    private PlentifulRedisService plentifulRedisService;
+
+    @Autowired
+    private RedisTemplate redisTemplate;
+
+    private static final String TEST_KEY_PREFIX = "sl_:";
+
+    @BeforeEach
+    public void setUp() {
+        redisTemplate.delete(redisTemplate.keys(TEST_KEY_PREFIX + "*"));
+    }
+
+    /**
+     * 测试按服务端版本决定是否使用FCALL，两种方式的计算结果一致
+     */
+    @Test
+    public void testCalculate() {
+        SlFunctionLibrary library = plentifulRedisService.getFunctionLibrary();
+        Assertions.assertNotNull(library, "开启Functions时应该创建函数库");
+        assertCalculate(TEST_KEY_PREFIX + "function_calculate");
+        Assertions.assertEquals(SlFunctionLibrary.supportsFunctions(serverVersion()), library.isAvailable(),
+                "Redis 7及以上应该使用FCALL，以下应该回退为EVALSHA");
+    }
+
+    /**
+     * 测试Redis 7及以上通过FCALL调用，函数库被FUNCTION FLUSH清空后重新加载并重试
+     */
+    @Test
+    public void testFunctionFlushRecovery() {
+        Assumptions.assumeTrue(SlFunctionLibrary.supportsFunctions(serverVersion()), "需要Redis 7及以上");
+        SlFunctionLibrary library = plentifulRedisService.getFunctionLibrary();
+        assertCalculate(TEST_KEY_PREFIX + "function_before_flush");
+        Assertions.assertTrue(library.isAvailable());
+        Assertions.assertEquals(library.getVersion(), loadedVersion(library), "函数库应该已经加载");
+
+        redisTemplate.execute((RedisCallback<Object>) connection -> connection.execute("FUNCTION",
+                "FLUSH".getBytes(StandardCharsets.US_ASCII)));
+        assertCalculate(TEST_KEY_PREFIX + "function_after_flush");
+        Assertions.assertTrue(library.isAvailable(), "函数不存在时应该重新加载，而不是回退为EVALSHA");
+        Assertions.assertEquals(library.getVersion(), loadedVersion(library), "FUNCTION FLUSH后应该重新加载函数库");
+    }
+
+    /**
+     * 测试Redis 7以下不发送FCALL，直接回退为EVALSHA
+     */
+    @Test
+    public void testFallbackBeforeRedis7() {
+        Assumptions.assumeFalse(SlFunctionLibrary.supportsFunctions(serverVersion()), "需要Redis 7以下");
+        assertCalculate(TEST_KEY_PREFIX + "function_fallback");
+        Assertions.assertFalse(plentifulRedisService.getFunctionLibrary().isAvailable(), "Redis 7以下应该回退为EVALSHA");
+    }
+
+    private void assertCalculate(String key) {
+        long currentTime = System.currentTimeMillis();
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertFalse(plentifulRedisService.slidingWindowCalculate(key, currentTime + i, 5000L, 5L, 30L),
+                    "前4次请求应该未达到阈值");
+        }
+        Assertions.assertTrue(plentifulRedisService.slidingWindowCalculate(key, currentTime + 4, 5000L, 5L, 30L),
+                "第5次请求应该达到阈值");
+        Assertions.assertEquals(5, redisTemplate.opsForZSet().zCard(key), "每次计算记录一个事件");
+    }
+
+    private String serverVersion() {
+        return (String) redisTemplate.execute((RedisCallback<String>) connection ->
+                SlFunctionLibrary.minServerVersion(connection.serverCommands().info("server")));
+    }
+
+    private String loadedVersion(SlFunctionLibrary library) {
+        byte[] function = ("sl_" + library.getVersion() + "_version").getBytes(StandardCharsets.US_ASCII);
+        Object version = redisTemplate.execute((RedisCallback<Object>) connection ->
+                connection.execute("FCALL", function, new byte[]{'0'}));
+        return version instanceof byte[] ? new String((byte[]) version, StandardCharsets.US_ASCII) : null;
+    }
+}
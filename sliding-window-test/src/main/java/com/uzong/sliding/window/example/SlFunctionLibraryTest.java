@@ -0,0 +1,76 @@
+package com.uzong.sliding.window.example;
+
+import com.uzong.sliding.window.core.SlFunctionLibrary;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+
+/**
+ * SlFunctionLibrary测试类
+ * 只校验库代码的生成与版本，不依赖Redis
+ */
+public class SlFunctionLibraryTest {
+
+    /**
+     * 测试库名、函数名带版本，脚本体包装为函数
+     */
+    @Test
+    public void testCode() {
+        SlFunctionLibrary library = new SlFunctionLibrary(scripts("return 1;"), null);
+        String version = library.getVersion();
+        Assertions.assertEquals(12, version.length());
+        Assertions.assertEquals("sliding_window_" + version, library.getLibraryName());
+        Assertions.assertTrue(library.getCode().startsWith("#!lua name=sliding_window_" + version + "\n"));
+        Assertions.assertTrue(library.getCode().contains("redis.register_function('sl_" + version
+                + "_calculate', function(KEYS, ARGV)\nreturn 1;\nend)"));
+        Assertions.assertTrue(library.getCode().contains("'sl_" + version + "_version'"));
+        Assertions.assertTrue(library.contains("calculate"));
+        Assertions.assertFalse(library.contains("version"));
+        Assertions.assertTrue(library.isAvailable());
+    }
+
+    /**
+     * 测试脚本不变时版本不变，脚本变化时版本变化
+     */
+    @Test
+    public void testVersion() {
+        String version = new SlFunctionLibrary(scripts("return 1;"), null).getVersion();
+        Assertions.assertEquals(version, new SlFunctionLibrary(scripts("return 1;"), null).getVersion());
+        Assertions.assertNotEquals(version, new SlFunctionLibrary(scripts("return 2;"), null).getVersion());
+    }
+
+    /**
+     * 测试按INFO中的redis_version判断是否支持Functions，集群模式取最低版本
+     */
+    @Test
+    public void testServerVersion() {
+        Properties standalone = new Properties();
+        standalone.setProperty("redis_version", "6.2.14");
+        Assertions.assertEquals("6.2.14", SlFunctionLibrary.minServerVersion(standalone));
+        Assertions.assertFalse(SlFunctionLibrary.supportsFunctions("6.2.14"), "Redis 7以下不支持Functions");
+        Assertions.assertTrue(SlFunctionLibrary.supportsFunctions("7.0.0"));
+        Assertions.assertTrue(SlFunctionLibrary.supportsFunctions("7.2.4"));
+        Assertions.assertFalse(SlFunctionLibrary.supportsFunctions(null), "版本未知时按不支持处理");
+        Assertions.assertFalse(SlFunctionLibrary.supportsFunctions("unknown"), "版本无法解析时按不支持处理");
+
+        Properties cluster = new Properties();
+        cluster.setProperty("127.0.0.1:7000.redis_version", "7.2.4");
+        cluster.setProperty("127.0.0.1:7001.redis_version", "6.2.6");
+        cluster.setProperty("127.0.0.1:7000.redis_mode", "cluster");
+        Assertions.assertEquals("6.2.6", SlFunctionLibrary.minServerVersion(cluster), "集群模式应该取最低的版本");
+        Assertions.assertNull(SlFunctionLibrary.minServerVersion(new Properties()));
+    }
+
+    private static Map<String, RedisScript<?>> scripts(String calculate) {
+        Map<String, RedisScript<?>> scripts = new LinkedHashMap<>();
+        scripts.put("calculate", new DefaultRedisScript<>(calculate, Long.class));
+        scripts.put("calculate_count", new DefaultRedisScript<>("return redis.call('zcard', KEYS[1]);", Long.class));
+        return scripts;
+    }
+}
@@ -0,0 +1,60 @@
+package com.uzong.sliding.window.example;
+
+import com.uzong.sliding.window.core.SlHotKeyTracker;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+
+/**
+ * SlHotKeyTracker测试类
+ * 热点键统计在进程内完成，不依赖Redis
+ */
+public class SlHotKeyTrackerTest {
+
+    /**
+     * 测试大量冷键中找出热点键，候选键数量固定
+     */
+    @Test
+    public void testHotKeys() {
+        SlHotKeyTracker tracker = new SlHotKeyTracker(10, 1024, 4, 60000);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 100000; i++) {
+            tracker.record("cold_key_" + i, false, now);
+            if (i % 10 == 0) {
+                tracker.record("hot_key_1", false, now);
+            }
+            if (i % 20 == 0) {
+                tracker.record("hot_key_2", i % 40 == 0, now);
+            }
+        }
+        List<SlHotKeyTracker.HotKey> hotKeys = tracker.current(100, now + 1000);
+        Assertions.assertEquals(10, hotKeys.size(), "候选键数量不应超过容量");
+        Assertions.assertEquals("hot_key_1", hotKeys.get(0).getKey());
+        Assertions.assertEquals("hot_key_2", hotKeys.get(1).getKey());
+        Assertions.assertTrue(hotKeys.get(0).getCalls() >= 10000, "估计值只会偏大");
+        Assertions.assertTrue(hotKeys.get(0).getCallsPerSecond() >= 10000);
+        Assertions.assertEquals(0, hotKeys.get(0).getDenyRatio());
+        Assertions.assertEquals(0.5, hotKeys.get(1).getDenyRatio(), 0.05);
+    }
+
+    /**
+     * 测试周期轮换后保留上一个完整周期，超过两个周期没有调用时清空
+     */
+    @Test
+    public void testPeriod() {
+        SlHotKeyTracker tracker = new SlHotKeyTracker(10, 1024, 4, 1000);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 100; i++) {
+            tracker.record("period_key", true, now);
+        }
+        Assertions.assertTrue(tracker.current(10, now + 1000).isEmpty(), "新周期应该没有统计");
+        List<SlHotKeyTracker.HotKey> previous = tracker.previous(10, now + 1000);
+        Assertions.assertEquals(1, previous.size());
+        Assertions.assertEquals(100, previous.get(0).getCalls());
+        Assertions.assertEquals(100, previous.get(0).getCallsPerSecond(), 0.001);
+        Assertions.assertEquals(1, previous.get(0).getDenyRatio(), 0.001);
+        Assertions.assertTrue(tracker.previous(10, now + 3000).isEmpty(), "上一个周期没有调用时应该为空");
+    }
+}
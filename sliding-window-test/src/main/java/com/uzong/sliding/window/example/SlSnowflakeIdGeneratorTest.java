@@ -0,0 +1,130 @@
+package com.uzong.sliding.window.example;
+
+import com.uzong.sliding.window.core.SlMetricsRecorder;
+import com.uzong.sliding.window.core.SlSnowflakeIdGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * SlSnowflakeIdGenerator测试类
+ * ID在进程内生成，不依赖Redis
+ */
+public class SlSnowflakeIdGeneratorTest {
+
+    private static final long START_TIMESTAMP = 1577836800000L;
+
+    private static final int TIMESTAMP_LEFT = 22;
+
+    /**
+     * 测试多线程并发生成的ID不重复，且每个线程内单调递增
+     */
+    @Test
+    public void testConcurrentUniqueness() throws InterruptedException {
+        SlSnowflakeIdGenerator generator = new SlSnowflakeIdGenerator(1, 1);
+        int threads = 8;
+        int idsPerThread = 200000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet(threads * idsPerThread);
+        AtomicBoolean monotonic = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long last = -1;
+                for (int i = 0; i < idsPerThread; i++) {
+                    long id = generator.nextId();
+                    if (id <= last) {
+                        monotonic.set(false);
+                    }
+                    last = id;
+                    ids.add(id);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        Assertions.assertEquals(threads * idsPerThread, ids.size(), "并发生成的ID不应该重复");
+        Assertions.assertTrue(monotonic.get(), "同一个线程内的ID应该单调递增");
+    }
+
+    /**
+     * 测试序列号用完时借用的时间戳不会明显领先时钟，快速重启后不会与上一个进程的ID重复
+     */
+    @Test
+    public void testBorrowingIsBounded() {
+        SlSnowflakeIdGenerator generator = new SlSnowflakeIdGenerator(0, 0);
+        long maxAhead = Long.MIN_VALUE;
+        for (int i = 0; i < 1000000; i++) {
+            // 传入固定的时间，模拟同一毫秒内的大量请求
+            long id = generator.nextId(System.currentTimeMillis() - 10);
+            long timestamp = (id >>> TIMESTAMP_LEFT) + START_TIMESTAMP;
+            maxAhead = Math.max(maxAhead, timestamp - System.currentTimeMillis());
+        }
+        Assertions.assertTrue(maxAhead <= 1, "借用的时间戳最多领先时钟1ms，实际领先" + maxAhead + "ms");
+    }
+
+    /**
+     * 测试时钟小幅回退时挂起等待时钟追上，仍然保持单调
+     */
+    @Test
+    public void testClockBackwards() {
+        SlSnowflakeIdGenerator generator = new SlSnowflakeIdGenerator(0, 0);
+        long now = System.currentTimeMillis();
+        long first = generator.nextId(now + 3);
+        long second = generator.nextId(now);
+        Assertions.assertTrue(second > first, "时钟回退时ID仍然应该递增");
+        Assertions.assertTrue(System.currentTimeMillis() >= now + 2, "时钟回退时应该等待时钟追上");
+    }
+
+    /**
+     * 测试只在需要等待时钟时记录等待时间
+     */
+    @Test
+    public void testWaitMetric() {
+        SlSnowflakeIdGenerator generator = new SlSnowflakeIdGenerator(0, 0);
+        AtomicLong waits = new AtomicLong();
+        generator.setSlMetricsRecorder(new SlMetricsRecorder() {
+            @Override
+            public void recordIdWait(long elapsedNanos) {
+                waits.incrementAndGet();
+            }
+        });
+        generator.nextId();
+        Assertions.assertEquals(0, waits.get(), "不需要等待时不应记录");
+        long now = System.currentTimeMillis();
+        generator.nextId(now + 3);
+        generator.nextId(now);
+        Assertions.assertEquals(1, waits.get(), "等待时钟追上时应该记录一次");
+    }
+
+    /**
+     * 测试时钟大幅回退(如NTP校时)时直接失败，不占用CPU等待
+     */
+    @Test
+    public void testClockBackwardsBeyondTolerance() {
+        SlSnowflakeIdGenerator generator = new SlSnowflakeIdGenerator(0, 0);
+        long now = System.currentTimeMillis();
+        generator.nextId(now + 5000);
+        long start = System.nanoTime();
+        Assertions.assertThrows(IllegalStateException.class, () -> generator.nextId(now), "时钟回退过多时应该直接失败");
+        Assertions.assertTrue(System.nanoTime() - start < 1_000_000_000L, "不应该等待时钟追上");
+    }
+}
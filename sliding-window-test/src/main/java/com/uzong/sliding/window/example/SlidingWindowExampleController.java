@@ -1,6 +1,7 @@
 package com.uzong.sliding.window.example;
 
 import com.uzong.sliding.window.SlidingWindowService;
+import com.uzong.sliding.window.annotation.SlidingWindowLimit;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -70,6 +71,20 @@ public class SlidingWindowExampleController {
         return result;
     }
 
+    /**
+     * 注解方式限流，超过阈值时抛出SlidingWindowLimitException。http://localhost:8080/sliding-window/limited?key=demoData
+     * @param key 键
+     * @return 结果
+     */
+    @GetMapping("/limited")
+    @SlidingWindowLimit(key = "'limited:' + #key", window = 5, threshold = 3)
+    public Map<String, Object> limited(@RequestParam(value = "key", defaultValue = "AK") String key) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("key", key);
+        result.put("message", "请求成功");
+        return result;
+    }
+
     /**
      * 获取计数。http://localhost:8080/sliding-window/count?key=demoData1&window=4
      * @param key 键